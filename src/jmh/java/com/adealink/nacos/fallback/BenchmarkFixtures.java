@@ -0,0 +1,89 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+
+import java.util.*;
+
+/**
+ * 基准测试的公共构造方法
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+final class BenchmarkFixtures {
+
+    static final String TEST_PUBLIC_IP = "10.0.0.1";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 基准测试使用的默认配置：定期同步间隔足够长，不会在测量期间触发
+     */
+    static NacosFallbackProperties properties() {
+        NacosFallbackProperties properties = new NacosFallbackProperties();
+        properties.setEnabled(true);
+        properties.setTestPublicIp(TEST_PUBLIC_IP);
+        properties.setTestPrivateIpPrefix("172.");
+        properties.setSyncIntervalSeconds(86400);
+        properties.setLeaderElectionWaitMs(0);
+        properties.setBatchRegisterEnabled(true); // 内存服务端模拟 Nacos 2.x，多实例服务需要批量注册
+        return properties;
+    }
+
+    /**
+     * 本地 Nacos 对应的内存服务端
+     */
+    static InMemoryNamingService.Server localServer(InMemoryNamingService.Factory factory,
+                                                   NacosFallbackProperties properties) {
+        return factory.server(properties.getLocalServerAddr());
+    }
+
+    /**
+     * 测试环境 Nacos 对应的内存服务端
+     */
+    static InMemoryNamingService.Server testServer(InMemoryNamingService.Factory factory,
+                                                  NacosFallbackProperties properties) {
+        return factory.server(properties.getTestServerAddr());
+    }
+
+    /**
+     * 创建已成为 Leader 并完成首次同步的同步组件，本地与测试环境 Nacos 均为 factory 中的内存服务端
+     */
+    static NacosFallbackServiceDiscovery startLeader(NacosFallbackProperties properties,
+                                                     InMemoryNamingService.Factory factory) {
+        NacosFallbackServiceDiscovery discovery = new NacosFallbackServiceDiscovery(properties,
+                new DeferredTaskScheduler("nacos-fallback-bench-"), factory, UUID.randomUUID().toString(), true);
+        discovery.initialize();
+        if (!discovery.isLeader()) {
+            throw new IllegalStateException("Benchmark discovery failed to become leader");
+        }
+        return discovery;
+    }
+
+    /**
+     * 测试环境实例，IP 位于 172.16.0.0/12 私网段；重写后 IP 相同，端口各不相同以保证 ip:port 唯一
+     */
+    static List<Instance> testInstances(int count) {
+        List<Instance> instances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            instances.add(instance("172.16." + (i / 250) + "." + (i % 250 + 1), 20000 + i));
+        }
+        return instances;
+    }
+
+    static Instance instance(String ip, int port) {
+        Instance instance = new Instance();
+        instance.setIp(ip);
+        instance.setPort(port);
+        instance.setHealthy(true);
+        instance.setEnabled(true);
+        instance.setEphemeral(true);
+        instance.setWeight(1.0);
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("version", "1.0.0");
+        metadata.put("zone", "test");
+        instance.setMetadata(metadata);
+        return instance;
+    }
+}
@@ -0,0 +1,61 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取并分类本地实例：本地一半为本节点同步的 fallback 实例、一半为原生实例
+ * <p>
+ * 通过 syncSingleService 测量（跳过修订缓存，每次都读取本地 Nacos）；测试环境实例与 fallback 实例一致，对比后不写入。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategorizeBenchmark {
+
+    private static final String SERVICE_NAME = "bench-service";
+
+    @Param({"100", "1000", "10000"})
+    public int instanceCount;
+
+    private InMemoryNamingService.Factory factory;
+    private NacosFallbackServiceDiscovery discovery;
+
+    @Setup
+    public void setUp() {
+        NacosFallbackProperties properties = BenchmarkFixtures.properties();
+        factory = new InMemoryNamingService.Factory();
+        BenchmarkFixtures.testServer(factory, properties).register(properties.getTestGroup(), SERVICE_NAME,
+                BenchmarkFixtures.testInstances(instanceCount / 2).toArray(new Instance[0]));
+
+        List<Instance> nativeInstances = new ArrayList<>(instanceCount / 2);
+        for (int i = 0; i < instanceCount / 2; i++) {
+            nativeInstances.add(BenchmarkFixtures.instance("192.168." + (i / 250) + "." + (i % 250 + 1), 8080));
+        }
+        BenchmarkFixtures.localServer(factory, properties)
+                .register(properties.getLocalGroup(), SERVICE_NAME, nativeInstances.toArray(new Instance[0]));
+        // 首次同步注册 fallback 实例
+        discovery = BenchmarkFixtures.startLeader(properties, factory);
+    }
+
+    @TearDown
+    public void tearDown() {
+        discovery.stop();
+        factory.close();
+    }
+
+    @Benchmark
+    public void categorize() {
+        discovery.syncSingleService(SERVICE_NAME);
+    }
+}
@@ -0,0 +1,70 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个服务同步（syncSingleService，即 syncServiceInstances 中修订值未命中时的读取与对比路径）
+ * <p>
+ * unchanged: 测试环境与本地 fallback 实例一致，只对比不写入；
+ * oneChanged: 每次操作前测试环境中一个实例的权重变化，对比后以批量注册提交完整实例集合（多实例服务不能逐个注册，见 Nacos 2.x 语义）。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstanceDiffBenchmark {
+
+    private static final String UNCHANGED_SERVICE = "bench-service";
+    private static final String CHANGING_SERVICE = "bench-changing-service";
+
+    @Param({"10", "100", "1000"})
+    public int instanceCount;
+
+    private InMemoryNamingService.Factory factory;
+    private InMemoryNamingService.Server testServer;
+    private NacosFallbackProperties properties;
+    private NacosFallbackServiceDiscovery discovery;
+    private Instance changingInstance;
+
+    @Setup
+    public void setUp() {
+        properties = BenchmarkFixtures.properties();
+        factory = new InMemoryNamingService.Factory();
+        testServer = BenchmarkFixtures.testServer(factory, properties);
+        testServer.register(properties.getTestGroup(), UNCHANGED_SERVICE,
+                BenchmarkFixtures.testInstances(instanceCount).toArray(new Instance[0]));
+        List<Instance> changingInstances = BenchmarkFixtures.testInstances(instanceCount);
+        testServer.register(properties.getTestGroup(), CHANGING_SERVICE, changingInstances.toArray(new Instance[0]));
+        changingInstance = changingInstances.get(0);
+        // 首次同步注册 fallback 实例
+        discovery = BenchmarkFixtures.startLeader(properties, factory);
+    }
+
+    @TearDown
+    public void tearDown() {
+        discovery.stop();
+        factory.close();
+    }
+
+    @Benchmark
+    public void unchanged() {
+        discovery.syncSingleService(UNCHANGED_SERVICE);
+    }
+
+    @Benchmark
+    public void oneChanged() {
+        changingInstance.setWeight(changingInstance.getWeight() == 1.0 ? 0.5 : 1.0);
+        testServer.register(properties.getTestGroup(), CHANGING_SERVICE, changingInstance);
+        discovery.syncSingleService(CHANGING_SERVICE);
+    }
+}
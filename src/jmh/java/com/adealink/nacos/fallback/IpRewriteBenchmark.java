@@ -0,0 +1,68 @@
+package com.adealink.nacos.fallback;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CIDR 规则查找（IpRewriteTable#lookup）吞吐
+ * <p>
+ * ruleCount 为 CIDR 规则数；输入 IP 一半命中规则，一半未命中（同步时随后按私网前缀重写或不重写）。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IpRewriteBenchmark {
+
+    private static final int IP_COUNT = 1024;
+
+    @Param({"1", "16", "256"})
+    public int ruleCount;
+
+    private IpRewriteTable table;
+    private String[] ips;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<NacosFallbackProperties.IpRewriteRule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            NacosFallbackProperties.IpRewriteRule rule = new NacosFallbackProperties.IpRewriteRule();
+            rule.setCidr("10." + i + ".0.0/16");
+            rule.setPublicIp("203.0.113." + (i % 250 + 1));
+            rules.add(rule);
+        }
+        table = IpRewriteTable.compile(rules);
+
+        ips = new String[IP_COUNT];
+        for (int i = 0; i < IP_COUNT; i++) {
+            switch (i % 4) {
+                case 0:
+                case 1:
+                    ips[i] = "10." + (i % ruleCount) + "." + (i % 256) + "." + (i % 200 + 1);
+                    break;
+                case 2:
+                    ips[i] = "172.16." + (i % 256) + "." + (i % 200 + 1);
+                    break;
+                default:
+                    ips[i] = "192.168." + (i % 256) + "." + (i % 200 + 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public String lookup() {
+        String ip = ips[next];
+        next = (next + 1) & (IP_COUNT - 1);
+        return table.lookup(ip);
+    }
+}
@@ -0,0 +1,69 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整同步周期（syncServices）
+ * <p>
+ * 测试环境有 serviceCount 个服务、每个服务 3 个实例；Setup 中完成首次同步并再同步一轮以记录修订值，
+ * 测量的是稳定状态下（无变化）的一轮同步，即每个服务只读取测试环境实例、不读取本地 Nacos 的修订值命中路径。
+ * 本地与测试环境 Nacos 均为压力测试共用的 InMemoryNamingService。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SyncCycleBenchmark {
+
+    private static final int INSTANCES_PER_SERVICE = 3;
+
+    @Param({"1000", "10000"})
+    public int serviceCount;
+
+    @Param({"1", "8"})
+    public int syncParallelism;
+
+    @Param({"false", "true"})
+    public boolean localRegistryViewEnabled;
+
+    private InMemoryNamingService.Factory factory;
+    private NacosFallbackServiceDiscovery discovery;
+
+    @Setup
+    public void setUp() {
+        NacosFallbackProperties properties = BenchmarkFixtures.properties();
+        properties.setSyncParallelism(syncParallelism);
+        properties.setLocalRegistryViewEnabled(localRegistryViewEnabled);
+
+        factory = new InMemoryNamingService.Factory();
+        InMemoryNamingService.Server testServer = BenchmarkFixtures.testServer(factory, properties);
+        for (int i = 0; i < serviceCount; i++) {
+            testServer.register(properties.getTestGroup(), String.format("service-%05d", i),
+                    BenchmarkFixtures.testInstances(INSTANCES_PER_SERVICE).toArray(new Instance[0]));
+        }
+        discovery = BenchmarkFixtures.startLeader(properties, factory);
+        // 首次同步发生写入，不记录修订值；再同步一轮确认无变化后进入稳定状态
+        discovery.syncServices();
+    }
+
+    @TearDown
+    public void tearDown() {
+        discovery.stop();
+        factory.close();
+    }
+
+    @Benchmark
+    public SyncCycleStats steadyStateCycle() {
+        discovery.syncServices();
+        return discovery.getLastCycleStats();
+    }
+}
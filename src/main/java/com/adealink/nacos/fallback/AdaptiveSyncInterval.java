@@ -0,0 +1,49 @@
+package com.adealink.nacos.fallback;
+
+/**
+ * 自适应同步间隔
+ * <p>
+ * 上一周期观察到实例变化时间隔减半（不低于下限），无变化时间隔翻倍（不超过上限），
+ * 使变更频繁时保持新鲜度，空闲时降低对测试环境 Nacos 的压力。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+class AdaptiveSyncInterval {
+
+    private final long minSeconds;
+    private final long maxSeconds;
+    private long currentSeconds;
+
+    AdaptiveSyncInterval(long initialSeconds, long minSeconds, long maxSeconds) {
+        this.minSeconds = minSeconds;
+        // 上限小于下限时以下限为准
+        this.maxSeconds = Math.max(minSeconds, maxSeconds);
+        this.currentSeconds = clamp(initialSeconds);
+    }
+
+    /**
+     * 根据本周期是否有变化计算下一次同步间隔
+     *
+     * @param changed 本周期是否观察到实例变化
+     * @return 下一次同步间隔(秒)
+     */
+    synchronized long next(boolean changed) {
+        if (changed) {
+            currentSeconds = clamp(currentSeconds / 2);
+        } else {
+            // 防止翻倍溢出
+            currentSeconds = currentSeconds > maxSeconds / 2 ? maxSeconds : clamp(currentSeconds * 2);
+        }
+        return currentSeconds;
+    }
+
+    synchronized long current() {
+        return currentSeconds;
+    }
+
+    private long clamp(long seconds) {
+        return Math.min(maxSeconds, Math.max(minSeconds, seconds));
+    }
+}
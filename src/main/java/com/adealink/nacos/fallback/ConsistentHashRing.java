@@ -0,0 +1,107 @@
+package com.adealink.nacos.fallback;
+
+import java.util.*;
+
+/**
+ * 一致性哈希环（分片同步）
+ * <p>
+ * 每个节点在环上放置 virtualNodes 个虚拟节点，服务名哈希后顺时针找到的第一个虚拟节点所属的节点负责同步该服务。
+ * 节点加入或退出时只有约 1/N 的服务改变归属，其余服务保持不变。哈希为自行实现的 64 位 FNV-1a（{@link Fnv64}）
+ * 加 MurmurHash3 末尾混合，不使用 String#hashCode，所有节点对同一成员集合计算出相同的归属。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+final class ConsistentHashRing {
+
+    private final Set<String> members;
+    // 成员集合的指纹，所有节点对同一成员集合得到相同的纪元
+    private final String epoch;
+    // 按哈希值有序的虚拟节点及其所属节点
+    private final long[] points;
+    private final String[] owners;
+
+    private ConsistentHashRing(Set<String> members, long[] points, String[] owners) {
+        this.members = members;
+        this.epoch = Long.toHexString(hash(String.join(",", members)));
+        this.points = points;
+        this.owners = owners;
+    }
+
+    /**
+     * 构建哈希环
+     *
+     * @param members      节点标识（instanceId）
+     * @param virtualNodes 每个节点的虚拟节点数
+     * @throws IllegalArgumentException 节点为空或虚拟节点数不合法
+     */
+    static ConsistentHashRing of(Collection<String> members, int virtualNodes) {
+        if (members == null || members.isEmpty()) {
+            throw new IllegalArgumentException("Consistent hash ring requires at least one member");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive: " + virtualNodes);
+        }
+        Set<String> sortedMembers = Collections.unmodifiableSet(new TreeSet<>(members));
+
+        // 按 (哈希, 节点) 排序，哈希相同时以节点标识决定先后，保证各节点结果一致
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String member : sortedMembers) {
+            for (int i = 0; i < virtualNodes; i++) {
+                long point = hash(member + "#" + i);
+                String existing = ring.get(point);
+                if (existing == null || member.compareTo(existing) < 0) {
+                    ring.put(point, member);
+                }
+            }
+        }
+
+        long[] points = new long[ring.size()];
+        String[] owners = new String[ring.size()];
+        int index = 0;
+        for (Map.Entry<Long, String> entry : ring.entrySet()) {
+            points[index] = entry.getKey();
+            owners[index] = entry.getValue();
+            index++;
+        }
+        return new ConsistentHashRing(sortedMembers, points, owners);
+    }
+
+    /**
+     * 负责指定 key 的节点
+     */
+    String ownerOf(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        // 超过最大的虚拟节点时回到环的起点
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * 环上的节点（有序、不可修改）
+     */
+    Set<String> getMembers() {
+        return members;
+    }
+
+    int size() {
+        return members.size();
+    }
+
+    /**
+     * 哈希环纪元：成员集合不变时不变，成员变化（再平衡）后随之改变
+     */
+    String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * 64 位 FNV-1a，再经 MurmurHash3 fmix64 混合使高位分布均匀
+     */
+    static long hash(String value) {
+        return Fnv64.fmix(Fnv64.mix(Fnv64.OFFSET_BASIS, value));
+    }
+}
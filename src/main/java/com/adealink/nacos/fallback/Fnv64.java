@@ -0,0 +1,57 @@
+package com.adealink.nacos.fallback;
+
+/**
+ * 64 位 FNV-1a 哈希
+ * <p>
+ * 实例指纹与一致性哈希环共用，只依赖输入内容本身，不依赖 String#hashCode 等 JVM 实现细节，
+ * 不同节点、不同 JVM 对相同输入计算出相同的结果。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+final class Fnv64 {
+
+    static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private Fnv64() {
+    }
+
+    /**
+     * 按小端序混入 long 的 8 个字节
+     */
+    static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * 依次混入每个字符的低字节与高字节（UTF-16），不混入长度
+     */
+    static long mix(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash ^= c & 0xff;
+            hash *= PRIME;
+            hash ^= c >>> 8;
+            hash *= PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * MurmurHash3 fmix64 末尾混合，使 FNV-1a 结果的高位分布均匀
+     */
+    static long fmix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
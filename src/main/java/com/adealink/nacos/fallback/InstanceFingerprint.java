@@ -0,0 +1,83 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+
+import java.util.*;
+
+/**
+ * 实例内容指纹
+ * <p>
+ * 覆盖权重、启用、健康、集群及元数据，忽略同步时附加的标记元数据（fallback、source、original-ip、original-port、synced-at 等），
+ * 使测试环境实例与本地 fallback 实例可以直接比较内容是否发生变化。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+final class InstanceFingerprint {
+
+    /**
+     * 同步时写入本地实例的标记元数据，不参与指纹计算
+     */
+    static final Set<String> SYNC_METADATA_KEYS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "fallback", "source", "original-ip", "original-port", "synced-at", "synced-by", "leader-term"
+    )));
+
+    private InstanceFingerprint() {
+    }
+
+    /**
+     * 计算实例内容指纹（64 位 FNV-1a，十六进制表示）
+     */
+    static String of(Instance instance) {
+        return Long.toHexString(mixContent(Fnv64.OFFSET_BASIS, instance));
+    }
+
+    /**
+     * 计算实例列表的修订值：覆盖每个实例的 ip:port 及内容指纹，与列表顺序无关
+     * <p>
+     * 用于判断服务的实例集合自上次同步以来是否发生变化
+     */
+    static long revision(Collection<Instance> instances) {
+        if (instances == null || instances.isEmpty()) {
+            return 0L;
+        }
+        long sum = 0L;
+        for (Instance instance : instances) {
+            long hash = mix(Fnv64.OFFSET_BASIS, instance.getIp());
+            hash = Fnv64.mix(hash, (long) instance.getPort());
+            // 各实例哈希求和，结果与顺序无关
+            sum += mixContent(hash, instance);
+        }
+        return Fnv64.mix(Fnv64.mix(Fnv64.OFFSET_BASIS, (long) instances.size()), sum);
+    }
+
+    private static long mixContent(long hash, Instance instance) {
+        hash = Fnv64.mix(hash, Double.doubleToLongBits(instance.getWeight()));
+        hash = Fnv64.mix(hash, instance.isEnabled() ? 1 : 0);
+        hash = Fnv64.mix(hash, instance.isHealthy() ? 1 : 0);
+        hash = mix(hash, instance.getClusterName());
+
+        Map<String, String> metadata = instance.getMetadata();
+        if (metadata != null && !metadata.isEmpty()) {
+            // 按 key 排序，保证与元数据插入顺序无关
+            for (Map.Entry<String, String> entry : new TreeMap<>(metadata).entrySet()) {
+                if (SYNC_METADATA_KEYS.contains(entry.getKey())) {
+                    continue;
+                }
+                hash = mix(hash, entry.getKey());
+                hash = mix(hash, entry.getValue());
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            // null 与空串区分开
+            return Fnv64.mix(hash, -1L);
+        }
+        // 先混入长度，避免 "ab"+"c" 与 "a"+"bc" 冲突
+        return Fnv64.mix(Fnv64.mix(hash, (long) value.length()), value);
+    }
+}
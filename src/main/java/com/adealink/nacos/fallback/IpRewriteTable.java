@@ -0,0 +1,239 @@
+package com.adealink.nacos.fallback;
+
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+/**
+ * CIDR 形式的 IP 重写规则表
+ * <p>
+ * 启动时将有序的 CIDR -> 公网 IP 规则编译为按位前缀树（IPv4 以 int 形式，IPv6 以 128 位），
+ * 查找时沿地址位逐级下降，命中多条规则时取配置顺序最靠前的一条。
+ * IPv4 查找最多 32 步且不分配对象；IPv6 地址解析借助 InetAddress（仅解析字面量，不做 DNS 查询）。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+class IpRewriteTable {
+
+    private static final IpRewriteTable EMPTY = new IpRewriteTable();
+
+    private final Node ipv4Root = new Node();
+    private final Node ipv6Root = new Node();
+    private boolean hasIpv4Rules;
+    private boolean hasIpv6Rules;
+
+    private IpRewriteTable() {
+    }
+
+    /**
+     * 编译重写规则
+     *
+     * @throws IllegalArgumentException 规则的 CIDR 或公网 IP 不合法
+     */
+    static IpRewriteTable compile(List<NacosFallbackProperties.IpRewriteRule> rules) {
+        if (rules == null || rules.isEmpty()) {
+            return EMPTY;
+        }
+        IpRewriteTable table = new IpRewriteTable();
+        for (int order = 0; order < rules.size(); order++) {
+            NacosFallbackProperties.IpRewriteRule rule = rules.get(order);
+            if (rule == null || !StringUtils.hasText(rule.getCidr()) || !StringUtils.hasText(rule.getPublicIp())) {
+                throw new IllegalArgumentException("IP rewrite rule #" + order + " must have both cidr and publicIp");
+            }
+            table.add(rule.getCidr().trim(), rule.getPublicIp().trim(), order);
+        }
+        return table;
+    }
+
+    boolean isEmpty() {
+        return !hasIpv4Rules && !hasIpv6Rules;
+    }
+
+    /**
+     * 查找 IP 对应的公网 IP
+     *
+     * @return 命中规则的公网 IP；未命中或 IP 不合法时返回 null
+     */
+    String lookup(String ip) {
+        if (ip == null || isEmpty()) {
+            return null;
+        }
+        if (ip.indexOf(':') < 0) {
+            if (!hasIpv4Rules) {
+                return null;
+            }
+            long address = parseIpv4(ip);
+            return address < 0 ? null : lookup(ipv4Root, (int) address);
+        }
+        if (!hasIpv6Rules) {
+            return null;
+        }
+        byte[] address = parseIpv6(ip);
+        return address == null ? null : lookup(ipv6Root, address);
+    }
+
+    private void add(String cidr, String publicIp, int order) {
+        int slash = cidr.indexOf('/');
+        String address = slash < 0 ? cidr : cidr.substring(0, slash);
+        boolean ipv6 = address.indexOf(':') >= 0;
+        int maxBits = ipv6 ? 128 : 32;
+        int prefixLength;
+        try {
+            prefixLength = slash < 0 ? maxBits : Integer.parseInt(cidr.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid CIDR prefix length: " + cidr);
+        }
+        if (prefixLength < 0 || prefixLength > maxBits) {
+            throw new IllegalArgumentException("Invalid CIDR prefix length: " + cidr);
+        }
+
+        Node node;
+        if (ipv6) {
+            byte[] bytes = parseIpv6(address);
+            if (bytes == null) {
+                throw new IllegalArgumentException("Invalid IPv6 CIDR: " + cidr);
+            }
+            node = ipv6Root;
+            for (int i = 0; i < prefixLength; i++) {
+                node = node.child(bit(bytes, i), true);
+            }
+            hasIpv6Rules = true;
+        } else {
+            long parsed = parseIpv4(address);
+            if (parsed < 0) {
+                throw new IllegalArgumentException("Invalid IPv4 CIDR: " + cidr);
+            }
+            int bits = (int) parsed;
+            node = ipv4Root;
+            for (int i = 0; i < prefixLength; i++) {
+                node = node.child((bits >>> (31 - i)) & 1, true);
+            }
+            hasIpv4Rules = true;
+        }
+        // 同一前缀配置多次时保留靠前的规则
+        if (node.publicIp == null) {
+            node.publicIp = publicIp;
+            node.order = order;
+        }
+    }
+
+    private static String lookup(Node root, int address) {
+        Node node = root;
+        String publicIp = node.publicIp;
+        int bestOrder = node.publicIp != null ? node.order : Integer.MAX_VALUE;
+        for (int i = 0; i < 32; i++) {
+            node = node.child((address >>> (31 - i)) & 1, false);
+            if (node == null) {
+                break;
+            }
+            if (node.publicIp != null && node.order < bestOrder) {
+                publicIp = node.publicIp;
+                bestOrder = node.order;
+            }
+        }
+        return publicIp;
+    }
+
+    private static String lookup(Node root, byte[] address) {
+        Node node = root;
+        String publicIp = node.publicIp;
+        int bestOrder = node.publicIp != null ? node.order : Integer.MAX_VALUE;
+        for (int i = 0; i < 128; i++) {
+            node = node.child(bit(address, i), false);
+            if (node == null) {
+                break;
+            }
+            if (node.publicIp != null && node.order < bestOrder) {
+                publicIp = node.publicIp;
+                bestOrder = node.order;
+            }
+        }
+        return publicIp;
+    }
+
+    private static int bit(byte[] bytes, int index) {
+        return (bytes[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    /**
+     * 解析点分十进制 IPv4 地址（不分配对象）
+     *
+     * @return 地址的无符号 int 值；不合法时返回 -1
+     */
+    static long parseIpv4(String ip) {
+        long result = 0;
+        int octet = -1;
+        int dots = 0;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.') {
+                if (octet < 0 || ++dots > 3) {
+                    return -1;
+                }
+                result = (result << 8) | octet;
+                octet = -1;
+            } else {
+                return -1;
+            }
+        }
+        if (octet < 0 || dots != 3) {
+            return -1;
+        }
+        return (result << 8) | octet;
+    }
+
+    /**
+     * 解析 IPv6 字面量（去除 zone id）
+     *
+     * @return 16 字节地址；不合法时返回 null
+     */
+    private static byte[] parseIpv6(String ip) {
+        int zone = ip.indexOf('%');
+        String literal = zone < 0 ? ip : ip.substring(0, zone);
+        if (literal.isEmpty()) {
+            return null;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            // 只接受 IPv6 字面量字符，避免触发 DNS 查询
+            if (!(c == ':' || c == '.' || Character.digit(c, 16) >= 0)) {
+                return null;
+            }
+        }
+        try {
+            byte[] bytes = InetAddress.getByName(literal).getAddress();
+            return bytes.length == 16 ? bytes : null;
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static class Node {
+        private Node zero;
+        private Node one;
+        private String publicIp;
+        private int order;
+
+        private Node child(int bit, boolean create) {
+            if (bit == 0) {
+                if (zero == null && create) {
+                    zero = new Node();
+                }
+                return zero;
+            }
+            if (one == null && create) {
+                one = new Node();
+            }
+            return one;
+        }
+    }
+}
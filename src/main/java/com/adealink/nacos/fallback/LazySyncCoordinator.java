@@ -0,0 +1,376 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.AbstractEventListener;
+import com.alibaba.nacos.api.naming.listener.Event;
+import com.alibaba.nacos.api.naming.listener.EventListener;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 懒同步协调器
+ * <p>
+ * 维护本节点的懒同步工作集，以临时实例把工作集发布到本地 Nacos（leaderServiceName-lazy-demand），
+ * 订阅各节点发布的工作集并淘汰空闲服务。按需同步、工作集发布及其他节点工作集变更的处理
+ * 在专用的按需同步线程池上执行，不在同步调度线程上排队等待完整的同步周期。
+ * 首次查询未命中时返回一个 Future，本地 Nacos 推送该服务的可用实例或等待超时时完成，调用方无需轮询。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+@Slf4j
+class LazySyncCoordinator {
+
+    // 各节点工作集所在的服务名后缀（leaderServiceName + 后缀）
+    static final String DEMAND_SERVICE_SUFFIX = "-lazy-demand";
+
+    private static final long EVICT_INTERVAL_SECONDS = 60;
+
+    private final NacosFallbackServiceDiscovery discovery;
+    private final NacosFallbackProperties properties;
+    private final ServiceNameFilter serviceFilter;
+    private final ThreadPoolTaskScheduler taskScheduler; // 空闲淘汰任务
+    private final ScheduledExecutorService onDemandExecutor; // 按需同步、工作集发布、变更处理及等待超时
+
+    // 本节点应用查询过的服务
+    private final LazySyncWorkingSet workingSet = new LazySyncWorkingSet();
+
+    // 等待本地可见的按需同步，服务名 -> Future；同一服务的并发查询共用一个 Future
+    private final ConcurrentMap<String, CompletableFuture<Boolean>> pendingResolves = new ConcurrentHashMap<>();
+
+    // 本地 Nacos 客户端（初始化后可用）、本节点发布的工作集实例、对各节点工作集的订阅以及空闲淘汰任务
+    private volatile NamingService localNamingService;
+    private volatile Instance demandInstance;
+    private volatile EventListener demandSubscription;
+    private volatile ScheduledFuture<?> evictTask;
+
+    LazySyncCoordinator(NacosFallbackServiceDiscovery discovery,
+                        NacosFallbackProperties properties,
+                        ServiceNameFilter serviceFilter,
+                        ThreadPoolTaskScheduler taskScheduler,
+                        ScheduledExecutorService onDemandExecutor) {
+        this.discovery = discovery;
+        this.properties = properties;
+        this.serviceFilter = serviceFilter;
+        this.taskScheduler = taskScheduler;
+        this.onDemandExecutor = onDemandExecutor;
+    }
+
+    /**
+     * 记录应用的一次服务查询，服务新加入工作集时异步发布
+     */
+    void recordLookup(String serviceName) {
+        if (!StringUtils.hasText(serviceName) || !serviceFilter.accepts(serviceName)) {
+            return;
+        }
+        if (workingSet.touch(serviceName, System.currentTimeMillis())) {
+            log.info("Service {} added to lazy sync working set", serviceName);
+            publishAsync();
+        }
+    }
+
+    /**
+     * 将手动同步的服务加入工作集，避免下一轮同步即被清理
+     */
+    void retain(String serviceName) {
+        if (workingSet.touch(serviceName, System.currentTimeMillis())) {
+            publishAsync();
+        }
+    }
+
+    /**
+     * 应用查询服务未命中时按需同步
+     * <p>
+     * 只有首次查询的服务会触发：本节点负责同步该服务时直接同步，否则发布工作集由 Leader 同步。
+     * 同步在按需同步线程池上执行；返回的 Future 在本地 Nacos 推送该服务的可用实例时完成为 true，
+     * 超过 timeoutMs 或停止时完成为 false，同步本身在后台继续。工作集内已有的服务返回进行中的 Future，
+     * 没有进行中的按需同步时返回已完成的 false
+     *
+     * @return 本地可见时完成为 true 的 Future，调用方应在其完成后重新查询
+     */
+    CompletableFuture<Boolean> resolveOnDemand(String serviceName, long timeoutMs) {
+        if (!StringUtils.hasText(serviceName) || !serviceFilter.accepts(serviceName)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (!workingSet.touch(serviceName, System.currentTimeMillis())) {
+            // 已在工作集中，由定期同步刷新；同一服务的并发首次查询等待同一次按需同步
+            CompletableFuture<Boolean> pending = pendingResolves.get(serviceName);
+            return pending != null ? pending : CompletableFuture.completedFuture(false);
+        }
+        NamingService naming = localNamingService;
+        if (naming == null) {
+            return CompletableFuture.completedFuture(false); // 初始化时发布工作集，由首轮同步同步该服务
+        }
+        log.info("Service {} not found locally, syncing on demand", serviceName);
+        CompletableFuture<Boolean> visible = new CompletableFuture<>();
+        pendingResolves.put(serviceName, visible);
+        EventListener listener = new AbstractEventListener() {
+            @Override
+            public Executor getExecutor() {
+                return onDemandExecutor;
+            }
+
+            @Override
+            public void onEvent(Event event) {
+                if (event instanceof NamingEvent && hasAvailableInstance(((NamingEvent) event).getInstances())) {
+                    visible.complete(true);
+                }
+            }
+        };
+        try {
+            // 先订阅再同步，避免错过新注册实例的推送；订阅时本地已有实例会立即推送
+            naming.subscribe(serviceName, properties.getLocalGroup(), listener);
+            onDemandExecutor.execute(() -> {
+                if (discovery.canSyncLocally(serviceName)) {
+                    discovery.syncSingleService(serviceName);
+                }
+                publish();
+            });
+            ScheduledFuture<?> timeout = onDemandExecutor.schedule(() -> {
+                if (visible.complete(false)) {
+                    log.warn("Service {} still not visible locally after {} ms, continuing in background",
+                            serviceName, timeoutMs);
+                }
+            }, timeoutMs, TimeUnit.MILLISECONDS);
+            visible.whenComplete((result, error) -> timeout.cancel(false));
+        } catch (RejectedExecutionException e) {
+            visible.complete(false); // 已停止
+        } catch (Exception e) {
+            log.warn("On-demand sync of service {} failed", serviceName, e);
+            visible.complete(false);
+        }
+        visible.whenComplete((result, error) -> {
+            pendingResolves.remove(serviceName, visible);
+            unsubscribeQuietly(naming, serviceName, listener);
+        });
+        return visible;
+    }
+
+    /**
+     * 本节点工作集内的服务（有序快照）
+     */
+    Set<String> names() {
+        return workingSet.names();
+    }
+
+    /**
+     * 启动懒同步：订阅各节点的工作集、启动空闲淘汰任务并发布初始化之前已查询的服务，重试初始化时不重复订阅和调度
+     */
+    void start(NamingService naming) {
+        localNamingService = naming;
+        if (demandSubscription == null) {
+            EventListener listener = new AbstractEventListener() {
+                @Override
+                public Executor getExecutor() {
+                    return onDemandExecutor;
+                }
+
+                @Override
+                public void onEvent(Event event) {
+                    if (event instanceof NamingEvent) {
+                        onDemandChanged(((NamingEvent) event).getInstances());
+                    }
+                }
+            };
+            try {
+                naming.subscribe(demandServiceName(), properties.getLocalGroup(), listener);
+                demandSubscription = listener;
+            } catch (Exception e) {
+                log.warn("Failed to subscribe to lazy sync working sets, services requested by other instances "
+                        + "will be synced on the next cycle", e);
+            }
+        }
+        if (evictTask == null) {
+            long intervalSeconds = Math.min(properties.getLazySyncIdleTtlSeconds(), EVICT_INTERVAL_SECONDS);
+            evictTask = taskScheduler.scheduleWithFixedDelay(this::evictIdle, Duration.ofSeconds(intervalSeconds));
+            log.info("Lazy sync enabled, idle services are evicted after {} seconds", properties.getLazySyncIdleTtlSeconds());
+        }
+        if (workingSet.size() > 0) {
+            publish();
+        }
+    }
+
+    /**
+     * 停止懒同步、撤回本节点发布的工作集并关闭按需同步线程池
+     */
+    void stop() {
+        if (evictTask != null) {
+            evictTask.cancel(false);
+            evictTask = null;
+        }
+        onDemandExecutor.shutdownNow();
+        for (CompletableFuture<Boolean> pending : pendingResolves.values()) {
+            pending.complete(false);
+        }
+        EventListener listener = demandSubscription;
+        demandSubscription = null;
+        Instance instance = demandInstance;
+        demandInstance = null;
+        NamingService naming = localNamingService;
+        if (naming == null) {
+            return;
+        }
+        try {
+            if (listener != null) {
+                naming.unsubscribe(demandServiceName(), properties.getLocalGroup(), listener);
+            }
+            if (instance != null) {
+                naming.deregisterInstance(demandServiceName(), properties.getLocalGroup(), instance);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to withdraw lazy sync working set", e);
+        }
+    }
+
+    /**
+     * 只保留本节点及其他节点工作集内的服务，保持原有顺序
+     * <p>
+     * 读取其他节点的工作集失败时同时保留已同步的服务，避免误清理
+     */
+    List<String> filterDemandedServices(List<String> testServices) {
+        Set<String> demanded = workingSet.names();
+        long start = System.nanoTime();
+        try {
+            demanded.addAll(demandedServices(
+                    localNamingService.selectInstances(demandServiceName(), properties.getLocalGroup(), true)));
+        } catch (Exception e) {
+            log.warn("Failed to read lazy sync working sets, keeping synced services: {}", e.toString());
+            demanded.addAll(discovery.getSyncedServices());
+        } finally {
+            discovery.recordRpc(SyncMetrics.TARGET_LOCAL, "selectInstances", start);
+        }
+        List<String> filtered = new ArrayList<>();
+        for (String serviceName : testServices) {
+            if (demanded.contains(serviceName)) {
+                filtered.add(serviceName);
+            }
+        }
+        log.debug("{} of {} services in lazy sync working sets", filtered.size(), testServices.size());
+        return filtered;
+    }
+
+    /**
+     * 各节点发布工作集的服务名
+     */
+    private String demandServiceName() {
+        return properties.getLeaderServiceName() + DEMAND_SERVICE_SUFFIX;
+    }
+
+    private void unsubscribeQuietly(NamingService naming, String serviceName, EventListener listener) {
+        try {
+            naming.unsubscribe(serviceName, properties.getLocalGroup(), listener);
+        } catch (Exception e) {
+            log.debug("Failed to unsubscribe from service {}", serviceName, e);
+        }
+    }
+
+    private static boolean hasAvailableInstance(List<Instance> instances) {
+        if (instances == null) {
+            return false;
+        }
+        for (Instance instance : instances) {
+            if (instance.isHealthy() && instance.isEnabled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void publishAsync() {
+        try {
+            onDemandExecutor.execute(this::publish);
+        } catch (RejectedExecutionException e) {
+            log.debug("Nacos fallback sync service stopped, not publishing lazy sync working set");
+        }
+    }
+
+    /**
+     * 将本节点的工作集以临时实例发布到本地 Nacos，工作集为空时注销
+     * <p>
+     * 按需同步线程池可能并发发布，串行执行避免较旧的工作集覆盖较新的
+     */
+    private synchronized void publish() {
+        NamingService naming = localNamingService;
+        if (naming == null) {
+            return; // 初始化时发布
+        }
+        Set<String> names = workingSet.names();
+        try {
+            if (names.isEmpty()) {
+                Instance previous = demandInstance;
+                if (previous != null) {
+                    naming.deregisterInstance(demandServiceName(), properties.getLocalGroup(), previous);
+                    demandInstance = null;
+                }
+                return;
+            }
+            // 与 Leader 实例相同的占位地址，元数据中携带工作集
+            Instance instance = discovery.buildLeaderInstance(0);
+            instance.getMetadata().put("services", String.join(",", names));
+            naming.registerInstance(demandServiceName(), properties.getLocalGroup(), instance);
+            demandInstance = instance;
+        } catch (Exception e) {
+            log.warn("Failed to publish lazy sync working set", e);
+        }
+    }
+
+    /**
+     * 淘汰空闲的服务，工作集变化时重新发布，由同步节点在下一轮同步时清理
+     */
+    private void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - properties.getLazySyncIdleTtlSeconds() * 1000;
+        Set<String> evicted = workingSet.evictIdle(idleBefore);
+        if (!evicted.isEmpty()) {
+            log.info("Evicted {} idle services from lazy sync working set: {}", evicted.size(), evicted);
+            publish();
+        }
+    }
+
+    /**
+     * 处理其他节点发布的工作集变更：本节点负责同步且尚未同步的服务立即同步
+     */
+    private void onDemandChanged(List<Instance> instances) {
+        if (demandSubscription == null) {
+            return;
+        }
+        Set<String> synced = discovery.getSyncedServices();
+        for (String serviceName : demandedServices(instances)) {
+            if (!synced.contains(serviceName) && serviceFilter.accepts(serviceName)
+                    && discovery.canSyncLocally(serviceName)) {
+                log.info("Service {} requested by another instance, syncing on demand", serviceName);
+                discovery.syncSingleService(serviceName);
+            }
+        }
+    }
+
+    /**
+     * 解析工作集实例元数据中的服务名
+     */
+    static Set<String> demandedServices(List<Instance> instances) {
+        Set<String> services = new HashSet<>();
+        if (instances == null) {
+            return services;
+        }
+        for (Instance instance : instances) {
+            Map<String, String> metadata = instance.getMetadata();
+            String value = metadata != null ? metadata.get("services") : null;
+            if (!StringUtils.hasText(value)) {
+                continue;
+            }
+            for (String serviceName : value.split(",")) {
+                if (StringUtils.hasText(serviceName)) {
+                    services.add(serviceName.trim());
+                }
+            }
+        }
+        return services;
+    }
+}
@@ -0,0 +1,139 @@
+package com.adealink.nacos.fallback;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 懒同步 DiscoveryClient
+ * <p>
+ * 包装 Nacos 的 DiscoveryClient：每次查询记录到懒同步工作集，首次查询未命中时按需同步该服务，
+ * 并在 lazySyncTimeoutMs 内等待本地 Nacos 推送新注册的实例后重新查询。
+ * Spring Cloud LoadBalancer 默认经由 ReactiveDiscoveryClient 查询，由 {@link LazySyncReactiveDiscoveryClient} 包装。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+@Slf4j
+class LazySyncDiscoveryClient implements DiscoveryClient {
+
+    static final String NACOS_DISCOVERY_CLIENT = "com.alibaba.cloud.nacos.discovery.NacosDiscoveryClient";
+
+    static final String NACOS_REACTIVE_DISCOVERY_CLIENT =
+            "com.alibaba.cloud.nacos.discovery.reactive.NacosReactiveDiscoveryClient";
+
+    private final DiscoveryClient delegate;
+    private final NacosFallbackServiceDiscovery discovery;
+    private final long timeoutMs;
+
+    LazySyncDiscoveryClient(DiscoveryClient delegate, NacosFallbackServiceDiscovery discovery, long timeoutMs) {
+        this.delegate = delegate;
+        this.discovery = discovery;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public String description() {
+        return delegate.description();
+    }
+
+    @Override
+    public List<ServiceInstance> getInstances(String serviceId) {
+        List<ServiceInstance> instances = delegate.getInstances(serviceId);
+        if (instances != null && !instances.isEmpty()) {
+            discovery.recordLookup(serviceId);
+            return instances;
+        }
+
+        // 等待本地 Nacos 推送新注册的实例，超时由协调器完成 Future，这里的超时只作兜底
+        try {
+            if (!discovery.resolveOnDemand(serviceId, timeoutMs).get(timeoutMs, TimeUnit.MILLISECONDS)) {
+                return instances;
+            }
+        } catch (TimeoutException e) {
+            log.debug("Service {} still not visible locally after {} ms", serviceId, timeoutMs);
+            return instances;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return instances;
+        } catch (ExecutionException e) {
+            log.warn("On-demand sync of service {} failed", serviceId, e.getCause());
+            return instances;
+        }
+        return delegate.getInstances(serviceId);
+    }
+
+    @Override
+    public List<String> getServices() {
+        return delegate.getServices();
+    }
+
+    @Override
+    public void probe() {
+        delegate.probe();
+    }
+
+    @Override
+    public int getOrder() {
+        return delegate.getOrder();
+    }
+
+    /**
+     * 用 LazySyncDiscoveryClient / LazySyncReactiveDiscoveryClient 包装 Nacos 的 DiscoveryClient 与
+     * ReactiveDiscoveryClient（lazySyncEnabled）
+     * <p>
+     * 只包装 NacosDiscoveryClient 与 NacosReactiveDiscoveryClient，CompositeDiscoveryClient、
+     * LoadBalancer 的 ServiceInstanceListSupplier 等经由它们查询 Nacos，避免重复触发按需同步
+     */
+    static class PostProcessor implements BeanPostProcessor {
+
+        private final ObjectProvider<NacosFallbackServiceDiscovery> discovery;
+        private final ObjectProvider<NacosFallbackProperties> properties;
+        private final String targetClassName;
+        private final String reactiveTargetClassName;
+
+        PostProcessor(ObjectProvider<NacosFallbackServiceDiscovery> discovery,
+                      ObjectProvider<NacosFallbackProperties> properties) {
+            this(discovery, properties, NACOS_DISCOVERY_CLIENT, NACOS_REACTIVE_DISCOVERY_CLIENT);
+        }
+
+        PostProcessor(ObjectProvider<NacosFallbackServiceDiscovery> discovery,
+                      ObjectProvider<NacosFallbackProperties> properties,
+                      String targetClassName,
+                      String reactiveTargetClassName) {
+            this.discovery = discovery;
+            this.properties = properties;
+            this.targetClassName = targetClassName;
+            this.reactiveTargetClassName = reactiveTargetClassName;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            // 按类名匹配，未引入 reactor 时不加载 ReactiveDiscoveryClient 相关类
+            String className = ClassUtils.getUserClass(bean).getName();
+            boolean blocking = targetClassName.equals(className);
+            if (!blocking && !reactiveTargetClassName.equals(className)) {
+                return bean;
+            }
+            NacosFallbackProperties fallbackProperties = properties.getIfAvailable();
+            NacosFallbackServiceDiscovery fallbackDiscovery = discovery.getIfAvailable();
+            if (fallbackProperties == null || !fallbackProperties.isLazySyncEnabled() || fallbackDiscovery == null) {
+                return bean;
+            }
+            log.info("Lazy sync enabled, wrapping discovery client {}", beanName);
+            long timeoutMs = fallbackProperties.getLazySyncTimeoutMs();
+            return blocking
+                    ? new LazySyncDiscoveryClient((DiscoveryClient) bean, fallbackDiscovery, timeoutMs)
+                    : LazySyncReactiveDiscoveryClient.wrap(bean, fallbackDiscovery, timeoutMs);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.adealink.nacos.fallback;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * 懒同步 ReactiveDiscoveryClient
+ * <p>
+ * 包装 Nacos 的 ReactiveDiscoveryClient，Spring Cloud LoadBalancer（含 OpenFeign）默认的
+ * ServiceInstanceListSupplier 经由它查询实例。与 {@link LazySyncDiscoveryClient} 相同：每次查询记录到懒同步工作集，
+ * 首次查询未命中时按需同步该服务，等待本地 Nacos 推送新注册的实例后重新查询；等待不阻塞订阅线程。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+class LazySyncReactiveDiscoveryClient implements ReactiveDiscoveryClient {
+
+    private final ReactiveDiscoveryClient delegate;
+    private final NacosFallbackServiceDiscovery discovery;
+    private final long timeoutMs;
+
+    LazySyncReactiveDiscoveryClient(ReactiveDiscoveryClient delegate, NacosFallbackServiceDiscovery discovery,
+                                    long timeoutMs) {
+        this.delegate = delegate;
+        this.discovery = discovery;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * 供 PostProcessor 调用，避免其方法签名引用 reactor 类型
+     */
+    static Object wrap(Object bean, NacosFallbackServiceDiscovery discovery, long timeoutMs) {
+        return new LazySyncReactiveDiscoveryClient((ReactiveDiscoveryClient) bean, discovery, timeoutMs);
+    }
+
+    @Override
+    public String description() {
+        return delegate.description();
+    }
+
+    @Override
+    public Flux<ServiceInstance> getInstances(String serviceId) {
+        return delegate.getInstances(serviceId).collectList().flatMapMany(instances -> {
+            if (!instances.isEmpty()) {
+                discovery.recordLookup(serviceId);
+                return Flux.fromIterable(instances);
+            }
+            // 超时由协调器完成 Future，这里的超时只作兜底
+            return Mono.fromFuture(discovery.resolveOnDemand(serviceId, timeoutMs))
+                    .timeout(Duration.ofMillis(timeoutMs), Mono.just(false))
+                    .flatMapMany(visible -> visible ? delegate.getInstances(serviceId) : Flux.fromIterable(instances));
+        });
+    }
+
+    @Override
+    public Flux<String> getServices() {
+        return delegate.getServices();
+    }
+
+    @Override
+    public int getOrder() {
+        return delegate.getOrder();
+    }
+}
@@ -0,0 +1,65 @@
+package com.adealink.nacos.fallback;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 懒同步工作集
+ * <p>
+ * 记录本节点应用查询过的服务及最近一次查询时间，超过空闲时间未被查询的服务被淘汰。
+ * 查询路径上只有一次 ConcurrentMap 写入，线程安全
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+class LazySyncWorkingSet {
+
+    private final ConcurrentMap<String, Long> lastAccessTimes = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次查询
+     *
+     * @return true 如果该服务新加入工作集
+     */
+    boolean touch(String serviceName, long now) {
+        return lastAccessTimes.put(serviceName, now) == null;
+    }
+
+    boolean contains(String serviceName) {
+        return lastAccessTimes.containsKey(serviceName);
+    }
+
+    /**
+     * 淘汰最近一次查询早于 idleBefore 的服务
+     *
+     * @return 被淘汰的服务名
+     */
+    Set<String> evictIdle(long idleBefore) {
+        Set<String> evicted = new TreeSet<>();
+        Iterator<Map.Entry<String, Long>> iterator = lastAccessTimes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            // 只在时间未被并发刷新时移除，避免淘汰刚被查询的服务
+            if (entry.getValue() < idleBefore && lastAccessTimes.remove(entry.getKey(), entry.getValue())) {
+                evicted.add(entry.getKey());
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 工作集内的服务名（有序快照）
+     */
+    Set<String> names() {
+        return new TreeSet<>(lastAccessTimes.keySet());
+    }
+
+    int size() {
+        return lastAccessTimes.size();
+    }
+}
@@ -0,0 +1,484 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leader 任期选举
+ * <p>
+ * 在本地 Nacos 的 leaderServiceName 下注册临时实例竞选，实例存在期间即持有租约；候选任期为已观察到的最大任期加 1，
+ * 按任期选出 Leader，本节点持有的任期即 fencing token，看到更高任期时拦截写入并通知同步服务退位。
+ * 停止时的交接同样通过 Leader 实例的元数据完成：前任标记 handoff，继任者依次标记 adopting-from、adopted-from。
+ * 何时竞选、何时启动或停止同步由 {@link NacosFallbackServiceDiscovery} 决定。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+@Slf4j
+class LeaderElection {
+
+    private static final long HANDOFF_POLL_INTERVAL_MS = 50;
+
+    // Leader 排序：任期最大者优先，任期相同时 startTime 最早者优先，仍相同时按 instanceId 排序
+    private static final Comparator<Instance> LEADER_ORDER =
+            Comparator.comparingLong(LeaderElection::termOf).reversed()
+                    .thenComparingLong(instance -> metadataLong(instance, "startTime"))
+                    .thenComparing(instance -> String.valueOf(leaderIdOf(instance)));
+
+    private final NacosFallbackServiceDiscovery discovery;
+    private final NacosFallbackProperties properties;
+    private final String instanceId;
+
+    // 本地 Nacos 客户端（初始化后可用），以及本节点注册的候选 / Leader / 分片参与者实例
+    private volatile NamingService localNamingService;
+    private volatile Instance leaderInstance;
+
+    // 本节点观察到的最大任期，本节点作为 Leader（或候选）持有的任期即 fencing token，未持有时为 0
+    private volatile long observedTerm;
+    private volatile long leaderTerm;
+
+    // 本节点的任期已被更高任期的 Leader 取代，写入被拦截直到退位
+    private volatile boolean superseded;
+
+    // 最近一次读取 Leader 实例确认本节点胜出的时间，未确认时为 0
+    private volatile long confirmedAt;
+
+    // 竞选时正在交接的前任 Leader，成为 Leader 后接管其 fallback 实例
+    private volatile String handoffPredecessor;
+
+    LeaderElection(NacosFallbackServiceDiscovery discovery, NacosFallbackProperties properties, String instanceId) {
+        this.discovery = discovery;
+        this.properties = properties;
+        this.instanceId = instanceId;
+    }
+
+    /**
+     * 本地 Nacos 客户端就绪
+     */
+    void start(NamingService localNamingService) {
+        this.localNamingService = localNamingService;
+    }
+
+    /**
+     * 注册为分片参与者：分片模式下不存在唯一的 Leader，注册后即参与同步，不与其他节点竞争
+     */
+    void registerParticipant() throws NacosException {
+        leaderInstance = buildLeaderInstance(0);
+        localNamingService.registerInstance(properties.getLeaderServiceName(), properties.getLocalGroup(), leaderInstance);
+        log.info("Registered as sync shard participant with instanceId: {}", instanceId);
+    }
+
+    /**
+     * 注册候选实例，候选任期为已观察到的最大任期加 1；记录正在交接的前任 Leader
+     *
+     * @return false 如果已有健康的 Leader（正在交接的 Leader 不计入）
+     */
+    boolean registerCandidate() throws NacosException {
+        String leaderServiceName = properties.getLeaderServiceName();
+        List<Instance> allLeaders = localNamingService.selectInstances(leaderServiceName, properties.getLocalGroup(), true);
+        observeTerms(allLeaders);
+        List<Instance> existingLeaders = activeLeaders(allLeaders);
+
+        if (!CollectionUtils.isEmpty(existingLeaders)) {
+            Map<String, String> metadata = existingLeaders.get(0).getMetadata();
+            String leaderId = metadata != null ? metadata.get("instanceId") : "unknown";
+            log.info("Found existing leader: {}", leaderId);
+            return false;
+        }
+
+        handoffPredecessor = handingOffLeaderId(allLeaders);
+
+        // 以新的任期注册自己为候选 Leader
+        long term = observedTerm + 1;
+        leaderInstance = buildLeaderInstance(term);
+        localNamingService.registerInstance(leaderServiceName, properties.getLocalGroup(), leaderInstance);
+        leaderTerm = term;
+        observedTerm = term;
+        log.info("Registered as sync leader candidate with instanceId: {}, term: {}", instanceId, term);
+        return true;
+    }
+
+    /**
+     * 读取当前健康且未在交接的 Leader 实例，并记录观察到的任期
+     */
+    List<Instance> selectActiveLeaders() throws NacosException {
+        List<Instance> leaders = activeLeaders(localNamingService.selectInstances(
+                properties.getLeaderServiceName(),
+                properties.getLocalGroup(),
+                true
+        ));
+        observeTerms(leaders);
+        return leaders;
+    }
+
+    /**
+     * 再次读取 Leader 实例并按任期选出 Leader
+     *
+     * @return 选出的其他节点的 Leader 实例；本节点胜出或没有实例时为 null
+     */
+    Instance electOther() throws NacosException {
+        Instance elected = electedLeader(selectActiveLeaders());
+        if (elected == null) {
+            return null;
+        }
+        if (instanceId.equals(leaderIdOf(elected))) {
+            confirmedAt = System.currentTimeMillis();
+            return null;
+        }
+        return elected;
+    }
+
+    /**
+     * 每轮同步写入前确认本节点仍持有 Leader 任期
+     * <p>
+     * 看到排序更靠前（通常是任期更高）的 Leader 时说明本节点的租约已失效，
+     * 例如网络分区期间临时实例过期、其他节点以新任期接替后本节点又重新注册。
+     * 读取失败时沿用当前任期，此时本地 Nacos 不可达，写入本身也会失败。
+     * 订阅 Leader 选举服务时取代由推送处理（{@link #onLeadersChanged}），只按 leaderSafetyCheckIntervalSeconds 兜底读取；
+     * 未订阅时按 leaderCheckIntervalSeconds 读取。两次读取之间沿用上次的确认结果，fencing token 仍拦截更高任期的写入
+     *
+     * @param leaderPushActive 是否已订阅 Leader 选举服务
+     * @return false 如果已被取代
+     */
+    boolean confirmLeadership(boolean leaderPushActive) {
+        if (properties.isShardingEnabled() || leaderTerm <= 0) {
+            return true;
+        }
+        if (superseded) {
+            return false;
+        }
+        long intervalSeconds = leaderPushActive
+                ? properties.getLeaderSafetyCheckIntervalSeconds()
+                : properties.getLeaderCheckIntervalSeconds();
+        if (System.currentTimeMillis() - confirmedAt < TimeUnit.SECONDS.toMillis(intervalSeconds)) {
+            return true;
+        }
+        try {
+            Instance elected = electOther();
+            if (elected != null) {
+                markSuperseded("leader " + leaderIdOf(elected) + " with term " + termOf(elected));
+                return false;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to confirm leader term {}, keeping it: {}", leaderTerm, e.toString());
+        }
+        return true;
+    }
+
+    /**
+     * 处理推送的 Leader 实例：本节点为 Leader 时看到排序更靠前的 Leader 说明任期已被取代
+     *
+     * @param leaders 健康且未在交接的 Leader 实例
+     */
+    void onLeadersChanged(List<Instance> leaders) {
+        Instance elected = electedLeader(leaders);
+        if (leaderTerm > 0 && elected != null && !instanceId.equals(leaderIdOf(elected))) {
+            markSuperseded("leader " + leaderIdOf(elected) + " with term " + termOf(elected));
+        }
+    }
+
+    /**
+     * 标记本节点的任期已被取代：之后的写入立即被拦截，由同步服务在进行中的同步结束后退位
+     */
+    void markSuperseded(String reason) {
+        if (superseded || !discovery.isLeader()) {
+            return;
+        }
+        superseded = true;
+        log.warn("Leader term {} superseded by {}, fencing writes and stepping down", leaderTerm, reason);
+        discovery.onSuperseded();
+    }
+
+    /**
+     * 写入前检查 fencing token：任期已被取代时拒绝写入
+     */
+    void checkFencing() {
+        if (superseded) {
+            throw new IllegalStateException("Leader term " + leaderTerm + " has been superseded");
+        }
+    }
+
+    /**
+     * 是否为其他任期的 Leader 写入的 fallback 实例
+     * <p>
+     * 更早任期的实例属于租约已失效的旧 Leader，由其退位时清理或随其连接断开注销；
+     * 更高任期的实例说明本节点的任期已被取代。两者都不属于本节点
+     */
+    boolean isWrittenInOtherTerm(Map<String, String> metadata) {
+        long term = leaderTerm;
+        String writtenTerm = metadata.get("leader-term");
+        if (term <= 0 || !StringUtils.hasText(writtenTerm)) {
+            return false;
+        }
+        long parsedTerm;
+        try {
+            parsedTerm = Long.parseLong(writtenTerm);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (parsedTerm > term) {
+            markSuperseded("fallback instance written in term " + writtenTerm);
+        }
+        return parsedTerm != term;
+    }
+
+    /**
+     * 交接 Leader 身份：在 Leader 实例上标记 handoff，等待继任者接管 fallback 实例（其 Leader 实例标记 adopted-from 为本节点）；
+     * 继任者标记 adopting-from 开始接管后再等待一个 handoffTimeoutMs
+     *
+     * @return true 如果继任者已在 handoffTimeoutMs 内完成接管
+     */
+    boolean handOff() {
+        Instance instance = leaderInstance;
+        if (instance == null || localNamingService == null) {
+            return false;
+        }
+        String leaderServiceName = properties.getLeaderServiceName();
+        try {
+            instance.getMetadata().put("handoff", "true");
+            localNamingService.registerInstance(leaderServiceName, properties.getLocalGroup(), instance);
+            log.info("Handing off sync leadership, waiting up to {} ms for a successor", properties.getHandoffTimeoutMs());
+
+            long deadline = System.currentTimeMillis() + properties.getHandoffTimeoutMs();
+            boolean extended = false;
+            while (System.currentTimeMillis() < deadline) {
+                List<Instance> leaders = localNamingService.selectInstances(leaderServiceName, properties.getLocalGroup(), true);
+                if (leaders != null) {
+                    for (Instance leader : leaders) {
+                        Map<String, String> metadata = leader.getMetadata();
+                        if (metadata == null) {
+                            continue;
+                        }
+                        if (instanceId.equals(metadata.get("adopted-from"))) {
+                            log.info("Sync leadership handed off to {}", metadata.get("instanceId"));
+                            return true;
+                        }
+                        // 继任者已开始接管，从此刻起再等待一个 handoffTimeoutMs
+                        if (!extended && instanceId.equals(metadata.get("adopting-from"))) {
+                            extended = true;
+                            deadline = System.currentTimeMillis() + properties.getHandoffTimeoutMs();
+                            log.info("Successor {} is adopting fallback instances, waiting up to {} ms more",
+                                    metadata.get("instanceId"), properties.getHandoffTimeoutMs());
+                        }
+                    }
+                }
+                Thread.sleep(HANDOFF_POLL_INTERVAL_MS);
+            }
+            log.warn("No successor adopted fallback instances within {} ms, cleaning up", properties.getHandoffTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while handing off sync leadership, cleaning up");
+        } catch (Exception e) {
+            log.warn("Failed to hand off sync leadership, cleaning up", e);
+        }
+        return false;
+    }
+
+    /**
+     * 取出竞选时记录的交接中的前任 Leader，只接管一次
+     *
+     * @return 前任的 instanceId，没有时为 null
+     */
+    String takeHandoffPredecessor() {
+        String predecessor = handoffPredecessor;
+        handoffPredecessor = null;
+        return predecessor;
+    }
+
+    /**
+     * 在 Leader 实例上标记开始接管，前任看到后延长等待
+     */
+    void announceAdopting(String predecessor) {
+        announce("adopting-from", predecessor);
+    }
+
+    /**
+     * 在 Leader 实例上标记接管完成，前任看到后直接退出
+     */
+    void announceAdopted(String predecessor) {
+        leaderInstance.getMetadata().remove("adopting-from");
+        announce("adopted-from", predecessor);
+    }
+
+    /**
+     * 在分片参与者实例上公布本节点已按该纪元的哈希环完成一轮同步
+     *
+     * @return false 如果尚未注册参与者实例或重新注册失败
+     */
+    boolean announceShardEpoch(String epoch) {
+        return leaderInstance != null && announce("shard-epoch", epoch);
+    }
+
+    /**
+     * 在本节点的 Leader / 参与者实例上写入元数据并重新注册，其他节点通过读取或推送看到
+     */
+    private boolean announce(String key, String value) {
+        try {
+            leaderInstance.getMetadata().put(key, value);
+            localNamingService.registerInstance(properties.getLeaderServiceName(), properties.getLocalGroup(), leaderInstance);
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to announce {}={} on leader instance", key, value, e);
+            return false;
+        }
+    }
+
+    /**
+     * 注销本节点的候选 / Leader / 分片参与者实例并放弃任期
+     */
+    void release() {
+        handoffPredecessor = null; // 落选或竞选失败时不再接管
+        Instance instance = leaderInstance;
+        if (instance != null && localNamingService != null) {
+            try {
+                localNamingService.deregisterInstance(
+                        properties.getLeaderServiceName(),
+                        properties.getLocalGroup(),
+                        instance
+                );
+                log.info("Released leadership, deregistered leader instance");
+            } catch (Exception e) {
+                log.error("Failed to deregister leader instance", e);
+            }
+            leaderInstance = null;
+        }
+        leaderTerm = 0;
+        confirmedAt = 0;
+        superseded = false;
+    }
+
+    /**
+     * 构建注册到 leaderServiceName 的选举实例
+     */
+    Instance buildLeaderInstance(long term) {
+        Instance instance = new Instance();
+        instance.setIp("127.0.0.1");
+        instance.setPort(1); // 使用端口 1（Nacos 要求端口 > 0）
+        instance.setInstanceId(instanceId);
+        instance.setEphemeral(true); // 临时实例，服务停止后自动注销
+        instance.setHealthy(true);
+        instance.setEnabled(true);
+
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("instanceId", instanceId);
+        metadata.put("startTime", String.valueOf(System.currentTimeMillis()));
+        if (term > 0) {
+            metadata.put("term", String.valueOf(term));
+        }
+        instance.setMetadata(metadata);
+        return instance;
+    }
+
+    /**
+     * 本节点注册的候选 / Leader / 分片参与者实例，未注册或已释放时为 null
+     */
+    Instance getLeaderInstance() {
+        return leaderInstance;
+    }
+
+    /**
+     * 本节点作为 Leader（或候选）持有的任期，未持有或分片模式下为 0
+     */
+    long getLeaderTerm() {
+        return leaderTerm;
+    }
+
+    boolean isSuperseded() {
+        return superseded;
+    }
+
+    /**
+     * 记录观察到的最大任期，保证本节点下一次竞选的任期单调递增
+     */
+    private void observeTerms(List<Instance> leaders) {
+        if (leaders == null) {
+            return;
+        }
+        for (Instance leader : leaders) {
+            long term = termOf(leader);
+            if (term > observedTerm) {
+                observedTerm = term;
+            }
+        }
+    }
+
+    /**
+     * 按任期选出 Leader：任期最大者胜出，任期相同时 startTime 最早者胜出，仍相同时按 instanceId 排序
+     * <p>
+     * 只比较各实例注册时写入的元数据，看到相同实例集合的节点得出相同结果；
+     * 时钟偏差只影响同一任期内的先后，不会让任期更低的旧 Leader（如网络分区恢复后重新注册）胜出。
+     * 未记录任期的实例（旧版本节点注册）视为任期 0
+     *
+     * @return 选出的 Leader，没有实例时为 null
+     */
+    static Instance electedLeader(List<Instance> leaders) {
+        if (CollectionUtils.isEmpty(leaders)) {
+            return null;
+        }
+        return Collections.min(leaders, LEADER_ORDER);
+    }
+
+    /**
+     * Leader 实例记录的任期，未记录时为 0
+     */
+    static long termOf(Instance leader) {
+        return metadataLong(leader, "term");
+    }
+
+    private static long metadataLong(Instance instance, String key) {
+        Map<String, String> metadata = instance.getMetadata();
+        String value = metadata != null ? metadata.get(key) : null;
+        if (!StringUtils.hasText(value)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static String leaderIdOf(Instance leader) {
+        Map<String, String> metadata = leader.getMetadata();
+        return metadata != null ? metadata.get("instanceId") : null;
+    }
+
+    /**
+     * 过滤掉正在交接（metadata handoff=true）的 Leader 实例
+     */
+    static List<Instance> activeLeaders(List<Instance> leaders) {
+        List<Instance> active = new ArrayList<>();
+        if (leaders != null) {
+            for (Instance leader : leaders) {
+                Map<String, String> metadata = leader.getMetadata();
+                if (metadata == null || !"true".equals(metadata.get("handoff"))) {
+                    active.add(leader);
+                }
+            }
+        }
+        return active;
+    }
+
+    /**
+     * 正在交接的 Leader 的 instanceId，没有时为 null
+     */
+    private static String handingOffLeaderId(List<Instance> leaders) {
+        if (leaders != null) {
+            for (Instance leader : leaders) {
+                Map<String, String> metadata = leader.getMetadata();
+                if (metadata != null && "true".equals(metadata.get("handoff"))) {
+                    return metadata.get("instanceId");
+                }
+            }
+        }
+        return null;
+    }
+}
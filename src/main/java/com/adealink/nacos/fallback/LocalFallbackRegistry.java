@@ -0,0 +1,131 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 本地 fallback 注册表的内存视图
+ * <p>
+ * 记录本节点注册到本地 Nacos 的 fallback 实例（按服务、ip:port 索引），
+ * 以及通过本地订阅得到的原生实例，使同步周期无需逐个服务回读本地 Nacos。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+class LocalFallbackRegistry {
+
+    // 服务名 -> (ip:port -> fallback 实例)
+    private final ConcurrentMap<String, Map<String, Instance>> fallbackInstances = new ConcurrentHashMap<>();
+
+    // 服务名 -> 原生实例（来自本地 Nacos 的读取或订阅推送）
+    private final ConcurrentMap<String, List<Instance>> nativeInstances = new ConcurrentHashMap<>();
+
+    // 已从本地 Nacos 读取过、视图可直接使用的服务；订阅推送只更新原生实例，不会使服务变为已知
+    private final Set<String> seededServices = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 是否已持有该服务的本地视图（已从本地 Nacos 读取过一次，且之后未失效）
+     */
+    boolean isKnown(String serviceName) {
+        return seededServices.contains(serviceName);
+    }
+
+    /**
+     * 用一次本地 Nacos 读取结果初始化服务视图
+     */
+    void seed(String serviceName, List<Instance> fallbacks, List<Instance> natives) {
+        Map<String, Instance> instances = new ConcurrentHashMap<>();
+        for (Instance instance : fallbacks) {
+            instances.put(key(instance), instance);
+        }
+        fallbackInstances.put(serviceName, instances);
+        nativeInstances.put(serviceName, new ArrayList<>(natives));
+        seededServices.add(serviceName);
+    }
+
+    /**
+     * 更新服务的原生实例（本地订阅推送）
+     */
+    void updateNativeInstances(String serviceName, List<Instance> natives) {
+        nativeInstances.put(serviceName, new ArrayList<>(natives));
+    }
+
+    /**
+     * 记录已注册的 fallback 实例，相同 ip:port 的旧记录被覆盖
+     */
+    void recordRegistered(String serviceName, Instance instance) {
+        fallbackInstances.computeIfAbsent(serviceName, k -> new ConcurrentHashMap<>()).put(key(instance), instance);
+    }
+
+    /**
+     * 记录已注销的 fallback 实例
+     */
+    void recordDeregistered(String serviceName, Instance instance) {
+        Map<String, Instance> instances = fallbackInstances.get(serviceName);
+        if (instances != null) {
+            instances.remove(key(instance));
+        }
+    }
+
+    List<Instance> getFallbackInstances(String serviceName) {
+        Map<String, Instance> instances = fallbackInstances.get(serviceName);
+        return instances == null ? new ArrayList<>() : new ArrayList<>(instances.values());
+    }
+
+    List<Instance> getNativeInstances(String serviceName) {
+        List<Instance> instances = nativeInstances.get(serviceName);
+        return instances == null ? new ArrayList<>() : new ArrayList<>(instances);
+    }
+
+    /**
+     * 本节点当前持有的 fallback 实例数
+     */
+    int getFallbackInstanceCount(String serviceName) {
+        Map<String, Instance> instances = fallbackInstances.get(serviceName);
+        return instances == null ? 0 : instances.size();
+    }
+
+    /**
+     * 所有持有 fallback 实例的服务视图快照
+     */
+    Map<String, List<Instance>> snapshot() {
+        Map<String, List<Instance>> snapshot = new HashMap<>();
+        for (Map.Entry<String, Map<String, Instance>> entry : fallbackInstances.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                snapshot.put(entry.getKey(), new ArrayList<>(entry.getValue().values()));
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 丢弃服务视图，下次访问时重新读取本地 Nacos
+     */
+    void forget(String serviceName) {
+        seededServices.remove(serviceName);
+        nativeInstances.remove(serviceName);
+        fallbackInstances.remove(serviceName);
+    }
+
+    /**
+     * 使所有服务视图失效，下次访问时重新读取本地 Nacos，fallback 与原生实例视图一并重建；
+     * 重建前已记录的 fallback 实例保留，供快照使用
+     */
+    void invalidate() {
+        seededServices.clear();
+    }
+
+    void clear() {
+        seededServices.clear();
+        nativeInstances.clear();
+        fallbackInstances.clear();
+    }
+
+    private static String key(Instance instance) {
+        return instance.getIp() + ":" + instance.getPort();
+    }
+}
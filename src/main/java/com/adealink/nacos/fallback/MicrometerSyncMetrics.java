@@ -0,0 +1,153 @@
+package com.adealink.nacos.fallback;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于 Micrometer 的同步指标
+ * <p>
+ * 指标均以 nacos.fallback 为前缀：
+ * <ul>
+ *   <li>sync.cycle: 每轮同步耗时，按 result=success/failure 区分</li>
+ *   <li>sync.phase: 每轮各阶段累计耗时，按 phase=list/fetch/diff/write/cleanup 区分，每段耗时只计入一个阶段</li>
+ *   <li>sync.services: 扫描、跳过、同步、失败的服务数累计，按 result 区分；sync.last.services 为上一轮的值</li>
+ *   <li>sync.instances: 新增、删除的 fallback 实例数累计，按 action=added/removed 区分</li>
+ *   <li>rpc: 测试环境与本地 Nacos 调用耗时直方图，按 target=remote/local 及 operation 区分</li>
+ *   <li>leader: 本节点是否为 Leader；offline: 测试环境是否不可达（离线模式）</li>
+ *   <li>sync.last.success.age: 距上次成功同步的秒数，尚未成功同步时为 NaN</li>
+ * </ul>
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+class MicrometerSyncMetrics implements SyncMetrics {
+
+    static final String PREFIX = "nacos.fallback";
+
+    static final String RESULT_SCANNED = "scanned";
+    static final String RESULT_SKIPPED = "skipped";
+    static final String RESULT_SYNCED = "synced";
+    static final String RESULT_FAILED = "failed";
+
+    private final MeterRegistry registry;
+    private final Timer successCycleTimer;
+    private final Timer failureCycleTimer;
+    private final Map<String, Timer> phaseTimers = new HashMap<>();
+    private final Map<String, Counter> serviceCounters = new HashMap<>();
+    private final Map<String, AtomicInteger> lastCycleServices = new HashMap<>();
+    private final Counter addedCounter;
+    private final Counter removedCounter;
+
+    // target:operation -> 调用耗时直方图，按需创建
+    private final ConcurrentMap<String, Timer> rpcTimers = new ConcurrentHashMap<>();
+
+    MicrometerSyncMetrics(MeterRegistry registry, NacosFallbackServiceDiscovery discovery) {
+        this.registry = registry;
+        this.successCycleTimer = cycleTimer("success");
+        this.failureCycleTimer = cycleTimer("failure");
+
+        for (String phase : PHASES) {
+            phaseTimers.put(phase, Timer.builder(PREFIX + ".sync.phase")
+                    .description("Accumulated time spent in each phase of a sync cycle")
+                    .tag("phase", phase)
+                    .register(registry));
+        }
+
+        for (String result : new String[]{RESULT_SCANNED, RESULT_SKIPPED, RESULT_SYNCED, RESULT_FAILED}) {
+            serviceCounters.put(result, Counter.builder(PREFIX + ".sync.services")
+                    .description("Services processed by sync cycles")
+                    .tag("result", result)
+                    .register(registry));
+            AtomicInteger last = new AtomicInteger();
+            lastCycleServices.put(result, last);
+            Gauge.builder(PREFIX + ".sync.last.services", last, AtomicInteger::get)
+                    .description("Services processed by the last sync cycle")
+                    .tag("result", result)
+                    .register(registry);
+        }
+
+        this.addedCounter = instanceCounter("added");
+        this.removedCounter = instanceCounter("removed");
+
+        Gauge.builder(PREFIX + ".leader", discovery, d -> d.isLeader() ? 1 : 0)
+                .description("Whether this instance is the sync leader")
+                .register(registry);
+        Gauge.builder(PREFIX + ".offline", discovery, d -> d.isOffline() ? 1 : 0)
+                .description("Whether test Nacos is currently unreachable (offline mode)")
+                .register(registry);
+        Gauge.builder(PREFIX + ".sync.last.success.age", discovery, MicrometerSyncMetrics::secondsSinceLastSuccess)
+                .description("Seconds since the last successful sync cycle")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    @Override
+    public void recordCycle(long durationNanos, SyncCycleStats stats, boolean success) {
+        (success ? successCycleTimer : failureCycleTimer).record(durationNanos, TimeUnit.NANOSECONDS);
+        for (String phase : PHASES) {
+            phaseTimers.get(phase).record(stats.getPhaseNanos(phase), TimeUnit.NANOSECONDS);
+        }
+        recordServices(RESULT_SCANNED, stats.getScannedServices());
+        recordServices(RESULT_SKIPPED, stats.getSkippedServices());
+        recordServices(RESULT_SYNCED, stats.getSyncedServices());
+        recordServices(RESULT_FAILED, stats.getFailedServices());
+    }
+
+    @Override
+    public void recordRpc(String target, String operation, long durationNanos) {
+        rpcTimers.computeIfAbsent(target + ":" + operation, k -> Timer.builder(PREFIX + ".rpc")
+                        .description("Latency of Nacos calls made by the sync")
+                        .tag("target", target)
+                        .tag("operation", operation)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordInstancesAdded(int count) {
+        addedCounter.increment(count);
+    }
+
+    @Override
+    public void recordInstancesRemoved(int count) {
+        removedCounter.increment(count);
+    }
+
+    private void recordServices(String result, int count) {
+        serviceCounters.get(result).increment(count);
+        lastCycleServices.get(result).set(count);
+    }
+
+    private Timer cycleTimer(String result) {
+        return Timer.builder(PREFIX + ".sync.cycle")
+                .description("Duration of sync cycles")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private Counter instanceCounter(String action) {
+        return Counter.builder(PREFIX + ".sync.instances")
+                .description("Fallback instances written to local Nacos")
+                .tag("action", action)
+                .register(registry);
+    }
+
+    private static double secondsSinceLastSuccess(NacosFallbackServiceDiscovery discovery) {
+        long lastSuccess = discovery.getLastSuccessfulSyncTime();
+        if (lastSuccess <= 0) {
+            return Double.NaN;
+        }
+        return (System.currentTimeMillis() - lastSuccess) / 1000.0;
+    }
+}
@@ -1,7 +1,13 @@
 package com.adealink.nacos.fallback;
 
 import com.alibaba.cloud.nacos.ConditionalOnNacosDiscoveryEnabled;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -26,6 +32,7 @@ import org.springframework.context.annotation.Configuration;
 @ConditionalOnNacosDiscoveryEnabled
 @ConditionalOnProperty(value = "nacos.fallback.enabled", havingValue = "true")
 @EnableConfigurationProperties(NacosFallbackProperties.class)
+@AutoConfigureAfter(name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
 public class NacosFallbackAutoConfiguration {
 
     /**
@@ -50,4 +57,74 @@ public class NacosFallbackAutoConfiguration {
 
         return new NacosFallbackServiceDiscovery(properties);
     }
+
+    /**
+     * 懒同步：包装 Nacos 的 DiscoveryClient，首次查询未命中时按需同步
+     * <p>
+     * 仅当 lazy-sync-enabled=true 时注册；BeanPostProcessor 使用静态方法声明，避免提前初始化配置类
+     */
+    @Bean
+    @ConditionalOnClass(name = "org.springframework.cloud.client.discovery.DiscoveryClient")
+    @ConditionalOnProperty(value = "nacos.fallback.lazy-sync-enabled", havingValue = "true")
+    static LazySyncDiscoveryClient.PostProcessor nacosFallbackLazySyncPostProcessor(
+            ObjectProvider<NacosFallbackServiceDiscovery> discovery,
+            ObjectProvider<NacosFallbackProperties> properties) {
+        return new LazySyncDiscoveryClient.PostProcessor(discovery, properties);
+    }
+
+    /**
+     * 同步指标
+     * <p>
+     * 仅当 classpath 中存在 Micrometer 且容器中存在 MeterRegistry 时注册，
+     * 否则同步流程使用不记录任何指标的默认实现。
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnBean(type = "io.micrometer.core.instrument.MeterRegistry")
+    static class MetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        MicrometerSyncMetrics nacosFallbackSyncMetrics(MeterRegistry meterRegistry,
+                                                       NacosFallbackServiceDiscovery discovery) {
+            MicrometerSyncMetrics metrics = new MicrometerSyncMetrics(meterRegistry, discovery);
+            discovery.setSyncMetrics(metrics);
+            return metrics;
+        }
+    }
+
+    /**
+     * Actuator 端点 /actuator/nacosfallback
+     * <p>
+     * 仅当 classpath 中存在 Actuator 且端点已启用并暴露时注册
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    @ConditionalOnAvailableEndpoint(endpoint = NacosFallbackEndpoint.class)
+    static class EndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public NacosFallbackEndpoint nacosFallbackEndpoint(NacosFallbackServiceDiscovery discovery) {
+            return new NacosFallbackEndpoint(discovery);
+        }
+    }
+
+    /**
+     * 健康检查
+     * <p>
+     * 仅当 classpath 中存在 Actuator 且 management.health.nacosfallback.enabled 未关闭时注册
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.health.HealthIndicator")
+    @ConditionalOnEnabledHealthIndicator("nacosfallback")
+    static class HealthConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(name = "nacosFallbackHealthIndicator")
+        public NacosFallbackHealthIndicator nacosFallbackHealthIndicator(NacosFallbackServiceDiscovery discovery,
+                                                                         NacosFallbackProperties properties) {
+            return new NacosFallbackHealthIndicator(discovery, properties);
+        }
+    }
 }
@@ -0,0 +1,124 @@
+package com.adealink.nacos.fallback;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nacos Fallback Actuator 端点
+ * <p>
+ * GET /actuator/nacosfallback 查看 Leader 状态、已同步服务及各服务的同步状态；
+ * GET /actuator/nacosfallback/{serviceName} 查看单个服务；
+ * POST /actuator/nacosfallback 立即触发同步，请求体可带 serviceName 只同步该服务。
+ * 读取操作只返回内存中的状态，不访问 Nacos。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+@Endpoint(id = "nacosfallback")
+public class NacosFallbackEndpoint {
+
+    private final NacosFallbackServiceDiscovery discovery;
+
+    public NacosFallbackEndpoint(NacosFallbackServiceDiscovery discovery) {
+        this.discovery = discovery;
+    }
+
+    @ReadOperation
+    public Map<String, Object> state() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("leader", discovery.isLeader());
+        state.put("instanceId", discovery.getInstanceId());
+        long leaderTerm = discovery.getLeaderTerm();
+        if (leaderTerm > 0) {
+            state.put("leaderTerm", leaderTerm);
+        }
+        state.put("offline", discovery.isOffline());
+        state.put("lastSuccessfulSyncTime", discovery.getLastSuccessfulSyncTime());
+        state.put("lastCycle", describeCycle(discovery.getLastCycleStats()));
+        Set<String> shardParticipants = discovery.getShardParticipants();
+        if (!shardParticipants.isEmpty()) {
+            state.put("shardParticipants", shardParticipants);
+        }
+        state.put("syncedServices", discovery.getSyncedServices());
+        Set<String> lazyWorkingSet = discovery.getLazyWorkingSet();
+        if (!lazyWorkingSet.isEmpty()) {
+            state.put("lazyWorkingSet", lazyWorkingSet);
+        }
+
+        Map<String, Object> services = new LinkedHashMap<>();
+        for (Map.Entry<String, ServiceSyncStatus> entry : discovery.getServiceStatuses().entrySet()) {
+            services.put(entry.getKey(), describeService(entry.getKey(), entry.getValue()));
+        }
+        state.put("services", services);
+        return state;
+    }
+
+    /**
+     * 单个服务的同步状态，未跟踪的服务返回 null（404）
+     */
+    @ReadOperation
+    public Map<String, Object> service(@Selector String serviceName) {
+        ServiceSyncStatus status = discovery.getServiceStatuses().get(serviceName);
+        return status == null ? null : describeService(serviceName, status);
+    }
+
+    /**
+     * 立即触发同步，提交后即返回，同步在后台执行
+     *
+     * @param serviceName 服务名，为空时同步所有服务
+     */
+    @WriteOperation
+    public Map<String, Object> sync(@Nullable String serviceName) {
+        boolean triggered = discovery.triggerSync(serviceName);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("triggered", triggered);
+        if (serviceName != null) {
+            result.put("serviceName", serviceName);
+        }
+        if (!triggered) {
+            result.put("reason", "not the sync leader, not initialized or assigned to another shard participant");
+        }
+        return result;
+    }
+
+    private static Map<String, Object> describeCycle(SyncCycleStats cycle) {
+        if (cycle == null) {
+            return null;
+        }
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("success", cycle.isSuccess());
+        description.put("durationMs", TimeUnit.NANOSECONDS.toMillis(cycle.getDurationNanos()));
+        description.put("scannedServices", cycle.getScannedServices());
+        description.put("skippedServices", cycle.getSkippedServices());
+        description.put("syncedServices", cycle.getSyncedServices());
+        description.put("failedServices", cycle.getFailedServices());
+        description.put("addedInstances", cycle.getAddedInstances());
+        description.put("removedInstances", cycle.getRemovedInstances());
+        return description;
+    }
+
+    private Map<String, Object> describeService(String serviceName, ServiceSyncStatus status) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("lastSyncTime", status.getLastSyncTime());
+        description.put("instanceCount", status.getInstanceCount());
+        description.put("fingerprint", Long.toHexString(status.getRevision()));
+        description.put("consecutiveFailures", status.getConsecutiveFailures());
+        if (status.getConsecutiveFailures() > 0) {
+            description.put("lastFailureTime", status.getLastFailureTime());
+            description.put("lastError", status.getLastError());
+        }
+        long backoffRemainingMs = discovery.getServiceBackoffRemainingMs(serviceName);
+        description.put("circuitOpen", backoffRemainingMs > 0);
+        description.put("backoffRemainingMs", backoffRemainingMs);
+        return description;
+    }
+}
@@ -0,0 +1,118 @@
+package com.adealink.nacos.fallback;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nacos Fallback 健康检查
+ * <p>
+ * 只读取同步组件缓存的状态，不访问 Nacos，可被频繁探测：
+ * <ul>
+ *   <li>本节点为 Leader 且距上次成功同步（或成为 Leader 以来一直未成功）超过 healthStaleMultiplier 倍同步间隔时为 DEGRADED</li>
+ *   <li>本节点不是 Leader 且超过 healthStaleMultiplier 倍 Leader 检查间隔未观察到健康的 Leader 时为 DOWN</li>
+ *   <li>其余情况为 UP</li>
+ * </ul>
+ * DEGRADED 不在 Spring Boot 默认的状态顺序中，需要参与整体健康状态时配置
+ * management.endpoint.health.status.order。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+public class NacosFallbackHealthIndicator implements HealthIndicator {
+
+    /**
+     * 同步结果陈旧，fallback 实例可能已与测试环境不一致
+     */
+    public static final Status DEGRADED = new Status("DEGRADED", "Fallback sync is stale");
+
+    private final NacosFallbackServiceDiscovery discovery;
+    private final NacosFallbackProperties properties;
+
+    public NacosFallbackHealthIndicator(NacosFallbackServiceDiscovery discovery, NacosFallbackProperties properties) {
+        this.discovery = discovery;
+        this.properties = properties;
+    }
+
+    @Override
+    public Health health() {
+        long now = System.currentTimeMillis();
+        Health.Builder builder = discovery.isLeader() ? leaderHealth(now) : followerHealth(now);
+
+        builder.withDetail("leader", discovery.isLeader())
+                .withDetail("instanceId", discovery.getInstanceId())
+                .withDetail("offline", discovery.isOffline());
+
+        long lastSuccess = discovery.getLastSuccessfulSyncTime();
+        if (lastSuccess > 0) {
+            builder.withDetail("lastSuccessfulSyncTime", lastSuccess)
+                    .withDetail("secondsSinceLastSuccess", (now - lastSuccess) / 1000);
+        }
+
+        SyncCycleStats cycle = discovery.getLastCycleStats();
+        if (cycle != null) {
+            builder.withDetail("lastCycleDurationMs", TimeUnit.NANOSECONDS.toMillis(cycle.getDurationNanos()));
+            for (String phase : SyncMetrics.PHASES) {
+                builder.withDetail("lastCycle" + Character.toUpperCase(phase.charAt(0)) + phase.substring(1) + "Ms",
+                        TimeUnit.NANOSECONDS.toMillis(cycle.getPhaseNanos(phase)));
+            }
+            builder.withDetail("lastCycleFailedServices", cycle.getFailedServices());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Leader：检查同步是否陈旧，从未成功同步时以成为 Leader 的时间为起点
+     */
+    private Health.Builder leaderHealth(long now) {
+        long staleMillis = properties.getHealthStaleMultiplier() * TimeUnit.SECONDS.toMillis(effectiveSyncIntervalSeconds());
+        long lastSuccess = discovery.getLastSuccessfulSyncTime();
+        long reference = Math.max(lastSuccess, discovery.getLeaderSince());
+        if (now - reference > staleMillis) {
+            return Health.status(DEGRADED)
+                    .withDetail("reason", lastSuccess > 0
+                            ? "Last successful sync is older than " + staleMillis / 1000 + " seconds"
+                            : "No successful sync within " + staleMillis / 1000 + " seconds of becoming leader");
+        }
+        return Health.up();
+    }
+
+    /**
+     * Follower：检查最近是否观察到健康的 Leader
+     */
+    private Health.Builder followerHealth(long now) {
+        long staleMillis = properties.getHealthStaleMultiplier()
+                * TimeUnit.SECONDS.toMillis(effectiveLeaderCheckIntervalSeconds());
+        long lastObserved = discovery.getLastLeaderObservedTime();
+        if (now - lastObserved > staleMillis) {
+            return Health.down()
+                    .withDetail("reason", "No leader observed for " + properties.getLeaderServiceName()
+                            + " in the last " + staleMillis / 1000 + " seconds");
+        }
+        return Health.up().withDetail("lastLeaderObservedTime", lastObserved);
+    }
+
+    /**
+     * 当前生效的 Leader 检查间隔：订阅 Leader 选举服务时定期检查只作为兜底
+     */
+    private long effectiveLeaderCheckIntervalSeconds() {
+        return properties.isLeaderSubscribeEnabled()
+                ? properties.getLeaderSafetyCheckIntervalSeconds()
+                : properties.getLeaderCheckIntervalSeconds();
+    }
+
+    /**
+     * 当前生效的同步间隔上限：自适应模式取上限，推送模式取对账间隔
+     */
+    private long effectiveSyncIntervalSeconds() {
+        if (properties.isAdaptiveSyncEnabled()) {
+            return Math.max(properties.getMinSyncIntervalSeconds(), properties.getMaxSyncIntervalSeconds());
+        }
+        return properties.isSubscribeEnabled()
+                ? properties.getReconcileIntervalSeconds()
+                : properties.getSyncIntervalSeconds();
+    }
+}
@@ -5,8 +5,13 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Nacos Fallback 配置属性
@@ -69,12 +74,176 @@ public class NacosFallbackProperties {
      */
     private String testPrivateIpPrefix = "172.";
 
+    /**
+     * CIDR 形式的 IP 重写规则，按配置顺序匹配，第一条命中的规则生效
+     * <p>
+     * 用于测试环境跨多个网段、分别经由不同 NAT 网关暴露的场景；
+     * 没有规则命中时再按 testPrivateIpPrefix / testPublicIp 重写
+     */
+    @Valid
+    private List<IpRewriteRule> ipRewriteRules = new ArrayList<>();
+
+    /**
+     * 端口映射规则，与 IP 重写一同应用，用于测试网关按端口转发暴露内部实例的场景
+     * <p>
+     * 可按服务名、原始 IP 限定作用范围，越具体的规则优先；未配置时端口保持不变
+     */
+    @Valid
+    private List<PortMappingRule> portMappings = new ArrayList<>();
+
     /**
      * 同步间隔(秒)
      */
     @Positive(message = "同步间隔必须大于 0")
     private long syncIntervalSeconds = 60;
 
+    /**
+     * 是否启用自适应同步间隔
+     * <p>
+     * 开启后以 syncIntervalSeconds（推送模式下为 reconcileIntervalSeconds）为初始间隔，
+     * 上一周期有实例变化时间隔减半，无变化时间隔翻倍，限制在 [minSyncIntervalSeconds, maxSyncIntervalSeconds] 内
+     */
+    private boolean adaptiveSyncEnabled = false;
+
+    /**
+     * 自适应同步间隔下限(秒)
+     */
+    @Positive(message = "同步间隔下限必须大于 0")
+    private long minSyncIntervalSeconds = 10;
+
+    /**
+     * 自适应同步间隔上限(秒)
+     */
+    @Positive(message = "同步间隔上限必须大于 0")
+    private long maxSyncIntervalSeconds = 600;
+
+    /**
+     * 服务同步并发度
+     * <p>
+     * 为 1 时逐个服务同步；大于 1 时使用固定大小的工作线程池并行处理各服务，
+     * 单个服务内部仍保持本地优先、先增后删的顺序
+     */
+    @Positive(message = "同步并发度必须大于 0")
+    private int syncParallelism = 1;
+
+    /**
+     * 服务同步工作线程类型
+     * <p>
+     * PLATFORM: 固定大小的平台线程池，syncParallelism 为 1 时逐个服务同步；
+     * VIRTUAL: 每个服务一个虚拟线程（需要 JDK 21+，否则回退为 PLATFORM），syncParallelism 为同时在途任务数上限
+     */
+    private ExecutorType syncExecutorType = ExecutorType.PLATFORM;
+
+    /**
+     * 拉取测试环境服务列表的分页大小
+     * <p>
+     * syncParallelism 大于 1 时，第一页返回总数后剩余页并发拉取
+     */
+    @Positive(message = "分页大小必须大于 0")
+    private int servicePageSize = 100;
+
+    /**
+     * 是否启用服务级熔断与指数退避
+     * <p>
+     * 单个服务连续同步失败 serviceFailureThreshold 次后熔断，退避时间从 serviceBackoffInitialSeconds 开始，
+     * 每次半开尝试失败后翻倍，不超过 serviceBackoffMaxSeconds；熔断期间保留该服务的旧 fallback 实例
+     */
+    private boolean serviceBackoffEnabled = false;
+
+    /**
+     * 触发熔断的连续失败次数
+     */
+    @Positive(message = "熔断阈值必须大于 0")
+    private int serviceFailureThreshold = 3;
+
+    /**
+     * 熔断初始退避时间(秒)
+     */
+    @Positive(message = "初始退避时间必须大于 0")
+    private long serviceBackoffInitialSeconds = 60;
+
+    /**
+     * 熔断最大退避时间(秒)
+     */
+    @Positive(message = "最大退避时间必须大于 0")
+    private long serviceBackoffMaxSeconds = 1800;
+
+    /**
+     * 是否订阅测试环境服务变更(推送模式)
+     * <p>
+     * 开启后对已同步的服务建立订阅，实例变更推送到达时立即应用到本地 Nacos，
+     * 定期全量同步降级为按 reconcileIntervalSeconds 执行的兜底对账
+     */
+    private boolean subscribeEnabled = false;
+
+    /**
+     * 推送模式下的兜底对账间隔(秒)
+     */
+    @Positive(message = "对账间隔必须大于 0")
+    private long reconcileIntervalSeconds = 300;
+
+    /**
+     * 是否使用批量接口注册/注销本地 fallback 实例
+     * <p>
+     * 需要 Nacos 2.x 客户端及服务端（batchRegisterInstance / batchDeregisterInstance），
+     * 每个服务的新增与删除各合并为一次调用；服务端或客户端不支持批量接口时自动回退为逐个调用，
+     * 其他失败计为该服务同步失败，保留旧实例并在下一轮重试。
+     * Nacos 2.x 客户端在每个服务下只保留一个临时实例，逐个注册时后一次注册覆盖前一次，
+     * 本地为 Nacos 2.x 且存在多实例服务时需要开启；关闭时逐个注册/注销，适用于 Nacos 1.x 本地服务端
+     */
+    private boolean batchRegisterEnabled = false;
+
+    /**
+     * 是否使用本地 fallback 注册表的内存视图
+     * <p>
+     * 开启后本节点注册的 fallback 实例在内存中维护，同步周期不再逐个服务回读本地 Nacos，
+     * 原生实例通过本地订阅感知，并按 localResyncIntervalSeconds 定期整体回读校正
+     */
+    private boolean localRegistryViewEnabled = false;
+
+    /**
+     * 内存视图与服务修订缓存整体回读本地 Nacos 的间隔(秒)
+     */
+    @Positive(message = "本地回读间隔必须大于 0")
+    private long localResyncIntervalSeconds = 600;
+
+    /**
+     * 是否启用同步视图的本地快照
+     * <p>
+     * 开启后每轮同步结束时若视图有变化则写入 snapshotPath；成为 Leader 时先按快照立即注册 fallback 实例，
+     * 再连接测试环境进行完整同步校正，避免每次启动都等待完整同步
+     */
+    private boolean snapshotEnabled = false;
+
+    /**
+     * 本地快照文件路径
+     */
+    private String snapshotPath = System.getProperty("user.home") + "/.nacos-fallback/snapshot.bin";
+
+    /**
+     * 是否启用离线模式
+     * <p>
+     * 开启后测试环境 Nacos 不可达（连接失败、拉取异常，或返回空服务列表且服务端状态不为 UP）时，
+     * 保留已注册的 fallback 实例继续使用，Leader 身份也不会因连接失败而释放；
+     * 离线超过 offlineStaleTtlSeconds 后才清理这些实例
+     */
+    private boolean offlineModeEnabled = false;
+
+    /**
+     * 离线模式下保留上次成功同步结果的最长时间(秒)
+     */
+    @Positive(message = "离线保留时间必须大于 0")
+    private long offlineStaleTtlSeconds = 3600;
+
+    /**
+     * 健康检查判定陈旧的间隔倍数
+     * <p>
+     * Leader 距上次成功同步超过该倍数的同步间隔时报告 DEGRADED；
+     * 超过该倍数的 Leader 检查间隔未观察到 Leader 时报告 DOWN
+     */
+    @Positive(message = "健康检查间隔倍数必须大于 0")
+    private int healthStaleMultiplier = 3;
+
     /**
      * Leader 选举服务名称
      */
@@ -88,11 +257,165 @@ public class NacosFallbackProperties {
 
     /**
      * Leader 选举等待时间(毫秒)
-     * 用于处理多个实例同时竞选 Leader 的竞争条件
+     * 注册候选实例后等待该时间再确认选举结果，用于处理多个实例同时竞选 Leader 的竞争条件；
+     * 等待通过调度完成，不阻塞调度线程。为 0 时注册后立即确认
      */
-    @Positive(message = "Leader 选举等待时间必须大于 0")
+    @PositiveOrZero(message = "Leader 选举等待时间不能小于 0")
     private long leaderElectionWaitMs = 500;
 
+    /**
+     * 是否订阅 Leader 选举服务
+     * <p>
+     * 开启后订阅 leaderServiceName 的实例变更：Leader 实例消失时 Follower 立即竞选，
+     * 定期检查降级为 leaderSafetyCheckIntervalSeconds 的低频兜底；分片模式下参与者变化时立即重新分配服务。
+     * 订阅失败时仍按 leaderCheckIntervalSeconds 定期检查
+     */
+    private boolean leaderSubscribeEnabled = false;
+
+    /**
+     * 订阅 Leader 选举服务时的兜底检查间隔(秒)
+     */
+    @Positive(message = "Leader 兜底检查间隔必须大于 0")
+    private long leaderSafetyCheckIntervalSeconds = 60;
+
+    /**
+     * 是否在停止时交接 Leader 身份
+     * <p>
+     * 开启后停止的 Leader 不再注销全部 fallback 实例，而是在 Leader 实例上标记 handoff，
+     * 由继任者按 fallback/source 元数据接管已有实例后再退出；超过 handoffTimeoutMs 无继任者接管时照常清理。
+     * 建议同时开启 leaderSubscribeEnabled，否则 Follower 最长要到下一次 Leader 检查才能发现交接
+     */
+    private boolean handoffEnabled = false;
+
+    /**
+     * 停止时等待继任者接管的最长时间(毫秒)
+     * <p>
+     * 继任者标记 adopting-from 开始接管后，从此刻起再等待一个 handoffTimeoutMs
+     */
+    @Positive(message = "交接等待时间必须大于 0")
+    private long handoffTimeoutMs = 5000;
+
+    /**
+     * 是否启用分片同步
+     * <p>
+     * 开启后不再选举唯一的 Leader：每个节点都注册到 leaderServiceName 作为参与者，
+     * 按一致性哈希将测试环境服务分配给各参与者，每个节点只同步自己负责的服务，参与者变化时自动重新分配，
+     * 原负责节点在新负责节点的实例可见前（最多一个同步间隔）保留自己的实例。
+     * 同一本地 Nacos 上的所有节点必须使用相同的模式
+     */
+    private boolean shardingEnabled = false;
+
+    /**
+     * 分片同步时每个参与者在一致性哈希环上的虚拟节点数，越大分配越均匀
+     */
+    @Positive(message = "虚拟节点数必须大于 0")
+    private int shardVirtualNodes = 128;
+
+    /**
+     * 需要同步的服务名规则，为空时同步所有服务
+     * <p>
+     * 默认按 glob 匹配（* 匹配任意字符，? 匹配单个字符），以 regex: 开头时按正则匹配整个服务名
+     */
+    private List<String> includeServices = new ArrayList<>();
+
+    /**
+     * 不同步的服务名规则，语法同 includeServices，优先于 includeServices
+     */
+    private List<String> excludeServices = new ArrayList<>();
+
+    /**
+     * 是否启用懒同步
+     * <p>
+     * 开启后不再同步测试环境的全部服务，只同步应用通过 DiscoveryClient 或 ReactiveDiscoveryClient（LoadBalancer、OpenFeign）查询过的服务：
+     * 首次查询本地未命中时立即同步该服务并加入工作集，定期同步只刷新工作集内的服务，
+     * 超过 lazySyncIdleTtlSeconds 未被查询的服务移出工作集并清理。多个节点的工作集通过本地 Nacos 汇总到 Leader
+     */
+    private boolean lazySyncEnabled = false;
+
+    /**
+     * 首次查询未命中时等待本地 Nacos 推送按需同步的实例的最长时间(毫秒)，超时后返回空结果，由后续同步补齐
+     */
+    @Positive(message = "懒同步等待时间必须大于 0")
+    private long lazySyncTimeoutMs = 2000;
+
+    /**
+     * 工作集内服务的空闲淘汰时间(秒)
+     */
+    @Positive(message = "懒同步空闲淘汰时间必须大于 0")
+    private long lazySyncIdleTtlSeconds = 1800;
+
+    /**
+     * IP 重写规则
+     */
+    @Data
+    public static class IpRewriteRule {
+
+        /**
+         * 测试环境网段，如 10.0.0.0/8、172.16.0.0/12，支持 IPv6
+         */
+        @NotBlank(message = "IP 重写规则的网段不能为空")
+        private String cidr;
+
+        /**
+         * 该网段对应的公网 IP
+         */
+        @NotBlank(message = "IP 重写规则的公网 IP 不能为空")
+        private String publicIp;
+    }
+
+    /**
+     * 端口映射规则
+     * <p>
+     * 单端口：port -> targetPort；区间：[port, portEnd] 按偏移量映射到 targetPort 起始的同长度区间
+     */
+    @Data
+    public static class PortMappingRule {
+
+        /**
+         * 服务名，为空时对所有服务生效
+         */
+        private String serviceName;
+
+        /**
+         * 测试环境原始 IP（重写前），为空时对所有 IP 生效
+         */
+        private String ip;
+
+        /**
+         * 原始端口（区间规则的起始端口）
+         */
+        @NotNull(message = "端口映射规则的原始端口不能为空")
+        @Positive(message = "端口必须大于 0")
+        private Integer port;
+
+        /**
+         * 区间规则的结束端口（含），为空时为单端口映射
+         */
+        @Positive(message = "端口必须大于 0")
+        private Integer portEnd;
+
+        /**
+         * 映射后的端口（区间规则的起始端口）
+         */
+        @NotNull(message = "端口映射规则的目标端口不能为空")
+        @Positive(message = "端口必须大于 0")
+        private Integer targetPort;
+    }
+
+    /**
+     * 同步工作线程类型
+     */
+    public enum ExecutorType {
+        /**
+         * 平台线程
+         */
+        PLATFORM,
+        /**
+         * 虚拟线程（JDK 21+）
+         */
+        VIRTUAL
+    }
+
     /**
      * 获取测试环境 Nacos 服务地址
      * <p>
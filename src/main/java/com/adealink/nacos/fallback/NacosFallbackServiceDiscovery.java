@@ -2,6 +2,10 @@ package com.adealink.nacos.fallback;
 
 import com.alibaba.nacos.api.naming.NamingFactory;
 import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.AbstractEventListener;
+import com.alibaba.nacos.api.naming.listener.Event;
+import com.alibaba.nacos.api.naming.listener.EventListener;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
 import com.alibaba.nacos.api.naming.pojo.Instance;
 import com.alibaba.nacos.api.naming.pojo.ListView;
 import lombok.extern.slf4j.Slf4j;
@@ -10,10 +14,13 @@ import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 import com.alibaba.nacos.api.exception.NacosException;
 
+import java.nio.file.Paths;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Nacos Fallback 服务同步
@@ -28,12 +35,12 @@ import java.util.concurrent.ScheduledFuture;
 @Slf4j
 public class NacosFallbackServiceDiscovery {
 
-    private static final int PAGE_SIZE = 100;
-
     private final NacosFallbackProperties properties;
     private final NamingServiceFactory namingServiceFactory;
-    private final ThreadPoolTaskScheduler taskScheduler;
+    private final ThreadPoolTaskScheduler taskScheduler; // 初始化、同步及重试
+    private final ThreadPoolTaskScheduler leaderScheduler; // Leader 健康检查，与同步分离，避免长时间同步阻塞检查
     private final boolean ownedScheduler; // 标记调度器是否由本类创建，用于判断是否需要关闭
+    private final ExecutorService syncExecutor; // 并行同步工作线程池，平台线程且 syncParallelism 为 1 时为 null
     private volatile NamingService testNamingService;
     private volatile NamingService localNamingService;
     private volatile boolean initialized = false;
@@ -41,7 +48,6 @@ public class NacosFallbackServiceDiscovery {
     // Leader 选举相关
     private volatile boolean isLeader = false;
     private final String instanceId;
-    private Instance leaderInstance;
 
     // 调度任务引用，用于停止时取消
     private volatile ScheduledFuture<?> syncTask;
@@ -50,20 +56,145 @@ public class NacosFallbackServiceDiscovery {
     // 已同步的服务名集合，用于清理不再存在的服务
     private final Set<String> syncedServices = new HashSet<>();
 
+    // 服务级锁，保证同一服务的定期同步与推送事件串行执行
+    private final ConcurrentMap<String, Object> serviceLocks = new ConcurrentHashMap<>();
+
+    // 本地 Nacos 是否支持批量注册，确认不支持批量接口后置为 false，回退为逐个注册
+    private volatile boolean batchSupported = true;
+
+    // 本任期内是否已提示未启用批量模式时逐个注册多实例服务
+    private volatile boolean perInstanceWarned;
+
+    // 推送模式下对测试环境服务的订阅，服务名 -> 监听器
+    private final ConcurrentMap<String, EventListener> testSubscriptions = new ConcurrentHashMap<>();
+
+    // 本节点注册的 fallback 实例及本地原生实例的内存视图
+    private final LocalFallbackRegistry localRegistry = new LocalFallbackRegistry();
+
+    // 内存视图模式下对本地服务的订阅（用于感知原生实例），服务名 -> 监听器
+    private final ConcurrentMap<String, EventListener> localSubscriptions = new ConcurrentHashMap<>();
+
+    // 内存视图上次整体回读本地 Nacos 的时间
+    private volatile long lastLocalResyncTime = System.currentTimeMillis();
+
+    // 本地 fallback 实例写入计数（注册/注销），自适应间隔据此判断周期内是否有变化
+    private final AtomicLong localWriteCount = new AtomicLong();
+    private volatile long lastObservedWriteCount;
+
+    // 自适应同步间隔，未启用时为 null
+    private volatile AdaptiveSyncInterval adaptiveInterval;
+
+    // 启动时编译的 CIDR 重写规则
+    private final IpRewriteTable ipRewriteTable;
+
+    // 启动时展开的端口映射表
+    private final PortMappingTable portMappingTable;
+
+    // 启动时编译的服务名过滤规则
+    private final ServiceNameFilter serviceFilter;
+
+    // 服务级熔断与退避，未启用时为 null
+    private final ServiceFailureTracker failureTracker;
+
+    // 本地快照，未启用时为 null
+    private final SyncSnapshotStore snapshotStore;
+
+    // 最近一次成功同步的视图（服务名 -> 测试环境实例），用于写入快照
+    private final ConcurrentMap<String, List<Instance>> syncedView = new ConcurrentHashMap<>();
+    private volatile boolean snapshotDirty = false;
+
+    // 离线模式：测试环境当前是否不可达，以及最近一次成功拉取服务列表的时间（按 offlineClock 计时）
+    private volatile boolean offline = false;
+    private volatile long lastRemoteSuccessTime;
+    private volatile boolean offlineExpired = false;
+    private volatile Clock offlineClock = Clock.systemUTC();
+
+    // 服务修订缓存：服务名 -> 上次确认无变化时测试环境实例的修订值；
+    // 只在订阅本地服务期间有效，本地推送、本节点写入或定期回读时丢弃
+    private final ConcurrentMap<String, Long> serviceRevisions = new ConcurrentHashMap<>();
+
+    // 同步指标，存在 MeterRegistry 时由自动配置替换
+    private volatile SyncMetrics syncMetrics = SyncMetrics.NOOP;
+
+    // 上一轮完成的同步统计（只在本轮结束后发布），以及最近一次成功同步的时间
+    private volatile SyncCycleStats lastCycle;
+    private volatile long lastSuccessfulSyncTime;
+
+    // 最近一次观察到健康 Leader 的时间（本节点为 Leader 时不更新），以及本节点成为 Leader 的时间
+    private volatile long lastLeaderObservedTime;
+    private volatile long leaderSince;
+
+    // 分片同步：参与者哈希环与再平衡时释放的服务，未开启分片时为 null
+    private final ShardCoordinator shards;
+
+    // Leader 选举服务的订阅，未开启或订阅失败时为 null
+    private volatile EventListener leaderSubscription;
+
+    // 任期选举、fencing 与交接
+    private final LeaderElection election;
+
+    // 候选实例已注册、等待 leaderElectionWaitMs 后确认选举结果
+    private volatile boolean electionPending;
+
+    // 各服务最近一次同步的状态，服务名 -> 状态
+    private final ConcurrentMap<String, ServiceSyncStatus> serviceStatuses = new ConcurrentHashMap<>();
+
+    // 懒同步：工作集、发布订阅及按需同步，未启用时为 null
+    private final LazySyncCoordinator lazySync;
+
     public NacosFallbackServiceDiscovery(NacosFallbackProperties properties) {
-        this(properties, createInternalScheduler(), new DefaultNamingServiceFactory(), UUID.randomUUID().toString(), true);
+        this(properties, createInternalScheduler("nacos-fallback-"), createInternalScheduler("nacos-fallback-leader-"),
+                new DefaultNamingServiceFactory(), UUID.randomUUID().toString(), true);
+    }
+
+    NacosFallbackServiceDiscovery(NacosFallbackProperties properties,
+                                  ThreadPoolTaskScheduler taskScheduler,
+                                  NamingServiceFactory namingServiceFactory,
+                                  String instanceId,
+                                  boolean ownedScheduler) {
+        this(properties, taskScheduler, taskScheduler, namingServiceFactory, instanceId, ownedScheduler);
     }
 
     NacosFallbackServiceDiscovery(NacosFallbackProperties properties,
                                   ThreadPoolTaskScheduler taskScheduler,
+                                  ThreadPoolTaskScheduler leaderScheduler,
                                   NamingServiceFactory namingServiceFactory,
                                   String instanceId,
                                   boolean ownedScheduler) {
+        this(properties, taskScheduler, leaderScheduler, namingServiceFactory, instanceId, ownedScheduler,
+                properties.isLazySyncEnabled() ? SyncExecutors.createOnDemand(properties.getSyncParallelism()) : null);
+    }
+
+    NacosFallbackServiceDiscovery(NacosFallbackProperties properties,
+                                  ThreadPoolTaskScheduler taskScheduler,
+                                  ThreadPoolTaskScheduler leaderScheduler,
+                                  NamingServiceFactory namingServiceFactory,
+                                  String instanceId,
+                                  boolean ownedScheduler,
+                                  ScheduledExecutorService onDemandExecutor) {
         this.properties = properties;
         this.taskScheduler = taskScheduler;
+        this.leaderScheduler = leaderScheduler;
         this.namingServiceFactory = namingServiceFactory;
         this.instanceId = instanceId;
         this.ownedScheduler = ownedScheduler;
+        this.ipRewriteTable = IpRewriteTable.compile(properties.getIpRewriteRules());
+        this.portMappingTable = PortMappingTable.compile(properties.getPortMappings());
+        this.serviceFilter = ServiceNameFilter.compile(properties.getIncludeServices(), properties.getExcludeServices());
+        this.snapshotStore = properties.isSnapshotEnabled() && StringUtils.hasText(properties.getSnapshotPath())
+                ? new SyncSnapshotStore(Paths.get(properties.getSnapshotPath()))
+                : null;
+        this.syncExecutor = SyncExecutors.create(properties.getSyncExecutorType(), properties.getSyncParallelism());
+        this.failureTracker = properties.isServiceBackoffEnabled()
+                ? new ServiceFailureTracker(properties.getServiceFailureThreshold(),
+                        properties.getServiceBackoffInitialSeconds() * 1000,
+                        properties.getServiceBackoffMaxSeconds() * 1000)
+                : null;
+        this.election = new LeaderElection(this, properties, instanceId);
+        this.shards = properties.isShardingEnabled() ? new ShardCoordinator(this, election, properties, instanceId) : null;
+        this.lazySync = properties.isLazySyncEnabled()
+                ? new LazySyncCoordinator(this, properties, serviceFilter, taskScheduler, onDemandExecutor)
+                : null;
     }
 
     /**
@@ -71,10 +202,10 @@ public class NacosFallbackServiceDiscovery {
      * <p>
      * 不暴露为 Spring Bean，避免影响应用中的 @Scheduled 注解
      */
-    private static ThreadPoolTaskScheduler createInternalScheduler() {
+    private static ThreadPoolTaskScheduler createInternalScheduler(String threadNamePrefix) {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
         scheduler.setPoolSize(1);
-        scheduler.setThreadNamePrefix("nacos-fallback-");
+        scheduler.setThreadNamePrefix(threadNamePrefix);
         scheduler.setDaemon(true);
         scheduler.setWaitForTasksToCompleteOnShutdown(true);
         scheduler.setAwaitTerminationSeconds(10);
@@ -91,6 +222,9 @@ public class NacosFallbackServiceDiscovery {
             return;
         }
 
+        // 启动后的首次 Leader 检查之前不视为缺少 Leader
+        lastLeaderObservedTime = System.currentTimeMillis();
+
         // 异步初始化,避免阻塞启动
         taskScheduler.schedule(this::initialize, Instant.now());
     }
@@ -110,20 +244,21 @@ public class NacosFallbackServiceDiscovery {
             }
             localNamingService = namingServiceFactory.create(localProps);
             log.info("Connected to local Nacos: {}", properties.getLocalServerAddr());
+            election.start(localNamingService);
+            if (shards != null) {
+                shards.start(localNamingService);
+            }
 
-            // 尝试成为 Leader
-            if (tryBecomeLeader()) {
-                log.info("This instance became the sync leader");
-                isLeader = true;
-                try {
-                    startSyncAsLeader();
-                } catch (Exception e) {
-                    // startSyncAsLeader 失败时，释放 Leader 并启动 Leader 检查
-                    log.error("Failed to start sync as leader, releasing leadership", e);
-                    releaseLeadership();
-                    startLeaderCheckTask();
-                }
-            } else {
+            // 订阅 Leader 选举服务，Leader 消失或参与者变化时立即处理
+            subscribeLeaderService();
+
+            // 懒同步：发布初始化之前已查询的服务，并订阅各节点的工作集
+            if (lazySync != null) {
+                lazySync.start(localNamingService);
+            }
+
+            // 尝试成为 Leader，选举结果在 leaderElectionWaitMs 后由调度任务确认，不阻塞当前线程
+            if (!startElection()) {
                 log.info("Another instance is the sync leader, this instance will monitor leader health");
                 isLeader = false;
                 startLeaderCheckTask();
@@ -140,35 +275,159 @@ public class NacosFallbackServiceDiscovery {
      * 启动 Leader 健康检查任务
      */
     private void startLeaderCheckTask() {
-        long checkIntervalSeconds = properties.getLeaderCheckIntervalSeconds();
-        leaderCheckTask = taskScheduler.scheduleWithFixedDelay(
+        // 已订阅 Leader 选举服务时定期检查只作为兜底
+        long checkIntervalSeconds = leaderSubscription != null
+                ? properties.getLeaderSafetyCheckIntervalSeconds()
+                : properties.getLeaderCheckIntervalSeconds();
+        leaderCheckTask = leaderScheduler.scheduleWithFixedDelay(
                 this::checkAndTryBecomeLeader,
                 Duration.ofSeconds(checkIntervalSeconds)
         );
         log.info("Leader health check started, interval: {} seconds", checkIntervalSeconds);
     }
 
+    /**
+     * 订阅 Leader 选举服务（leaderSubscribeEnabled）
+     * <p>
+     * 推送在 Leader 检查线程上处理，与定期检查串行执行；订阅失败时只记录日志，仍按 leaderCheckIntervalSeconds 定期检查
+     */
+    private void subscribeLeaderService() {
+        if (!properties.isLeaderSubscribeEnabled() || leaderSubscription != null) {
+            return;
+        }
+        EventListener listener = new AbstractEventListener() {
+            @Override
+            public Executor getExecutor() {
+                return leaderScheduler;
+            }
+
+            @Override
+            public void onEvent(Event event) {
+                if (event instanceof NamingEvent) {
+                    onLeaderServiceChanged(((NamingEvent) event).getInstances());
+                }
+            }
+        };
+        try {
+            localNamingService.subscribe(properties.getLeaderServiceName(), properties.getLocalGroup(), listener);
+            leaderSubscription = listener;
+            log.info("Subscribed to leader service {}", properties.getLeaderServiceName());
+        } catch (Exception e) {
+            log.warn("Failed to subscribe to leader service {}, falling back to polling every {} seconds",
+                    properties.getLeaderServiceName(), properties.getLeaderCheckIntervalSeconds(), e);
+        }
+    }
+
+    /**
+     * 取消 Leader 选举服务的订阅
+     */
+    private void unsubscribeLeaderService() {
+        EventListener listener = leaderSubscription;
+        leaderSubscription = null;
+        if (listener == null || localNamingService == null) {
+            return;
+        }
+        try {
+            localNamingService.unsubscribe(properties.getLeaderServiceName(), properties.getLocalGroup(), listener);
+        } catch (Exception e) {
+            log.warn("Failed to unsubscribe from leader service {}", properties.getLeaderServiceName(), e);
+        }
+    }
+
+    /**
+     * 处理 Leader 选举服务推送的实例变更
+     * <p>
+     * 非 Leader 节点在没有健康的 Leader 实例时立即竞选；分片模式下参与者与当前哈希环不一致时立即提交一轮同步重新分配
+     */
+    private void onLeaderServiceChanged(List<Instance> instances) {
+        if (leaderSubscription == null) {
+            return; // 已停止
+        }
+        List<Instance> leaders = new ArrayList<>();
+        if (instances != null) {
+            for (Instance instance : instances) {
+                if (instance.isHealthy() && instance.isEnabled()) {
+                    leaders.add(instance);
+                }
+            }
+        }
+        // 正在交接的 Leader 视为已离开
+        leaders = LeaderElection.activeLeaders(leaders);
+
+        if (shards != null) {
+            if (isLeader && initialized && shards.isRebalanceNeeded(leaders)) {
+                log.info("Sync shard participants changed, rebalancing now");
+                taskScheduler.execute(this::syncServices);
+            }
+            return;
+        }
+
+        // Leader 看到排序更靠前的 Leader 时说明任期已被取代，立即拦截写入并退位
+        if (isLeader) {
+            election.onLeadersChanged(leaders);
+            return;
+        }
+
+        // 只有已作为 Follower 监控 Leader 时才竞选，初始化期间的选举由 initialize 完成
+        if (leaderCheckTask == null) {
+            return;
+        }
+        if (leaders.isEmpty()) {
+            log.info("Leader instance disappeared from {}, trying to become leader", properties.getLeaderServiceName());
+            checkAndTryBecomeLeader();
+        } else {
+            lastLeaderObservedTime = System.currentTimeMillis();
+        }
+    }
+
     /**
      * 作为 Leader 启动同步任务
      * 抽取的公共方法，避免代码重复
      */
     private void startSyncAsLeader() throws Exception {
+        leaderSince = System.currentTimeMillis();
+
+        // 先按本地快照注册，连接测试环境并完成完整同步之前即可使用
+        warmStartFromSnapshot();
+
+        // 接管正在交接的前任 Leader 的 fallback 实例
+        String predecessor = election.takeHandoffPredecessor();
+        if (predecessor != null && properties.isHandoffEnabled()) {
+            adoptFromPredecessor(predecessor);
+        }
+
         // 初始化测试环境 Nacos 客户端（只有 Leader 需要）
-        Properties testProps = new Properties();
-        testProps.put("serverAddr", properties.getTestServerAddr());
-        if (StringUtils.hasText(properties.getTestNamespace())) {
-            testProps.put("namespace", properties.getTestNamespace());
+        lastRemoteSuccessTime = offlineClock.millis();
+        offline = false;
+        offlineExpired = false;
+        if (properties.isOfflineModeEnabled()) {
+            // 离线模式下连接失败不释放 Leader，继续提供已有的 fallback 实例，由同步周期重试连接
+            connectTestNamingService();
+        } else {
+            testNamingService = createTestNamingService();
+            log.info("Connected to test Nacos: {}", properties.getTestServerAddr());
         }
-        testNamingService = namingServiceFactory.create(testProps);
-        log.info("Connected to test Nacos: {}", properties.getTestServerAddr());
 
         initialized = true;
+        batchSupported = true;
+        perInstanceWarned = false;
 
         // 立即执行一次同步
         syncServices();
 
-        // 启动定期同步任务
-        long syncIntervalSeconds = properties.getSyncIntervalSeconds();
+        // 启动定期同步任务（推送模式下降级为低频对账）
+        long syncIntervalSeconds = properties.isSubscribeEnabled()
+                ? properties.getReconcileIntervalSeconds()
+                : properties.getSyncIntervalSeconds();
+        if (properties.isAdaptiveSyncEnabled()) {
+            adaptiveInterval = new AdaptiveSyncInterval(syncIntervalSeconds,
+                    properties.getMinSyncIntervalSeconds(), properties.getMaxSyncIntervalSeconds());
+            lastObservedWriteCount = localWriteCount.get();
+            scheduleAdaptiveSync(adaptiveInterval, adaptiveInterval.current());
+            log.info("Nacos fallback sync started with adaptive interval, initial: {} seconds, range: [{}, {}] seconds",
+                    adaptiveInterval.current(), properties.getMinSyncIntervalSeconds(), properties.getMaxSyncIntervalSeconds());
+            return;
+        }
         syncTask = taskScheduler.scheduleWithFixedDelay(
                 this::syncServices,
                 Duration.ofSeconds(syncIntervalSeconds)
@@ -177,65 +436,160 @@ public class NacosFallbackServiceDiscovery {
         log.info("Nacos fallback sync started, interval: {} seconds", syncIntervalSeconds);
     }
 
+    /**
+     * 创建测试环境 Nacos 客户端
+     */
+    private NamingService createTestNamingService() throws Exception {
+        Properties testProps = new Properties();
+        testProps.put("serverAddr", properties.getTestServerAddr());
+        if (StringUtils.hasText(properties.getTestNamespace())) {
+            testProps.put("namespace", properties.getTestNamespace());
+        }
+        return namingServiceFactory.create(testProps);
+    }
+
+    /**
+     * 尝试连接测试环境 Nacos（离线模式）
+     *
+     * @return true 如果已连接
+     */
+    private boolean connectTestNamingService() {
+        try {
+            testNamingService = createTestNamingService();
+            log.info("Connected to test Nacos: {}", properties.getTestServerAddr());
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to connect to test Nacos {}, will retry next sync", properties.getTestServerAddr(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 按自适应间隔调度下一次同步
+     */
+    private void scheduleAdaptiveSync(AdaptiveSyncInterval interval, long delaySeconds) {
+        syncTask = taskScheduler.schedule(() -> runAdaptiveSync(interval), Instant.now().plusSeconds(delaySeconds));
+    }
+
+    /**
+     * 执行一次同步，并根据自上次调度以来是否有本地写入（含推送应用的变更）调整下一次间隔
+     *
+     * @param interval 发起本次调度的 Leader 任期的间隔状态，任期结束后旧的调度链自然终止
+     */
+    private void runAdaptiveSync(AdaptiveSyncInterval interval) {
+        // 已释放 Leader、已停止或已开始新的任期时不再执行
+        if (interval != adaptiveInterval || !isLeader || !initialized) {
+            return;
+        }
+        syncServices();
+        if (interval != adaptiveInterval) {
+            return;
+        }
+
+        long writeCount = localWriteCount.get();
+        boolean changed = writeCount != lastObservedWriteCount;
+        lastObservedWriteCount = writeCount;
+
+        long nextSeconds = interval.next(changed);
+        log.debug("Next adaptive sync in {} seconds (changes observed: {})", nextSeconds, changed);
+        try {
+            scheduleAdaptiveSync(interval, nextSeconds);
+        } catch (Exception e) {
+            log.error("Failed to schedule next adaptive sync", e);
+        }
+    }
+
     /**
      * 同步服务
      */
-    private void syncServices() {
+    void syncServices() {
         if (!initialized) {
             return;
         }
 
+        // 写入前确认仍持有 Leader 任期，已被取代时退位
+        if (!election.confirmLeadership(leaderSubscription != null)) {
+            stepDown();
+            return;
+        }
+
+        SyncCycleStats cycle = new SyncCycleStats();
+        long cycleStart = System.nanoTime();
+        boolean success = false;
         try {
             log.debug("Starting service sync from test to local Nacos");
 
+            // 内存视图定期整体回读一次本地 Nacos，兜底校正推送遗漏
+            resyncLocalRegistryIfDue();
+
+            if (testNamingService == null && !connectTestNamingService()) {
+                onRemoteUnavailable(cycle);
+                return;
+            }
+
             // 获取测试环境所有服务（分页获取）
-            List<String> testServices = getAllServicesWithPagination();
+            List<String> testServices;
+            long listStart = System.nanoTime();
+            try {
+                testServices = getAllServicesWithPagination();
+            } catch (Exception e) {
+                if (!properties.isOfflineModeEnabled()) {
+                    throw e;
+                }
+                log.warn("Failed to list services from test Nacos: {}", e.toString());
+                onRemoteUnavailable(cycle);
+                return;
+            } finally {
+                cycle.addPhaseNanos(SyncMetrics.PHASE_LIST, System.nanoTime() - listStart);
+            }
             if (CollectionUtils.isEmpty(testServices)) {
+                // 离线模式下区分“服务端不可用导致的空列表”与“测试环境确实没有服务”
+                if (properties.isOfflineModeEnabled() && !isTestServerUp()) {
+                    onRemoteUnavailable(cycle);
+                    return;
+                }
+                onRemoteAvailable();
                 log.debug("No services found in test environment");
                 // 清理所有 fallback 实例
-                cleanupAllFallbackInstances();
+                long cleanupStart = System.nanoTime();
+                cleanupAllFallbackInstances(cycle);
+                cycle.addPhaseNanos(SyncMetrics.PHASE_CLEANUP, System.nanoTime() - cleanupStart);
+                success = true;
                 return;
             }
+            onRemoteAvailable();
 
             log.info("Found {} services in test environment", testServices.size());
 
-            Set<String> currentSyncedServices = new HashSet<>();
-            int syncCount = 0;
-            for (String serviceName : testServices) {
-                try {
-                    Map<String, List<Instance>> categorizedInstances = getInstancesAndCategorize(serviceName);
-                    List<Instance> nativeInstances = categorizedInstances.get("native");
-                    List<Instance> fallbackInstances = categorizedInstances.get("fallback");
-
-                    // 如果本地 Nacos 存在非 fallback 的原生实例,则跳过该服务的同步,本地优先
-                    if (!CollectionUtils.isEmpty(nativeInstances)) {
-                        log.debug("Service {} has native instances in local Nacos, skipping fallback sync.", serviceName);
-                        // 如果有原生实例，清理该服务的 fallback 实例
-                        if (!CollectionUtils.isEmpty(fallbackInstances)) {
-                            log.info("Cleaning up {} fallback instances for service {} (native instances exist).", fallbackInstances.size(), serviceName);
-                            deregisterInstances(serviceName, fallbackInstances);
-                        }
-                        continue;
-                    }
+            // 按 include/exclude 规则过滤，被排除的服务不再拉取实例，已同步的随后作为过期服务清理
+            if (!serviceFilter.isEmpty()) {
+                testServices = serviceFilter.filter(testServices);
+                log.debug("{} services left after include/exclude filter", testServices.size());
+            }
 
-                    // 先拉取成功再替换，避免拉取失败导致服务短暂下线
-                    if (syncServiceInstances(serviceName, fallbackInstances)) {
-                        syncCount++;
-                        currentSyncedServices.add(serviceName);
-                    } else {
-                        // 拉取失败，保留旧实例，将服务加入跟踪集合以便下次重试
-                        if (!CollectionUtils.isEmpty(fallbackInstances)) {
-                            log.info("Keeping {} old fallback instances for service {} (sync failed)", fallbackInstances.size(), serviceName);
-                            currentSyncedServices.add(serviceName);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.error("Error processing service {} during sync", serviceName, e);
-                }
+            // 懒同步模式下只同步各节点查询过的服务，被淘汰的服务随后作为过期服务清理
+            if (lazySync != null) {
+                testServices = lazySync.filterDemandedServices(testServices);
+            }
+
+            // 分片模式下只同步分配给本节点的服务，不再负责的服务在新负责节点接管后作为过期服务清理
+            List<String> shardCandidates = testServices;
+            if (shards != null) {
+                testServices = shards.filterOwned(testServices);
+            }
+
+            Set<String> currentSyncedServices = ConcurrentHashMap.newKeySet();
+            int syncCount = syncExecutor != null
+                    ? syncServicesInParallel(cycle, testServices, currentSyncedServices)
+                    : syncServicesSequentially(cycle, testServices, currentSyncedServices);
+            if (shards != null) {
+                currentSyncedServices.addAll(shards.retainReleased(getSyncedServices(), shardCandidates, testServices));
             }
 
             // 清理不再存在于测试环境的服务的 fallback 实例
-            Set<String> failedCleanupServices = cleanupStaleServices(testServices, currentSyncedServices);
+            long cleanupStart = System.nanoTime();
+            Set<String> failedCleanupServices = cleanupStaleServices(cycle, testServices, currentSyncedServices);
+            cycle.addPhaseNanos(SyncMetrics.PHASE_CLEANUP, System.nanoTime() - cleanupStart);
 
             // 更新已同步服务集合（保留清理失败的服务以便下次重试）
             synchronized (syncedServices) {
@@ -250,180 +604,911 @@ public class NacosFallbackServiceDiscovery {
                 log.debug("No new services to sync");
             }
 
+            persistSnapshotIfDirty();
+            if (shards != null) {
+                shards.announceSynced();
+            }
+            success = true;
+
+        } catch (InterruptedException e) {
+            // 停止时并行同步被中断，恢复中断标记交给调度线程处理
+            Thread.currentThread().interrupt();
+            log.warn("Service sync interrupted");
         } catch (Exception e) {
             log.error("Error during service sync", e);
+        } finally {
+            completeCycle(cycle, System.nanoTime() - cycleStart, success);
         }
     }
 
     /**
-     * 分页获取所有服务列表
+     * 一轮同步结束：记录统计与指标
      */
-    private List<String> getAllServicesWithPagination() throws NacosException {
-        List<String> allServices = new ArrayList<>();
-        int pageNo = 1;
-
-        while (true) {
-            ListView<String> servicesPage = testNamingService.getServicesOfServer(pageNo, PAGE_SIZE, properties.getTestGroup());
-            List<String> services = servicesPage.getData();
+    private void completeCycle(SyncCycleStats cycle, long durationNanos, boolean success) {
+        cycle.complete(durationNanos, success);
+        lastCycle = cycle;
+        if (success) {
+            lastSuccessfulSyncTime = System.currentTimeMillis();
+        }
+        try {
+            syncMetrics.recordCycle(durationNanos, cycle, success);
+        } catch (Exception e) {
+            log.warn("Failed to record sync metrics", e);
+        }
+    }
 
-            if (CollectionUtils.isEmpty(services)) {
-                break;
-            }
+    /**
+     * 设置同步指标，为 null 时不记录
+     */
+    void setSyncMetrics(SyncMetrics syncMetrics) {
+        this.syncMetrics = syncMetrics != null ? syncMetrics : SyncMetrics.NOOP;
+    }
 
-            allServices.addAll(services);
+    /**
+     * 本节点当前是否为 Leader
+     */
+    boolean isLeader() {
+        return isLeader;
+    }
 
-            // 检查是否还有更多数据
-            int totalCount = servicesPage.getCount();
-            if (allServices.size() >= totalCount || services.size() < PAGE_SIZE) {
-                break;
-            }
+    /**
+     * 最近一次成功完成同步的时间（毫秒时间戳），尚未成功同步时为 0
+     */
+    long getLastSuccessfulSyncTime() {
+        return lastSuccessfulSyncTime;
+    }
 
-            pageNo++;
-        }
+    /**
+     * 上一轮同步的统计，尚未同步时为 null
+     */
+    SyncCycleStats getLastCycleStats() {
+        return lastCycle;
+    }
 
-        return allServices;
+    /**
+     * 最近一次观察到其他节点为健康 Leader 的时间（毫秒时间戳）
+     */
+    long getLastLeaderObservedTime() {
+        return lastLeaderObservedTime;
     }
 
     /**
-     * 清理不再存在于测试环境的服务的 fallback 实例
-     * @return 清理失败的服务名集合，需要保留在跟踪集合中以便下次重试
+     * 本节点最近一次成为 Leader 的时间，从未成为 Leader 时为 0
      */
-    private Set<String> cleanupStaleServices(List<String> currentTestServices, Set<String> currentSyncedServices) {
-        Set<String> staleServices;
-        synchronized (syncedServices) {
-            staleServices = new HashSet<>(syncedServices);
-        }
-        // 转换为 Set 提高 removeAll 性能
-        staleServices.removeAll(new HashSet<>(currentTestServices));
-        staleServices.removeAll(currentSyncedServices);
+    long getLeaderSince() {
+        return leaderSince;
+    }
 
-        Set<String> failedServices = new HashSet<>();
-        for (String staleService : staleServices) {
-            try {
-                Map<String, List<Instance>> categorizedInstances = getInstancesAndCategorize(staleService);
-                List<Instance> fallbackInstances = categorizedInstances.get("fallback");
-                if (!CollectionUtils.isEmpty(fallbackInstances)) {
-                    log.info("Cleaning up {} stale fallback instances for service {}", fallbackInstances.size(), staleService);
-                    deregisterInstances(staleService, fallbackInstances);
-                }
-            } catch (Exception e) {
-                log.error("Error cleaning up stale service {}, will retry next sync", staleService, e);
-                failedServices.add(staleService);
-            }
-        }
-        return failedServices;
+    String getInstanceId() {
+        return instanceId;
     }
 
     /**
-     * 清理所有 fallback 实例（当测试环境无服务时）
-     * 只有成功清理的服务才从跟踪集合中移除，失败的会在下次同步时重试
+     * 本节点作为 Leader（或候选）持有的任期，未持有或分片模式下为 0
      */
-    private void cleanupAllFallbackInstances() {
-        Set<String> servicesToClean;
-        synchronized (syncedServices) {
-            servicesToClean = new HashSet<>(syncedServices);
-        }
-
-        Set<String> successfullyCleaned = new HashSet<>();
-        for (String serviceName : servicesToClean) {
-            try {
-                Map<String, List<Instance>> categorizedInstances = getInstancesAndCategorize(serviceName);
-                List<Instance> fallbackInstances = categorizedInstances.get("fallback");
-                if (!CollectionUtils.isEmpty(fallbackInstances)) {
-                    log.info("Cleaning up {} fallback instances for service {} (no services in test env)", fallbackInstances.size(), serviceName);
-                    deregisterInstances(serviceName, fallbackInstances);
-                }
-                // 只有成功处理的才标记为已清理
-                successfullyCleaned.add(serviceName);
-            } catch (Exception e) {
-                log.error("Error cleaning up fallback instances for service {}, will retry next sync", serviceName, e);
-            }
-        }
+    long getLeaderTerm() {
+        return election.getLeaderTerm();
+    }
 
-        // 只移除成功清理的服务
+    /**
+     * 当前跟踪的已同步服务（快照）
+     */
+    Set<String> getSyncedServices() {
         synchronized (syncedServices) {
-            syncedServices.removeAll(successfullyCleaned);
+            return new TreeSet<>(syncedServices);
         }
     }
 
     /**
-     * 同步单个服务的所有实例
-     * 使用增量更新策略，只更新有变化的实例，避免服务抖动
+     * 分片同步的参与者（最近一次构建哈希环时），未开启分片或尚未同步时为空
+     */
+    Set<String> getShardParticipants() {
+        return shards != null ? shards.participants() : Collections.emptySet();
+    }
+
+    /**
+     * 各服务最近一次同步的状态（快照）
+     */
+    Map<String, ServiceSyncStatus> getServiceStatuses() {
+        return new TreeMap<>(serviceStatuses);
+    }
+
+    /**
+     * 服务熔断剩余时间(毫秒)，未启用熔断或未熔断时为 0
+     */
+    long getServiceBackoffRemainingMs(String serviceName) {
+        return failureTracker == null ? 0 : failureTracker.remainingBackoffMs(serviceName, System.currentTimeMillis());
+    }
+
+    /**
+     * 立即触发同步（仅 Leader）
+     * <p>
+     * 指定服务时提交该服务的同步后立即返回：清除其修订缓存与熔断状态，强制与本地 fallback 实例重新对比，
+     * 存在并行同步线程池时在其中执行，否则在同步调度线程执行；
+     * 未指定服务时提交一轮完整同步到同步调度线程，与定期同步串行执行
      *
-     * @param serviceName 服务名
-     * @param oldFallbackInstances 旧的 fallback 实例
-     * @return true 如果同步成功
+     * @param serviceName 服务名，为空时同步所有服务
+     * @return true 如果已触发；非 Leader、尚未完成初始化、该服务被过滤或分片模式下不由本节点负责时为 false
      */
-    private boolean syncServiceInstances(String serviceName, List<Instance> oldFallbackInstances) {
+    boolean triggerSync(String serviceName) {
+        if (!isLeader || !initialized) {
+            return false;
+        }
+        if (!StringUtils.hasText(serviceName)) {
+            log.info("Manual sync of all services requested");
+            taskScheduler.execute(this::syncServices);
+            return true;
+        }
+        if (testNamingService == null) {
+            return false;
+        }
+        if (!serviceFilter.accepts(serviceName)) {
+            log.info("Manual sync of service {} ignored, excluded by include/exclude filter", serviceName);
+            return false;
+        }
+        if (properties.isShardingEnabled() && !ownsService(serviceName)) {
+            log.info("Manual sync of service {} ignored, assigned to another shard participant", serviceName);
+            return false;
+        }
+
+        log.info("Manual sync of service {} requested", serviceName);
+        // 懒同步模式下手动同步的服务同样加入工作集，避免下一轮同步即被清理
+        if (lazySync != null) {
+            lazySync.retain(serviceName);
+        }
+        Executor executor = syncExecutor != null ? syncExecutor : taskScheduler;
         try {
-            // 从测试环境获取服务实例
-            List<Instance> testInstances = testNamingService.selectInstances(
-                    serviceName,
-                    properties.getTestGroup(),
-                    true
-            );
+            executor.execute(() -> {
+                // 提交后已释放 Leader 或已停止时跳过
+                if (isLeader && initialized) {
+                    syncSingleService(serviceName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return false; // 已停止
+        }
+        return true;
+    }
 
-            if (CollectionUtils.isEmpty(testInstances)) {
-                log.debug("No healthy instances for service {} in test environment", serviceName);
+    /**
+     * 立即同步单个服务，跳过修订缓存并清除熔断状态
+     * <p>
+     * 不属于任何一轮同步，统计不计入上一轮或进行中的同步
+     */
+    void syncSingleService(String serviceName) {
+        serviceRevisions.remove(serviceName);
+        if (failureTracker != null) {
+            failureTracker.forget(serviceName);
+        }
+        Set<String> currentSyncedServices = ConcurrentHashMap.newKeySet();
+        processService(SyncCycleStats.detached(), serviceName, currentSyncedServices);
+        synchronized (syncedServices) {
+            syncedServices.addAll(currentSyncedServices);
+        }
+        persistSnapshotIfDirty();
+    }
+
+    /**
+     * 记录一次 Nacos 调用耗时
+     */
+    void recordRpc(String target, String operation, long startNanos) {
+        syncMetrics.recordRpc(target, operation, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 测试环境 Nacos 服务端状态是否为 UP
+     */
+    private boolean isTestServerUp() {
+        try {
+            return "UP".equals(testNamingService.getServerStatus());
+        } catch (Exception e) {
+            log.debug("Failed to get test Nacos server status", e);
+            return false;
+        }
+    }
+
+    /**
+     * 测试环境不可达（仅离线模式）：保留已有的 fallback 实例，超过保留时间后清理
+     */
+    private void onRemoteUnavailable(SyncCycleStats cycle) {
+        long offlineMillis = offlineClock.millis() - lastRemoteSuccessTime;
+        if (!offline) {
+            offline = true;
+            log.warn("Test Nacos is unreachable, serving last-known-good fallback instances for up to {} seconds",
+                    properties.getOfflineStaleTtlSeconds());
+        }
+        if (!offlineExpired && offlineMillis >= properties.getOfflineStaleTtlSeconds() * 1000) {
+            log.warn("Test Nacos has been unreachable for {} seconds, cleaning up stale fallback instances", offlineMillis / 1000);
+            offlineExpired = true;
+            cleanupAllFallbackInstances(cycle);
+        }
+    }
+
+    /**
+     * 成功从测试环境拉取服务列表
+     */
+    private void onRemoteAvailable() {
+        lastRemoteSuccessTime = offlineClock.millis();
+        offlineExpired = false;
+        if (offline) {
+            offline = false;
+            log.info("Test Nacos is reachable again, resuming sync");
+        }
+    }
+
+    /**
+     * 设置离线保留时间的计时时钟，测试中用于推进时间
+     */
+    void setOfflineClock(Clock offlineClock) {
+        this.offlineClock = offlineClock;
+    }
+
+    /**
+     * 测试环境当前是否不可达（离线模式）
+     */
+    boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * 逐个服务同步
+     *
+     * @return 成功同步的服务数
+     */
+    private int syncServicesSequentially(SyncCycleStats cycle, List<String> testServices, Set<String> currentSyncedServices) {
+        int syncCount = 0;
+        for (String serviceName : testServices) {
+            if (processService(cycle, serviceName, currentSyncedServices)) {
+                syncCount++;
+            }
+        }
+        return syncCount;
+    }
+
+    /**
+     * 使用工作线程池并行同步各服务
+     * <p>
+     * 每个服务作为一个独立任务提交，服务内部的本地优先、先增后删顺序不受影响
+     *
+     * @return 成功同步的服务数
+     */
+    private int syncServicesInParallel(SyncCycleStats cycle, List<String> testServices, Set<String> currentSyncedServices) throws InterruptedException {
+        List<Callable<Boolean>> tasks = new ArrayList<>(testServices.size());
+        for (String serviceName : testServices) {
+            tasks.add(() -> processService(cycle, serviceName, currentSyncedServices));
+        }
+
+        int syncCount = 0;
+        for (Future<Boolean> future : syncExecutor.invokeAll(tasks)) {
+            try {
+                if (future.get()) {
+                    syncCount++;
+                }
+            } catch (ExecutionException e) {
+                log.error("Unexpected error in parallel service sync", e.getCause());
+            }
+        }
+        return syncCount;
+    }
+
+    /**
+     * 同步单个服务：本地存在原生实例时清理 fallback 实例，否则增量同步测试环境实例
+     *
+     * @param serviceName           服务名
+     * @param currentSyncedServices 本轮需要继续跟踪的服务集合（线程安全）
+     * @return true 如果本轮成功同步了该服务
+     */
+    private boolean processService(SyncCycleStats cycle, String serviceName, Set<String> currentSyncedServices) {
+        cycle.recordScanned();
+        synchronized (serviceLock(serviceName)) {
+            return doProcessService(cycle, serviceName, currentSyncedServices);
+        }
+    }
+
+    private boolean doProcessService(SyncCycleStats cycle, String serviceName, Set<String> currentSyncedServices) {
+        // 修订值有效时先读取测试环境实例，与修订值一致则无需读取本地 Nacos，也无需对比
+        List<Instance> testInstances = null;
+        if (serviceRevisions.containsKey(serviceName) && localSubscriptions.containsKey(serviceName)) {
+            try {
+                testInstances = fetchTestInstances(cycle, serviceName);
+            } catch (Exception e) {
+                // 拉取失败，保留旧实例，将服务加入跟踪集合以便下次重试
+                onServiceSyncFailed(cycle, serviceName, e);
+                currentSyncedServices.add(serviceName);
                 return false;
             }
+            if (isUnchangedSinceLastSync(serviceName, testInstances)) {
+                currentSyncedServices.add(serviceName);
+                cycle.recordSkipped();
+                return true;
+            }
+        }
 
-            // 构建本地 fallback 实例的 key 集合 (ip:port)
-            Map<String, Instance> oldInstanceMap = new HashMap<>();
-            if (!CollectionUtils.isEmpty(oldFallbackInstances)) {
-                for (Instance inst : oldFallbackInstances) {
-                    oldInstanceMap.put(inst.getIp() + ":" + inst.getPort(), inst);
+        try {
+            Map<String, List<Instance>> categorizedInstances;
+            long fetchStart = System.nanoTime();
+            try {
+                categorizedInstances = getInstancesAndCategorize(serviceName);
+            } finally {
+                cycle.addPhaseNanos(SyncMetrics.PHASE_FETCH, System.nanoTime() - fetchStart);
+            }
+            List<Instance> nativeInstances = categorizedInstances.get("native");
+            List<Instance> fallbackInstances = categorizedInstances.get("fallback");
+
+            // 如果本地 Nacos 存在非 fallback 的原生实例,则跳过该服务的同步,本地优先
+            if (!CollectionUtils.isEmpty(nativeInstances)) {
+                log.debug("Service {} has native instances in local Nacos, skipping fallback sync.", serviceName);
+                unsubscribeTestService(serviceName);
+                serviceRevisions.remove(serviceName);
+                serviceStatuses.remove(serviceName);
+                removeSyncedView(serviceName);
+                // 如果有原生实例，清理该服务的 fallback 实例
+                if (!CollectionUtils.isEmpty(fallbackInstances)) {
+                    log.info("Cleaning up {} fallback instances for service {} (native instances exist).", fallbackInstances.size(), serviceName);
+                    long writeStart = System.nanoTime();
+                    deregisterInstances(cycle, serviceName, fallbackInstances);
+                    cycle.addPhaseNanos(SyncMetrics.PHASE_WRITE, System.nanoTime() - writeStart);
                 }
+                cycle.recordSkipped();
+                return false;
+            }
+
+            // 熔断期间跳过该服务，保留旧实例
+            if (failureTracker != null && !failureTracker.allowAttempt(serviceName, System.currentTimeMillis())) {
+                log.debug("Skipping service {} (circuit open, retry in {} ms)", serviceName,
+                        failureTracker.remainingBackoffMs(serviceName, System.currentTimeMillis()));
+                currentSyncedServices.add(serviceName);
+                cycle.recordSkipped();
+                return false;
+            }
+
+            // 先拉取成功再替换，避免拉取失败导致服务短暂下线
+            if (syncServiceInstances(cycle, serviceName, fallbackInstances, testInstances)) {
+                currentSyncedServices.add(serviceName);
+                subscribeTestService(serviceName);
+                return true;
+            }
+
+            // 拉取失败，保留旧实例，将服务加入跟踪集合以便下次重试
+            if (!CollectionUtils.isEmpty(fallbackInstances)) {
+                log.info("Keeping {} old fallback instances for service {} (sync failed)", fallbackInstances.size(), serviceName);
+                currentSyncedServices.add(serviceName);
+            }
+        } catch (Exception e) {
+            cycle.recordFailed();
+            log.error("Error processing service {} during sync", serviceName, e);
+        }
+        return false;
+    }
+
+    /**
+     * 获取服务级锁对象
+     */
+    private Object serviceLock(String serviceName) {
+        return serviceLocks.computeIfAbsent(serviceName, k -> new Object());
+    }
+
+    /**
+     * 订阅测试环境服务的实例变更（仅推送模式）
+     * <p>
+     * 推送由 Nacos 客户端回调，存在并行同步线程池时在线程池中处理，避免阻塞客户端通知线程
+     */
+    private void subscribeTestService(String serviceName) {
+        if (!properties.isSubscribeEnabled() || testSubscriptions.containsKey(serviceName)) {
+            return;
+        }
+        EventListener listener = new AbstractEventListener() {
+            @Override
+            public Executor getExecutor() {
+                return syncExecutor;
             }
 
-            // 构建测试环境实例的 key 集合 (重写后的 ip:port)
-            Map<String, Instance> newInstanceMap = new HashMap<>();
-            for (Instance inst : testInstances) {
-                String rewrittenIp = rewriteIpIfNeeded(inst.getIp());
-                newInstanceMap.put(rewrittenIp + ":" + inst.getPort(), inst);
+            @Override
+            public void onEvent(Event event) {
+                if (event instanceof NamingEvent) {
+                    onTestServiceChanged(serviceName, ((NamingEvent) event).getInstances());
+                }
             }
+        };
+        if (testSubscriptions.putIfAbsent(serviceName, listener) != null) {
+            return;
+        }
+        try {
+            testNamingService.subscribe(serviceName, properties.getTestGroup(), listener);
+            log.debug("Subscribed to service {} in test environment", serviceName);
+        } catch (Exception e) {
+            testSubscriptions.remove(serviceName, listener);
+            log.warn("Failed to subscribe to service {} in test environment, falling back to reconciliation", serviceName, e);
+        }
+    }
+
+    /**
+     * 取消对测试环境服务的订阅
+     */
+    private void unsubscribeTestService(String serviceName) {
+        EventListener listener = testSubscriptions.remove(serviceName);
+        if (listener == null || testNamingService == null) {
+            return;
+        }
+        try {
+            testNamingService.unsubscribe(serviceName, properties.getTestGroup(), listener);
+            log.debug("Unsubscribed from service {} in test environment", serviceName);
+        } catch (Exception e) {
+            log.warn("Failed to unsubscribe from service {} in test environment", serviceName, e);
+        }
+    }
 
-            // 计算需要删除的实例（本地有但测试环境没有）
-            List<Instance> toRemove = new ArrayList<>();
-            for (Map.Entry<String, Instance> entry : oldInstanceMap.entrySet()) {
-                if (!newInstanceMap.containsKey(entry.getKey())) {
-                    toRemove.add(entry.getValue());
+    /**
+     * 取消所有测试环境订阅
+     */
+    private void unsubscribeAllTestServices() {
+        for (String serviceName : new ArrayList<>(testSubscriptions.keySet())) {
+            unsubscribeTestService(serviceName);
+        }
+    }
+
+    /**
+     * 处理测试环境推送的实例变更
+     * <p>
+     * 推送内容为服务的全量实例列表，只保留健康且启用的实例，与 selectInstances(healthy=true) 语义一致；
+     * 推送为空时保留旧实例，交由对账处理，避免误删
+     */
+    private void onTestServiceChanged(String serviceName, List<Instance> instances) {
+        if (!initialized || !isLeader) {
+            return;
+        }
+
+        List<Instance> healthyInstances = new ArrayList<>();
+        if (instances != null) {
+            for (Instance instance : instances) {
+                if (instance.isHealthy() && instance.isEnabled()) {
+                    healthyInstances.add(instance);
                 }
             }
+        }
+        if (healthyInstances.isEmpty()) {
+            log.debug("Received empty instance list for service {} from test environment, keeping old instances", serviceName);
+            return;
+        }
 
-            // 计算需要新增的实例（测试环境有但本地没有）
-            List<Instance> toAdd = new ArrayList<>();
-            for (Map.Entry<String, Instance> entry : newInstanceMap.entrySet()) {
-                if (!oldInstanceMap.containsKey(entry.getKey())) {
-                    toAdd.add(entry.getValue());
+        synchronized (serviceLock(serviceName)) {
+            try {
+                Map<String, List<Instance>> categorizedInstances = getInstancesAndCategorize(serviceName);
+                // 本地已有原生实例时不处理推送，由对账负责清理
+                if (!CollectionUtils.isEmpty(categorizedInstances.get("native"))) {
+                    log.debug("Service {} has native instances in local Nacos, ignoring pushed change", serviceName);
+                    return;
                 }
+                log.debug("Applying pushed change of service {} with {} instances", serviceName, healthyInstances.size());
+                applyTestInstances(SyncCycleStats.detached(), serviceName, categorizedInstances.get("fallback"), healthyInstances);
+                recordSyncedView(serviceName, healthyInstances);
+                serviceStatuses.put(serviceName, ServiceSyncStatus.synced(System.currentTimeMillis(),
+                        healthyInstances.size(), InstanceFingerprint.revision(healthyInstances)));
+            } catch (Exception e) {
+                log.error("Failed to apply pushed change of service {}, will retry on reconciliation", serviceName, e);
             }
+        }
+    }
 
-            // 如果没有变化，跳过
-            if (toRemove.isEmpty() && toAdd.isEmpty()) {
-                log.debug("Service {} instances unchanged, skipping sync", serviceName);
-                return true;
+    /**
+     * 分页获取所有服务列表
+     * <p>
+     * 存在并行同步线程池时，第一页返回总数后并发拉取剩余页，按页码顺序合并；
+     * 并发拉取期间服务列表发生变化（总数不一致或合并后数量不符）时回退为逐页拉取，避免漏掉服务被误清理
+     */
+    private List<String> getAllServicesWithPagination() throws Exception {
+        int pageSize = properties.getServicePageSize();
+        ListView<String> firstPage = fetchServicePage(1, pageSize);
+        List<String> firstServices = firstPage.getData();
+        if (CollectionUtils.isEmpty(firstServices)) {
+            return new ArrayList<>();
+        }
+
+        int totalCount = firstPage.getCount();
+        if (firstServices.size() >= totalCount || firstServices.size() < pageSize) {
+            return new ArrayList<>(firstServices);
+        }
+
+        if (syncExecutor == null) {
+            return fetchRemainingPagesSequentially(firstServices, pageSize);
+        }
+
+        List<String> allServices = fetchRemainingPagesConcurrently(firstServices, totalCount, pageSize);
+        if (allServices == null) {
+            log.info("Service list changed during concurrent page fetching, falling back to sequential fetching");
+            return fetchRemainingPagesSequentially(firstServices, pageSize);
+        }
+        return allServices;
+    }
+
+    /**
+     * 拉取测试环境服务列表的一页
+     */
+    private ListView<String> fetchServicePage(int pageNo, int pageSize) throws NacosException {
+        long start = System.nanoTime();
+        try {
+            return testNamingService.getServicesOfServer(pageNo, pageSize, properties.getTestGroup());
+        } finally {
+            recordRpc(SyncMetrics.TARGET_REMOTE, "getServicesOfServer", start);
+        }
+    }
+
+    /**
+     * 从第二页开始逐页拉取
+     */
+    private List<String> fetchRemainingPagesSequentially(List<String> firstServices, int pageSize) throws NacosException {
+        List<String> allServices = new ArrayList<>(firstServices);
+        int pageNo = 2;
+
+        while (true) {
+            ListView<String> servicesPage = fetchServicePage(pageNo, pageSize);
+            List<String> services = servicesPage.getData();
+
+            if (CollectionUtils.isEmpty(services)) {
+                break;
             }
 
-            // 先注册新实例，再删除旧实例，减少服务不可用时间
-            if (!toAdd.isEmpty()) {
-                log.info("Adding {} new fallback instances for service {}", toAdd.size(), serviceName);
-                for (Instance instance : toAdd) {
-                    registerToLocal(serviceName, instance);
+            allServices.addAll(services);
+
+            // 检查是否还有更多数据
+            int totalCount = servicesPage.getCount();
+            if (allServices.size() >= totalCount || services.size() < pageSize) {
+                break;
+            }
+
+            pageNo++;
+        }
+
+        return allServices;
+    }
+
+    /**
+     * 根据第一页返回的总数并发拉取剩余页，按页码顺序合并
+     *
+     * @return 合并后的服务列表；拉取期间服务列表发生变化时返回 null
+     */
+    private List<String> fetchRemainingPagesConcurrently(List<String> firstServices, int totalCount, int pageSize) throws Exception {
+        int pageCount = (totalCount + pageSize - 1) / pageSize;
+        List<Callable<ListView<String>>> tasks = new ArrayList<>(pageCount - 1);
+        for (int pageNo = 2; pageNo <= pageCount; pageNo++) {
+            int page = pageNo;
+            tasks.add(() -> fetchServicePage(page, pageSize));
+        }
+
+        // 按页码顺序合并，去除页边界移动导致的重复项
+        Set<String> allServices = new LinkedHashSet<>(firstServices);
+        for (Future<ListView<String>> future : syncExecutor.invokeAll(tasks)) {
+            ListView<String> servicesPage;
+            try {
+                servicesPage = future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+            if (servicesPage.getCount() != totalCount) {
+                return null;
+            }
+            if (servicesPage.getData() != null) {
+                allServices.addAll(servicesPage.getData());
+            }
+        }
+
+        if (allServices.size() != totalCount) {
+            return null;
+        }
+        return new ArrayList<>(allServices);
+    }
+
+    /**
+     * 清理不再存在于测试环境的服务的 fallback 实例
+     * @return 清理失败的服务名集合，需要保留在跟踪集合中以便下次重试
+     */
+    private Set<String> cleanupStaleServices(SyncCycleStats cycle, List<String> currentTestServices, Set<String> currentSyncedServices) {
+        Set<String> staleServices;
+        synchronized (syncedServices) {
+            staleServices = new HashSet<>(syncedServices);
+        }
+        // 转换为 Set 提高 removeAll 性能
+        staleServices.removeAll(new HashSet<>(currentTestServices));
+        staleServices.removeAll(currentSyncedServices);
+
+        Set<String> failedServices = new HashSet<>();
+        for (String staleService : staleServices) {
+            unsubscribeTestService(staleService);
+            serviceRevisions.remove(staleService);
+            serviceStatuses.remove(staleService);
+            removeSyncedView(staleService);
+            if (failureTracker != null) {
+                failureTracker.forget(staleService);
+            }
+            try {
+                Map<String, List<Instance>> categorizedInstances = getInstancesAndCategorize(staleService);
+                List<Instance> fallbackInstances = categorizedInstances.get("fallback");
+                if (!CollectionUtils.isEmpty(fallbackInstances)) {
+                    log.info("Cleaning up {} stale fallback instances for service {}", fallbackInstances.size(), staleService);
+                    deregisterInstances(cycle, staleService, fallbackInstances);
+                }
+                unwatchLocalService(staleService);
+            } catch (Exception e) {
+                log.error("Error cleaning up stale service {}, will retry next sync", staleService, e);
+                failedServices.add(staleService);
+            }
+        }
+        return failedServices;
+    }
+
+    /**
+     * 清理所有 fallback 实例（当测试环境无服务时）
+     * 只有成功清理的服务才从跟踪集合中移除，失败的会在下次同步时重试
+     */
+    private void cleanupAllFallbackInstances(SyncCycleStats cycle) {
+        Set<String> servicesToClean;
+        synchronized (syncedServices) {
+            servicesToClean = new HashSet<>(syncedServices);
+        }
+
+        Set<String> successfullyCleaned = new HashSet<>();
+        for (String serviceName : servicesToClean) {
+            serviceRevisions.remove(serviceName);
+            serviceStatuses.remove(serviceName);
+            removeSyncedView(serviceName);
+            try {
+                Map<String, List<Instance>> categorizedInstances = getInstancesAndCategorize(serviceName);
+                List<Instance> fallbackInstances = categorizedInstances.get("fallback");
+                if (!CollectionUtils.isEmpty(fallbackInstances)) {
+                    log.info("Cleaning up {} fallback instances for service {} (no services in test env)", fallbackInstances.size(), serviceName);
+                    deregisterInstances(cycle, serviceName, fallbackInstances);
                 }
+                unwatchLocalService(serviceName);
+                // 只有成功处理的才标记为已清理
+                successfullyCleaned.add(serviceName);
+            } catch (Exception e) {
+                log.error("Error cleaning up fallback instances for service {}, will retry next sync", serviceName, e);
             }
+        }
 
-            if (!toRemove.isEmpty()) {
-                log.info("Removing {} stale fallback instances for service {}", toRemove.size(), serviceName);
-                deregisterInstances(serviceName, toRemove);
+        // 只移除成功清理的服务
+        synchronized (syncedServices) {
+            syncedServices.removeAll(successfullyCleaned);
+        }
+    }
+
+    /**
+     * 同步单个服务的所有实例
+     * 使用增量更新策略，只更新有变化的实例，避免服务抖动；
+     * 确认无需写入时记录测试环境实例的修订值，并订阅本地服务以便在本地实例变化时丢弃修订值
+     *
+     * @param serviceName          服务名
+     * @param oldFallbackInstances 旧的 fallback 实例
+     * @param prefetchedInstances  本轮已读取的测试环境实例，null 表示尚未读取
+     * @return true 如果同步成功
+     */
+    private boolean syncServiceInstances(SyncCycleStats cycle, String serviceName, List<Instance> oldFallbackInstances,
+                                         List<Instance> prefetchedInstances) {
+        try {
+            List<Instance> testInstances = prefetchedInstances != null
+                    ? prefetchedInstances : fetchTestInstances(cycle, serviceName);
+
+            if (CollectionUtils.isEmpty(testInstances)) {
+                log.debug("No healthy instances for service {} in test environment", serviceName);
+                cycle.recordSkipped();
+                return false;
             }
 
+            long testRevision = InstanceFingerprint.revision(testInstances);
+            serviceStatuses.put(serviceName,
+                    ServiceSyncStatus.synced(System.currentTimeMillis(), testInstances.size(), testRevision));
+
+            recordSyncedView(serviceName, testInstances);
+
+            // 只有确认无需写入时才记录修订值；发生写入后本地实例已变化，下一轮重新对比确认
+            if (applyTestInstances(cycle, serviceName, oldFallbackInstances, testInstances)) {
+                cycle.recordSynced();
+            } else {
+                recordRevision(serviceName, testRevision);
+                cycle.recordSkipped();
+            }
             return true;
 
         } catch (Exception e) {
+            onServiceSyncFailed(cycle, serviceName, e);
+            return false;
+        }
+    }
+
+    /**
+     * 从测试环境读取服务的健康实例
+     */
+    private List<Instance> fetchTestInstances(SyncCycleStats cycle, String serviceName) throws NacosException {
+        List<Instance> testInstances;
+        long fetchStart = System.nanoTime();
+        try {
+            testInstances = testNamingService.selectInstances(
+                    serviceName,
+                    properties.getTestGroup(),
+                    true
+            );
+        } finally {
+            cycle.addPhaseNanos(SyncMetrics.PHASE_FETCH, System.nanoTime() - fetchStart);
+            recordRpc(SyncMetrics.TARGET_REMOTE, "selectInstances", fetchStart);
+        }
+        if (failureTracker != null && failureTracker.recordSuccess(serviceName)) {
+            log.info("Service {} recovered, circuit closed", serviceName);
+        }
+        return testInstances;
+    }
+
+    /**
+     * 测试环境实例是否与上次确认无变化时的修订值一致
+     */
+    private boolean isUnchangedSinceLastSync(String serviceName, List<Instance> testInstances) {
+        if (CollectionUtils.isEmpty(testInstances)) {
+            return false;
+        }
+        long testRevision = InstanceFingerprint.revision(testInstances);
+        Long lastRevision = serviceRevisions.get(serviceName);
+        if (lastRevision == null || lastRevision != testRevision) {
+            return false;
+        }
+        log.debug("Service {} unchanged since last sync (revision {}), skipping", serviceName, Long.toHexString(testRevision));
+        serviceStatuses.put(serviceName,
+                ServiceSyncStatus.synced(System.currentTimeMillis(), testInstances.size(), testRevision));
+        return true;
+    }
+
+    /**
+     * 记录服务修订值
+     * <p>
+     * 修订值只在订阅本地服务期间有效：本地实例的任何变化都会通过推送丢弃修订值，
+     * 订阅失败时不记录，下一轮照常读取本地 Nacos
+     */
+    private void recordRevision(String serviceName, long testRevision) {
+        watchLocalService(serviceName);
+        if (localSubscriptions.containsKey(serviceName)) {
+            serviceRevisions.put(serviceName, testRevision);
+        }
+    }
+
+    /**
+     * 服务同步失败：丢弃修订值，记录失败状态并累计失败次数
+     */
+    private void onServiceSyncFailed(SyncCycleStats cycle, String serviceName, Exception e) {
+        cycle.recordFailed();
+        serviceRevisions.remove(serviceName);
+        serviceStatuses.compute(serviceName,
+                (k, previous) -> ServiceSyncStatus.failed(previous, System.currentTimeMillis(), e.toString()));
+        recordServiceFailure(serviceName, e);
+    }
+
+    /**
+     * 记录服务同步失败：首次失败输出完整异常，后续连续失败只输出摘要，达到阈值时熔断
+     */
+    private void recordServiceFailure(String serviceName, Exception e) {
+        if (failureTracker == null) {
+            log.error("Failed to sync service {}", serviceName, e);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int failures = failureTracker.recordFailure(serviceName, now);
+        if (failures == 1) {
             log.error("Failed to sync service {}", serviceName, e);
+        } else {
+            log.warn("Failed to sync service {} ({} consecutive failures): {}", serviceName, failures, e.toString());
+        }
+        if (failures >= properties.getServiceFailureThreshold()) {
+            log.warn("Circuit open for service {} after {} consecutive failures, backing off {} ms",
+                    serviceName, failures, failureTracker.remainingBackoffMs(serviceName, now));
+        }
+    }
+
+    /**
+     * 将测试环境实例增量应用到本地 Nacos
+     * 以重写后的 ip:port（含端口映射）为 key 对比，内容指纹（权重、启用、健康、集群、元数据）变化的实例原地更新，
+     * 先注册新实例，再删除旧实例，减少服务不可用时间
+     *
+     * @param cycle                记录统计的同步周期，同步周期之外的写入使用 {@link SyncCycleStats#detached()}
+     * @param serviceName          服务名
+     * @param oldFallbackInstances 本地现有的 fallback 实例
+     * @param testInstances        测试环境的健康实例（非空）
+     * @return true 如果本次有实例需要新增、更新或删除
+     * @throws NacosException 批量写入本地 Nacos 失败（非接口不支持）时抛出，由调用方按服务同步失败处理，下一轮重试
+     */
+    private boolean applyTestInstances(SyncCycleStats cycle, String serviceName, List<Instance> oldFallbackInstances,
+                                       List<Instance> testInstances) throws NacosException {
+        long diffStart = System.nanoTime();
+
+        // 构建本地 fallback 实例的 key 集合 (ip:port)
+        Map<String, Instance> oldInstanceMap = new HashMap<>();
+        if (!CollectionUtils.isEmpty(oldFallbackInstances)) {
+            for (Instance inst : oldFallbackInstances) {
+                oldInstanceMap.put(inst.getIp() + ":" + inst.getPort(), inst);
+            }
+        }
+
+        // 构建测试环境实例的 key 集合 (重写后的 ip:port)
+        Map<String, Instance> newInstanceMap = new HashMap<>();
+        for (Instance inst : testInstances) {
+            String rewrittenIp = rewriteIpIfNeeded(inst.getIp());
+            int mappedPort = portMappingTable.map(serviceName, inst.getIp(), inst.getPort());
+            newInstanceMap.put(rewrittenIp + ":" + mappedPort, inst);
+        }
+
+        // 计算需要删除的实例（本地有但测试环境没有）
+        List<Instance> toRemove = new ArrayList<>();
+        for (Map.Entry<String, Instance> entry : oldInstanceMap.entrySet()) {
+            if (!newInstanceMap.containsKey(entry.getKey())) {
+                toRemove.add(entry.getValue());
+            }
+        }
+
+        // 计算需要新增的实例（测试环境有但本地没有）和需要原地更新的实例（内容指纹变化）
+        List<Instance> toAdd = new ArrayList<>();
+        List<Instance> toUpdate = new ArrayList<>();
+        for (Map.Entry<String, Instance> entry : newInstanceMap.entrySet()) {
+            Instance oldInstance = oldInstanceMap.get(entry.getKey());
+            if (oldInstance == null) {
+                toAdd.add(entry.getValue());
+            } else if (!InstanceFingerprint.of(oldInstance).equals(InstanceFingerprint.of(entry.getValue()))) {
+                toUpdate.add(entry.getValue());
+            }
+        }
+
+        cycle.addPhaseNanos(SyncMetrics.PHASE_DIFF, System.nanoTime() - diffStart);
+
+        // 如果没有变化，跳过
+        if (toRemove.isEmpty() && toAdd.isEmpty() && toUpdate.isEmpty()) {
+            log.debug("Service {} instances unchanged, skipping sync", serviceName);
             return false;
         }
+
+        // 任期已被取代时拒绝写入
+        election.checkFencing();
+        serviceRevisions.remove(serviceName);
+
+        // 先注册新实例、更新变化的实例，再删除旧实例，减少服务不可用时间
+        boolean batchApplied = false;
+        if (!toAdd.isEmpty() || !toUpdate.isEmpty()) {
+            long writeStart = System.nanoTime();
+            if (!toAdd.isEmpty()) {
+                log.info("Adding {} new fallback instances for service {}", toAdd.size(), serviceName);
+            }
+            if (!toUpdate.isEmpty()) {
+                log.info("Updating {} changed fallback instances for service {}", toUpdate.size(), serviceName);
+            }
+            // 批量注册语义为覆盖本客户端在该服务下的全部实例，因此提交完整的目标实例集合
+            batchApplied = isBatchEnabled() && batchRegisterToLocal(serviceName, newInstanceMap.values());
+            if (!batchApplied) {
+                warnPerInstanceOverwrite(serviceName, newInstanceMap.size());
+                // 相同 ip:port 重新注册即为原地更新
+                for (Instance instance : toAdd) {
+                    registerToLocal(serviceName, instance);
+                }
+                for (Instance instance : toUpdate) {
+                    registerToLocal(serviceName, instance);
+                }
+            }
+            cycle.addPhaseNanos(SyncMetrics.PHASE_WRITE, System.nanoTime() - writeStart);
+            if (!toAdd.isEmpty()) {
+                cycle.recordAdded(toAdd.size());
+                syncMetrics.recordInstancesAdded(toAdd.size());
+            }
+        }
+
+        if (!toRemove.isEmpty()) {
+            log.info("Removing {} stale fallback instances for service {}", toRemove.size(), serviceName);
+            long writeStart = System.nanoTime();
+            if (batchApplied) {
+                // 批量注册已用目标集合覆盖本客户端的实例，旧实例随之移除，无需再调用批量注销
+                for (Instance instance : toRemove) {
+                    localRegistry.recordDeregistered(serviceName, instance);
+                }
+                recordRemoved(cycle, toRemove.size());
+            } else {
+                deregisterInstances(cycle, serviceName, toRemove);
+            }
+            cycle.addPhaseNanos(SyncMetrics.PHASE_WRITE, System.nanoTime() - writeStart);
+        }
+        return true;
     }
 
     /**
@@ -431,43 +1516,25 @@ public class NacosFallbackServiceDiscovery {
      */
     private void registerToLocal(String serviceName, Instance instance) {
         try {
-            // 创建新的实例
-            Instance localInstance = new Instance();
-
-            // IP 重写:将内网 IP 替换为公网 IP
-            String originalIp = instance.getIp();
-            String rewrittenIp = rewriteIpIfNeeded(originalIp);
-            localInstance.setIp(rewrittenIp);
-
-            localInstance.setPort(instance.getPort());
-            localInstance.setServiceName(serviceName);
-            localInstance.setClusterName(instance.getClusterName());
-            localInstance.setWeight(instance.getWeight());
-            localInstance.setHealthy(instance.isHealthy());
-            localInstance.setEnabled(instance.isEnabled());
-            // 强制设置为临时实例，防止持久脏数据
-            localInstance.setEphemeral(true);
-
-            // 复制元数据并添加标记
-            Map<String, String> metadata = new HashMap<>();
-            if (instance.getMetadata() != null) {
-                metadata.putAll(instance.getMetadata());
-            }
-            metadata.put("fallback", "true");
-            metadata.put("source", "test-env");
-            metadata.put("original-ip", originalIp);
-            metadata.put("synced-at", String.valueOf(System.currentTimeMillis()));
-            localInstance.setMetadata(metadata);
+            Instance localInstance = buildLocalInstance(serviceName, instance);
 
             // 注册到本地 Nacos
-            localNamingService.registerInstance(serviceName, properties.getLocalGroup(), localInstance);
+            long start = System.nanoTime();
+            try {
+                localNamingService.registerInstance(serviceName, properties.getLocalGroup(), localInstance);
+            } finally {
+                recordRpc(SyncMetrics.TARGET_LOCAL, "registerInstance", start);
+            }
+            localRegistry.recordRegistered(serviceName, localInstance);
+            localWriteCount.incrementAndGet();
 
-            if (!originalIp.equals(rewrittenIp)) {
+            String originalIp = instance.getIp();
+            if (!originalIp.equals(localInstance.getIp())) {
                 log.info("Registered service {} instance to local Nacos: {}:{} (original IP: {})",
-                        serviceName, rewrittenIp, instance.getPort(), originalIp);
+                        serviceName, localInstance.getIp(), localInstance.getPort(), originalIp);
             } else {
                 log.info("Registered service {} instance to local Nacos: {}:{}",
-                        serviceName, rewrittenIp, instance.getPort());
+                        serviceName, localInstance.getIp(), localInstance.getPort());
             }
 
         } catch (Exception e) {
@@ -475,11 +1542,145 @@ public class NacosFallbackServiceDiscovery {
         }
     }
 
+    /**
+     * 批量注册实例到本地 Nacos（Nacos 2.x 临时实例）
+     *
+     * @param serviceName   服务名
+     * @param testInstances 该服务的完整目标实例集合（测试环境实例）
+     * @return true 如果批量注册成功；false 表示服务端或客户端不支持批量接口，调用方应回退为逐个注册
+     * @throws NacosException 批量注册失败但接口受支持（网络抖动、服务端繁忙等），本轮按服务失败处理
+     */
+    private boolean batchRegisterToLocal(String serviceName, Collection<Instance> testInstances) throws NacosException {
+        List<Instance> localInstances = new ArrayList<>(testInstances.size());
+        for (Instance instance : testInstances) {
+            localInstances.add(buildLocalInstance(serviceName, instance));
+        }
+        long start = System.nanoTime();
+        try {
+            localNamingService.batchRegisterInstance(serviceName, properties.getLocalGroup(), localInstances);
+            recordRpc(SyncMetrics.TARGET_LOCAL, "batchRegisterInstance", start);
+            for (Instance localInstance : localInstances) {
+                localRegistry.recordRegistered(serviceName, localInstance);
+            }
+            localWriteCount.incrementAndGet();
+            log.info("Batch registered {} instances of service {} to local Nacos", localInstances.size(), serviceName);
+            return true;
+        } catch (NoSuchMethodError | AbstractMethodError | UnsupportedOperationException e) {
+            disableBatch(serviceName, e);
+            return false;
+        } catch (NacosException e) {
+            if (!isBatchUnsupported(e)) {
+                throw e;
+            }
+            disableBatch(serviceName, e);
+            return false;
+        }
+    }
+
+    /**
+     * 批量接口失败是否表示不支持批量接口
+     * <p>
+     * 客户端缺少批量方法（NoSuchMethodError、AbstractMethodError）、客户端代理不支持（UnsupportedOperationException），
+     * 或服务端没有对应的请求处理器（NO_HANDLER、NOT_IMPLEMENTED）；其他失败视为临时失败，不关闭批量模式
+     */
+    static boolean isBatchUnsupported(NacosException e) {
+        return e.getErrCode() == NacosException.NO_HANDLER || e.getErrCode() == NacosException.NOT_IMPLEMENTED;
+    }
+
+    /**
+     * 是否使用批量注册/注销
+     */
+    private boolean isBatchEnabled() {
+        return properties.isBatchRegisterEnabled() && batchSupported;
+    }
+
+    /**
+     * 未启用批量模式时逐个注册多实例服务，提示 Nacos 2.x 本地服务端只保留最后注册的实例
+     * <p>
+     * 每个 Leader 任期只提示一次；不支持批量接口的提示已由 disableBatch 输出
+     */
+    private void warnPerInstanceOverwrite(String serviceName, int targetSize) {
+        if (targetSize > 1 && batchSupported && !perInstanceWarned) {
+            perInstanceWarned = true;
+            log.warn("batchRegisterEnabled is false, registering {} instances of service {} one by one; "
+                    + "a Nacos 2.x local server keeps only the last instance registered per service", targetSize, serviceName);
+        }
+    }
+
+    /**
+     * 服务端或客户端不支持批量接口时，本次 Leader 任期内回退为逐个调用
+     */
+    private void disableBatch(String serviceName, Throwable cause) {
+        if (batchSupported) {
+            batchSupported = false;
+            log.warn("Batch register/deregister is not supported (service {}), falling back to per-instance calls; "
+                    + "a Nacos 2.x local server keeps only the last instance registered per service", serviceName, cause);
+        }
+    }
+
+    /**
+     * 根据测试环境实例构建本地 fallback 实例：重写 IP 与端口、强制临时实例并添加 fallback 标记
+     */
+    private Instance buildLocalInstance(String serviceName, Instance instance) {
+        // 创建新的实例
+        Instance localInstance = new Instance();
+
+        // IP 重写:将内网 IP 替换为公网 IP
+        String originalIp = instance.getIp();
+        String rewrittenIp = rewriteIpIfNeeded(originalIp);
+        localInstance.setIp(rewrittenIp);
+
+        // 端口映射:按服务名与原始 ip:port 转换为网关暴露的端口
+        int mappedPort = portMappingTable.map(serviceName, originalIp, instance.getPort());
+        localInstance.setPort(mappedPort);
+        localInstance.setServiceName(serviceName);
+        localInstance.setClusterName(instance.getClusterName());
+        localInstance.setWeight(instance.getWeight());
+        localInstance.setHealthy(instance.isHealthy());
+        localInstance.setEnabled(instance.isEnabled());
+        // 强制设置为临时实例，防止持久脏数据
+        localInstance.setEphemeral(true);
+
+        // 复制元数据并添加标记
+        Map<String, String> metadata = new HashMap<>();
+        if (instance.getMetadata() != null) {
+            metadata.putAll(instance.getMetadata());
+        }
+        metadata.put("fallback", "true");
+        metadata.put("source", "test-env");
+        metadata.put("original-ip", originalIp);
+        if (mappedPort != instance.getPort()) {
+            metadata.put("original-port", String.valueOf(instance.getPort()));
+        }
+        metadata.put("synced-at", String.valueOf(System.currentTimeMillis()));
+        if (isSyncedByTracked()) {
+            metadata.put("synced-by", instanceId);
+        }
+        // fencing token：写入时的 Leader 任期，旧任期的 Leader 据此发现自己已被取代
+        long term = election.getLeaderTerm();
+        if (term > 0) {
+            metadata.put("leader-term", String.valueOf(term));
+        }
+        localInstance.setMetadata(metadata);
+        return localInstance;
+    }
+
     /**
      * 重写 IP 地址
+     * <p>
+     * 先按 CIDR 规则查找，未命中时再按私网前缀重写为 testPublicIp
      */
     private String rewriteIpIfNeeded(String ip) {
-        if (!StringUtils.hasText(ip) || !StringUtils.hasText(properties.getTestPublicIp())) {
+        if (!StringUtils.hasText(ip)) {
+            return ip;
+        }
+
+        String ruleIp = ipRewriteTable.lookup(ip);
+        if (ruleIp != null) {
+            return ruleIp;
+        }
+
+        if (!StringUtils.hasText(properties.getTestPublicIp())) {
             return ip;
         }
 
@@ -498,174 +1699,397 @@ public class NacosFallbackServiceDiscovery {
     }
 
     /**
-     * 获取指定服务在本地 Nacos 的所有实例,并分类为 fallback 和 native
+     * 获取指定服务在本地 Nacos 的所有实例,并分类为 fallback 和 native
+     * <p>
+     * 开启内存视图时，已知服务直接从内存视图返回，只有首次访问的服务才读取本地 Nacos，
+     * 之后通过本地订阅感知原生实例的变化
+     */
+    private Map<String, List<Instance>> getInstancesAndCategorize(String serviceName) throws NacosException {
+        if (properties.isLocalRegistryViewEnabled() && localRegistry.isKnown(serviceName)) {
+            Map<String, List<Instance>> categorizedInstances = new HashMap<>();
+            categorizedInstances.put("fallback", localRegistry.getFallbackInstances(serviceName));
+            categorizedInstances.put("native", localRegistry.getNativeInstances(serviceName));
+            return categorizedInstances;
+        }
+
+        // 使用 subscribe=false 避免建立订阅，只需要一次性快照
+        List<Instance> allLocalInstances;
+        long start = System.nanoTime();
+        try {
+            allLocalInstances = localNamingService.getAllInstances(serviceName, properties.getLocalGroup(), false);
+        } finally {
+            recordRpc(SyncMetrics.TARGET_LOCAL, "getAllInstances", start);
+        }
+        Map<String, List<Instance>> categorizedInstances = categorize(allLocalInstances);
+
+        if (properties.isLocalRegistryViewEnabled()) {
+            localRegistry.seed(serviceName, categorizedInstances.get("fallback"), categorizedInstances.get("native"));
+            watchLocalService(serviceName);
+        }
+        return categorizedInstances;
+    }
+
+    /**
+     * 将本地实例分类为 fallback 和 native
+     * <p>
+     * 分片模式下其他参与者注册的 fallback 实例（synced-by 不是本节点），以及其他任期的 Leader 写入的 fallback 实例，
+     * 既不属于本节点的 fallback 实例，也不视为原生实例，直接忽略
+     */
+    private Map<String, List<Instance>> categorize(List<Instance> allLocalInstances) {
+        List<Instance> fallbackInstances = new ArrayList<>();
+        List<Instance> nativeInstances = new ArrayList<>();
+
+        if (!CollectionUtils.isEmpty(allLocalInstances)) {
+            for (Instance instance : allLocalInstances) {
+                // 增加 metadata 判空保护
+                Map<String, String> metadata = instance.getMetadata();
+                if (metadata != null && "true".equals(metadata.get("fallback"))) {
+                    if (election.isWrittenInOtherTerm(metadata) || isSyncedByOtherParticipant(metadata)) {
+                        continue;
+                    }
+                    fallbackInstances.add(instance);
+                } else {
+                    nativeInstances.add(instance);
+                }
+            }
+        }
+
+        Map<String, List<Instance>> categorizedInstances = new HashMap<>();
+        categorizedInstances.put("fallback", fallbackInstances);
+        categorizedInstances.put("native", nativeInstances);
+        return categorizedInstances;
+    }
+
+    /**
+     * 是否在 fallback 实例上记录 synced-by：分片模式下区分各参与者的实例，交接时区分前任与继任者的实例
+     */
+    private boolean isSyncedByTracked() {
+        return properties.isShardingEnabled() || properties.isHandoffEnabled();
+    }
+
+    /**
+     * 是否为其他节点（分片参与者或交接中的前任 Leader）同步的 fallback 实例
+     */
+    private boolean isSyncedByOtherParticipant(Map<String, String> metadata) {
+        if (!isSyncedByTracked()) {
+            return false;
+        }
+        String syncedBy = metadata.get("synced-by");
+        return StringUtils.hasText(syncedBy) && !instanceId.equals(syncedBy);
+    }
+
+    /**
+     * 订阅本地服务的实例变更：内存视图模式下感知原生实例，并在本地实例变化时丢弃服务修订值
+     */
+    private void watchLocalService(String serviceName) {
+        if (localSubscriptions.containsKey(serviceName)) {
+            return;
+        }
+        EventListener listener = event -> {
+            if (event instanceof NamingEvent) {
+                // 本地实例发生变化，下一轮重新读取本地 Nacos 并对比
+                serviceRevisions.remove(serviceName);
+                if (properties.isLocalRegistryViewEnabled()) {
+                    List<Instance> nativeInstances = categorize(((NamingEvent) event).getInstances()).get("native");
+                    localRegistry.updateNativeInstances(serviceName, nativeInstances);
+                }
+            }
+        };
+        if (localSubscriptions.putIfAbsent(serviceName, listener) != null) {
+            return;
+        }
+        try {
+            localNamingService.subscribe(serviceName, properties.getLocalGroup(), listener);
+        } catch (Exception e) {
+            // 订阅失败时丢弃该服务视图，下次同步重新读取
+            localSubscriptions.remove(serviceName, listener);
+            localRegistry.forget(serviceName);
+            log.warn("Failed to subscribe to local service {}, will read it again next sync", serviceName, e);
+        }
+    }
+
+    /**
+     * 取消本地服务订阅并丢弃其内存视图
+     */
+    private void unwatchLocalService(String serviceName) {
+        EventListener listener = localSubscriptions.remove(serviceName);
+        serviceRevisions.remove(serviceName);
+        localRegistry.forget(serviceName);
+        if (listener == null || localNamingService == null) {
+            return;
+        }
+        try {
+            localNamingService.unsubscribe(serviceName, properties.getLocalGroup(), listener);
+        } catch (Exception e) {
+            log.warn("Failed to unsubscribe from local service {}", serviceName, e);
+        }
+    }
+
+    /**
+     * 取消所有本地服务订阅并清空内存视图
      */
-    private Map<String, List<Instance>> getInstancesAndCategorize(String serviceName) throws NacosException {
-        // 使用 subscribe=false 避免建立订阅，只需要一次性快照
-        List<Instance> allLocalInstances = localNamingService.getAllInstances(serviceName, properties.getLocalGroup(), false);
-        List<Instance> fallbackInstances = new ArrayList<>();
-        List<Instance> nativeInstances = new ArrayList<>();
-
-        if (!CollectionUtils.isEmpty(allLocalInstances)) {
-            for (Instance instance : allLocalInstances) {
-                // 增加 metadata 判空保护
-                Map<String, String> metadata = instance.getMetadata();
-                if (metadata != null && "true".equals(metadata.get("fallback"))) {
-                    fallbackInstances.add(instance);
-                } else {
-                    nativeInstances.add(instance);
-                }
-            }
+    private void unwatchAllLocalServices() {
+        for (String serviceName : new ArrayList<>(localSubscriptions.keySet())) {
+            unwatchLocalService(serviceName);
         }
+        localRegistry.clear();
+    }
 
-        Map<String, List<Instance>> categorizedInstances = new HashMap<>();
-        categorizedInstances.put("fallback", fallbackInstances);
-        categorizedInstances.put("native", nativeInstances);
-        return categorizedInstances;
+    /**
+     * 每隔 localResyncIntervalSeconds 使内存视图与服务修订值失效，
+     * 下次访问时重新读取本地 Nacos，作为订阅推送之外的兜底校正
+     */
+    private void resyncLocalRegistryIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastLocalResyncTime >= properties.getLocalResyncIntervalSeconds() * 1000) {
+            log.debug("Invalidating local fallback registry view and service revisions for periodic resync");
+            localRegistry.invalidate();
+            serviceRevisions.clear();
+            lastLocalResyncTime = now;
+        }
     }
 
     /**
      * 从本地 Nacos 注销指定服务的所有实例
+     *
+     * @throws NacosException 批量注销失败（非接口不支持）时抛出，实例保留到下一轮重试
      */
-    private void deregisterInstances(String serviceName, List<Instance> instances) {
+    private void deregisterInstances(SyncCycleStats cycle, String serviceName, List<Instance> instances)
+            throws NacosException {
         if (CollectionUtils.isEmpty(instances)) {
             return;
         }
+        serviceRevisions.remove(serviceName);
+        if (isBatchEnabled()) {
+            long start = System.nanoTime();
+            try {
+                localNamingService.batchDeregisterInstance(serviceName, properties.getLocalGroup(), instances);
+                recordRpc(SyncMetrics.TARGET_LOCAL, "batchDeregisterInstance", start);
+                for (Instance instance : instances) {
+                    localRegistry.recordDeregistered(serviceName, instance);
+                }
+                localWriteCount.incrementAndGet();
+                recordRemoved(cycle, instances.size());
+                log.info("Batch deregistered {} instances of service {} from local Nacos (fallback cleanup)", instances.size(), serviceName);
+                return;
+            } catch (NoSuchMethodError | AbstractMethodError | UnsupportedOperationException e) {
+                disableBatch(serviceName, e);
+            } catch (NacosException e) {
+                if (!isBatchUnsupported(e)) {
+                    throw e;
+                }
+                disableBatch(serviceName, e);
+            }
+        }
+        int removed = 0;
         for (Instance instance : instances) {
+            long start = System.nanoTime();
             try {
                 localNamingService.deregisterInstance(serviceName, properties.getLocalGroup(), instance);
+                localRegistry.recordDeregistered(serviceName, instance);
+                localWriteCount.incrementAndGet();
+                removed++;
                 log.info("Deregistered instance {}:{} of service {} from local Nacos (fallback cleanup)", instance.getIp(), instance.getPort(), serviceName);
             } catch (NacosException e) {
                 log.error("Failed to deregister instance {}:{} of service {}", instance.getIp(), instance.getPort(), serviceName, e);
+            } finally {
+                recordRpc(SyncMetrics.TARGET_LOCAL, "deregisterInstance", start);
             }
         }
+        recordRemoved(cycle, removed);
+    }
+
+    private void recordRemoved(SyncCycleStats cycle, int count) {
+        if (count > 0) {
+            cycle.recordRemoved(count);
+            syncMetrics.recordInstancesRemoved(count);
+        }
     }
 
     /**
-     * 尝试成为 Leader
-     * 通过在本地 Nacos 注册一个临时实例来实现
+     * 发起竞选：注册候选实例，leaderElectionWaitMs 后确认选举结果
+     * <p>
+     * 等待通过 Leader 检查调度器完成，不阻塞当前线程；等待时间为 0 或分片模式下立即确认
      *
-     * @return true 如果成功成为 Leader
+     * @return false 如果已有 Leader 或注册失败，调用方应继续作为 Follower 监控 Leader
      */
-    private boolean tryBecomeLeader() {
-        try {
-            String leaderServiceName = properties.getLeaderServiceName();
-
-            // 检查是否已有 Leader
-            List<Instance> existingLeaders = localNamingService.selectInstances(
-                    leaderServiceName,
-                    properties.getLocalGroup(),
-                    true
-            );
+    private boolean startElection() {
+        if (!registerCandidate()) {
+            return false;
+        }
+        long waitMs = properties.getLeaderElectionWaitMs();
+        if (properties.isShardingEnabled() || waitMs <= 0) {
+            confirmElection();
+            return true;
+        }
+        electionPending = true;
+        leaderScheduler.schedule(this::confirmElection, Instant.now().plusMillis(waitMs));
+        return true;
+    }
 
-            if (!CollectionUtils.isEmpty(existingLeaders)) {
-                // 已有健康的 Leader
-                Instance existingLeader = existingLeaders.get(0);
-                Map<String, String> metadata = existingLeader.getMetadata();
-                String leaderId = metadata != null ? metadata.get("instanceId") : "unknown";
-                log.info("Found existing leader: {}", leaderId);
+    /**
+     * 注册候选实例，分片模式下注册为参与者后即参与同步，不与其他节点竞争
+     *
+     * @return true 如果已注册候选实例
+     */
+    private boolean registerCandidate() {
+        try {
+            if (properties.isShardingEnabled()) {
+                election.registerParticipant();
+                return true;
+            }
+            if (!election.registerCandidate()) {
+                lastLeaderObservedTime = System.currentTimeMillis();
                 return false;
             }
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to try become leader", e);
+            return false;
+        }
+    }
 
-            // 注册自己为 Leader
-            leaderInstance = new Instance();
-            leaderInstance.setIp("127.0.0.1");
-            leaderInstance.setPort(1); // 使用端口 1（Nacos 要求端口 > 0）
-            leaderInstance.setInstanceId(instanceId);
-            leaderInstance.setEphemeral(true); // 临时实例，服务停止后自动注销
-            leaderInstance.setHealthy(true);
-            leaderInstance.setEnabled(true);
-
-            Map<String, String> metadata = new HashMap<>();
-            metadata.put("instanceId", instanceId);
-            metadata.put("startTime", String.valueOf(System.currentTimeMillis()));
-            leaderInstance.setMetadata(metadata);
-
-            localNamingService.registerInstance(leaderServiceName, properties.getLocalGroup(), leaderInstance);
-            log.info("Registered as sync leader with instanceId: {}", instanceId);
-
-            // 短暂等待后再次检查，确保没有竞争条件
-            Thread.sleep(properties.getLeaderElectionWaitMs());
-
-            List<Instance> leaders = localNamingService.selectInstances(
-                    leaderServiceName,
-                    properties.getLocalGroup(),
-                    true
-            );
+    /**
+     * 确认选举结果：再次读取 Leader 实例，按任期选出 Leader，落选时注销自己继续作为 Follower
+     */
+    private void confirmElection() {
+        electionPending = false;
+        if (election.getLeaderInstance() == null) {
+            return; // 已停止
+        }
 
-            // 检查自己是否是唯一的或者第一个 Leader
-            if (!CollectionUtils.isEmpty(leaders)) {
-                // 如果有多个实例，选择 startTime 最早的作为 Leader
-                Instance firstLeader = leaders.stream()
-                        .min(Comparator.comparingLong(i -> {
-                            Map<String, String> m = i.getMetadata();
-                            return Long.parseLong(m != null ? m.getOrDefault("startTime", "0") : "0");
-                        }))
-                        .get(); // leaders 非空，min 一定有值
-
-                Map<String, String> firstLeaderMetadata = firstLeader.getMetadata();
-                String firstLeaderId = firstLeaderMetadata != null ? firstLeaderMetadata.get("instanceId") : null;
-
-                if (instanceId.equals(firstLeaderId)) {
-                    return true;
-                } else {
-                    // 不是第一个，注销自己
-                    log.info("Lost leader election to {}, deregistering self", firstLeaderId);
+        if (!properties.isShardingEnabled()) {
+            try {
+                Instance elected = election.electOther();
+                if (elected != null) {
+                    log.info("Lost leader election to {} (term {}), deregistering self",
+                            LeaderElection.leaderIdOf(elected), LeaderElection.termOf(elected));
                     releaseLeadership();
-                    return false;
+                    lastLeaderObservedTime = System.currentTimeMillis();
+                    if (leaderCheckTask == null) {
+                        startLeaderCheckTask();
+                    }
+                    return;
+                }
+            } catch (Exception e) {
+                log.error("Failed to confirm leader election, releasing candidacy", e);
+                releaseLeadership();
+                if (leaderCheckTask == null) {
+                    startLeaderCheckTask();
                 }
+                return;
             }
+        }
 
-            return true;
+        isLeader = true;
+        log.info("This instance became the sync leader, term: {}", election.getLeaderTerm());
 
-        } catch (Exception e) {
-            log.error("Failed to try become leader", e);
-            return false;
+        // 取消 Leader 检查任务
+        if (leaderCheckTask != null) {
+            leaderCheckTask.cancel(false);
+            leaderCheckTask = null;
+        }
+
+        // 首轮完整同步在同步调度器上执行，避免阻塞 Leader 检查线程（两者为同一调度器时直接执行）
+        Instance candidate = election.getLeaderInstance();
+        if (leaderScheduler == taskScheduler) {
+            startSyncAsElectedLeader(candidate);
+        } else {
+            taskScheduler.execute(() -> startSyncAsElectedLeader(candidate));
         }
     }
 
     /**
-     * 检查 Leader 健康状态，如果 Leader 不存在则尝试成为 Leader
+     * 作为选举胜出的 Leader 启动同步；提交后已释放 Leader、已停止或已重新竞选时跳过
+     *
+     * @param candidate 胜出时注册的候选实例
      */
-    private void checkAndTryBecomeLeader() {
-        if (isLeader) {
-            return; // 已经是 Leader
+    private void startSyncAsElectedLeader(Instance candidate) {
+        if (!isLeader || election.getLeaderInstance() != candidate) {
+            log.debug("Leadership changed before sync could start, skipping");
+            return;
+        }
+        try {
+            startSyncAsLeader();
+        } catch (Exception e) {
+            // startSyncAsLeader 失败时，释放 Leader 并重新启动 Leader 检查
+            log.error("Failed to start sync as leader, releasing leadership", e);
+            releaseLeadership();
+            startLeaderCheckTask();
         }
+    }
 
+    /**
+     * 任期已被更高任期的 Leader 取代（由 {@link LeaderElection} 回调）：写入已被拦截，退位提交到同步线程，在进行中的同步结束后执行
+     */
+    void onSuperseded() {
         try {
-            String leaderServiceName = properties.getLeaderServiceName();
-            List<Instance> leaders = localNamingService.selectInstances(
-                    leaderServiceName,
-                    properties.getLocalGroup(),
-                    true
-            );
+            taskScheduler.execute(this::stepDown);
+        } catch (Exception e) {
+            log.warn("Failed to schedule step down, will step down on next sync: {}", e.toString());
+        }
+    }
 
-            if (CollectionUtils.isEmpty(leaders)) {
-                log.info("No healthy leader found, trying to become leader");
+    /**
+     * 任期被取代后退位：停止同步、清理本节点注册的 fallback 实例并释放 Leader，重新作为 Follower 监控 Leader
+     */
+    private void stepDown() {
+        if (!isLeader || !election.isSuperseded()) {
+            return;
+        }
+        if (syncTask != null) {
+            syncTask.cancel(false);
+            syncTask = null;
+        }
+        cleanupAllFallbackInstances(SyncCycleStats.detached());
+        releaseLeadership();
+        lastLeaderObservedTime = System.currentTimeMillis();
+        if (leaderCheckTask == null) {
+            startLeaderCheckTask();
+        }
+        log.info("Stepped down from sync leader");
+    }
 
-                if (tryBecomeLeader()) {
-                    isLeader = true;
-                    log.info("Successfully became the new sync leader");
+    /**
+     * 构建注册到 leaderServiceName 的选举实例
+     */
+    Instance buildLeaderInstance(long term) {
+        return election.buildLeaderInstance(term);
+    }
 
-                    // 取消 Leader 检查任务
-                    if (leaderCheckTask != null) {
-                        leaderCheckTask.cancel(false);
-                        leaderCheckTask = null;
-                    }
+    /**
+     * 按最近一次的哈希环判断服务是否由本节点负责（分片模式），尚未构建哈希环时为 false
+     */
+    private boolean ownsService(String serviceName) {
+        return shards != null && shards.owns(serviceName);
+    }
 
-                    try {
-                        startSyncAsLeader();
-                        log.info("Nacos fallback sync started after leader election");
-                    } catch (Exception e) {
-                        // startSyncAsLeader 失败时，释放 Leader 并重新启动 Leader 检查
-                        log.error("Failed to start sync after becoming leader, releasing leadership", e);
-                        releaseLeadership();
-                        startLeaderCheckTask();
-                    }
+    /**
+     * 检查 Leader 健康状态，如果 Leader 不存在则尝试成为 Leader
+     * <p>
+     * 分片模式下不存在唯一的 Leader，未参与同步（如启动同步失败后）时直接重新注册为参与者
+     */
+    void checkAndTryBecomeLeader() {
+        if (isLeader || electionPending) {
+            return; // 已经是 Leader 或正在等待确认选举结果
+        }
+
+        try {
+            List<Instance> leaders = election.selectActiveLeaders();
+
+            if (properties.isShardingEnabled() || CollectionUtils.isEmpty(leaders)) {
+                if (properties.isShardingEnabled()) {
+                    log.info("Not participating in sharded sync, trying to join");
+                } else {
+                    log.info("No healthy leader found, trying to become leader");
                 }
+
+                // 选举结果由 confirmElection 处理，成为 Leader 后取消本检查任务
+                startElection();
             } else {
                 Map<String, String> leaderMetadata = leaders.get(0).getMetadata();
                 String leaderId = leaderMetadata != null ? leaderMetadata.get("instanceId") : "unknown";
+                lastLeaderObservedTime = System.currentTimeMillis();
                 log.debug("Leader is healthy: {}", leaderId);
             }
 
@@ -683,19 +2107,20 @@ public class NacosFallbackServiceDiscovery {
      * 释放 Leader 身份
      */
     private void releaseLeadership() {
-        if (leaderInstance != null && localNamingService != null) {
-            try {
-                localNamingService.deregisterInstance(
-                        properties.getLeaderServiceName(),
-                        properties.getLocalGroup(),
-                        leaderInstance
-                );
-                log.info("Released leadership, deregistered leader instance");
-            } catch (Exception e) {
-                log.error("Failed to deregister leader instance", e);
-            }
-            leaderInstance = null;
+        unsubscribeAllTestServices();
+        unwatchAllLocalServices();
+        serviceRevisions.clear();
+        serviceStatuses.clear();
+        syncedView.clear();
+        snapshotDirty = false;
+        adaptiveInterval = null;
+        if (shards != null) {
+            shards.reset();
+        }
+        if (failureTracker != null) {
+            failureTracker.clear();
         }
+        election.release();
         isLeader = false;
         initialized = false;
     }
@@ -707,9 +2132,12 @@ public class NacosFallbackServiceDiscovery {
         try {
             log.info("Stopping Nacos fallback sync service");
 
-            // 释放 Leader 身份
-            if (isLeader) {
-                releaseLeadership();
+            // 先取消 Leader 选举服务的订阅，避免注销自身时触发竞选或重新分配
+            unsubscribeLeaderService();
+
+            // 停止懒同步并撤回本节点发布的工作集
+            if (lazySync != null) {
+                lazySync.stop();
             }
 
             // 取消调度任务
@@ -722,15 +2150,38 @@ public class NacosFallbackServiceDiscovery {
                 leaderCheckTask = null;
             }
 
-            // 清理所有 fallback 实例
-            if (localNamingService != null) {
-                cleanupAllFallbackInstances();
+            // 先停止测试环境推送，避免交接或清理期间重新注册
+            unsubscribeAllTestServices();
+
+            // 交接成功时保留 fallback 实例，由继任者接管；否则清理所有 fallback 实例
+            boolean handedOff = isLeader && properties.isHandoffEnabled() && !properties.isShardingEnabled()
+                    && election.handOff();
+            if (localNamingService != null && !handedOff) {
+                cleanupAllFallbackInstances(SyncCycleStats.detached());
+            }
+
+            // 最后释放 Leader 身份（含尚未确认的候选实例）：订阅了 Leader 选举服务的 Follower 会立即接管，此时旧的 fallback 实例已清理完毕
+            if (isLeader || electionPending) {
+                releaseLeadership();
+            }
+
+            // 交接后关闭本地客户端，本节点注册的临时实例随连接一并注销，无需逐个调用
+            if (handedOff) {
+                shutDownLocalNamingService();
             }
 
             // 关闭内部创建的调度器
             if (ownedScheduler && taskScheduler != null) {
                 taskScheduler.shutdown();
             }
+            if (ownedScheduler && leaderScheduler != null && leaderScheduler != taskScheduler) {
+                leaderScheduler.shutdown();
+            }
+
+            // 关闭并行同步工作线程池
+            if (syncExecutor != null) {
+                syncExecutor.shutdownNow();
+            }
 
             log.info("Nacos fallback sync service stopped");
         } catch (Exception e) {
@@ -738,6 +2189,226 @@ public class NacosFallbackServiceDiscovery {
         }
     }
 
+    /**
+     * 接管交接中的前任 Leader 注册的 fallback 实例
+     * <p>
+     * 按 fallback/source 元数据找出前任注册的实例（synced-by 为前任），还原为测试环境实例后以本节点身份注册：
+     * Nacos 2.x 的临时实例归属于注册它的客户端，前任断开后其实例随之注销，因此需要先注册本节点的副本，服务不会出现空缺。
+     * 接管不访问测试环境，随后的完整同步与接管的实例一致时不产生写入。
+     * 写入前在 Leader 实例上标记 adopting-from 让前任延长等待，完成后标记 adopted-from 通知前任退出
+     */
+    private void adoptFromPredecessor(String predecessor) {
+        log.info("Adopting fallback instances from previous leader {}", predecessor);
+        election.announceAdopting(predecessor);
+        Set<String> adoptedServices = new HashSet<>();
+        try {
+            for (String serviceName : adoptionCandidates()) {
+                // 被过滤的服务不接管，前任的实例随其连接关闭失效
+                if (!serviceFilter.accepts(serviceName)) {
+                    continue;
+                }
+                synchronized (serviceLock(serviceName)) {
+                    List<Instance> inherited = new ArrayList<>();
+                    List<Instance> ownFallbacks = new ArrayList<>(); // 如按快照预热时已注册的实例
+                    boolean hasNative = false;
+                    for (Instance instance : localNamingService.getAllInstances(serviceName, properties.getLocalGroup(), false)) {
+                        Map<String, String> metadata = instance.getMetadata();
+                        if (metadata == null || !"true".equals(metadata.get("fallback"))) {
+                            hasNative = true;
+                        } else if (instanceId.equals(metadata.get("synced-by"))) {
+                            ownFallbacks.add(instance);
+                        } else if ("test-env".equals(metadata.get("source")) && predecessor.equals(metadata.get("synced-by"))) {
+                            inherited.add(toTestInstance(instance));
+                        }
+                    }
+                    // 本地已有原生实例的服务交给完整同步处理
+                    if (inherited.isEmpty() || hasNative) {
+                        continue;
+                    }
+                    applyTestInstances(SyncCycleStats.detached(), serviceName, ownFallbacks, inherited);
+                    recordSyncedView(serviceName, inherited);
+                    adoptedServices.add(serviceName);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to adopt all fallback instances from previous leader {}, the full sync will register the rest",
+                    predecessor, e);
+        }
+        synchronized (syncedServices) {
+            syncedServices.addAll(adoptedServices);
+        }
+        log.info("Adopted {} services from previous leader {}", adoptedServices.size(), predecessor);
+
+        election.announceAdopted(predecessor);
+    }
+
+    /**
+     * 可能有前任实例的服务：已按快照预热时为同步视图内的服务，否则列出本地所有服务
+     * <p>
+     * 快照之后新增的服务不在接管范围内，前任退出后由随后的完整同步注册
+     */
+    private Collection<String> adoptionCandidates() throws NacosException {
+        if (!syncedView.isEmpty()) {
+            return new TreeSet<>(syncedView.keySet());
+        }
+        return listLocalServices();
+    }
+
+    /**
+     * 分页列出本地 Nacos 分组下的所有服务
+     */
+    private List<String> listLocalServices() throws NacosException {
+        List<String> services = new ArrayList<>();
+        int pageSize = properties.getServicePageSize();
+        for (int pageNo = 1; ; pageNo++) {
+            ListView<String> page = localNamingService.getServicesOfServer(pageNo, pageSize, properties.getLocalGroup());
+            if (page == null || CollectionUtils.isEmpty(page.getData())) {
+                return services;
+            }
+            services.addAll(page.getData());
+            if (services.size() >= page.getCount() || page.getData().size() < pageSize) {
+                return services;
+            }
+        }
+    }
+
+    /**
+     * 将本地 fallback 实例还原为测试环境实例：恢复原始 IP 与端口，去掉同步标记元数据
+     */
+    private static Instance toTestInstance(Instance fallbackInstance) {
+        Map<String, String> metadata = fallbackInstance.getMetadata();
+        Instance instance = new Instance();
+        instance.setIp(metadata.getOrDefault("original-ip", fallbackInstance.getIp()));
+        String originalPort = metadata.get("original-port");
+        instance.setPort(originalPort != null ? Integer.parseInt(originalPort) : fallbackInstance.getPort());
+        instance.setClusterName(fallbackInstance.getClusterName());
+        instance.setWeight(fallbackInstance.getWeight());
+        instance.setHealthy(fallbackInstance.isHealthy());
+        instance.setEnabled(fallbackInstance.isEnabled());
+        instance.setEphemeral(true);
+        Map<String, String> original = new HashMap<>(metadata);
+        original.keySet().removeAll(InstanceFingerprint.SYNC_METADATA_KEYS);
+        instance.setMetadata(original);
+        return instance;
+    }
+
+    /**
+     * 关闭本地 Nacos 客户端
+     */
+    private void shutDownLocalNamingService() {
+        try {
+            localNamingService.shutDown();
+        } catch (Exception e) {
+            log.warn("Failed to shut down local Nacos client", e);
+        }
+    }
+
+    /**
+     * 按本地快照立即注册 fallback 实例
+     * <p>
+     * 快照中的服务加入跟踪集合，随后的完整同步会校正变化并清理测试环境已不存在的服务；
+     * 本地已有原生实例的服务跳过。快照读取失败只记录日志，不影响正常同步
+     */
+    private void warmStartFromSnapshot() {
+        if (snapshotStore == null) {
+            return;
+        }
+        Map<String, List<Instance>> snapshot;
+        try {
+            snapshot = snapshotStore.load();
+        } catch (Exception e) {
+            log.warn("Failed to load fallback snapshot from {}, skipping warm start", snapshotStore.getPath(), e);
+            return;
+        }
+        if (snapshot.isEmpty()) {
+            return;
+        }
+
+        // 分片模式下只预热分配给本节点的服务，无法确定分配时跳过预热，交给完整同步
+        if (shards != null) {
+            try {
+                shards.refresh();
+            } catch (Exception e) {
+                log.warn("Failed to list sync shard participants, skipping warm start", e);
+                return;
+            }
+        }
+
+        log.info("Warm starting {} services from fallback snapshot {}", snapshot.size(), snapshotStore.getPath());
+        Set<String> warmedServices = new HashSet<>();
+        for (Map.Entry<String, List<Instance>> entry : snapshot.entrySet()) {
+            String serviceName = entry.getKey();
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            if (!serviceFilter.accepts(serviceName)) {
+                continue;
+            }
+            if (properties.isShardingEnabled() && !ownsService(serviceName)) {
+                continue;
+            }
+            synchronized (serviceLock(serviceName)) {
+                try {
+                    Map<String, List<Instance>> categorizedInstances = getInstancesAndCategorize(serviceName);
+                    if (!CollectionUtils.isEmpty(categorizedInstances.get("native"))) {
+                        continue;
+                    }
+                    applyTestInstances(SyncCycleStats.detached(), serviceName, categorizedInstances.get("fallback"), entry.getValue());
+                    syncedView.put(serviceName, entry.getValue());
+                    warmedServices.add(serviceName);
+                } catch (Exception e) {
+                    log.warn("Failed to warm start service {} from snapshot", serviceName, e);
+                }
+            }
+        }
+        synchronized (syncedServices) {
+            syncedServices.addAll(warmedServices);
+        }
+    }
+
+    /**
+     * 记录服务最近一次同步的测试环境实例，内容变化时标记快照待写入
+     */
+    private void recordSyncedView(String serviceName, List<Instance> testInstances) {
+        if (snapshotStore == null) {
+            return;
+        }
+        List<Instance> previous = syncedView.put(serviceName, new ArrayList<>(testInstances));
+        if (previous == null || InstanceFingerprint.revision(previous) != InstanceFingerprint.revision(testInstances)) {
+            snapshotDirty = true;
+        }
+    }
+
+    private void removeSyncedView(String serviceName) {
+        if (snapshotStore != null && syncedView.remove(serviceName) != null) {
+            snapshotDirty = true;
+        }
+    }
+
+    /**
+     * 视图有变化时写入本地快照
+     */
+    private void persistSnapshotIfDirty() {
+        if (snapshotStore == null || !snapshotDirty) {
+            return;
+        }
+        snapshotDirty = false;
+        try {
+            snapshotStore.save(new HashMap<>(syncedView));
+            log.debug("Saved fallback snapshot with {} services to {}", syncedView.size(), snapshotStore.getPath());
+        } catch (Exception e) {
+            snapshotDirty = true;
+            log.warn("Failed to save fallback snapshot to {}", snapshotStore.getPath(), e);
+        }
+    }
+
+    /**
+     * 获取服务最近一次确认无变化时的修订值（测试用）
+     */
+    Long getServiceRevision(String serviceName) {
+        return serviceRevisions.get(serviceName);
+    }
+
     private void scheduleRetry() {
         long delaySeconds = Math.max(5, properties.getSyncIntervalSeconds());
         try {
@@ -748,6 +2419,43 @@ public class NacosFallbackServiceDiscovery {
         }
     }
 
+    // ==================== 懒同步 ====================
+
+    /**
+     * 记录应用的一次服务查询（懒同步），服务新加入工作集时异步发布
+     */
+    void recordLookup(String serviceName) {
+        if (lazySync != null) {
+            lazySync.recordLookup(serviceName);
+        }
+    }
+
+    /**
+     * 应用查询服务未命中时按需同步（懒同步），在按需同步线程池上执行
+     *
+     * @return 本地 Nacos 推送该服务的可用实例时完成为 true、超过 timeoutMs 或未触发按需同步时为 false 的 Future
+     */
+    CompletableFuture<Boolean> resolveOnDemand(String serviceName, long timeoutMs) {
+        return lazySync != null
+                ? lazySync.resolveOnDemand(serviceName, timeoutMs)
+                : CompletableFuture.completedFuture(false);
+    }
+
+    /**
+     * 懒同步工作集内的服务（本节点），未启用懒同步时为空
+     */
+    Set<String> getLazyWorkingSet() {
+        return lazySync != null ? lazySync.names() : Collections.emptySet();
+    }
+
+    /**
+     * 本节点当前是否负责同步该服务
+     */
+    boolean canSyncLocally(String serviceName) {
+        return isLeader && initialized && !election.isSuperseded() && testNamingService != null
+                && (!properties.isShardingEnabled() || ownsService(serviceName));
+    }
+
     // ==================== 内部接口和实现 ====================
 
     /**
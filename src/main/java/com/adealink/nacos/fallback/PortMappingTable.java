@@ -0,0 +1,110 @@
+package com.adealink.nacos.fallback;
+
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 端口映射表
+ * <p>
+ * 启动时将端口映射规则展开为 服务名 -> 原始 IP -> (原始端口 -> 映射端口) 的哈希表，端口区间规则逐个端口展开，
+ * 未指定服务名或 IP 的规则以通配符登记。查找按 (服务, IP)、(服务, *)、(*, IP)、(*, *) 的顺序，
+ * 最多四次哈希查找，与规则数量无关；同一作用域内同一端口以配置顺序靠前的规则为准。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+class PortMappingTable {
+
+    private static final String WILDCARD = "*";
+    private static final int MAX_PORT = 65535;
+
+    private static final PortMappingTable EMPTY = new PortMappingTable();
+
+    // 服务名 -> 原始 IP -> (原始端口 -> 映射端口)
+    private final Map<String, Map<String, Map<Integer, Integer>>> mappings = new HashMap<>();
+
+    private PortMappingTable() {
+    }
+
+    /**
+     * 编译端口映射规则
+     *
+     * @throws IllegalArgumentException 规则的端口或区间不合法
+     */
+    static PortMappingTable compile(List<NacosFallbackProperties.PortMappingRule> rules) {
+        if (rules == null || rules.isEmpty()) {
+            return EMPTY;
+        }
+        PortMappingTable table = new PortMappingTable();
+        for (int order = 0; order < rules.size(); order++) {
+            table.add(rules.get(order), order);
+        }
+        return table;
+    }
+
+    boolean isEmpty() {
+        return mappings.isEmpty();
+    }
+
+    /**
+     * 查找映射后的端口
+     *
+     * @return 映射端口；没有规则命中时返回原端口
+     */
+    int map(String serviceName, String originalIp, int port) {
+        if (mappings.isEmpty()) {
+            return port;
+        }
+        Integer mapped = lookup(mappings.get(serviceName), originalIp, port);
+        if (mapped == null) {
+            mapped = lookup(mappings.get(WILDCARD), originalIp, port);
+        }
+        return mapped != null ? mapped : port;
+    }
+
+    private static Integer lookup(Map<String, Map<Integer, Integer>> byIp, String originalIp, int port) {
+        if (byIp == null) {
+            return null;
+        }
+        Integer mapped = null;
+        Map<Integer, Integer> ports = originalIp != null ? byIp.get(originalIp) : null;
+        if (ports != null) {
+            mapped = ports.get(port);
+        }
+        if (mapped == null) {
+            ports = byIp.get(WILDCARD);
+            if (ports != null) {
+                mapped = ports.get(port);
+            }
+        }
+        return mapped;
+    }
+
+    private void add(NacosFallbackProperties.PortMappingRule rule, int order) {
+        if (rule == null || rule.getPort() == null || rule.getTargetPort() == null) {
+            throw new IllegalArgumentException("Port mapping rule #" + order + " must have both port and targetPort");
+        }
+        int start = rule.getPort();
+        int end = rule.getPortEnd() != null ? rule.getPortEnd() : start;
+        int targetStart = rule.getTargetPort();
+        int targetEnd = targetStart + (end - start);
+        if (start < 1 || end < start || end > MAX_PORT || targetStart < 1 || targetEnd > MAX_PORT) {
+            throw new IllegalArgumentException("Invalid port mapping rule #" + order + ": "
+                    + start + "-" + end + " -> " + targetStart + "-" + targetEnd);
+        }
+
+        String service = StringUtils.hasText(rule.getServiceName()) ? rule.getServiceName().trim() : WILDCARD;
+        String ip = StringUtils.hasText(rule.getIp()) ? rule.getIp().trim() : WILDCARD;
+        Map<Integer, Integer> ports = mappings
+                .computeIfAbsent(service, k -> new HashMap<>())
+                .computeIfAbsent(ip, k -> new HashMap<>());
+        // 区间规则按偏移量逐个端口展开：target = targetPort + (port - 区间起点)
+        for (int port = start; port <= end; port++) {
+            ports.putIfAbsent(port, targetStart + (port - start));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.adealink.nacos.fallback;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 服务级失败跟踪（熔断与指数退避）
+ * <p>
+ * 服务连续失败达到阈值后熔断，在退避时间内跳过该服务；退避结束后进入半开状态放行一次尝试，
+ * 成功则恢复，失败则退避时间翻倍（不超过上限）。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+class ServiceFailureTracker {
+
+    private final int threshold;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    // 服务名 -> 失败状态，成功后移除
+    private final ConcurrentMap<String, FailureState> states = new ConcurrentHashMap<>();
+
+    ServiceFailureTracker(int threshold, long initialBackoffMs, long maxBackoffMs) {
+        this.threshold = Math.max(1, threshold);
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = Math.max(initialBackoffMs, maxBackoffMs);
+    }
+
+    /**
+     * 是否允许本次同步该服务：未熔断，或退避时间已过（半开状态）
+     */
+    boolean allowAttempt(String serviceName, long now) {
+        FailureState state = states.get(serviceName);
+        return state == null || now >= state.openUntil;
+    }
+
+    /**
+     * 记录一次成功，清除失败状态
+     *
+     * @return true 如果该服务此前处于熔断状态
+     */
+    boolean recordSuccess(String serviceName) {
+        FailureState state = states.remove(serviceName);
+        return state != null && state.failures >= threshold;
+    }
+
+    /**
+     * 记录一次失败，达到阈值后按指数退避计算熔断截止时间
+     *
+     * @return 记录后的连续失败次数
+     */
+    int recordFailure(String serviceName, long now) {
+        FailureState state = states.compute(serviceName, (k, old) -> {
+            FailureState updated = old == null ? new FailureState() : old;
+            updated.failures++;
+            if (updated.failures >= threshold) {
+                updated.openUntil = now + backoffMs(updated.failures - threshold);
+            }
+            return updated;
+        });
+        return state.failures;
+    }
+
+    /**
+     * 熔断剩余时间(毫秒)，未熔断时为 0
+     */
+    long remainingBackoffMs(String serviceName, long now) {
+        FailureState state = states.get(serviceName);
+        return state == null ? 0 : Math.max(0, state.openUntil - now);
+    }
+
+    /**
+     * 当前处于熔断（含半开）状态的服务数
+     */
+    int openCount() {
+        int count = 0;
+        for (FailureState state : states.values()) {
+            if (state.failures >= threshold) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    void forget(String serviceName) {
+        states.remove(serviceName);
+    }
+
+    void clear() {
+        states.clear();
+    }
+
+    private long backoffMs(int exponent) {
+        // 限制移位次数，防止溢出
+        if (exponent >= 30) {
+            return maxBackoffMs;
+        }
+        return Math.min(maxBackoffMs, initialBackoffMs << exponent);
+    }
+
+    private static class FailureState {
+        private int failures;
+        private long openUntil;
+    }
+}
@@ -0,0 +1,253 @@
+package com.adealink.nacos.fallback;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 服务名过滤器
+ * <p>
+ * 启动时将 include/exclude 规则编译为匹配器：不含通配符的 glob 放入哈希集合，只以 * 结尾的 glob 放入前缀树，
+ * 其余 glob 转换为正则后与 regex: 规则合并为一个分支正则。匹配依次查哈希集合、沿服务名走一遍前缀树、
+ * 最后执行一次正则匹配，与规则数量基本无关。含反向引用或命名分组的正则合并后分组编号或名称会冲突，单独编译并逐个匹配。
+ * exclude 优先于 include，include 为空时包含所有服务。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+class ServiceNameFilter {
+
+    /**
+     * 正则规则前缀，其余规则按 glob 处理（* 匹配任意字符，? 匹配单个字符）
+     */
+    static final String REGEX_PREFIX = "regex:";
+
+    private static final ServiceNameFilter ACCEPT_ALL = new ServiceNameFilter(null, null);
+
+    private final PatternSet includes; // 为 null 时包含所有服务
+    private final PatternSet excludes; // 为 null 时不排除任何服务
+
+    private ServiceNameFilter(PatternSet includes, PatternSet excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    /**
+     * 编译 include/exclude 规则
+     *
+     * @throws IllegalArgumentException 正则规则不合法
+     */
+    static ServiceNameFilter compile(List<String> includePatterns, List<String> excludePatterns) {
+        PatternSet includes = PatternSet.compile("include", includePatterns);
+        PatternSet excludes = PatternSet.compile("exclude", excludePatterns);
+        if (includes == null && excludes == null) {
+            return ACCEPT_ALL;
+        }
+        return new ServiceNameFilter(includes, excludes);
+    }
+
+    /**
+     * 是否未配置任何规则（包含所有服务）
+     */
+    boolean isEmpty() {
+        return includes == null && excludes == null;
+    }
+
+    boolean accepts(String serviceName) {
+        if (serviceName == null) {
+            return false;
+        }
+        if (excludes != null && excludes.matches(serviceName)) {
+            return false;
+        }
+        return includes == null || includes.matches(serviceName);
+    }
+
+    /**
+     * 过滤服务列表，保持原有顺序；未配置规则时直接返回原列表
+     */
+    List<String> filter(List<String> serviceNames) {
+        if (isEmpty()) {
+            return serviceNames;
+        }
+        List<String> accepted = new ArrayList<>(serviceNames.size());
+        for (String serviceName : serviceNames) {
+            if (accepts(serviceName)) {
+                accepted.add(serviceName);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * 一组规则编译后的匹配器
+     */
+    private static final class PatternSet {
+
+        private final Set<String> exactNames = new HashSet<>();
+        private final PrefixNode prefixRoot = new PrefixNode();
+        private boolean hasPrefixes;
+        private Pattern combined;
+        private final List<Pattern> standalone = new ArrayList<>(); // 不能合并的正则
+
+        static PatternSet compile(String kind, List<String> patterns) {
+            if (patterns == null) {
+                return null;
+            }
+            PatternSet set = new PatternSet();
+            List<String> regexes = new ArrayList<>();
+            for (String raw : patterns) {
+                if (!StringUtils.hasText(raw)) {
+                    continue;
+                }
+                String pattern = raw.trim();
+                if (pattern.startsWith(REGEX_PREFIX)) {
+                    String regex = pattern.substring(REGEX_PREFIX.length());
+                    Pattern compiled;
+                    try {
+                        compiled = Pattern.compile(regex);
+                    } catch (PatternSyntaxException e) {
+                        throw new IllegalArgumentException("Invalid " + kind + " service pattern: " + pattern, e);
+                    }
+                    if (hasGroupReference(regex)) {
+                        set.standalone.add(compiled);
+                    } else {
+                        regexes.add(regex);
+                    }
+                } else if (!hasWildcard(pattern)) {
+                    set.exactNames.add(pattern);
+                } else if (isPrefixGlob(pattern)) {
+                    set.addPrefix(pattern.substring(0, pattern.length() - 1));
+                } else {
+                    regexes.add(globToRegex(pattern));
+                }
+            }
+            if (!regexes.isEmpty()) {
+                StringBuilder alternation = new StringBuilder();
+                for (String regex : regexes) {
+                    if (alternation.length() > 0) {
+                        alternation.append('|');
+                    }
+                    alternation.append("(?:").append(regex).append(')');
+                }
+                set.combined = Pattern.compile(alternation.toString());
+            }
+            return set.exactNames.isEmpty() && !set.hasPrefixes && set.combined == null && set.standalone.isEmpty()
+                    ? null : set;
+        }
+
+        boolean matches(String serviceName) {
+            if (exactNames.contains(serviceName)) {
+                return true;
+            }
+            if (hasPrefixes && prefixRoot.matchesPrefixOf(serviceName)) {
+                return true;
+            }
+            if (combined != null && combined.matcher(serviceName).matches()) {
+                return true;
+            }
+            for (Pattern pattern : standalone) {
+                if (pattern.matcher(serviceName).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void addPrefix(String prefix) {
+            PrefixNode node = prefixRoot;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new PrefixNode());
+            }
+            node.terminal = true;
+            hasPrefixes = true;
+        }
+
+        /**
+         * 是否含反向引用（\1、\k&lt;name&gt;）或命名分组：合并到分支正则后编号会偏移、同名分组会冲突。
+         * 不区分字符类与 \Q...\E 内的字面量，误判只会多单独编译一条规则
+         */
+        private static boolean hasGroupReference(String regex) {
+            for (int i = 0; i < regex.length() - 1; i++) {
+                char c = regex.charAt(i);
+                char next = regex.charAt(i + 1);
+                if (c == '\\') {
+                    if ((next >= '1' && next <= '9') || next == 'k') {
+                        return true;
+                    }
+                    i++; // 跳过被转义的字符
+                } else if (c == '(' && regex.startsWith("?<", i + 1) && i + 3 < regex.length()
+                        && Character.isLetter(regex.charAt(i + 3))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean hasWildcard(String pattern) {
+            return pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0;
+        }
+
+        /**
+         * 只在末尾有一个 *，其余为普通字符
+         */
+        private static boolean isPrefixGlob(String pattern) {
+            int last = pattern.length() - 1;
+            return pattern.charAt(last) == '*' && !hasWildcard(pattern.substring(0, last));
+        }
+
+        private static String globToRegex(String glob) {
+            StringBuilder regex = new StringBuilder();
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                if (c == '*' || c == '?') {
+                    if (literal.length() > 0) {
+                        regex.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    regex.append(c == '*' ? ".*" : ".");
+                } else {
+                    literal.append(c);
+                }
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+            return regex.toString();
+        }
+    }
+
+    /**
+     * 前缀树节点，terminal 表示从根到该节点的路径是一条前缀规则
+     */
+    private static final class PrefixNode {
+
+        private final Map<Character, PrefixNode> children = new HashMap<>();
+        private boolean terminal;
+
+        boolean matchesPrefixOf(String serviceName) {
+            PrefixNode node = this;
+            for (int i = 0; ; i++) {
+                if (node.terminal) {
+                    return true;
+                }
+                if (i == serviceName.length()) {
+                    return false;
+                }
+                node = node.children.get(serviceName.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+        }
+    }
+}
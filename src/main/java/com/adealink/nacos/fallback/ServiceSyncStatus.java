@@ -0,0 +1,79 @@
+package com.adealink.nacos.fallback;
+
+/**
+ * 单个服务最近一次同步的状态（不可变）
+ * <p>
+ * 成功同步时整体替换；失败时保留上次成功的信息并累加连续失败次数。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+final class ServiceSyncStatus {
+
+    private final long lastSyncTime;
+    private final int instanceCount;
+    private final long revision;
+    private final int consecutiveFailures;
+    private final long lastFailureTime;
+    private final String lastError;
+
+    private ServiceSyncStatus(long lastSyncTime, int instanceCount, long revision,
+                              int consecutiveFailures, long lastFailureTime, String lastError) {
+        this.lastSyncTime = lastSyncTime;
+        this.instanceCount = instanceCount;
+        this.revision = revision;
+        this.consecutiveFailures = consecutiveFailures;
+        this.lastFailureTime = lastFailureTime;
+        this.lastError = lastError;
+    }
+
+    /**
+     * 同步成功
+     *
+     * @param now           同步时间
+     * @param instanceCount 测试环境健康实例数
+     * @param revision      测试环境实例的修订值
+     */
+    static ServiceSyncStatus synced(long now, int instanceCount, long revision) {
+        return new ServiceSyncStatus(now, instanceCount, revision, 0, 0, null);
+    }
+
+    /**
+     * 在已有状态（可为 null）的基础上记录一次失败
+     */
+    static ServiceSyncStatus failed(ServiceSyncStatus previous, long now, String error) {
+        if (previous == null) {
+            return new ServiceSyncStatus(0, 0, 0, 1, now, error);
+        }
+        return new ServiceSyncStatus(previous.lastSyncTime, previous.instanceCount, previous.revision,
+                previous.consecutiveFailures + 1, now, error);
+    }
+
+    /**
+     * 最近一次成功同步的时间，从未成功时为 0
+     */
+    long getLastSyncTime() {
+        return lastSyncTime;
+    }
+
+    int getInstanceCount() {
+        return instanceCount;
+    }
+
+    long getRevision() {
+        return revision;
+    }
+
+    int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    long getLastFailureTime() {
+        return lastFailureTime;
+    }
+
+    String getLastError() {
+        return lastError;
+    }
+}
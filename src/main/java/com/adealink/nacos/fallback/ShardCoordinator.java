@@ -0,0 +1,252 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片同步协调器
+ * <p>
+ * 按 leaderServiceName 下的参与者构建一致性哈希环，决定每个服务由哪个参与者同步；
+ * 再平衡时释放给其他参与者的服务，在新负责节点按当前纪元的哈希环完成一轮同步前继续由本节点保留。
+ * 各参与者完成一轮同步后在参与者实例上公布纪元（shard-epoch），其他节点随每轮读取参与者时一并得知，无需逐个服务回读。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+@Slf4j
+class ShardCoordinator {
+
+    private final NacosFallbackServiceDiscovery discovery;
+    private final LeaderElection election;
+    private final NacosFallbackProperties properties;
+    private final String instanceId;
+
+    // 本地 Nacos 客户端（初始化后可用）
+    private volatile NamingService localNamingService;
+
+    // 最近一次按参与者构建的一致性哈希环，尚未同步时为 null
+    private volatile ConsistentHashRing ring;
+
+    // 本轮同步分配服务时使用的哈希环，以及本节点已公布完成同步的纪元
+    private volatile ConsistentHashRing syncingRing;
+    private volatile String announcedEpoch;
+
+    // 最近一次读取到的各参与者已公布完成同步的纪元：instanceId -> shard-epoch
+    private volatile Map<String, String> participantEpochs = Collections.emptyMap();
+
+    // 再平衡时释放给其他参与者、等待新负责节点接管的服务：服务名 -> 释放时间
+    private final ConcurrentMap<String, Long> releasedServices = new ConcurrentHashMap<>();
+
+    ShardCoordinator(NacosFallbackServiceDiscovery discovery, LeaderElection election,
+                     NacosFallbackProperties properties, String instanceId) {
+        this.discovery = discovery;
+        this.election = election;
+        this.properties = properties;
+        this.instanceId = instanceId;
+    }
+
+    /**
+     * 本地 Nacos 客户端就绪
+     */
+    void start(NamingService localNamingService) {
+        this.localNamingService = localNamingService;
+    }
+
+    /**
+     * 按 leaderServiceName 下的参与者刷新一致性哈希环
+     * <p>
+     * 本节点始终在环上，避免自己的注册尚未可见时不分配任何服务；读取参与者失败时沿用上一次的环
+     *
+     * @throws NacosException 读取参与者失败且此前没有可用的环
+     */
+    ConsistentHashRing refresh() throws NacosException {
+        List<Instance> participants;
+        long start = System.nanoTime();
+        try {
+            participants = localNamingService.selectInstances(
+                    properties.getLeaderServiceName(),
+                    properties.getLocalGroup(),
+                    true
+            );
+        } catch (NacosException e) {
+            ConsistentHashRing previous = ring;
+            if (previous == null) {
+                throw e;
+            }
+            log.warn("Failed to list sync shard participants, keeping previous assignment: {}", e.toString());
+            return previous;
+        } finally {
+            discovery.recordRpc(SyncMetrics.TARGET_LOCAL, "selectInstances", start);
+        }
+
+        participantEpochs = announcedEpochs(participants);
+        Set<String> members = participantIds(participants);
+        ConsistentHashRing previous = ring;
+        if (previous != null && previous.getMembers().equals(members)) {
+            return previous;
+        }
+        ConsistentHashRing rebuilt = ConsistentHashRing.of(members, properties.getShardVirtualNodes());
+        ring = rebuilt;
+        log.info("Sync shard participants changed to {} (previously {}), rebalancing services",
+                members, previous != null ? previous.getMembers() : Collections.emptySet());
+        return rebuilt;
+    }
+
+    /**
+     * 推送的参与者是否与当前哈希环不一致，尚未构建哈希环时为 false
+     */
+    boolean isRebalanceNeeded(List<Instance> participants) {
+        ConsistentHashRing current = ring;
+        return current != null && !current.getMembers().equals(participantIds(participants));
+    }
+
+    /**
+     * 过滤出分配给本节点的服务
+     */
+    List<String> filterOwned(List<String> services) throws NacosException {
+        ConsistentHashRing current = refresh();
+        syncingRing = current;
+        List<String> ownedServices = new ArrayList<>();
+        for (String serviceName : services) {
+            if (instanceId.equals(current.ownerOf(serviceName))) {
+                ownedServices.add(serviceName);
+            }
+        }
+        log.info("Sharded sync: {} of {} services assigned to this node ({} participants)",
+                ownedServices.size(), services.size(), current.size());
+        return ownedServices;
+    }
+
+    /**
+     * 保留再平衡时释放给其他参与者的服务
+     * <p>
+     * 上一轮由本节点同步、仍需同步但已分配给其他参与者的服务，在新负责节点公布已按当前纪元完成一轮同步前
+     * 继续保留本节点的实例，避免新负责节点注册前服务出现空缺；释放后超过一个同步间隔仍未公布时不再等待。
+     * 只比较最近一次读取参与者时得到的纪元，不产生额外的 RPC
+     *
+     * @param previouslySynced 上一轮由本节点同步的服务
+     * @param candidates       分片前需要同步的服务
+     * @param ownedServices    分配给本节点的服务
+     * @return 继续保留的服务名，不作为过期服务清理
+     */
+    Set<String> retainReleased(Set<String> previouslySynced, List<String> candidates, List<String> ownedServices) {
+        Set<String> released = new HashSet<>(previouslySynced);
+        released.retainAll(new HashSet<>(candidates));
+        released.removeAll(new HashSet<>(ownedServices));
+        // 重新分配回本节点或已不需要同步的服务不再等待
+        releasedServices.keySet().retainAll(released);
+
+        ConsistentHashRing current = ring;
+        long now = System.currentTimeMillis();
+        long graceMs = TimeUnit.SECONDS.toMillis(properties.getSyncIntervalSeconds());
+        Set<String> retained = new HashSet<>();
+        for (String serviceName : released) {
+            long releasedAt = releasedServices.computeIfAbsent(serviceName, k -> now);
+            String newOwner = current != null ? current.ownerOf(serviceName) : null;
+            if (newOwner == null || now - releasedAt >= graceMs || hasSynced(newOwner, current)) {
+                releasedServices.remove(serviceName);
+                continue;
+            }
+            retained.add(serviceName);
+        }
+        if (!retained.isEmpty()) {
+            log.info("Keeping {} services released to other shard participants until they have synced epoch {}",
+                    retained.size(), current.getEpoch());
+        }
+        return retained;
+    }
+
+    /**
+     * 指定参与者是否已公布按该哈希环纪元完成一轮同步
+     */
+    private boolean hasSynced(String participantId, ConsistentHashRing current) {
+        return current.getEpoch().equals(participantEpochs.get(participantId));
+    }
+
+    /**
+     * 本节点已完成一轮同步：在参与者实例上公布本轮哈希环的纪元，同一纪元只公布一次
+     * <p>
+     * 再平衡时把服务释放给本节点的参与者看到后停止保留这些服务；公布失败时下一轮同步结束后重试
+     */
+    void announceSynced() {
+        ConsistentHashRing synced = syncingRing;
+        if (synced == null || synced.getEpoch().equals(announcedEpoch)) {
+            return;
+        }
+        if (election.announceShardEpoch(synced.getEpoch())) {
+            announcedEpoch = synced.getEpoch();
+            log.debug("Announced sync shard epoch {}", synced.getEpoch());
+        }
+    }
+
+    /**
+     * 按最近一次的哈希环判断服务是否由本节点负责，尚未构建哈希环时为 false
+     */
+    boolean owns(String serviceName) {
+        ConsistentHashRing current = ring;
+        return current != null && instanceId.equals(current.ownerOf(serviceName));
+    }
+
+    /**
+     * 最近一次构建哈希环时的参与者，尚未构建时为空
+     */
+    Set<String> participants() {
+        ConsistentHashRing current = ring;
+        return current != null ? current.getMembers() : Collections.emptySet();
+    }
+
+    /**
+     * 不再参与同步时丢弃哈希环与等待接管的服务
+     */
+    void reset() {
+        ring = null;
+        syncingRing = null;
+        announcedEpoch = null;
+        participantEpochs = Collections.emptyMap();
+        releasedServices.clear();
+    }
+
+    /**
+     * 各参与者实例公布的 shard-epoch
+     */
+    private static Map<String, String> announcedEpochs(List<Instance> participants) {
+        Map<String, String> epochs = new HashMap<>();
+        if (participants != null) {
+            for (Instance participant : participants) {
+                Map<String, String> metadata = participant.getMetadata();
+                if (metadata != null && StringUtils.hasText(metadata.get("instanceId"))
+                        && StringUtils.hasText(metadata.get("shard-epoch"))) {
+                    epochs.put(metadata.get("instanceId"), metadata.get("shard-epoch"));
+                }
+            }
+        }
+        return epochs;
+    }
+
+    /**
+     * 参与者实例的 instanceId 集合，始终包含本节点
+     */
+    private Set<String> participantIds(List<Instance> participants) {
+        Set<String> members = new TreeSet<>();
+        members.add(instanceId);
+        if (participants != null) {
+            for (Instance participant : participants) {
+                Map<String, String> metadata = participant.getMetadata();
+                String participantId = metadata != null ? metadata.get("instanceId") : null;
+                if (StringUtils.hasText(participantId)) {
+                    members.add(participantId);
+                }
+            }
+        }
+        return members;
+    }
+}
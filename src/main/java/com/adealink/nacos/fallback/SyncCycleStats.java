@@ -0,0 +1,155 @@
+package com.adealink.nacos.fallback;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单轮同步的统计
+ * <p>
+ * 记录本轮扫描、跳过、同步、失败的服务数，新增、删除的实例数，以及各阶段的累计耗时。
+ * 每段耗时只计入一个阶段：list 与 cleanup 为本轮中对应步骤的墙钟时间；fetch、diff、write 为逐个服务处理时的耗时之和，
+ * 并行同步时由多个工作线程同时累加，可能大于本轮总耗时，可视为各阶段占用的线程时间。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+class SyncCycleStats {
+
+    private final AtomicInteger scannedServices = new AtomicInteger();
+    private final AtomicInteger skippedServices = new AtomicInteger();
+    private final AtomicInteger syncedServices = new AtomicInteger();
+    private final AtomicInteger failedServices = new AtomicInteger();
+    private final AtomicInteger addedInstances = new AtomicInteger();
+    private final AtomicInteger removedInstances = new AtomicInteger();
+
+    // 各阶段累计耗时(纳秒)
+    private final AtomicLong listNanos = new AtomicLong();
+    private final AtomicLong fetchNanos = new AtomicLong();
+    private final AtomicLong diffNanos = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong cleanupNanos = new AtomicLong();
+
+    // 本轮结束时设置
+    private volatile long durationNanos;
+    private volatile boolean success;
+
+    /**
+     * 不属于任何一轮同步的统计：手动同步、推送、接管与预热的写入记录在这里，不发布为上一轮统计
+     */
+    static SyncCycleStats detached() {
+        return new SyncCycleStats();
+    }
+
+    /**
+     * 本轮结束
+     */
+    void complete(long durationNanos, boolean success) {
+        this.durationNanos = durationNanos;
+        this.success = success;
+    }
+
+    void recordScanned() {
+        scannedServices.incrementAndGet();
+    }
+
+    /**
+     * 服务无需写入：本地有原生实例、熔断中、修订值未变、实例无变化或测试环境无健康实例
+     */
+    void recordSkipped() {
+        skippedServices.incrementAndGet();
+    }
+
+    /**
+     * 服务有实例写入本地 Nacos
+     */
+    void recordSynced() {
+        syncedServices.incrementAndGet();
+    }
+
+    void recordFailed() {
+        failedServices.incrementAndGet();
+    }
+
+    void recordAdded(int count) {
+        addedInstances.addAndGet(count);
+    }
+
+    void recordRemoved(int count) {
+        removedInstances.addAndGet(count);
+    }
+
+    void addPhaseNanos(String phase, long nanos) {
+        switch (phase) {
+            case SyncMetrics.PHASE_LIST:
+                listNanos.addAndGet(nanos);
+                break;
+            case SyncMetrics.PHASE_FETCH:
+                fetchNanos.addAndGet(nanos);
+                break;
+            case SyncMetrics.PHASE_DIFF:
+                diffNanos.addAndGet(nanos);
+                break;
+            case SyncMetrics.PHASE_WRITE:
+                writeNanos.addAndGet(nanos);
+                break;
+            case SyncMetrics.PHASE_CLEANUP:
+                cleanupNanos.addAndGet(nanos);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown sync phase: " + phase);
+        }
+    }
+
+    long getPhaseNanos(String phase) {
+        switch (phase) {
+            case SyncMetrics.PHASE_LIST:
+                return listNanos.get();
+            case SyncMetrics.PHASE_FETCH:
+                return fetchNanos.get();
+            case SyncMetrics.PHASE_DIFF:
+                return diffNanos.get();
+            case SyncMetrics.PHASE_WRITE:
+                return writeNanos.get();
+            case SyncMetrics.PHASE_CLEANUP:
+                return cleanupNanos.get();
+            default:
+                throw new IllegalArgumentException("Unknown sync phase: " + phase);
+        }
+    }
+
+    long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * 本轮是否成功完成（测试环境不可达或出现异常时为 false）
+     */
+    boolean isSuccess() {
+        return success;
+    }
+
+    int getScannedServices() {
+        return scannedServices.get();
+    }
+
+    int getSkippedServices() {
+        return skippedServices.get();
+    }
+
+    int getSyncedServices() {
+        return syncedServices.get();
+    }
+
+    int getFailedServices() {
+        return failedServices.get();
+    }
+
+    int getAddedInstances() {
+        return addedInstances.get();
+    }
+
+    int getRemovedInstances() {
+        return removedInstances.get();
+    }
+}
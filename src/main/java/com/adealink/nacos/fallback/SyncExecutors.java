@@ -0,0 +1,150 @@
+package com.adealink.nacos.fallback;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 服务同步工作线程池工厂
+ * <p>
+ * PLATFORM 使用固定大小的平台线程池；VIRTUAL 在 JDK 21+ 上为每个任务创建虚拟线程，
+ * 以 syncParallelism 作为同时在途任务数上限，运行时不支持虚拟线程时回退为 PLATFORM。
+ * 项目以 Java 8 为编译目标，虚拟线程相关 API 通过反射获取。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+@Slf4j
+final class SyncExecutors {
+
+    static final String THREAD_NAME_PREFIX = "nacos-fallback-sync-";
+
+    static final String ON_DEMAND_THREAD_NAME_PREFIX = "nacos-fallback-on-demand-";
+
+    private SyncExecutors() {
+    }
+
+    /**
+     * 创建同步工作线程池
+     *
+     * @return 工作线程池；PLATFORM 模式下并发度为 1 时返回 null，保持逐个服务同步
+     */
+    static ExecutorService create(NacosFallbackProperties.ExecutorType type, int parallelism) {
+        if (type == NacosFallbackProperties.ExecutorType.VIRTUAL) {
+            ExecutorService virtualExecutor = createVirtualThreadExecutor();
+            if (virtualExecutor != null) {
+                log.info("Using virtual-thread sync executor, max in-flight tasks: {}", parallelism);
+                return new BoundedExecutorService(virtualExecutor, parallelism);
+            }
+            log.warn("Virtual threads are not supported by the current JVM (requires JDK 21+), falling back to platform threads");
+        }
+        return createPlatformExecutor(parallelism);
+    }
+
+    /**
+     * 创建懒同步的按需同步线程池
+     * <p>
+     * 与同步调度线程分离，首次查询触发的同步不在完整的同步周期之后排队；同时用于调度等待本地可见的超时
+     *
+     * @return 并发度为 syncParallelism 的平台线程池
+     */
+    static ScheduledExecutorService createOnDemand(int parallelism) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(ON_DEMAND_THREAD_NAME_PREFIX);
+        threadFactory.setDaemon(true);
+        return Executors.newScheduledThreadPool(Math.max(1, parallelism), threadFactory);
+    }
+
+    private static ExecutorService createPlatformExecutor(int parallelism) {
+        if (parallelism <= 1) {
+            return null;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(THREAD_NAME_PREFIX);
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(parallelism, threadFactory);
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器：Thread.ofVirtual().name(prefix, 0).factory() + Executors.newThreadPerTaskExecutor
+     *
+     * @return 执行器；当前 JVM 不支持虚拟线程时返回 null
+     */
+    static ExecutorService createVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Virtual thread executor unavailable", e);
+            return null;
+        }
+    }
+
+    /**
+     * 限制同时在途任务数的执行器包装
+     * <p>
+     * 任务在各自的线程中等待许可，虚拟线程阻塞的代价很低，避免上千个 RPC 同时压到 Nacos
+     */
+    static class BoundedExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        BoundedExecutorService(ExecutorService delegate, int maxInFlight) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(Math.max(1, maxInFlight));
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    // 未执行的任务需要取消，避免 invokeAll 等待永不完成的 Future
+                    if (command instanceof Future) {
+                        ((Future<?>) command).cancel(false);
+                    }
+                    return;
+                }
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
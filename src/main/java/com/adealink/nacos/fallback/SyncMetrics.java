@@ -0,0 +1,83 @@
+package com.adealink.nacos.fallback;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 同步流程的指标回调
+ * <p>
+ * 默认实现 {@link #NOOP} 不做任何记录；存在 MeterRegistry 时由自动配置替换为 {@link MicrometerSyncMetrics}。
+ * 回调在同步线程中执行，实现不应阻塞或抛出异常。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+interface SyncMetrics {
+
+    /**
+     * 拉取测试环境服务列表（墙钟时间）
+     */
+    String PHASE_LIST = "list";
+
+    /**
+     * 读取测试环境与本地 Nacos 的服务实例（各服务耗时之和）
+     */
+    String PHASE_FETCH = "fetch";
+
+    /**
+     * 对比测试环境实例与本地 fallback 实例（各服务耗时之和）
+     */
+    String PHASE_DIFF = "diff";
+
+    /**
+     * 注册/注销本地 fallback 实例（各服务耗时之和）
+     */
+    String PHASE_WRITE = "write";
+
+    /**
+     * 清理测试环境已不存在的服务（墙钟时间，其中的读取与注销只计入本阶段）
+     */
+    String PHASE_CLEANUP = "cleanup";
+
+    List<String> PHASES = Collections.unmodifiableList(Arrays.asList(
+            PHASE_LIST, PHASE_FETCH, PHASE_DIFF, PHASE_WRITE, PHASE_CLEANUP));
+
+    String TARGET_REMOTE = "remote";
+    String TARGET_LOCAL = "local";
+
+    SyncMetrics NOOP = new SyncMetrics() {
+    };
+
+    /**
+     * 一轮同步结束
+     *
+     * @param durationNanos 本轮总耗时
+     * @param stats         本轮统计
+     * @param success       本轮是否成功完成（测试环境不可达或出现异常时为 false）
+     */
+    default void recordCycle(long durationNanos, SyncCycleStats stats, boolean success) {
+    }
+
+    /**
+     * 一次 Nacos 调用结束（无论成功与否）
+     *
+     * @param target    {@link #TARGET_REMOTE} 测试环境或 {@link #TARGET_LOCAL} 本地
+     * @param operation 调用的接口名
+     */
+    default void recordRpc(String target, String operation, long durationNanos) {
+    }
+
+    /**
+     * 新增 fallback 实例（含推送应用的变更）
+     */
+    default void recordInstancesAdded(int count) {
+    }
+
+    /**
+     * 删除 fallback 实例（含清理）
+     */
+    default void recordInstancesRemoved(int count) {
+    }
+}
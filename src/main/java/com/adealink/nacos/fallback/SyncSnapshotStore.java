@@ -0,0 +1,181 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * 同步视图的本地快照文件
+ * <p>
+ * 保存上次成功同步的 服务名 -> 测试环境实例 视图，启动时据此立即注册 fallback 实例，再由后台同步校正。
+ * 采用紧凑的二进制格式，每个服务附带实例列表的修订值用于加载时校验；
+ * 写入先落到临时文件再原子替换，进程中途退出不会留下半个文件。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+@Slf4j
+class SyncSnapshotStore {
+
+    private static final int MAGIC = 0x4E46534E; // "NFSN"
+    private static final int VERSION = 1;
+    private static final int MAX_STRING_BYTES = 16 * 1024 * 1024; // 防止损坏的长度字段导致超大分配
+
+    private final Path path;
+
+    SyncSnapshotStore(Path path) {
+        this.path = path;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * 写入快照（整体替换）
+     */
+    void save(Map<String, List<Instance>> view) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(view.size());
+                for (Map.Entry<String, List<Instance>> entry : new TreeMap<>(view).entrySet()) {
+                    writeString(out, entry.getKey());
+                    List<Instance> instances = entry.getValue();
+                    out.writeLong(InstanceFingerprint.revision(instances));
+                    out.writeInt(instances.size());
+                    for (Instance instance : instances) {
+                        writeInstance(out, instance);
+                    }
+                }
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 读取快照
+     *
+     * @return 服务名 -> 实例列表；文件不存在时返回空 Map，修订值校验失败的服务被跳过
+     * @throws IOException 文件格式不正确或读取失败
+     */
+    Map<String, List<Instance>> load() throws IOException {
+        Map<String, List<Instance>> view = new LinkedHashMap<>();
+        if (!Files.exists(path)) {
+            return view;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a nacos fallback snapshot file: " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            in.readLong(); // 写入时间
+            int serviceCount = in.readInt();
+            for (int i = 0; i < serviceCount; i++) {
+                String serviceName = readString(in);
+                long revision = in.readLong();
+                int instanceCount = in.readInt();
+                if (instanceCount < 0) {
+                    throw new IOException("Corrupted snapshot instance count: " + instanceCount);
+                }
+                List<Instance> instances = new ArrayList<>(Math.min(instanceCount, 1024));
+                for (int j = 0; j < instanceCount; j++) {
+                    Instance instance = readInstance(in);
+                    instance.setServiceName(serviceName);
+                    instances.add(instance);
+                }
+                if (InstanceFingerprint.revision(instances) != revision) {
+                    log.warn("Snapshot entry of service {} failed revision check, skipping", serviceName);
+                    continue;
+                }
+                view.put(serviceName, instances);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated snapshot file: " + path, e);
+        }
+        return view;
+    }
+
+    private static void writeInstance(DataOutputStream out, Instance instance) throws IOException {
+        writeString(out, instance.getIp());
+        out.writeInt(instance.getPort());
+        out.writeDouble(instance.getWeight());
+        out.writeBoolean(instance.isHealthy());
+        out.writeBoolean(instance.isEnabled());
+        writeString(out, instance.getClusterName());
+        Map<String, String> metadata = instance.getMetadata();
+        if (metadata == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(metadata.size());
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static Instance readInstance(DataInputStream in) throws IOException {
+        Instance instance = new Instance();
+        instance.setIp(readString(in));
+        instance.setPort(in.readInt());
+        instance.setWeight(in.readDouble());
+        instance.setHealthy(in.readBoolean());
+        instance.setEnabled(in.readBoolean());
+        instance.setClusterName(readString(in));
+        int metadataSize = in.readInt();
+        Map<String, String> metadata = new HashMap<>();
+        for (int i = 0; i < metadataSize; i++) {
+            metadata.put(readString(in), readString(in));
+        }
+        instance.setMetadata(metadata);
+        return instance;
+    }
+
+    /**
+     * 写入字符串：长度 + UTF-8 字节，null 以 -1 表示（不受 writeUTF 的 64KB 限制）
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException("Corrupted snapshot string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
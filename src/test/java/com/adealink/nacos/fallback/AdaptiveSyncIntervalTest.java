@@ -0,0 +1,59 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AdaptiveSyncInterval 单元测试
+ */
+@DisplayName("AdaptiveSyncInterval 测试")
+class AdaptiveSyncIntervalTest {
+
+    @Test
+    @DisplayName("初始间隔应限制在上下限之内")
+    void initialIntervalShouldBeClamped() {
+        assertEquals(10, new AdaptiveSyncInterval(1, 10, 600).current());
+        assertEquals(600, new AdaptiveSyncInterval(3600, 10, 600).current());
+        assertEquals(60, new AdaptiveSyncInterval(60, 10, 600).current());
+    }
+
+    @Test
+    @DisplayName("有变化时间隔应减半且不低于下限")
+    void shouldHalveOnChangeDownToFloor() {
+        AdaptiveSyncInterval interval = new AdaptiveSyncInterval(60, 10, 600);
+        assertEquals(30, interval.next(true));
+        assertEquals(15, interval.next(true));
+        assertEquals(10, interval.next(true));
+        assertEquals(10, interval.next(true));
+    }
+
+    @Test
+    @DisplayName("无变化时间隔应翻倍且不超过上限")
+    void shouldDoubleWhenQuietUpToCeiling() {
+        AdaptiveSyncInterval interval = new AdaptiveSyncInterval(60, 10, 600);
+        assertEquals(120, interval.next(false));
+        assertEquals(240, interval.next(false));
+        assertEquals(480, interval.next(false));
+        assertEquals(600, interval.next(false));
+        assertEquals(600, interval.next(false));
+    }
+
+    @Test
+    @DisplayName("上限小于下限时应以下限为准")
+    void ceilingBelowFloorShouldUseFloor() {
+        AdaptiveSyncInterval interval = new AdaptiveSyncInterval(60, 30, 10);
+        assertEquals(30, interval.current());
+        assertEquals(30, interval.next(false));
+        assertEquals(30, interval.next(true));
+    }
+
+    @Test
+    @DisplayName("上限极大时翻倍不应溢出")
+    void shouldNotOverflowWhenDoubling() {
+        AdaptiveSyncInterval interval = new AdaptiveSyncInterval(Long.MAX_VALUE / 2 + 1, 1, Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, interval.next(false));
+        assertEquals(Long.MAX_VALUE, interval.next(false));
+    }
+}
@@ -0,0 +1,126 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConsistentHashRing 单元测试
+ */
+@DisplayName("ConsistentHashRing 测试")
+class ConsistentHashRingTest {
+
+    private static final int KEY_COUNT = 10000;
+    private static final int VIRTUAL_NODES = 128;
+
+    private static List<String> keys() {
+        List<String> keys = new ArrayList<>(KEY_COUNT);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys.add("service-" + i);
+        }
+        return keys;
+    }
+
+    private static Map<String, String> assign(ConsistentHashRing ring) {
+        Map<String, String> owners = new HashMap<>();
+        for (String key : keys()) {
+            owners.put(key, ring.ownerOf(key));
+        }
+        return owners;
+    }
+
+    @Test
+    @DisplayName("相同成员集合（与顺序无关）应得到相同的分配")
+    void sameMembersShouldProduceSameAssignment() {
+        ConsistentHashRing ring = ConsistentHashRing.of(Arrays.asList("node-a", "node-b", "node-c"), VIRTUAL_NODES);
+        ConsistentHashRing other = ConsistentHashRing.of(Arrays.asList("node-c", "node-a", "node-b"), VIRTUAL_NODES);
+
+        assertEquals(assign(ring), assign(other));
+        assertEquals(new TreeSet<>(Arrays.asList("node-a", "node-b", "node-c")), ring.getMembers());
+        assertEquals(3, ring.size());
+    }
+
+    @Test
+    @DisplayName("服务应大致均匀地分配给各成员")
+    void shouldBalanceKeys() {
+        ConsistentHashRing ring = ConsistentHashRing.of(Arrays.asList("node-a", "node-b", "node-c", "node-d"), VIRTUAL_NODES);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (String owner : assign(ring).values()) {
+            counts.merge(owner, 1, Integer::sum);
+        }
+
+        assertEquals(4, counts.size());
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            // 期望 2500，允许 ±30% 的偏差
+            assertTrue(entry.getValue() > 1750 && entry.getValue() < 3250, entry.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("新增成员时只有约 1/N 的服务迁移，且只迁移到新成员")
+    void addingMemberShouldOnlyMoveKeysToNewMember() {
+        Map<String, String> before = assign(ConsistentHashRing.of(Arrays.asList("node-a", "node-b", "node-c"), VIRTUAL_NODES));
+        Map<String, String> after = assign(ConsistentHashRing.of(Arrays.asList("node-a", "node-b", "node-c", "node-d"), VIRTUAL_NODES));
+
+        int moved = 0;
+        for (String key : keys()) {
+            if (!before.get(key).equals(after.get(key))) {
+                assertEquals("node-d", after.get(key));
+                moved++;
+            }
+        }
+        assertTrue(moved > KEY_COUNT / 8 && moved < KEY_COUNT * 3 / 8, "moved: " + moved);
+    }
+
+    @Test
+    @DisplayName("移除成员时只有该成员的服务重新分配")
+    void removingMemberShouldOnlyReassignItsKeys() {
+        Map<String, String> before = assign(ConsistentHashRing.of(Arrays.asList("node-a", "node-b", "node-c"), VIRTUAL_NODES));
+        Map<String, String> after = assign(ConsistentHashRing.of(Arrays.asList("node-a", "node-c"), VIRTUAL_NODES));
+
+        for (String key : keys()) {
+            if (!"node-b".equals(before.get(key))) {
+                assertEquals(before.get(key), after.get(key), key);
+            } else {
+                assertNotEquals("node-b", after.get(key));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("只有一个成员时应负责全部服务")
+    void singleMemberShouldOwnAllKeys() {
+        ConsistentHashRing ring = ConsistentHashRing.of(Collections.singleton("node-a"), 1);
+
+        for (String key : keys()) {
+            assertEquals("node-a", ring.ownerOf(key));
+        }
+    }
+
+    @Test
+    @DisplayName("纪元只取决于成员集合，与成员顺序无关")
+    void epochShouldDependOnMembersOnly() {
+        String epoch = ConsistentHashRing.of(Arrays.asList("node-a", "node-b"), VIRTUAL_NODES).getEpoch();
+
+        assertEquals(epoch, ConsistentHashRing.of(Arrays.asList("node-b", "node-a"), VIRTUAL_NODES).getEpoch());
+        assertNotEquals(epoch, ConsistentHashRing.of(Arrays.asList("node-a", "node-b", "node-c"), VIRTUAL_NODES).getEpoch());
+    }
+
+    @Test
+    @DisplayName("哈希值不随 JVM 变化，新旧版本节点混合部署时归属一致")
+    void hashShouldBeStable() {
+        assertEquals(0xb0e5639fb9406969L, ConsistentHashRing.hash("service-0"));
+        assertEquals(0xbcb9fda058b5d7afL, ConsistentHashRing.hash("node-a#0"));
+    }
+
+    @Test
+    @DisplayName("成员为空或虚拟节点数不合法时应抛出异常")
+    void shouldRejectInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> ConsistentHashRing.of(Collections.emptyList(), VIRTUAL_NODES));
+        assertThrows(IllegalArgumentException.class, () -> ConsistentHashRing.of(Collections.singleton("node-a"), 0));
+    }
+}
@@ -0,0 +1,32 @@
+package com.adealink.nacos.fallback;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 固定间隔任务推迟一个间隔后才首次执行的调度器
+ * <p>
+ * ThreadPoolTaskScheduler#scheduleWithFixedDelay(Runnable, Duration) 会立即执行一次任务；
+ * 压力测试与基准测试手动触发同步和 Leader 检查，推迟首次执行以免后台任务与手动调用并发。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+class DeferredTaskScheduler extends ThreadPoolTaskScheduler {
+
+    DeferredTaskScheduler(String threadNamePrefix) {
+        setPoolSize(1);
+        setThreadNamePrefix(threadNamePrefix);
+        setDaemon(true);
+        initialize();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Duration delay) {
+        return super.scheduleWithFixedDelay(task, Instant.now().plus(delay), delay);
+    }
+}
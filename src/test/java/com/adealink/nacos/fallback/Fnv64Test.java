@@ -0,0 +1,35 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fnv64 单元测试
+ */
+@DisplayName("Fnv64 测试")
+class Fnv64Test {
+
+    @Test
+    @DisplayName("字符串应按 UTF-16 低字节、高字节依次混入，与标准 FNV-1a 一致")
+    void stringShouldMatchFnv1aOfUtf16Bytes() {
+        // FNV-1a("a\0")
+        assertEquals(0x089be207b544f1e4L, Fnv64.mix(Fnv64.OFFSET_BASIS, "a"));
+        assertEquals(Fnv64.OFFSET_BASIS, Fnv64.mix(Fnv64.OFFSET_BASIS, ""));
+    }
+
+    @Test
+    @DisplayName("long 应按小端序混入 8 个字节，与标准 FNV-1a 一致")
+    void longShouldMatchFnv1aOfLittleEndianBytes() {
+        // FNV-1a(0x61 0x00 0x00 0x00 0x00 0x00 0x00 0x00)
+        assertEquals(0x6926124a7b1433c4L, Fnv64.mix(Fnv64.OFFSET_BASIS, 0x61L));
+    }
+
+    @Test
+    @DisplayName("末尾混合应与 MurmurHash3 fmix64 一致")
+    void fmixShouldMatchMurmurHash3() {
+        assertEquals(0L, Fnv64.fmix(0L));
+        assertEquals(0xb456bcfc34c2cb2cL, Fnv64.fmix(1L));
+    }
+}
@@ -0,0 +1,1111 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.AbstractEventListener;
+import com.alibaba.nacos.api.naming.listener.EventListener;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.alibaba.nacos.api.naming.pojo.ListView;
+import com.alibaba.nacos.api.naming.pojo.ServiceInfo;
+import com.alibaba.nacos.api.selector.AbstractSelector;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 内存中的 NamingService，用于不依赖 Nacos 的集成测试、压测与基准测试
+ * <p>
+ * 每个 {@link Server} 模拟一个 Nacos 服务端（一个 namespace），通过 {@link Server#connect()} 创建客户端，
+ * 多个客户端共享同一份数据，可用于模拟多个节点的 Leader 选举：
+ * <ul>
+ *   <li>实例按 分组 + 服务名 保存，以 ip#port#cluster 区分；不同客户端注册的相同临时实例同时存在（与 Nacos 2.x 一致）；
+ *   实例为空的服务立即删除</li>
+ *   <li>临时实例归属注册它的客户端，只能由该客户端注销，客户端 shutDown 后被移除；持久实例不受影响</li>
+ *   <li>registerInstance 注册临时实例时覆盖该客户端在该服务下的全部临时实例（Nacos 2.x 每个客户端每个服务只保留一个临时实例），
+ *   持久实例为追加语义；batchRegisterInstance 同样覆盖该客户端在该服务下注册的全部临时实例</li>
+ *   <li>实例变化后按顺序异步通知订阅者，订阅时若已有实例立即通知一次</li>
+ *   <li>getServicesOfServer 按服务名排序分页，页码从 1 开始</li>
+ * </ul>
+ * 服务端可配置每次调用的延迟、失败率（整体或按方法名）及不可用状态，并提供 {@link Server.Churn} 随机变更实例。
+ * 读写均返回或保存实例副本，调用方修改返回值不影响服务端数据。
+ * </p>
+ *
+ * @author suyihang
+ * @since 1.0.0
+ */
+final class InMemoryNamingService implements NamingService {
+
+    static final String DEFAULT_GROUP = "DEFAULT_GROUP";
+    static final String DEFAULT_CLUSTER = "DEFAULT";
+
+    private final Server server;
+    private final String clientId;
+    private volatile boolean shutdown;
+
+    private InMemoryNamingService(Server server, String clientId) {
+        this.server = server;
+        this.clientId = clientId;
+    }
+
+    Server getServer() {
+        return server;
+    }
+
+    String getClientId() {
+        return clientId;
+    }
+
+    // ==================== 注册 ====================
+
+    @Override
+    public void registerInstance(String serviceName, String ip, int port) throws NacosException {
+        registerInstance(serviceName, DEFAULT_GROUP, ip, port, DEFAULT_CLUSTER);
+    }
+
+    @Override
+    public void registerInstance(String serviceName, String groupName, String ip, int port) throws NacosException {
+        registerInstance(serviceName, groupName, ip, port, DEFAULT_CLUSTER);
+    }
+
+    @Override
+    public void registerInstance(String serviceName, String ip, int port, String clusterName) throws NacosException {
+        registerInstance(serviceName, DEFAULT_GROUP, ip, port, clusterName);
+    }
+
+    @Override
+    public void registerInstance(String serviceName, String groupName, String ip, int port, String clusterName)
+            throws NacosException {
+        registerInstance(serviceName, groupName, newInstance(ip, port, clusterName));
+    }
+
+    @Override
+    public void registerInstance(String serviceName, Instance instance) throws NacosException {
+        registerInstance(serviceName, DEFAULT_GROUP, instance);
+    }
+
+    @Override
+    public void registerInstance(String serviceName, String groupName, Instance instance) throws NacosException {
+        beforeCall("registerInstance");
+        // 2.x 客户端在每个服务下只保留一个临时实例，再次注册覆盖之前的注册（包括批量注册的实例）
+        server.register(clientId, groupName, serviceName, Collections.singletonList(instance), instance.isEphemeral());
+    }
+
+    @Override
+    public void batchRegisterInstance(String serviceName, String groupName, List<Instance> instances)
+            throws NacosException {
+        beforeCall("batchRegisterInstance");
+        for (Instance instance : instances) {
+            if (!instance.isEphemeral()) {
+                throw new NacosException(NacosException.CLIENT_INVALID_PARAM,
+                        "Batch registration does not allow persistent instance registration");
+            }
+        }
+        server.register(clientId, groupName, serviceName, instances, true);
+    }
+
+    // ==================== 注销 ====================
+
+    @Override
+    public void batchDeregisterInstance(String serviceName, String groupName, List<Instance> instances)
+            throws NacosException {
+        beforeCall("batchDeregisterInstance");
+        server.deregister(clientId, groupName, serviceName, instances);
+    }
+
+    @Override
+    public void deregisterInstance(String serviceName, String ip, int port) throws NacosException {
+        deregisterInstance(serviceName, DEFAULT_GROUP, ip, port, DEFAULT_CLUSTER);
+    }
+
+    @Override
+    public void deregisterInstance(String serviceName, String groupName, String ip, int port) throws NacosException {
+        deregisterInstance(serviceName, groupName, ip, port, DEFAULT_CLUSTER);
+    }
+
+    @Override
+    public void deregisterInstance(String serviceName, String ip, int port, String clusterName) throws NacosException {
+        deregisterInstance(serviceName, DEFAULT_GROUP, ip, port, clusterName);
+    }
+
+    @Override
+    public void deregisterInstance(String serviceName, String groupName, String ip, int port, String clusterName)
+            throws NacosException {
+        deregisterInstance(serviceName, groupName, newInstance(ip, port, clusterName));
+    }
+
+    @Override
+    public void deregisterInstance(String serviceName, Instance instance) throws NacosException {
+        deregisterInstance(serviceName, DEFAULT_GROUP, instance);
+    }
+
+    @Override
+    public void deregisterInstance(String serviceName, String groupName, Instance instance) throws NacosException {
+        beforeCall("deregisterInstance");
+        server.deregister(clientId, groupName, serviceName, Collections.singletonList(instance));
+    }
+
+    // ==================== 查询 ====================
+
+    @Override
+    public List<Instance> getAllInstances(String serviceName) throws NacosException {
+        return getAllInstances(serviceName, DEFAULT_GROUP, Collections.emptyList(), true);
+    }
+
+    @Override
+    public List<Instance> getAllInstances(String serviceName, String groupName) throws NacosException {
+        return getAllInstances(serviceName, groupName, Collections.emptyList(), true);
+    }
+
+    @Override
+    public List<Instance> getAllInstances(String serviceName, boolean subscribe) throws NacosException {
+        return getAllInstances(serviceName, DEFAULT_GROUP, Collections.emptyList(), subscribe);
+    }
+
+    @Override
+    public List<Instance> getAllInstances(String serviceName, String groupName, boolean subscribe)
+            throws NacosException {
+        return getAllInstances(serviceName, groupName, Collections.emptyList(), subscribe);
+    }
+
+    @Override
+    public List<Instance> getAllInstances(String serviceName, List<String> clusters) throws NacosException {
+        return getAllInstances(serviceName, DEFAULT_GROUP, clusters, true);
+    }
+
+    @Override
+    public List<Instance> getAllInstances(String serviceName, String groupName, List<String> clusters)
+            throws NacosException {
+        return getAllInstances(serviceName, groupName, clusters, true);
+    }
+
+    @Override
+    public List<Instance> getAllInstances(String serviceName, List<String> clusters, boolean subscribe)
+            throws NacosException {
+        return getAllInstances(serviceName, DEFAULT_GROUP, clusters, subscribe);
+    }
+
+    /**
+     * subscribe 参数只影响真实客户端的本地缓存，这里总是读取服务端最新数据
+     */
+    @Override
+    public List<Instance> getAllInstances(String serviceName, String groupName, List<String> clusters,
+                                          boolean subscribe) throws NacosException {
+        beforeCall("getAllInstances");
+        return server.instances(groupName, serviceName, clusters);
+    }
+
+    @Override
+    public List<Instance> selectInstances(String serviceName, boolean healthy) throws NacosException {
+        return selectInstances(serviceName, DEFAULT_GROUP, Collections.emptyList(), healthy, true);
+    }
+
+    @Override
+    public List<Instance> selectInstances(String serviceName, String groupName, boolean healthy)
+            throws NacosException {
+        return selectInstances(serviceName, groupName, Collections.emptyList(), healthy, true);
+    }
+
+    @Override
+    public List<Instance> selectInstances(String serviceName, boolean healthy, boolean subscribe)
+            throws NacosException {
+        return selectInstances(serviceName, DEFAULT_GROUP, Collections.emptyList(), healthy, subscribe);
+    }
+
+    @Override
+    public List<Instance> selectInstances(String serviceName, String groupName, boolean healthy, boolean subscribe)
+            throws NacosException {
+        return selectInstances(serviceName, groupName, Collections.emptyList(), healthy, subscribe);
+    }
+
+    @Override
+    public List<Instance> selectInstances(String serviceName, List<String> clusters, boolean healthy)
+            throws NacosException {
+        return selectInstances(serviceName, DEFAULT_GROUP, clusters, healthy, true);
+    }
+
+    @Override
+    public List<Instance> selectInstances(String serviceName, String groupName, List<String> clusters,
+                                          boolean healthy) throws NacosException {
+        return selectInstances(serviceName, groupName, clusters, healthy, true);
+    }
+
+    @Override
+    public List<Instance> selectInstances(String serviceName, List<String> clusters, boolean healthy,
+                                          boolean subscribe) throws NacosException {
+        return selectInstances(serviceName, DEFAULT_GROUP, clusters, healthy, subscribe);
+    }
+
+    /**
+     * 与 Nacos 客户端一致：只返回健康状态等于 healthy、已启用且权重大于 0 的实例
+     */
+    @Override
+    public List<Instance> selectInstances(String serviceName, String groupName, List<String> clusters,
+                                          boolean healthy, boolean subscribe) throws NacosException {
+        beforeCall("selectInstances");
+        List<Instance> instances = server.instances(groupName, serviceName, clusters);
+        instances.removeIf(instance -> instance.isHealthy() != healthy
+                || !instance.isEnabled() || instance.getWeight() <= 0);
+        return instances;
+    }
+
+    @Override
+    public Instance selectOneHealthyInstance(String serviceName) throws NacosException {
+        return selectOneHealthyInstance(serviceName, DEFAULT_GROUP, Collections.emptyList(), true);
+    }
+
+    @Override
+    public Instance selectOneHealthyInstance(String serviceName, String groupName) throws NacosException {
+        return selectOneHealthyInstance(serviceName, groupName, Collections.emptyList(), true);
+    }
+
+    @Override
+    public Instance selectOneHealthyInstance(String serviceName, boolean subscribe) throws NacosException {
+        return selectOneHealthyInstance(serviceName, DEFAULT_GROUP, Collections.emptyList(), subscribe);
+    }
+
+    @Override
+    public Instance selectOneHealthyInstance(String serviceName, String groupName, boolean subscribe)
+            throws NacosException {
+        return selectOneHealthyInstance(serviceName, groupName, Collections.emptyList(), subscribe);
+    }
+
+    @Override
+    public Instance selectOneHealthyInstance(String serviceName, List<String> clusters) throws NacosException {
+        return selectOneHealthyInstance(serviceName, DEFAULT_GROUP, clusters, true);
+    }
+
+    @Override
+    public Instance selectOneHealthyInstance(String serviceName, String groupName, List<String> clusters)
+            throws NacosException {
+        return selectOneHealthyInstance(serviceName, groupName, clusters, true);
+    }
+
+    @Override
+    public Instance selectOneHealthyInstance(String serviceName, List<String> clusters, boolean subscribe)
+            throws NacosException {
+        return selectOneHealthyInstance(serviceName, DEFAULT_GROUP, clusters, subscribe);
+    }
+
+    /**
+     * 按权重随机选择一个健康实例，没有可用实例时与 Nacos 客户端一样抛出 IllegalStateException
+     */
+    @Override
+    public Instance selectOneHealthyInstance(String serviceName, String groupName, List<String> clusters,
+                                             boolean subscribe) throws NacosException {
+        List<Instance> healthy = selectInstances(serviceName, groupName, clusters, true, subscribe);
+        if (healthy.isEmpty()) {
+            throw new IllegalStateException("no host to srv for serviceInfo: " + groupedName(groupName, serviceName));
+        }
+        double total = 0;
+        for (Instance instance : healthy) {
+            total += instance.getWeight();
+        }
+        double point = ThreadLocalRandom.current().nextDouble(total);
+        for (Instance instance : healthy) {
+            point -= instance.getWeight();
+            if (point < 0) {
+                return instance;
+            }
+        }
+        return healthy.get(healthy.size() - 1);
+    }
+
+    // ==================== 订阅 ====================
+
+    @Override
+    public void subscribe(String serviceName, EventListener listener) throws NacosException {
+        subscribe(serviceName, DEFAULT_GROUP, Collections.emptyList(), listener);
+    }
+
+    @Override
+    public void subscribe(String serviceName, String groupName, EventListener listener) throws NacosException {
+        subscribe(serviceName, groupName, Collections.emptyList(), listener);
+    }
+
+    @Override
+    public void subscribe(String serviceName, List<String> clusters, EventListener listener) throws NacosException {
+        subscribe(serviceName, DEFAULT_GROUP, clusters, listener);
+    }
+
+    @Override
+    public void subscribe(String serviceName, String groupName, List<String> clusters, EventListener listener)
+            throws NacosException {
+        beforeCall("subscribe");
+        server.subscribe(new Subscription(clientId, groupName, serviceName, clusters, listener));
+    }
+
+    @Override
+    public void unsubscribe(String serviceName, EventListener listener) throws NacosException {
+        unsubscribe(serviceName, DEFAULT_GROUP, Collections.emptyList(), listener);
+    }
+
+    @Override
+    public void unsubscribe(String serviceName, String groupName, EventListener listener) throws NacosException {
+        unsubscribe(serviceName, groupName, Collections.emptyList(), listener);
+    }
+
+    @Override
+    public void unsubscribe(String serviceName, List<String> clusters, EventListener listener) throws NacosException {
+        unsubscribe(serviceName, DEFAULT_GROUP, clusters, listener);
+    }
+
+    @Override
+    public void unsubscribe(String serviceName, String groupName, List<String> clusters, EventListener listener)
+            throws NacosException {
+        beforeCall("unsubscribe");
+        server.unsubscribe(new Subscription(clientId, groupName, serviceName, clusters, listener));
+    }
+
+    @Override
+    public List<ServiceInfo> getSubscribeServices() throws NacosException {
+        beforeCall("getSubscribeServices");
+        return server.subscribedServices(clientId);
+    }
+
+    // ==================== 服务列表与状态 ====================
+
+    @Override
+    public ListView<String> getServicesOfServer(int pageNo, int pageSize) throws NacosException {
+        return getServicesOfServer(pageNo, pageSize, DEFAULT_GROUP);
+    }
+
+    @Override
+    public ListView<String> getServicesOfServer(int pageNo, int pageSize, String groupName) throws NacosException {
+        beforeCall("getServicesOfServer");
+        return server.page(groupName, pageNo, pageSize);
+    }
+
+    /**
+     * 不支持服务选择器，selector 被忽略
+     */
+    @Override
+    public ListView<String> getServicesOfServer(int pageNo, int pageSize, AbstractSelector selector)
+            throws NacosException {
+        return getServicesOfServer(pageNo, pageSize, DEFAULT_GROUP);
+    }
+
+    @Override
+    public ListView<String> getServicesOfServer(int pageNo, int pageSize, String groupName, AbstractSelector selector)
+            throws NacosException {
+        return getServicesOfServer(pageNo, pageSize, groupName);
+    }
+
+    /**
+     * 与真实客户端一样只反映连接状态，不注入延迟和失败
+     */
+    @Override
+    public String getServerStatus() {
+        return !shutdown && server.isAvailable() ? "UP" : "DOWN";
+    }
+
+    /**
+     * 断开连接：移除本客户端注册的临时实例及订阅
+     */
+    @Override
+    public void shutDown() {
+        if (!shutdown) {
+            shutdown = true;
+            server.disconnect(clientId);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InMemoryNamingService(" + server.name + ", " + clientId + ")";
+    }
+
+    private void beforeCall(String operation) throws NacosException {
+        if (shutdown) {
+            throw new NacosException(NacosException.CLIENT_INVALID_PARAM, "Client " + clientId + " is shut down");
+        }
+        server.beforeCall(operation);
+    }
+
+    // ==================== 工具方法 ====================
+
+    private static Instance newInstance(String ip, int port, String clusterName) {
+        Instance instance = new Instance();
+        instance.setIp(ip);
+        instance.setPort(port);
+        instance.setClusterName(clusterName);
+        instance.setWeight(1.0);
+        instance.setHealthy(true);
+        instance.setEnabled(true);
+        instance.setEphemeral(true);
+        return instance;
+    }
+
+    private static String groupedName(String groupName, String serviceName) {
+        return (groupName == null ? DEFAULT_GROUP : groupName) + "@@" + serviceName;
+    }
+
+    private static String clusterOf(Instance instance) {
+        return instance.getClusterName() == null || instance.getClusterName().isEmpty()
+                ? DEFAULT_CLUSTER : instance.getClusterName();
+    }
+
+    private static String instanceKey(Instance instance) {
+        return instance.getIp() + "#" + instance.getPort() + "#" + clusterOf(instance);
+    }
+
+    /**
+     * 注册记录的 key：临时实例按所属客户端区分，持久实例全局唯一
+     */
+    private static String registrationKey(String owner, boolean ephemeral, Instance instance) {
+        return (ephemeral ? owner : "") + "|" + instanceKey(instance);
+    }
+
+    /**
+     * 复制实例，补全 Nacos 服务端会填充的 instanceId、clusterName 及 serviceName（分组名@@服务名）
+     */
+    private static Instance copy(Instance source, String groupedName) {
+        Instance copy = new Instance();
+        copy.setInstanceId(instanceKey(source) + "#" + groupedName);
+        copy.setIp(source.getIp());
+        copy.setPort(source.getPort());
+        copy.setWeight(source.getWeight());
+        copy.setHealthy(source.isHealthy());
+        copy.setEnabled(source.isEnabled());
+        copy.setEphemeral(source.isEphemeral());
+        copy.setClusterName(clusterOf(source));
+        copy.setServiceName(groupedName);
+        copy.setMetadata(source.getMetadata() == null
+                ? new HashMap<>() : new HashMap<>(source.getMetadata()));
+        return copy;
+    }
+
+    private static boolean matchesClusters(Instance instance, List<String> clusters) {
+        return clusters == null || clusters.isEmpty() || clusters.contains(instance.getClusterName());
+    }
+
+    // ==================== 服务端 ====================
+
+    /**
+     * 注册记录：实例及其所属客户端
+     */
+    private static final class Registration {
+        final String owner;
+        final Instance instance;
+
+        Registration(String owner, Instance instance) {
+            this.owner = owner;
+            this.instance = instance;
+        }
+    }
+
+    /**
+     * 订阅记录，按 客户端 + 分组 + 服务名 + 集群 + 监听器 判等
+     */
+    private static final class Subscription {
+        final String clientId;
+        final String groupName;
+        final String serviceName;
+        final List<String> clusters;
+        final EventListener listener;
+
+        Subscription(String clientId, String groupName, String serviceName, List<String> clusters,
+                     EventListener listener) {
+            this.clientId = clientId;
+            this.groupName = groupName == null ? DEFAULT_GROUP : groupName;
+            this.serviceName = serviceName;
+            this.clusters = clusters == null ? Collections.emptyList() : new ArrayList<>(clusters);
+            this.listener = listener;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Subscription)) {
+                return false;
+            }
+            Subscription other = (Subscription) o;
+            return clientId.equals(other.clientId) && groupName.equals(other.groupName)
+                    && serviceName.equals(other.serviceName) && clusters.equals(other.clusters)
+                    && listener == other.listener;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(clientId, groupName, serviceName, clusters, System.identityHashCode(listener));
+        }
+    }
+
+    /**
+     * 模拟的 Nacos 服务端（单个 namespace）
+     * <p>
+     * 数据读写在服务端锁内完成，注入的延迟发生在加锁之前，不会串行化并发调用；
+     * 订阅通知在单独的守护线程中按变化顺序投递（监听器提供 Executor 时使用其 Executor）。
+     * </p>
+     */
+    static final class Server implements AutoCloseable {
+
+        /**
+         * 直接写入服务端的实例所属者，不随任何客户端断开而移除
+         */
+        static final String SERVER_OWNER = "server";
+
+        private final String name;
+        // 分组名@@服务名 -> (注册记录 key -> 注册记录)
+        private final NavigableMap<String, Map<String, Registration>> services = new TreeMap<>();
+        private final Map<String, Set<Subscription>> subscriptions = new HashMap<>();
+        private final AtomicInteger clientSequence = new AtomicInteger();
+        private final ExecutorService notifier;
+
+        private volatile boolean available = true;
+        private volatile long minLatencyNanos;
+        private volatile long maxLatencyNanos;
+        private volatile double errorRate;
+        private final Map<String, Double> operationErrorRates = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> callCounts = new ConcurrentHashMap<>();
+
+        Server(String name) {
+            this.name = name;
+            this.notifier = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "in-memory-nacos-notifier-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * 创建一个连接到本服务端的客户端
+         */
+        InMemoryNamingService connect() {
+            return new InMemoryNamingService(this, "client-" + clientSequence.incrementAndGet());
+        }
+
+        String getName() {
+            return name;
+        }
+
+        // ---------- 故障注入 ----------
+
+        /**
+         * 每次调用的延迟，在 [min, max] 内均匀分布
+         */
+        Server setLatency(Duration min, Duration max) {
+            if (min.isNegative() || max.compareTo(min) < 0) {
+                throw new IllegalArgumentException("Invalid latency range: " + min + " - " + max);
+            }
+            this.minLatencyNanos = min.toNanos();
+            this.maxLatencyNanos = max.toNanos();
+            return this;
+        }
+
+        /**
+         * 所有调用的失败率（0 ~ 1），失败时抛出 NacosException
+         */
+        Server setErrorRate(double errorRate) {
+            this.errorRate = checkRate(errorRate);
+            return this;
+        }
+
+        /**
+         * 指定方法的失败率（0 ~ 1），覆盖整体失败率
+         *
+         * @param operation NamingService 方法名，例如 selectInstances
+         */
+        Server setErrorRate(String operation, double errorRate) {
+            operationErrorRates.put(operation, checkRate(errorRate));
+            return this;
+        }
+
+        /**
+         * 服务端是否可用；不可用时所有调用抛出 NacosException，getServerStatus 返回 DOWN
+         */
+        Server setAvailable(boolean available) {
+            this.available = available;
+            return this;
+        }
+
+        boolean isAvailable() {
+            return available;
+        }
+
+        /**
+         * 指定方法被调用的次数（包括注入失败的调用）
+         */
+        long getCallCount(String operation) {
+            LongAdder count = callCounts.get(operation);
+            return count == null ? 0 : count.sum();
+        }
+
+        void resetCallCounts() {
+            callCounts.clear();
+        }
+
+        private static double checkRate(double rate) {
+            if (rate < 0 || rate > 1) {
+                throw new IllegalArgumentException("Error rate must be within [0, 1]: " + rate);
+            }
+            return rate;
+        }
+
+        private void beforeCall(String operation) throws NacosException {
+            callCounts.computeIfAbsent(operation, k -> new LongAdder()).increment();
+            if (!available) {
+                throw new NacosException(NacosException.SERVER_ERROR, "Server " + name + " is unavailable");
+            }
+            long min = minLatencyNanos;
+            long max = maxLatencyNanos;
+            if (max > 0) {
+                long latency = max > min ? ThreadLocalRandom.current().nextLong(min, max + 1) : max;
+                long deadline = System.nanoTime() + latency;
+                for (long remaining = latency; remaining > 0; remaining = deadline - System.nanoTime()) {
+                    LockSupport.parkNanos(remaining);
+                    if (Thread.interrupted()) {
+                        Thread.currentThread().interrupt();
+                        throw new NacosException(NacosException.SERVER_ERROR, "Interrupted while calling " + operation);
+                    }
+                }
+            }
+            double rate = operationErrorRates.getOrDefault(operation, errorRate);
+            if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+                throw new NacosException(NacosException.SERVER_ERROR, "Injected failure: " + operation);
+            }
+        }
+
+        // ---------- 服务端直接操作（不经过故障注入） ----------
+
+        /**
+         * 直接写入实例，不属于任何客户端
+         */
+        void register(String groupName, String serviceName, Instance... instances) {
+            register(SERVER_OWNER, groupName, serviceName, Arrays.asList(instances), false);
+        }
+
+        /**
+         * 直接移除实例，不校验所属客户端（模拟心跳超时等服务端摘除）
+         *
+         * @return true 如果实例存在
+         */
+        boolean remove(String groupName, String serviceName, String ip, int port) {
+            String key = groupedName(groupName, serviceName);
+            List<Instance> snapshot;
+            synchronized (this) {
+                Map<String, Registration> registrations = services.get(key);
+                if (registrations == null || !registrations.values().removeIf(
+                        r -> r.instance.getIp().equals(ip) && r.instance.getPort() == port)) {
+                    return false;
+                }
+                snapshot = snapshotAndPrune(key, registrations);
+            }
+            publish(key, snapshot);
+            return true;
+        }
+
+        /**
+         * 直接修改实例健康状态
+         *
+         * @return true 如果实例存在
+         */
+        boolean setHealthy(String groupName, String serviceName, String ip, int port, boolean healthy) {
+            return update(groupName, serviceName, ip, port, instance -> instance.setHealthy(healthy));
+        }
+
+        /**
+         * 直接修改实例元数据
+         *
+         * @return true 如果实例存在
+         */
+        boolean putMetadata(String groupName, String serviceName, String ip, int port, String key, String value) {
+            return update(groupName, serviceName, ip, port, instance -> instance.getMetadata().put(key, value));
+        }
+
+        /**
+         * 当前实例副本，按注册顺序
+         */
+        List<Instance> instances(String groupName, String serviceName) {
+            return instances(groupName, serviceName, Collections.emptyList());
+        }
+
+        /**
+         * 分组下的服务名，有序
+         */
+        synchronized List<String> serviceNames(String groupName) {
+            String prefix = groupedName(groupName, "");
+            List<String> names = new ArrayList<>();
+            for (String key : services.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet()) {
+                names.add(key.substring(prefix.length()));
+            }
+            return names;
+        }
+
+        synchronized int instanceCount() {
+            int count = 0;
+            for (Map<String, Registration> registrations : services.values()) {
+                count += registrations.size();
+            }
+            return count;
+        }
+
+        /**
+         * 等待此前触发的订阅通知投递完成（不包括监听器自带 Executor 上的投递）
+         */
+        void awaitNotifications() throws InterruptedException, ExecutionException, TimeoutException {
+            notifier.submit(() -> {
+            }).get(10, TimeUnit.SECONDS);
+        }
+
+        /**
+         * 创建变更生成器，在指定分组内随机变更实例
+         *
+         * @param seed 随机种子，相同种子产生相同的变更序列
+         */
+        Churn churn(String groupName, long seed) {
+            return new Churn(groupName, seed);
+        }
+
+        @Override
+        public void close() {
+            notifier.shutdownNow();
+        }
+
+        // ---------- 数据操作 ----------
+
+        private void register(String owner, String groupName, String serviceName, Collection<Instance> instances,
+                              boolean replaceOwned) {
+            String key = groupedName(groupName, serviceName);
+            List<Instance> snapshot;
+            synchronized (this) {
+                Map<String, Registration> registrations = services.computeIfAbsent(key, k -> new LinkedHashMap<>());
+                if (replaceOwned) {
+                    registrations.values().removeIf(r -> r.owner.equals(owner) && r.instance.isEphemeral());
+                }
+                for (Instance instance : instances) {
+                    Instance stored = copy(instance, key);
+                    registrations.put(registrationKey(owner, stored.isEphemeral(), stored),
+                            new Registration(owner, stored));
+                }
+                snapshot = snapshotAndPrune(key, registrations);
+            }
+            publish(key, snapshot);
+        }
+
+        private void deregister(String owner, String groupName, String serviceName, Collection<Instance> instances) {
+            String key = groupedName(groupName, serviceName);
+            List<Instance> snapshot;
+            synchronized (this) {
+                Map<String, Registration> registrations = services.get(key);
+                if (registrations == null) {
+                    return;
+                }
+                boolean changed = false;
+                for (Instance instance : instances) {
+                    // 临时实例只能由注册它的客户端注销，持久实例任何客户端均可注销
+                    if (registrations.remove(registrationKey(owner, true, instance)) != null
+                            || registrations.remove(registrationKey(owner, false, instance)) != null) {
+                        changed = true;
+                    }
+                }
+                if (!changed) {
+                    return;
+                }
+                snapshot = snapshotAndPrune(key, registrations);
+            }
+            publish(key, snapshot);
+        }
+
+        private boolean update(String groupName, String serviceName, String ip, int port,
+                               Consumer<Instance> mutation) {
+            String key = groupedName(groupName, serviceName);
+            List<Instance> snapshot;
+            synchronized (this) {
+                Map<String, Registration> registrations = services.get(key);
+                if (registrations == null) {
+                    return false;
+                }
+                boolean found = false;
+                for (Registration registration : registrations.values()) {
+                    if (registration.instance.getIp().equals(ip) && registration.instance.getPort() == port) {
+                        mutation.accept(registration.instance);
+                        found = true;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+                snapshot = snapshotAndPrune(key, registrations);
+            }
+            publish(key, snapshot);
+            return true;
+        }
+
+        private void disconnect(String clientId) {
+            Map<String, List<Instance>> changed = new LinkedHashMap<>();
+            synchronized (this) {
+                for (Set<Subscription> set : subscriptions.values()) {
+                    set.removeIf(s -> s.clientId.equals(clientId));
+                }
+                for (Map.Entry<String, Map<String, Registration>> entry : new ArrayList<>(services.entrySet())) {
+                    if (entry.getValue().values().removeIf(r -> r.owner.equals(clientId) && r.instance.isEphemeral())) {
+                        changed.put(entry.getKey(), snapshotAndPrune(entry.getKey(), entry.getValue()));
+                    }
+                }
+            }
+            for (Map.Entry<String, List<Instance>> entry : changed.entrySet()) {
+                publish(entry.getKey(), entry.getValue());
+            }
+        }
+
+        private List<Instance> instances(String groupName, String serviceName, List<String> clusters) {
+            String key = groupedName(groupName, serviceName);
+            List<Instance> result = new ArrayList<>();
+            synchronized (this) {
+                Map<String, Registration> registrations = services.get(key);
+                if (registrations != null) {
+                    for (Registration registration : registrations.values()) {
+                        if (matchesClusters(registration.instance, clusters)) {
+                            result.add(copy(registration.instance, key));
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        private ListView<String> page(String groupName, int pageNo, int pageSize) {
+            List<String> names = serviceNames(groupName);
+            int from = Math.min(names.size(), Math.max(0, (pageNo - 1) * pageSize));
+            int to = Math.min(names.size(), from + pageSize);
+            ListView<String> view = new ListView<>();
+            view.setData(new ArrayList<>(names.subList(from, to)));
+            view.setCount(names.size());
+            return view;
+        }
+
+        /**
+         * 在锁内复制当前实例列表；服务为空时删除该服务
+         */
+        private List<Instance> snapshotAndPrune(String key, Map<String, Registration> registrations) {
+            if (registrations.isEmpty()) {
+                services.remove(key);
+                return Collections.emptyList();
+            }
+            List<Instance> snapshot = new ArrayList<>(registrations.size());
+            for (Registration registration : registrations.values()) {
+                snapshot.add(copy(registration.instance, key));
+            }
+            return snapshot;
+        }
+
+        // ---------- 订阅 ----------
+
+        private void subscribe(Subscription subscription) {
+            String key = groupedName(subscription.groupName, subscription.serviceName);
+            List<Instance> current;
+            synchronized (this) {
+                if (!subscriptions.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(subscription)) {
+                    return;
+                }
+                Map<String, Registration> registrations = services.get(key);
+                current = registrations == null ? Collections.emptyList() : snapshotAndPrune(key, registrations);
+            }
+            if (!current.isEmpty()) {
+                deliver(subscription, current);
+            }
+        }
+
+        private synchronized void unsubscribe(Subscription subscription) {
+            Set<Subscription> set = subscriptions.get(groupedName(subscription.groupName, subscription.serviceName));
+            if (set != null) {
+                set.remove(subscription);
+            }
+        }
+
+        private synchronized List<ServiceInfo> subscribedServices(String clientId) {
+            Map<String, ServiceInfo> infos = new LinkedHashMap<>();
+            for (Set<Subscription> set : subscriptions.values()) {
+                for (Subscription subscription : set) {
+                    if (subscription.clientId.equals(clientId)) {
+                        String key = groupedName(subscription.groupName, subscription.serviceName);
+                        infos.computeIfAbsent(key, k -> {
+                            ServiceInfo info = new ServiceInfo();
+                            info.setName(subscription.serviceName);
+                            info.setGroupName(subscription.groupName);
+                            info.setHosts(instances(subscription.groupName, subscription.serviceName));
+                            return info;
+                        });
+                    }
+                }
+            }
+            return new ArrayList<>(infos.values());
+        }
+
+        private void publish(String key, List<Instance> snapshot) {
+            List<Subscription> targets;
+            synchronized (this) {
+                Set<Subscription> set = subscriptions.get(key);
+                if (set == null || set.isEmpty()) {
+                    return;
+                }
+                targets = new ArrayList<>(set);
+            }
+            for (Subscription subscription : targets) {
+                List<Instance> instances = new ArrayList<>(snapshot.size());
+                for (Instance instance : snapshot) {
+                    if (matchesClusters(instance, subscription.clusters)) {
+                        instances.add(copy(instance, key));
+                    }
+                }
+                deliver(subscription, instances);
+            }
+        }
+
+        private void deliver(Subscription subscription, List<Instance> instances) {
+            NamingEvent event = new NamingEvent(subscription.serviceName, subscription.groupName,
+                    String.join(",", subscription.clusters), instances);
+            Executor executor = subscription.listener instanceof AbstractEventListener
+                    ? ((AbstractEventListener) subscription.listener).getExecutor() : null;
+            try {
+                (executor != null ? executor : notifier).execute(() -> subscription.listener.onEvent(event));
+            } catch (RejectedExecutionException e) {
+                // 服务端已关闭，丢弃通知
+            }
+        }
+
+        // ---------- 变更生成器 ----------
+
+        /**
+         * 随机变更实例的生成器，模拟测试环境中实例的上下线、健康变化与元数据更新
+         * <p>
+         * 每次变更随机选择：新增实例（10% 概率新建服务）、移除实例、切换健康状态、更新 version 元数据。
+         * 变更直接作用于服务端，不经过故障注入；新增的实例为 172.31.0.0/16 网段内的临时实例，不属于任何客户端。
+         * </p>
+         */
+        final class Churn implements AutoCloseable {
+
+            private final String groupName;
+            private final Random random;
+            private final AtomicInteger serviceSequence = new AtomicInteger();
+            private volatile ScheduledExecutorService scheduler;
+
+            private Churn(String groupName, long seed) {
+                this.groupName = groupName;
+                this.random = new Random(seed);
+            }
+
+            /**
+             * 同步执行指定次数的随机变更
+             *
+             * @return 被变更的服务名（去重）
+             */
+            synchronized Set<String> step(int mutations) {
+                Set<String> touched = new TreeSet<>();
+                for (int i = 0; i < mutations; i++) {
+                    String serviceName = mutate();
+                    if (serviceName != null) {
+                        touched.add(serviceName);
+                    }
+                }
+                return touched;
+            }
+
+            /**
+             * 按固定周期在后台执行随机变更，直到 close
+             */
+            synchronized Churn start(Duration period, int mutationsPerTick) {
+                if (scheduler != null) {
+                    throw new IllegalStateException("Churn already started");
+                }
+                scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "in-memory-nacos-churn-" + name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                long periodNanos = period.toNanos();
+                scheduler.scheduleAtFixedRate(() -> step(mutationsPerTick), periodNanos, periodNanos,
+                        TimeUnit.NANOSECONDS);
+                return this;
+            }
+
+            @Override
+            public synchronized void close() {
+                if (scheduler != null) {
+                    scheduler.shutdownNow();
+                    scheduler = null;
+                }
+            }
+
+            private String mutate() {
+                List<String> names = serviceNames(groupName);
+                int action = random.nextInt(4);
+                if (names.isEmpty() || (action == 0 && random.nextInt(10) == 0)) {
+                    String serviceName = "churn-service-" + serviceSequence.incrementAndGet();
+                    register(groupName, serviceName, randomInstance());
+                    return serviceName;
+                }
+                String serviceName = names.get(random.nextInt(names.size()));
+                if (action == 0) {
+                    register(groupName, serviceName, randomInstance());
+                    return serviceName;
+                }
+                List<Instance> instances = instances(groupName, serviceName);
+                if (instances.isEmpty()) {
+                    return null;
+                }
+                Instance target = instances.get(random.nextInt(instances.size()));
+                boolean changed;
+                switch (action) {
+                    case 1:
+                        changed = remove(groupName, serviceName, target.getIp(), target.getPort());
+                        break;
+                    case 2:
+                        changed = setHealthy(groupName, serviceName, target.getIp(), target.getPort(),
+                                !target.isHealthy());
+                        break;
+                    default:
+                        changed = putMetadata(groupName, serviceName, target.getIp(), target.getPort(),
+                                "version", "churn-" + random.nextInt(1000));
+                        break;
+                }
+                return changed ? serviceName : null;
+            }
+
+            private Instance randomInstance() {
+                Instance instance = newInstance("172.31." + random.nextInt(256) + "." + (1 + random.nextInt(254)),
+                        20000 + random.nextInt(40000), DEFAULT_CLUSTER);
+                instance.setMetadata(new HashMap<>());
+                instance.getMetadata().put("version", "churn-" + random.nextInt(1000));
+                return instance;
+            }
+        }
+    }
+
+    // ==================== 工厂 ====================
+
+    /**
+     * 接入 {@link NacosFallbackServiceDiscovery.NamingServiceFactory}：按 serverAddr 与 namespace 区分服务端，
+     * 每次 create 创建一个新客户端，因此多个同步组件共享同一个工厂即可模拟多个节点连接同一个 Nacos
+     */
+    static final class Factory implements NacosFallbackServiceDiscovery.NamingServiceFactory, AutoCloseable {
+
+        private final ConcurrentMap<String, Server> servers = new ConcurrentHashMap<>();
+
+        Server server(String serverAddr) {
+            return server(serverAddr, null);
+        }
+
+        Server server(String serverAddr, String namespace) {
+            String name = namespace == null || namespace.isEmpty() ? serverAddr : serverAddr + "/" + namespace;
+            return servers.computeIfAbsent(name, Server::new);
+        }
+
+        @Override
+        public NamingService create(Properties properties) {
+            return server(properties.getProperty("serverAddr"), properties.getProperty("namespace")).connect();
+        }
+
+        @Override
+        public void close() {
+            for (Server server : servers.values()) {
+                server.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.Event;
+import com.alibaba.nacos.api.naming.listener.EventListener;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.alibaba.nacos.api.naming.pojo.ListView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InMemoryNamingService 测试
+ */
+@DisplayName("InMemoryNamingService 测试")
+class InMemoryNamingServiceTest {
+
+    private static final String GROUP = "DEFAULT_GROUP";
+
+    private InMemoryNamingService.Server server;
+    private InMemoryNamingService client;
+
+    @BeforeEach
+    void setUp() {
+        server = new InMemoryNamingService.Server("test");
+        client = server.connect();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private static Instance instance(String ip, int port) {
+        Instance instance = new Instance();
+        instance.setIp(ip);
+        instance.setPort(port);
+        instance.setWeight(1.0);
+        instance.setHealthy(true);
+        instance.setEnabled(true);
+        instance.setEphemeral(true);
+        instance.setMetadata(new HashMap<>());
+        return instance;
+    }
+
+    private static Set<String> addresses(List<Instance> instances) {
+        return instances.stream().map(i -> i.getIp() + ":" + i.getPort()).collect(Collectors.toSet());
+    }
+
+    @Nested
+    @DisplayName("注册与查询")
+    class RegistrationTest {
+
+        @Test
+        @DisplayName("实例应按分组隔离，返回值为副本")
+        void shouldIsolateGroupsAndReturnCopies() throws NacosException {
+            client.registerInstance("order-service", GROUP, instance("172.16.0.1", 8080));
+            client.registerInstance("order-service", "OTHER_GROUP", instance("172.16.0.2", 8080));
+
+            List<Instance> instances = client.getAllInstances("order-service", GROUP);
+            assertEquals(Collections.singleton("172.16.0.1:8080"), addresses(instances));
+            assertEquals(GROUP + "@@order-service", instances.get(0).getServiceName());
+
+            instances.get(0).getMetadata().put("mutated", "true");
+            assertFalse(client.getAllInstances("order-service", GROUP).get(0).getMetadata().containsKey("mutated"));
+        }
+
+        @Test
+        @DisplayName("selectInstances 应只返回健康、启用且权重大于 0 的实例")
+        void selectInstancesShouldFilterLikeNacos() throws NacosException {
+            Instance unhealthy = instance("172.16.0.2", 8080);
+            unhealthy.setHealthy(false);
+            Instance disabled = instance("172.16.0.3", 8080);
+            disabled.setEnabled(false);
+            Instance zeroWeight = instance("172.16.0.4", 8080);
+            zeroWeight.setWeight(0);
+            server.register(GROUP, "order-service", instance("172.16.0.1", 8080), unhealthy, disabled, zeroWeight);
+
+            assertEquals(Collections.singleton("172.16.0.1:8080"),
+                    addresses(client.selectInstances("order-service", GROUP, true)));
+            assertEquals(Collections.singleton("172.16.0.2:8080"),
+                    addresses(client.selectInstances("order-service", GROUP, false)));
+            assertEquals(4, client.getAllInstances("order-service", GROUP).size());
+        }
+
+        @Test
+        @DisplayName("批量注册应覆盖该客户端在该服务下的实例，且不允许持久实例")
+        void batchRegisterShouldReplaceOwnInstances() throws NacosException {
+            client.batchRegisterInstance("order-service", GROUP,
+                    Arrays.asList(instance("172.16.0.1", 8080), instance("172.16.0.2", 8080)));
+            client.batchRegisterInstance("order-service", GROUP,
+                    Collections.singletonList(instance("172.16.0.3", 8080)));
+
+            assertEquals(Collections.singleton("172.16.0.3:8080"),
+                    addresses(client.getAllInstances("order-service", GROUP)));
+
+            Instance persistent = instance("172.16.0.4", 8080);
+            persistent.setEphemeral(false);
+            assertThrows(NacosException.class, () -> client.batchRegisterInstance("order-service", GROUP,
+                    Collections.singletonList(persistent)));
+        }
+
+        @Test
+        @DisplayName("逐个注册临时实例应覆盖该客户端在该服务下的实例，持久实例为追加语义")
+        void registerInstanceShouldReplaceOwnEphemeralInstance() throws NacosException {
+            InMemoryNamingService other = server.connect();
+            other.registerInstance("order-service", GROUP, instance("172.16.0.9", 8080));
+            client.batchRegisterInstance("order-service", GROUP,
+                    Arrays.asList(instance("172.16.0.1", 8080), instance("172.16.0.2", 8080)));
+            client.registerInstance("order-service", GROUP, instance("172.16.0.3", 8080));
+            client.registerInstance("order-service", GROUP, instance("172.16.0.4", 8080));
+
+            assertEquals(new HashSet<>(Arrays.asList("172.16.0.4:8080", "172.16.0.9:8080")),
+                    addresses(client.getAllInstances("order-service", GROUP)));
+
+            Instance persistent = instance("172.16.0.5", 8080);
+            persistent.setEphemeral(false);
+            client.registerInstance("order-service", GROUP, persistent);
+            assertEquals(3, client.getAllInstances("order-service", GROUP).size());
+        }
+
+        @Test
+        @DisplayName("临时实例只能由注册它的客户端注销，客户端断开后应被移除")
+        void ephemeralInstancesShouldBelongToClient() throws NacosException {
+            InMemoryNamingService other = server.connect();
+            client.registerInstance("order-service", GROUP, instance("172.16.0.1", 8080));
+            Instance persistent = instance("172.16.0.2", 8080);
+            persistent.setEphemeral(false);
+            client.registerInstance("order-service", GROUP, persistent);
+
+            other.deregisterInstance("order-service", GROUP, instance("172.16.0.1", 8080));
+            assertEquals(2, other.getAllInstances("order-service", GROUP).size());
+
+            client.shutDown();
+            assertEquals(Collections.singleton("172.16.0.2:8080"),
+                    addresses(other.getAllInstances("order-service", GROUP)));
+            assertEquals("DOWN", client.getServerStatus());
+            assertThrows(NacosException.class, () -> client.getAllInstances("order-service", GROUP));
+        }
+
+        @Test
+        @DisplayName("不同客户端注册相同地址的临时实例应同时存在")
+        void sameAddressFromDifferentClientsShouldCoexist() throws NacosException {
+            InMemoryNamingService other = server.connect();
+            client.registerInstance("leader", GROUP, instance("127.0.0.1", 1));
+            other.registerInstance("leader", GROUP, instance("127.0.0.1", 1));
+
+            assertEquals(2, client.selectInstances("leader", GROUP, true).size());
+
+            other.deregisterInstance("leader", GROUP, instance("127.0.0.1", 1));
+            assertEquals(1, client.selectInstances("leader", GROUP, true).size());
+        }
+
+        @Test
+        @DisplayName("实例为空的服务应被删除")
+        void emptyServiceShouldBeRemoved() throws NacosException {
+            client.registerInstance("order-service", GROUP, instance("172.16.0.1", 8080));
+            client.deregisterInstance("order-service", GROUP, "172.16.0.1", 8080);
+
+            assertTrue(server.serviceNames(GROUP).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("服务列表分页")
+    class PaginationTest {
+
+        @Test
+        @DisplayName("应按服务名排序分页并返回总数")
+        void shouldPageSortedServiceNames() throws NacosException {
+            for (int i = 0; i < 25; i++) {
+                server.register(GROUP, String.format("service-%02d", i), instance("172.16.0.1", 8080));
+            }
+            server.register("OTHER_GROUP", "other-service", instance("172.16.0.1", 8080));
+
+            ListView<String> page = client.getServicesOfServer(3, 10, GROUP);
+
+            assertEquals(25, page.getCount());
+            assertEquals(Arrays.asList("service-20", "service-21", "service-22", "service-23", "service-24"),
+                    page.getData());
+            assertTrue(client.getServicesOfServer(4, 10, GROUP).getData().isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("订阅")
+    class SubscriptionTest {
+
+        @Test
+        @DisplayName("订阅时已有实例应立即通知，之后每次变化都应通知")
+        void shouldNotifySubscribers() throws Exception {
+            List<List<Instance>> events = new CopyOnWriteArrayList<>();
+            EventListener listener = (Event event) -> events.add(((NamingEvent) event).getInstances());
+            server.register(GROUP, "order-service", instance("172.16.0.1", 8080));
+
+            client.subscribe("order-service", GROUP, listener);
+            server.register(GROUP, "order-service", instance("172.16.0.2", 8080));
+            server.remove(GROUP, "order-service", "172.16.0.1", 8080);
+            server.awaitNotifications();
+
+            assertEquals(3, events.size());
+            assertEquals(Collections.singleton("172.16.0.1:8080"), addresses(events.get(0)));
+            assertEquals(2, events.get(1).size());
+            assertEquals(Collections.singleton("172.16.0.2:8080"), addresses(events.get(2)));
+            assertEquals(1, client.getSubscribeServices().size());
+
+            client.unsubscribe("order-service", GROUP, listener);
+            server.register(GROUP, "order-service", instance("172.16.0.3", 8080));
+            server.awaitNotifications();
+            assertEquals(3, events.size());
+            assertTrue(client.getSubscribeServices().isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("故障注入")
+    class FaultInjectionTest {
+
+        @Test
+        @DisplayName("按方法配置的失败率应只影响该方法")
+        void operationErrorRateShouldOnlyAffectOperation() throws NacosException {
+            server.register(GROUP, "order-service", instance("172.16.0.1", 8080));
+            server.setErrorRate("selectInstances", 1.0);
+
+            assertThrows(NacosException.class, () -> client.selectInstances("order-service", GROUP, true));
+            assertEquals(1, client.getAllInstances("order-service", GROUP).size());
+            assertEquals(1, server.getCallCount("selectInstances"));
+            assertEquals(1, server.getCallCount("getAllInstances"));
+        }
+
+        @Test
+        @DisplayName("服务端不可用时所有调用应失败，状态为 DOWN")
+        void unavailableServerShouldFailAllCalls() {
+            server.setAvailable(false);
+
+            assertEquals("DOWN", client.getServerStatus());
+            assertThrows(NacosException.class, () -> client.getServicesOfServer(1, 10, GROUP));
+        }
+
+        @Test
+        @DisplayName("应按配置注入调用延迟")
+        void shouldInjectLatency() throws NacosException {
+            server.setLatency(Duration.ofMillis(20), Duration.ofMillis(20));
+
+            long start = System.nanoTime();
+            client.getAllInstances("order-service", GROUP);
+
+            assertTrue(System.nanoTime() - start >= Duration.ofMillis(20).toNanos());
+        }
+
+        @Test
+        @DisplayName("非法的失败率与延迟范围应被拒绝")
+        void shouldRejectInvalidSettings() {
+            assertThrows(IllegalArgumentException.class, () -> server.setErrorRate(1.5));
+            assertThrows(IllegalArgumentException.class,
+                    () -> server.setLatency(Duration.ofMillis(10), Duration.ofMillis(5)));
+        }
+    }
+
+    @Nested
+    @DisplayName("变更生成器")
+    class ChurnTest {
+
+        @Test
+        @DisplayName("相同种子应产生相同的变更序列")
+        void sameSeedShouldProduceSameChanges() {
+            InMemoryNamingService.Server other = new InMemoryNamingService.Server("other");
+            try {
+                for (InMemoryNamingService.Server s : Arrays.asList(server, other)) {
+                    for (int i = 0; i < 20; i++) {
+                        s.register(GROUP, "service-" + i, instance("172.16.0." + (i + 1), 8080));
+                    }
+                }
+
+                Set<String> touched = server.churn(GROUP, 42L).step(50);
+                Set<String> otherTouched = other.churn(GROUP, 42L).step(50);
+
+                assertFalse(touched.isEmpty());
+                assertEquals(touched, otherTouched);
+                assertEquals(server.serviceNames(GROUP), other.serviceNames(GROUP));
+                for (String serviceName : server.serviceNames(GROUP)) {
+                    assertEquals(addresses(server.instances(GROUP, serviceName)),
+                            addresses(other.instances(GROUP, serviceName)));
+                }
+            } finally {
+                other.close();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("工厂")
+    class FactoryTest {
+
+        @Test
+        @DisplayName("相同地址与命名空间应共享服务端，每次创建新客户端")
+        void shouldShareServerPerAddressAndNamespace() throws Exception {
+            try (InMemoryNamingService.Factory factory = new InMemoryNamingService.Factory()) {
+                Properties properties = new Properties();
+                properties.put("serverAddr", "localhost:8848");
+
+                NamingService first = factory.create(properties);
+                NamingService second = factory.create(properties);
+                first.registerInstance("order-service", GROUP, instance("172.16.0.1", 8080));
+
+                assertNotSame(first, second);
+                assertEquals(1, second.getAllInstances("order-service", GROUP).size());
+
+                properties.put("namespace", "dev");
+                assertTrue(factory.create(properties).getAllInstances("order-service", GROUP).isEmpty());
+                assertSame(factory.server("localhost:8848", "dev"),
+                        ((InMemoryNamingService) factory.create(properties)).getServer());
+            }
+        }
+    }
+}
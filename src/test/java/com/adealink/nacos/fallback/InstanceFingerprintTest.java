@@ -0,0 +1,140 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InstanceFingerprint 单元测试
+ */
+@DisplayName("InstanceFingerprint 测试")
+class InstanceFingerprintTest {
+
+    @Test
+    @DisplayName("内容相同的实例指纹应相同")
+    void sameContentShouldHaveSameFingerprint() {
+        assertEquals(InstanceFingerprint.of(createInstance()), InstanceFingerprint.of(createInstance()));
+    }
+
+    @Test
+    @DisplayName("权重变化应导致指纹变化")
+    void weightChangeShouldChangeFingerprint() {
+        Instance changed = createInstance();
+        changed.setWeight(2.0);
+        assertNotEquals(InstanceFingerprint.of(createInstance()), InstanceFingerprint.of(changed));
+    }
+
+    @Test
+    @DisplayName("启用状态变化应导致指纹变化")
+    void enabledChangeShouldChangeFingerprint() {
+        Instance changed = createInstance();
+        changed.setEnabled(false);
+        assertNotEquals(InstanceFingerprint.of(createInstance()), InstanceFingerprint.of(changed));
+    }
+
+    @Test
+    @DisplayName("集群变化应导致指纹变化")
+    void clusterChangeShouldChangeFingerprint() {
+        Instance changed = createInstance();
+        changed.setClusterName("GRAY");
+        assertNotEquals(InstanceFingerprint.of(createInstance()), InstanceFingerprint.of(changed));
+    }
+
+    @Test
+    @DisplayName("业务元数据变化应导致指纹变化")
+    void metadataChangeShouldChangeFingerprint() {
+        Instance changed = createInstance();
+        changed.getMetadata().put("version", "2.0.0");
+        assertNotEquals(InstanceFingerprint.of(createInstance()), InstanceFingerprint.of(changed));
+    }
+
+    @Test
+    @DisplayName("同步标记元数据不应影响指纹")
+    void syncMetadataShouldBeIgnored() {
+        Instance local = createInstance();
+        local.getMetadata().put("fallback", "true");
+        local.getMetadata().put("source", "test-env");
+        local.getMetadata().put("original-ip", "172.16.0.1");
+        local.getMetadata().put("synced-at", String.valueOf(System.currentTimeMillis()));
+        assertEquals(InstanceFingerprint.of(createInstance()), InstanceFingerprint.of(local));
+    }
+
+    @Test
+    @DisplayName("元数据顺序不应影响指纹")
+    void metadataOrderShouldNotMatter() {
+        Instance a = createInstance();
+        Map<String, String> ordered = new LinkedHashMap<>();
+        ordered.put("b", "2");
+        ordered.put("a", "1");
+        a.setMetadata(ordered);
+
+        Instance b = createInstance();
+        Map<String, String> reversed = new LinkedHashMap<>();
+        reversed.put("a", "1");
+        reversed.put("b", "2");
+        b.setMetadata(reversed);
+
+        assertEquals(InstanceFingerprint.of(a), InstanceFingerprint.of(b));
+    }
+
+    @Test
+    @DisplayName("元数据为 null 时应正常计算")
+    void shouldHandleNullMetadata() {
+        Instance instance = createInstance();
+        instance.setMetadata(null);
+        assertNotNull(InstanceFingerprint.of(instance));
+    }
+
+    @Test
+    @DisplayName("修订值应与实例顺序无关")
+    void revisionShouldNotDependOnOrder() {
+        Instance a = createInstance();
+        Instance b = createInstance();
+        b.setIp("172.16.0.2");
+        assertEquals(InstanceFingerprint.revision(Arrays.asList(a, b)), InstanceFingerprint.revision(Arrays.asList(b, a)));
+    }
+
+    @Test
+    @DisplayName("实例地址或内容变化应导致修订值变化")
+    void revisionShouldChangeWithAddressOrContent() {
+        long base = InstanceFingerprint.revision(Collections.singletonList(createInstance()));
+
+        Instance otherPort = createInstance();
+        otherPort.setPort(9090);
+        assertNotEquals(base, InstanceFingerprint.revision(Collections.singletonList(otherPort)));
+
+        Instance otherWeight = createInstance();
+        otherWeight.setWeight(3.0);
+        assertNotEquals(base, InstanceFingerprint.revision(Collections.singletonList(otherWeight)));
+
+        assertNotEquals(base, InstanceFingerprint.revision(Arrays.asList(createInstance(), otherPort)));
+    }
+
+    @Test
+    @DisplayName("空列表的修订值应为 0")
+    void emptyRevisionShouldBeZero() {
+        assertEquals(0L, InstanceFingerprint.revision(Collections.emptyList()));
+        assertEquals(0L, InstanceFingerprint.revision(null));
+    }
+
+    private Instance createInstance() {
+        Instance instance = new Instance();
+        instance.setIp("172.16.0.1");
+        instance.setPort(8080);
+        instance.setWeight(1.0);
+        instance.setHealthy(true);
+        instance.setEnabled(true);
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("version", "1.0.0");
+        instance.setMetadata(metadata);
+        return instance;
+    }
+}
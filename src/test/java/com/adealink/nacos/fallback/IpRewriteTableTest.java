@@ -0,0 +1,114 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IpRewriteTable 单元测试
+ */
+@DisplayName("IpRewriteTable 测试")
+class IpRewriteTableTest {
+
+    @Test
+    @DisplayName("应按网段重写到对应的公网 IP")
+    void shouldRewriteBySubnet() {
+        IpRewriteTable table = IpRewriteTable.compile(Arrays.asList(
+                rule("10.0.0.0/8", "1.1.1.1"),
+                rule("172.16.0.0/12", "2.2.2.2")));
+
+        assertEquals("1.1.1.1", table.lookup("10.1.2.3"));
+        assertEquals("2.2.2.2", table.lookup("172.16.0.1"));
+        assertEquals("2.2.2.2", table.lookup("172.31.255.255"));
+        assertNull(table.lookup("172.32.0.1"));
+        assertNull(table.lookup("192.168.1.1"));
+    }
+
+    @Test
+    @DisplayName("多条规则命中时应取配置顺序靠前的规则")
+    void firstConfiguredRuleShouldWin() {
+        IpRewriteTable table = IpRewriteTable.compile(Arrays.asList(
+                rule("10.0.0.0/8", "1.1.1.1"),
+                rule("10.1.0.0/16", "2.2.2.2")));
+        assertEquals("1.1.1.1", table.lookup("10.1.2.3"));
+
+        IpRewriteTable reversed = IpRewriteTable.compile(Arrays.asList(
+                rule("10.1.0.0/16", "2.2.2.2"),
+                rule("10.0.0.0/8", "1.1.1.1")));
+        assertEquals("2.2.2.2", reversed.lookup("10.1.2.3"));
+        assertEquals("1.1.1.1", reversed.lookup("10.2.0.1"));
+    }
+
+    @Test
+    @DisplayName("应支持单个地址和 /0 网段")
+    void shouldSupportHostAndDefaultRoute() {
+        IpRewriteTable table = IpRewriteTable.compile(Arrays.asList(
+                rule("10.0.0.5", "1.1.1.1"),
+                rule("0.0.0.0/0", "9.9.9.9")));
+        assertEquals("1.1.1.1", table.lookup("10.0.0.5"));
+        assertEquals("9.9.9.9", table.lookup("10.0.0.6"));
+    }
+
+    @Test
+    @DisplayName("应支持 IPv6 网段")
+    void shouldSupportIpv6() {
+        IpRewriteTable table = IpRewriteTable.compile(Arrays.asList(
+                rule("fd00::/8", "2.2.2.2"),
+                rule("10.0.0.0/8", "1.1.1.1")));
+        assertEquals("2.2.2.2", table.lookup("fd12:3456::1"));
+        assertNull(table.lookup("2001:db8::1"));
+        assertEquals("1.1.1.1", table.lookup("10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("非法地址应不命中")
+    void invalidAddressShouldNotMatch() {
+        IpRewriteTable table = IpRewriteTable.compile(Collections.singletonList(rule("0.0.0.0/0", "9.9.9.9")));
+        assertNull(table.lookup("10.0.0"));
+        assertNull(table.lookup("10.0.0.256"));
+        assertNull(table.lookup("host.example.com"));
+        assertNull(table.lookup(null));
+    }
+
+    @Test
+    @DisplayName("非法规则应在编译时抛出异常")
+    void invalidRuleShouldFailCompile() {
+        assertThrows(IllegalArgumentException.class,
+                () -> IpRewriteTable.compile(Collections.singletonList(rule("10.0.0.0/33", "1.1.1.1"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> IpRewriteTable.compile(Collections.singletonList(rule("10.0.0/8", "1.1.1.1"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> IpRewriteTable.compile(Collections.singletonList(rule("10.0.0.0/8", ""))));
+    }
+
+    @Test
+    @DisplayName("没有规则时应为空表")
+    void shouldBeEmptyWithoutRules() {
+        assertTrue(IpRewriteTable.compile(null).isEmpty());
+        assertTrue(IpRewriteTable.compile(new ArrayList<>()).isEmpty());
+        assertNull(IpRewriteTable.compile(null).lookup("10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("应正确解析 IPv4 地址")
+    void shouldParseIpv4() {
+        assertEquals(0xAC100001L, IpRewriteTable.parseIpv4("172.16.0.1"));
+        assertEquals(0xFFFFFFFFL, IpRewriteTable.parseIpv4("255.255.255.255"));
+        assertEquals(-1, IpRewriteTable.parseIpv4("1.2.3.4.5"));
+        assertEquals(-1, IpRewriteTable.parseIpv4("1..3.4"));
+        assertEquals(-1, IpRewriteTable.parseIpv4(""));
+    }
+
+    private static NacosFallbackProperties.IpRewriteRule rule(String cidr, String publicIp) {
+        NacosFallbackProperties.IpRewriteRule rule = new NacosFallbackProperties.IpRewriteRule();
+        rule.setCidr(cidr);
+        rule.setPublicIp(publicIp);
+        return rule;
+    }
+}
@@ -0,0 +1,334 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.AbstractEventListener;
+import com.alibaba.nacos.api.naming.listener.EventListener;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LazySyncCoordinator 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LazySyncCoordinator 测试")
+class LazySyncCoordinatorTest {
+
+    private static final String DEMAND_SERVICE = "nacos-sync-leader" + LazySyncCoordinator.DEMAND_SERVICE_SUFFIX;
+
+    @Mock
+    private NacosFallbackServiceDiscovery discovery;
+
+    @Mock
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    @Mock
+    private ScheduledExecutorService onDemandExecutor;
+
+    @Mock
+    private NamingService localNamingService;
+
+    @Mock
+    private ScheduledFuture<?> scheduledFuture;
+
+    @Mock
+    private ScheduledFuture<?> timeoutFuture;
+
+    private NacosFallbackProperties properties;
+    private LazySyncCoordinator coordinator;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NacosFallbackProperties();
+        properties.setLeaderServiceName("nacos-sync-leader");
+        properties.setLocalGroup("DEFAULT_GROUP");
+        properties.setLazySyncEnabled(true);
+        properties.setLazySyncIdleTtlSeconds(30);
+        properties.setExcludeServices(Collections.singletonList("*-canary"));
+        coordinator = new LazySyncCoordinator(discovery, properties,
+                ServiceNameFilter.compile(properties.getIncludeServices(), properties.getExcludeServices()),
+                taskScheduler, onDemandExecutor);
+    }
+
+    @Nested
+    @DisplayName("查询与按需同步测试")
+    class ResolveTest {
+
+        @Test
+        @DisplayName("首次查询应在按需同步线程池上发布工作集")
+        void recordLookupShouldPublishOnOnDemandExecutor() {
+            coordinator.recordLookup("user-service");
+            coordinator.recordLookup("user-service");
+            coordinator.recordLookup("order-canary");
+
+            verify(onDemandExecutor, times(1)).execute(any(Runnable.class));
+            verifyNoInteractions(taskScheduler);
+            assertEquals(Collections.singleton("user-service"), coordinator.names());
+        }
+
+        @Test
+        @DisplayName("本节点负责同步时应在按需同步线程池上同步并发布，实例推送后完成 Future")
+        void resolveShouldSyncLocallyAndCompleteWhenVisible() throws Exception {
+            startCoordinator();
+            runExecutedTasksInline();
+            when(discovery.canSyncLocally("pay-service")).thenReturn(true);
+            when(discovery.buildLeaderInstance(0)).thenReturn(new Instance());
+
+            CompletableFuture<Boolean> visible = coordinator.resolveOnDemand("pay-service", 1000);
+            assertSame(visible, coordinator.resolveOnDemand("pay-service", 1000)); // 并发查询共用同一次按需同步
+            assertFalse(visible.isDone());
+
+            verify(discovery).syncSingleService("pay-service");
+            ArgumentCaptor<Instance> captor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService).registerInstance(eq(DEMAND_SERVICE), eq("DEFAULT_GROUP"), captor.capture());
+            assertEquals("pay-service", captor.getValue().getMetadata().get("services"));
+            verify(taskScheduler, never()).submit(any(Runnable.class));
+
+            EventListener listener = captureVisibilityListener("pay-service");
+            listener.onEvent(new NamingEvent("pay-service", Collections.singletonList(createInstance())));
+
+            assertTrue(visible.get());
+            verify(timeoutFuture).cancel(false);
+            verify(localNamingService).unsubscribe("pay-service", "DEFAULT_GROUP", listener);
+            assertFalse(coordinator.resolveOnDemand("pay-service", 1000).get()); // 已在工作集中
+        }
+
+        @Test
+        @DisplayName("本节点不负责同步时只发布工作集，超时后完成为 false")
+        void resolveShouldOnlyPublishWhenNotResponsible() throws Exception {
+            startCoordinator();
+            runExecutedTasksInline();
+            when(discovery.canSyncLocally("pay-service")).thenReturn(false);
+            when(discovery.buildLeaderInstance(0)).thenReturn(new Instance());
+
+            CompletableFuture<Boolean> visible = coordinator.resolveOnDemand("pay-service", 1000);
+
+            verify(discovery, never()).syncSingleService(anyString());
+            verify(localNamingService).registerInstance(eq(DEMAND_SERVICE), eq("DEFAULT_GROUP"), any(Instance.class));
+            ArgumentCaptor<Runnable> timeoutCaptor = ArgumentCaptor.forClass(Runnable.class);
+            verify(onDemandExecutor).schedule(timeoutCaptor.capture(), eq(1000L), eq(TimeUnit.MILLISECONDS));
+            timeoutCaptor.getValue().run();
+
+            assertFalse(visible.get());
+            verify(localNamingService).unsubscribe(eq("pay-service"), eq("DEFAULT_GROUP"), any(EventListener.class));
+        }
+
+        @Test
+        @DisplayName("推送的实例均不可用时不应完成 Future")
+        void unavailableInstancesShouldNotComplete() throws Exception {
+            startCoordinator();
+            doReturn(timeoutFuture).when(onDemandExecutor).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+            CompletableFuture<Boolean> visible = coordinator.resolveOnDemand("pay-service", 1000);
+            Instance unhealthy = createInstance();
+            unhealthy.setHealthy(false);
+            captureVisibilityListener("pay-service")
+                    .onEvent(new NamingEvent("pay-service", Collections.singletonList(unhealthy)));
+
+            assertFalse(visible.isDone());
+        }
+
+        @Test
+        @DisplayName("初始化之前的查询只加入工作集")
+        void resolveBeforeStartShouldOnlyJoinWorkingSet() throws Exception {
+            assertFalse(coordinator.resolveOnDemand("pay-service", 1000).get());
+
+            assertEquals(Collections.singleton("pay-service"), coordinator.names());
+            verifyNoInteractions(onDemandExecutor);
+        }
+
+        @Test
+        @DisplayName("按需同步线程池已关闭时应立即完成为 false")
+        void resolveShouldGiveUpWhenStopped() throws Exception {
+            startCoordinator();
+            doThrow(new RejectedExecutionException()).when(onDemandExecutor).execute(any(Runnable.class));
+
+            assertFalse(coordinator.resolveOnDemand("pay-service", 1000).get());
+            verify(localNamingService).unsubscribe(eq("pay-service"), eq("DEFAULT_GROUP"), any(EventListener.class));
+        }
+
+        @Test
+        @DisplayName("停止时应完成进行中的 Future")
+        void stopShouldCompletePendingResolves() throws Exception {
+            startCoordinator();
+            doReturn(timeoutFuture).when(onDemandExecutor).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+            CompletableFuture<Boolean> visible = coordinator.resolveOnDemand("pay-service", 1000);
+            coordinator.stop();
+
+            assertFalse(visible.get());
+        }
+
+        @Test
+        @DisplayName("被过滤的服务不应加入工作集")
+        void filteredServicesShouldBeIgnored() throws Exception {
+            assertFalse(coordinator.resolveOnDemand("user-canary", 1000).get());
+            assertFalse(coordinator.resolveOnDemand("", 1000).get());
+
+            assertTrue(coordinator.names().isEmpty());
+            verifyNoInteractions(onDemandExecutor);
+        }
+
+        private void runExecutedTasksInline() {
+            doAnswer(invocation -> {
+                ((Runnable) invocation.getArgument(0)).run();
+                return null;
+            }).when(onDemandExecutor).execute(any(Runnable.class));
+            doReturn(timeoutFuture).when(onDemandExecutor).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        }
+
+        private EventListener captureVisibilityListener(String serviceName) throws Exception {
+            ArgumentCaptor<EventListener> captor = ArgumentCaptor.forClass(EventListener.class);
+            verify(localNamingService).subscribe(eq(serviceName), eq("DEFAULT_GROUP"), captor.capture());
+            return captor.getValue();
+        }
+    }
+
+    @Nested
+    @DisplayName("订阅与淘汰测试")
+    class SubscriptionTest {
+
+        @Test
+        @DisplayName("启动时应订阅工作集、调度淘汰任务并发布已查询的服务")
+        void startShouldSubscribeScheduleAndPublish() throws Exception {
+            when(discovery.buildLeaderInstance(0)).thenReturn(new Instance());
+            coordinator.recordLookup("user-service");
+
+            ArgumentCaptor<EventListener> listenerCaptor = startCoordinator();
+
+            assertSame(onDemandExecutor, ((AbstractEventListener) listenerCaptor.getValue()).getExecutor());
+            verify(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), eq(Duration.ofSeconds(30)));
+            verify(localNamingService).registerInstance(eq(DEMAND_SERVICE), eq("DEFAULT_GROUP"), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("其他节点的工作集变更应只同步本节点负责且尚未同步的服务")
+        void demandChangeShouldSyncUnsyncedOwnedServices() throws Exception {
+            ArgumentCaptor<EventListener> listenerCaptor = startCoordinator();
+            when(discovery.getSyncedServices()).thenReturn(new TreeSet<>(Collections.singleton("user-service")));
+            when(discovery.canSyncLocally("order-service")).thenReturn(true);
+            when(discovery.canSyncLocally("pay-service")).thenReturn(false);
+
+            listenerCaptor.getValue().onEvent(new NamingEvent(DEMAND_SERVICE, Collections.singletonList(
+                    createDemandInstance("user-service,order-service,pay-service,user-canary"))));
+
+            verify(discovery).syncSingleService("order-service");
+            verify(discovery, times(1)).syncSingleService(anyString());
+        }
+
+        @Test
+        @DisplayName("淘汰任务应移除空闲服务并注销空工作集")
+        void evictShouldWithdrawEmptyWorkingSet() throws Exception {
+            properties.setLazySyncIdleTtlSeconds(0);
+            when(discovery.buildLeaderInstance(0)).thenReturn(new Instance());
+            coordinator.recordLookup("user-service");
+            startCoordinator();
+            ArgumentCaptor<Runnable> evictCaptor = ArgumentCaptor.forClass(Runnable.class);
+            verify(taskScheduler).scheduleWithFixedDelay(evictCaptor.capture(), any(Duration.class));
+
+            Thread.sleep(5);
+            evictCaptor.getValue().run();
+
+            assertTrue(coordinator.names().isEmpty());
+            verify(localNamingService).deregisterInstance(eq(DEMAND_SERVICE), eq("DEFAULT_GROUP"), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("停止时应撤回工作集并关闭按需同步线程池")
+        void stopShouldWithdrawAndShutDown() throws Exception {
+            when(discovery.buildLeaderInstance(0)).thenReturn(new Instance());
+            coordinator.recordLookup("user-service");
+            startCoordinator();
+
+            coordinator.stop();
+
+            verify(scheduledFuture).cancel(false);
+            verify(onDemandExecutor).shutdownNow();
+            verify(localNamingService).unsubscribe(eq(DEMAND_SERVICE), eq("DEFAULT_GROUP"), any(EventListener.class));
+            verify(localNamingService).deregisterInstance(eq(DEMAND_SERVICE), eq("DEFAULT_GROUP"), any(Instance.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("工作集过滤测试")
+    class FilterTest {
+
+        @Test
+        @DisplayName("应只保留各节点工作集内的服务并保持原有顺序")
+        void shouldKeepDemandedServicesInOrder() throws Exception {
+            startCoordinator();
+            coordinator.recordLookup("user-service");
+            when(localNamingService.selectInstances(DEMAND_SERVICE, "DEFAULT_GROUP", true))
+                    .thenReturn(Collections.singletonList(createDemandInstance("pay-service")));
+
+            assertEquals(Arrays.asList("user-service", "pay-service"), coordinator.filterDemandedServices(
+                    Arrays.asList("user-service", "order-service", "pay-service")));
+            verify(discovery).recordRpc(eq(SyncMetrics.TARGET_LOCAL), eq("selectInstances"), anyLong());
+        }
+
+        @Test
+        @DisplayName("读取工作集失败时应保留已同步的服务")
+        void readFailureShouldKeepSyncedServices() throws Exception {
+            startCoordinator();
+            when(localNamingService.selectInstances(DEMAND_SERVICE, "DEFAULT_GROUP", true))
+                    .thenThrow(new NacosException(500, "unavailable"));
+            when(discovery.getSyncedServices()).thenReturn(new TreeSet<>(Collections.singleton("order-service")));
+
+            assertEquals(Collections.singletonList("order-service"), coordinator.filterDemandedServices(
+                    Arrays.asList("user-service", "order-service")));
+        }
+
+        @Test
+        @DisplayName("应解析工作集元数据中的服务名并忽略空值")
+        void shouldParseDemandedServices() {
+            Instance empty = new Instance();
+            Set<String> services = LazySyncCoordinator.demandedServices(Arrays.asList(
+                    createDemandInstance(" user-service ,,order-service"), empty));
+
+            assertEquals(new HashSet<>(Arrays.asList("user-service", "order-service")), services);
+            assertTrue(LazySyncCoordinator.demandedServices(null).isEmpty());
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private ArgumentCaptor<EventListener> startCoordinator() throws Exception {
+        doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+        coordinator.start(localNamingService);
+        ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+        verify(localNamingService).subscribe(eq(DEMAND_SERVICE), eq("DEFAULT_GROUP"), listenerCaptor.capture());
+        return listenerCaptor;
+    }
+
+    private static Instance createInstance() {
+        Instance instance = new Instance();
+        instance.setIp("10.0.0.1");
+        instance.setPort(8080);
+        return instance;
+    }
+
+    private static Instance createDemandInstance(String services) {
+        Instance instance = new Instance();
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("services", services);
+        instance.setMetadata(metadata);
+        return instance;
+    }
+}
@@ -0,0 +1,181 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LazySyncDiscoveryClient 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LazySyncDiscoveryClient 测试")
+class LazySyncDiscoveryClientTest {
+
+    @Mock
+    private DiscoveryClient delegate;
+
+    @Mock
+    private NacosFallbackServiceDiscovery discovery;
+
+    private final ServiceInstance instance = new DefaultServiceInstance("id", "user-service", "10.0.0.1", 8080, false);
+
+    @Nested
+    @DisplayName("查询测试")
+    class GetInstancesTest {
+
+        private LazySyncDiscoveryClient client;
+
+        @BeforeEach
+        void setUp() {
+            client = new LazySyncDiscoveryClient(delegate, discovery, 1000);
+        }
+
+        @Test
+        @DisplayName("命中时应记录查询且不触发按需同步")
+        void hitShouldRecordLookup() {
+            when(delegate.getInstances("user-service")).thenReturn(Collections.singletonList(instance));
+
+            assertEquals(Collections.singletonList(instance), client.getInstances("user-service"));
+
+            verify(discovery).recordLookup("user-service");
+            verify(discovery, never()).resolveOnDemand(anyString(), anyLong());
+        }
+
+        @Test
+        @DisplayName("首次未命中时应按需同步，实例可见后重新查询一次")
+        void firstMissShouldResolveAndRetry() {
+            when(delegate.getInstances("user-service"))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(instance));
+            when(discovery.resolveOnDemand("user-service", 1000)).thenReturn(CompletableFuture.completedFuture(true));
+
+            assertEquals(Collections.singletonList(instance), client.getInstances("user-service"));
+            verify(delegate, times(2)).getInstances("user-service");
+        }
+
+        @Test
+        @DisplayName("未触发按需同步时应直接返回空结果")
+        void missWithoutResolveShouldReturnImmediately() {
+            when(delegate.getInstances("user-service")).thenReturn(Collections.emptyList());
+            when(discovery.resolveOnDemand("user-service", 1000)).thenReturn(CompletableFuture.completedFuture(false));
+
+            assertTrue(client.getInstances("user-service").isEmpty());
+            verify(delegate, times(1)).getInstances("user-service");
+        }
+
+        @Test
+        @DisplayName("Future 未在超时内完成时应返回原查询结果")
+        void shouldGiveUpWhenFutureNotCompleted() {
+            client = new LazySyncDiscoveryClient(delegate, discovery, 20);
+            when(delegate.getInstances("user-service")).thenReturn(Collections.emptyList());
+            when(discovery.resolveOnDemand("user-service", 20)).thenReturn(new CompletableFuture<>());
+
+            List<ServiceInstance> instances = client.getInstances("user-service");
+
+            assertTrue(instances.isEmpty());
+            verify(delegate, times(1)).getInstances("user-service");
+        }
+
+        @Test
+        @DisplayName("其他方法应委托给原 DiscoveryClient")
+        void shouldDelegateOtherMethods() {
+            when(delegate.description()).thenReturn("nacos");
+            when(delegate.getServices()).thenReturn(Collections.singletonList("user-service"));
+            when(delegate.getOrder()).thenReturn(5);
+
+            assertEquals("nacos", client.description());
+            assertEquals(Collections.singletonList("user-service"), client.getServices());
+            assertEquals(5, client.getOrder());
+            client.probe();
+            verify(delegate).probe();
+        }
+    }
+
+    @Nested
+    @DisplayName("BeanPostProcessor 测试")
+    class PostProcessorTest {
+
+        @Mock
+        private ObjectProvider<NacosFallbackServiceDiscovery> discoveryProvider;
+
+        @Mock
+        private ObjectProvider<NacosFallbackProperties> propertiesProvider;
+
+        private final NacosFallbackProperties properties = new NacosFallbackProperties();
+
+        @Mock
+        private ReactiveDiscoveryClient reactiveDelegate;
+
+        private LazySyncDiscoveryClient.PostProcessor postProcessor;
+
+        @BeforeEach
+        void setUp() {
+            postProcessor = new LazySyncDiscoveryClient.PostProcessor(discoveryProvider, propertiesProvider,
+                    delegate.getClass().getName(), reactiveDelegate.getClass().getName());
+        }
+
+        @Test
+        @DisplayName("启用懒同步时应包装 Nacos 的 DiscoveryClient")
+        void shouldWrapNacosDiscoveryClient() {
+            properties.setLazySyncEnabled(true);
+            when(propertiesProvider.getIfAvailable()).thenReturn(properties);
+            when(discoveryProvider.getIfAvailable()).thenReturn(discovery);
+
+            Object wrapped = postProcessor.postProcessAfterInitialization(delegate, "nacosDiscoveryClient");
+
+            assertTrue(wrapped instanceof LazySyncDiscoveryClient);
+            assertSame(wrapped, postProcessor.postProcessAfterInitialization(wrapped, "nacosDiscoveryClient"));
+        }
+
+        @Test
+        @DisplayName("启用懒同步时应包装 Nacos 的 ReactiveDiscoveryClient")
+        void shouldWrapNacosReactiveDiscoveryClient() {
+            properties.setLazySyncEnabled(true);
+            when(propertiesProvider.getIfAvailable()).thenReturn(properties);
+            when(discoveryProvider.getIfAvailable()).thenReturn(discovery);
+
+            Object wrapped = postProcessor.postProcessAfterInitialization(reactiveDelegate, "nacosReactiveDiscoveryClient");
+
+            assertTrue(wrapped instanceof LazySyncReactiveDiscoveryClient);
+            assertSame(wrapped, postProcessor.postProcessAfterInitialization(wrapped, "nacosReactiveDiscoveryClient"));
+        }
+
+        @Test
+        @DisplayName("未启用懒同步时不应包装")
+        void shouldNotWrapWhenDisabled() {
+            when(propertiesProvider.getIfAvailable()).thenReturn(properties);
+            when(discoveryProvider.getIfAvailable()).thenReturn(discovery);
+
+            assertSame(delegate, postProcessor.postProcessAfterInitialization(delegate, "nacosDiscoveryClient"));
+        }
+
+        @Test
+        @DisplayName("其他 Bean 与其他 DiscoveryClient 实现不应包装")
+        void shouldIgnoreOtherBeans() {
+            LazySyncDiscoveryClient.PostProcessor nacosOnly =
+                    new LazySyncDiscoveryClient.PostProcessor(discoveryProvider, propertiesProvider);
+            Object other = new Object();
+
+            assertSame(other, postProcessor.postProcessAfterInitialization(other, "other"));
+            assertSame(delegate, nacosOnly.postProcessAfterInitialization(delegate, "simpleDiscoveryClient"));
+            verifyNoInteractions(discoveryProvider, propertiesProvider);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.loadbalancer.core.DiscoveryClientServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Flux;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LazySyncReactiveDiscoveryClient 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LazySyncReactiveDiscoveryClient 测试")
+class LazySyncReactiveDiscoveryClientTest {
+
+    @Mock
+    private ReactiveDiscoveryClient delegate;
+
+    @Mock
+    private NacosFallbackServiceDiscovery discovery;
+
+    private final ServiceInstance instance = new DefaultServiceInstance("id", "user-service", "10.0.0.1", 8080, false);
+
+    private LazySyncReactiveDiscoveryClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = new LazySyncReactiveDiscoveryClient(delegate, discovery, 1000);
+    }
+
+    @Nested
+    @DisplayName("查询测试")
+    class GetInstancesTest {
+
+        @Test
+        @DisplayName("命中时应记录查询且不触发按需同步")
+        void hitShouldRecordLookup() {
+            when(delegate.getInstances("user-service")).thenReturn(Flux.just(instance));
+
+            assertEquals(Collections.singletonList(instance), client.getInstances("user-service").collectList().block());
+
+            verify(discovery).recordLookup("user-service");
+            verify(discovery, never()).resolveOnDemand(anyString(), anyLong());
+        }
+
+        @Test
+        @DisplayName("首次未命中时应等待 Future 完成后重新查询")
+        void firstMissShouldResolveAndRetry() {
+            when(delegate.getInstances("user-service"))
+                    .thenReturn(Flux.empty())
+                    .thenReturn(Flux.just(instance));
+            CompletableFuture<Boolean> visible = new CompletableFuture<>();
+            when(discovery.resolveOnDemand("user-service", 1000)).thenReturn(visible);
+
+            Flux<ServiceInstance> instances = client.getInstances("user-service");
+            visible.complete(true);
+
+            assertEquals(Collections.singletonList(instance), instances.collectList().block());
+            verify(delegate, times(2)).getInstances("user-service");
+        }
+
+        @Test
+        @DisplayName("未触发按需同步时应直接返回空结果")
+        void missWithoutResolveShouldReturnEmpty() {
+            when(delegate.getInstances("user-service")).thenReturn(Flux.empty());
+            when(discovery.resolveOnDemand("user-service", 1000)).thenReturn(CompletableFuture.completedFuture(false));
+
+            assertTrue(client.getInstances("user-service").collectList().block().isEmpty());
+            verify(delegate, times(1)).getInstances("user-service");
+        }
+
+        @Test
+        @DisplayName("其他方法应委托给原 ReactiveDiscoveryClient")
+        void shouldDelegateOtherMethods() {
+            when(delegate.description()).thenReturn("nacos-reactive");
+            when(delegate.getServices()).thenReturn(Flux.just("user-service"));
+            when(delegate.getOrder()).thenReturn(5);
+
+            assertEquals("nacos-reactive", client.description());
+            assertEquals(Collections.singletonList("user-service"), client.getServices().collectList().block());
+            assertEquals(5, client.getOrder());
+        }
+    }
+
+    @Nested
+    @DisplayName("LoadBalancer 查询测试")
+    class LoadBalancerTest {
+
+        private ServiceInstanceListSupplier supplier;
+
+        @BeforeEach
+        void setUp() {
+            // 与 ServiceInstanceListSupplier.builder().withDiscoveryClient() 构造的默认实现相同
+            supplier = new DiscoveryClientServiceInstanceListSupplier(client,
+                    new MockEnvironment().withProperty(LoadBalancerClientFactory.PROPERTY_NAME, "user-service"));
+        }
+
+        @Test
+        @DisplayName("LoadBalancer 的查询应记录到懒同步工作集")
+        void loadBalancerLookupShouldRecordLookup() {
+            when(delegate.getInstances("user-service")).thenReturn(Flux.just(instance));
+
+            assertEquals(Collections.singletonList(instance), supplier.get().blockFirst());
+            verify(discovery).recordLookup("user-service");
+        }
+
+        @Test
+        @DisplayName("LoadBalancer 首次查询未命中时应按需同步并返回可见的实例")
+        void loadBalancerMissShouldResolveOnDemand() {
+            when(delegate.getInstances("user-service"))
+                    .thenReturn(Flux.empty())
+                    .thenReturn(Flux.just(instance));
+            when(discovery.resolveOnDemand("user-service", 1000)).thenReturn(CompletableFuture.completedFuture(true));
+
+            List<ServiceInstance> instances = supplier.get().blockFirst();
+
+            assertEquals(Collections.singletonList(instance), instances);
+            verify(discovery).resolveOnDemand("user-service", 1000);
+        }
+    }
+}
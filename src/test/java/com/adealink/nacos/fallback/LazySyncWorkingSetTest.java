@@ -0,0 +1,64 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LazySyncWorkingSet 单元测试
+ */
+@DisplayName("LazySyncWorkingSet 测试")
+class LazySyncWorkingSetTest {
+
+    @Test
+    @DisplayName("只有首次查询应视为新加入")
+    void touchShouldReportNewServicesOnly() {
+        LazySyncWorkingSet workingSet = new LazySyncWorkingSet();
+
+        assertTrue(workingSet.touch("user-service", 1000));
+        assertFalse(workingSet.touch("user-service", 2000));
+        assertTrue(workingSet.contains("user-service"));
+        assertEquals(1, workingSet.size());
+    }
+
+    @Test
+    @DisplayName("应按最近一次查询时间淘汰空闲服务")
+    void shouldEvictByLastAccessTime() {
+        LazySyncWorkingSet workingSet = new LazySyncWorkingSet();
+        workingSet.touch("user-service", 1000);
+        workingSet.touch("order-service", 1000);
+        workingSet.touch("user-service", 5000); // 再次查询刷新时间
+
+        assertEquals(Collections.singleton("order-service"), workingSet.evictIdle(3000));
+        assertEquals(Collections.singleton("user-service"), workingSet.names());
+        assertTrue(workingSet.evictIdle(3000).isEmpty());
+    }
+
+    @Test
+    @DisplayName("被淘汰的服务再次查询时应重新视为新加入")
+    void evictedServiceShouldRejoin() {
+        LazySyncWorkingSet workingSet = new LazySyncWorkingSet();
+        workingSet.touch("user-service", 1000);
+        workingSet.evictIdle(2000);
+
+        assertFalse(workingSet.contains("user-service"));
+        assertTrue(workingSet.touch("user-service", 3000));
+    }
+
+    @Test
+    @DisplayName("names 应返回有序快照")
+    void namesShouldBeSortedSnapshot() {
+        LazySyncWorkingSet workingSet = new LazySyncWorkingSet();
+        workingSet.touch("user-service", 1000);
+        workingSet.touch("order-service", 1000);
+
+        assertEquals(new TreeSet<>(Arrays.asList("order-service", "user-service")), workingSet.names());
+        workingSet.names().clear();
+        assertEquals(2, workingSet.size());
+    }
+}
@@ -0,0 +1,334 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LeaderElection 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LeaderElection 测试")
+class LeaderElectionTest {
+
+    private static final String INSTANCE_ID = "node-a";
+    private static final String LEADER_SERVICE = "nacos-sync-leader";
+    private static final String GROUP = "DEFAULT_GROUP";
+
+    @Mock
+    private NacosFallbackServiceDiscovery discovery;
+
+    @Mock
+    private NamingService localNamingService;
+
+    private NacosFallbackProperties properties;
+    private LeaderElection election;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NacosFallbackProperties();
+        properties.setLeaderServiceName(LEADER_SERVICE);
+        properties.setLocalGroup(GROUP);
+        election = new LeaderElection(discovery, properties, INSTANCE_ID);
+        election.start(localNamingService);
+    }
+
+    private Instance leader(String instanceId, long term, String... extraMetadata) {
+        Instance instance = new Instance();
+        instance.setIp("127.0.0.1");
+        instance.setPort(1);
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("instanceId", instanceId);
+        metadata.put("startTime", "1");
+        if (term > 0) {
+            metadata.put("term", String.valueOf(term));
+        }
+        for (int i = 0; i + 1 < extraMetadata.length; i += 2) {
+            metadata.put(extraMetadata[i], extraMetadata[i + 1]);
+        }
+        instance.setMetadata(metadata);
+        return instance;
+    }
+
+    private Map<String, String> writtenInTerm(long term) {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("fallback", "true");
+        metadata.put("leader-term", String.valueOf(term));
+        return metadata;
+    }
+
+    /**
+     * 以指定任期成为候选 Leader
+     */
+    private void becomeCandidate(long observedTerm) throws NacosException {
+        when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                .thenReturn(observedTerm > 0
+                        ? Collections.singletonList(leader("node-old", observedTerm, "handoff", "true"))
+                        : Collections.emptyList());
+        assertTrue(election.registerCandidate());
+    }
+
+    @Nested
+    @DisplayName("竞选测试")
+    class CandidateTest {
+
+        @Test
+        @DisplayName("没有 Leader 时应以已观察到的最大任期加 1 注册候选实例")
+        void shouldRegisterCandidateWithNextTerm() throws Exception {
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenReturn(Collections.singletonList(leader("node-old", 3, "handoff", "true")));
+
+            assertTrue(election.registerCandidate());
+
+            ArgumentCaptor<Instance> captor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService).registerInstance(eq(LEADER_SERVICE), eq(GROUP), captor.capture());
+            assertEquals("4", captor.getValue().getMetadata().get("term"));
+            assertEquals(INSTANCE_ID, captor.getValue().getMetadata().get("instanceId"));
+            assertEquals(4, election.getLeaderTerm());
+            assertSame(captor.getValue(), election.getLeaderInstance());
+        }
+
+        @Test
+        @DisplayName("已有健康的 Leader 时不应注册候选实例")
+        void shouldNotRegisterWhenLeaderExists() throws Exception {
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenReturn(Collections.singletonList(leader("node-b", 2)));
+
+            assertFalse(election.registerCandidate());
+
+            verify(localNamingService, never()).registerInstance(anyString(), anyString(), any(Instance.class));
+            assertEquals(0, election.getLeaderTerm());
+            assertNull(election.getLeaderInstance());
+        }
+
+        @Test
+        @DisplayName("应记录正在交接的前任 Leader 且只取出一次")
+        void shouldRecordHandoffPredecessorOnce() throws Exception {
+            becomeCandidate(3);
+
+            assertEquals("node-old", election.takeHandoffPredecessor());
+            assertNull(election.takeHandoffPredecessor());
+        }
+
+        @Test
+        @DisplayName("分片模式下应以任期 0 注册为参与者")
+        void shouldRegisterParticipantWithoutTerm() throws Exception {
+            election.registerParticipant();
+
+            ArgumentCaptor<Instance> captor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService).registerInstance(eq(LEADER_SERVICE), eq(GROUP), captor.capture());
+            assertNull(captor.getValue().getMetadata().get("term"));
+            assertEquals(0, election.getLeaderTerm());
+            verify(localNamingService, never()).selectInstances(anyString(), anyString(), anyBoolean());
+        }
+
+        @Test
+        @DisplayName("确认选举时应按任期选出其他节点，本节点胜出时为 null")
+        void electOtherShouldCompareTerms() throws Exception {
+            becomeCandidate(0);
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenReturn(Arrays.asList(leader(INSTANCE_ID, 1), leader("node-b", 1, "startTime", "0")))
+                    .thenReturn(Arrays.asList(leader(INSTANCE_ID, 2), leader("node-b", 1)));
+
+            assertEquals("node-b", LeaderElection.leaderIdOf(election.electOther()));
+            assertNull(election.electOther());
+        }
+
+        @Test
+        @DisplayName("应按任期、startTime、instanceId 的顺序选出 Leader 并忽略交接中的实例")
+        void electedLeaderShouldFollowOrder() {
+            Instance older = leader("node-c", 5);
+            Instance newerTerm = leader("node-b", 6);
+            Instance handingOff = leader("node-a", 9, "handoff", "true");
+
+            assertSame(newerTerm, LeaderElection.electedLeader(
+                    LeaderElection.activeLeaders(Arrays.asList(older, newerTerm, handingOff))));
+            assertSame(older, LeaderElection.electedLeader(Arrays.asList(leader("node-d", 5, "startTime", "2"), older)));
+            assertNull(LeaderElection.electedLeader(Collections.emptyList()));
+        }
+    }
+
+    @Nested
+    @DisplayName("fencing 测试")
+    class FencingTest {
+
+        @Test
+        @DisplayName("看到更高任期写入的实例时应拦截写入并通知退位一次")
+        void higherTermWriteShouldSupersede() throws Exception {
+            becomeCandidate(0);
+            when(discovery.isLeader()).thenReturn(true);
+
+            assertTrue(election.isWrittenInOtherTerm(writtenInTerm(2)));
+            assertTrue(election.isWrittenInOtherTerm(writtenInTerm(3)));
+
+            assertTrue(election.isSuperseded());
+            verify(discovery, times(1)).onSuperseded();
+            assertThrows(IllegalStateException.class, election::checkFencing);
+        }
+
+        @Test
+        @DisplayName("本任期写入的实例属于本节点，更早任期的实例不属于本节点且不触发退位")
+        void sameOrOlderTermShouldNotSupersede() throws Exception {
+            becomeCandidate(3);
+
+            assertFalse(election.isWrittenInOtherTerm(writtenInTerm(4)));
+            assertTrue(election.isWrittenInOtherTerm(writtenInTerm(2)));
+
+            assertFalse(election.isSuperseded());
+            election.checkFencing();
+            verify(discovery, never()).onSuperseded();
+        }
+
+        @Test
+        @DisplayName("未持有任期时不应按任期区分实例")
+        void shouldIgnoreTermsWithoutLeadership() {
+            assertFalse(election.isWrittenInOtherTerm(writtenInTerm(7)));
+            verifyNoInteractions(discovery);
+        }
+
+        @Test
+        @DisplayName("非 Leader 时不应标记为已被取代")
+        void markSupersededShouldRequireLeadership() throws Exception {
+            becomeCandidate(0);
+            when(discovery.isLeader()).thenReturn(false);
+
+            election.markSuperseded("test");
+
+            assertFalse(election.isSuperseded());
+            verify(discovery, never()).onSuperseded();
+        }
+
+        @Test
+        @DisplayName("确认任期时看到其他节点胜出应退位，读取失败时沿用当前任期")
+        void confirmLeadershipShouldDetectSupersedingLeader() throws Exception {
+            becomeCandidate(0);
+            when(discovery.isLeader()).thenReturn(true);
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenThrow(new NacosException(NacosException.SERVER_ERROR, "timeout"))
+                    .thenReturn(Arrays.asList(leader(INSTANCE_ID, 1), leader("node-b", 2)));
+
+            assertTrue(election.confirmLeadership(false));
+            assertFalse(election.confirmLeadership(false));
+            assertFalse(election.confirmLeadership(false));
+
+            verify(discovery, times(1)).onSuperseded();
+            verify(localNamingService, times(3)).selectInstances(LEADER_SERVICE, GROUP, true);
+        }
+
+        @Test
+        @DisplayName("确认胜出后在检查间隔内不应再次读取 Leader 实例")
+        void confirmLeadershipShouldNotPollEveryCycle() throws Exception {
+            becomeCandidate(0);
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenReturn(Collections.singletonList(leader(INSTANCE_ID, 1)));
+
+            // 确认选举结果时已读取过一次
+            assertNull(election.electOther());
+            assertTrue(election.confirmLeadership(false));
+            assertTrue(election.confirmLeadership(true));
+
+            verify(localNamingService, times(2)).selectInstances(LEADER_SERVICE, GROUP, true);
+        }
+
+        @Test
+        @DisplayName("订阅推送时应按兜底间隔读取 Leader 实例")
+        void confirmLeadershipShouldFallBackToSafetyInterval() throws Exception {
+            becomeCandidate(0);
+            properties.setLeaderCheckIntervalSeconds(3600);
+            properties.setLeaderSafetyCheckIntervalSeconds(0);
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenReturn(Collections.singletonList(leader(INSTANCE_ID, 1)));
+
+            assertNull(election.electOther());
+            assertTrue(election.confirmLeadership(false));
+            assertTrue(election.confirmLeadership(true));
+
+            verify(localNamingService, times(3)).selectInstances(LEADER_SERVICE, GROUP, true);
+        }
+
+        @Test
+        @DisplayName("分片模式或未持有任期时确认任期不应读取 Leader 实例")
+        void confirmLeadershipShouldSkipWithoutTerm() throws Exception {
+            assertTrue(election.confirmLeadership(false));
+
+            properties.setShardingEnabled(true);
+            election.registerParticipant();
+            assertTrue(election.confirmLeadership(false));
+
+            verify(localNamingService, never()).selectInstances(anyString(), anyString(), anyBoolean());
+        }
+    }
+
+    @Nested
+    @DisplayName("交接与释放测试")
+    class HandoffTest {
+
+        @Test
+        @DisplayName("继任者标记 adopted-from 后交接应成功")
+        void handOffShouldSucceedWhenSuccessorAdopted() throws Exception {
+            becomeCandidate(0);
+            properties.setHandoffTimeoutMs(10_000);
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenReturn(Collections.singletonList(leader("node-b", 2, "adopted-from", INSTANCE_ID)));
+
+            assertTrue(election.handOff());
+
+            assertEquals("true", election.getLeaderInstance().getMetadata().get("handoff"));
+            verify(localNamingService, times(2)).registerInstance(eq(LEADER_SERVICE), eq(GROUP), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("没有候选实例时不应交接")
+        void handOffShouldRequireLeaderInstance() throws Exception {
+            assertFalse(election.handOff());
+            verifyNoInteractions(localNamingService);
+        }
+
+        @Test
+        @DisplayName("接管进度应写入 Leader 实例并在完成时移除 adopting-from")
+        void adoptionShouldAnnounceProgress() throws Exception {
+            becomeCandidate(3);
+
+            election.announceAdopting("node-old");
+            assertEquals("node-old", election.getLeaderInstance().getMetadata().get("adopting-from"));
+
+            election.announceAdopted("node-old");
+            Map<String, String> metadata = election.getLeaderInstance().getMetadata();
+            assertNull(metadata.get("adopting-from"));
+            assertEquals("node-old", metadata.get("adopted-from"));
+            verify(localNamingService, times(3)).registerInstance(eq(LEADER_SERVICE), eq(GROUP), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("释放时应注销候选实例并放弃任期与交接中的前任")
+        void releaseShouldDeregisterAndResetTerm() throws Exception {
+            becomeCandidate(3);
+            Instance candidate = election.getLeaderInstance();
+
+            election.release();
+
+            verify(localNamingService).deregisterInstance(LEADER_SERVICE, GROUP, candidate);
+            assertNull(election.getLeaderInstance());
+            assertEquals(0, election.getLeaderTerm());
+            assertNull(election.takeHandoffPredecessor());
+
+            // 释放后再次竞选的任期仍单调递增
+            becomeCandidate(0);
+            assertEquals(5, election.getLeaderTerm());
+        }
+    }
+}
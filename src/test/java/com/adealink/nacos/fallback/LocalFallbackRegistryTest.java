@@ -0,0 +1,108 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LocalFallbackRegistry 单元测试
+ */
+@DisplayName("LocalFallbackRegistry 测试")
+class LocalFallbackRegistryTest {
+
+    private LocalFallbackRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new LocalFallbackRegistry();
+    }
+
+    @Test
+    @DisplayName("未初始化的服务应视为未知")
+    void unseededServiceShouldBeUnknown() {
+        assertFalse(registry.isKnown("service-a"));
+        assertTrue(registry.getFallbackInstances("service-a").isEmpty());
+    }
+
+    @Test
+    @DisplayName("seed 后应返回读取到的 fallback 和原生实例")
+    void shouldReturnSeededInstances() {
+        registry.seed("service-a",
+                Collections.singletonList(createInstance("10.0.0.1", 8080)),
+                Collections.singletonList(createInstance("192.168.1.1", 8080)));
+
+        assertTrue(registry.isKnown("service-a"));
+        assertEquals(1, registry.getFallbackInstances("service-a").size());
+        assertEquals(1, registry.getNativeInstances("service-a").size());
+    }
+
+    @Test
+    @DisplayName("相同 ip:port 的注册应覆盖旧记录，注销应移除记录")
+    void shouldTrackRegistrationsByIpPort() {
+        registry.recordRegistered("service-a", createInstance("10.0.0.1", 8080));
+        registry.recordRegistered("service-a", createInstance("10.0.0.1", 8080));
+        registry.recordRegistered("service-a", createInstance("10.0.0.1", 8081));
+        assertEquals(2, registry.getFallbackInstanceCount("service-a"));
+
+        registry.recordDeregistered("service-a", createInstance("10.0.0.1", 8080));
+        List<Instance> remaining = registry.getFallbackInstances("service-a");
+        assertEquals(1, remaining.size());
+        assertEquals(8081, remaining.get(0).getPort());
+    }
+
+    @Test
+    @DisplayName("invalidate 应使服务变为未知但保留已注册实例")
+    void invalidateShouldKeepFallbackInstances() {
+        registry.seed("service-a", Collections.singletonList(createInstance("10.0.0.1", 8080)), Collections.emptyList());
+
+        registry.invalidate();
+
+        assertFalse(registry.isKnown("service-a"));
+        assertEquals(1, registry.getFallbackInstanceCount("service-a"));
+    }
+
+    @Test
+    @DisplayName("invalidate 后订阅推送不应使服务变为已知，重新 seed 应覆盖 fallback 视图")
+    void invalidateShouldRequireReseed() {
+        registry.seed("service-a", Collections.singletonList(createInstance("10.0.0.1", 8080)), Collections.emptyList());
+        registry.invalidate();
+
+        registry.updateNativeInstances("service-a", Collections.singletonList(createInstance("192.168.1.1", 8080)));
+        assertFalse(registry.isKnown("service-a"));
+
+        registry.seed("service-a", Collections.singletonList(createInstance("10.0.0.1", 8081)), Collections.emptyList());
+        assertTrue(registry.isKnown("service-a"));
+        List<Instance> fallbacks = registry.getFallbackInstances("service-a");
+        assertEquals(1, fallbacks.size());
+        assertEquals(8081, fallbacks.get(0).getPort());
+    }
+
+    @Test
+    @DisplayName("snapshot 应只包含持有实例的服务")
+    void snapshotShouldSkipEmptyServices() {
+        registry.recordRegistered("service-a", createInstance("10.0.0.1", 8080));
+        registry.recordRegistered("service-b", createInstance("10.0.0.1", 8081));
+        registry.recordDeregistered("service-b", createInstance("10.0.0.1", 8081));
+
+        Map<String, List<Instance>> snapshot = registry.snapshot();
+
+        assertEquals(1, snapshot.size());
+        assertTrue(snapshot.containsKey("service-a"));
+    }
+
+    private Instance createInstance(String ip, int port) {
+        Instance instance = new Instance();
+        instance.setIp(ip);
+        instance.setPort(port);
+        instance.setMetadata(new HashMap<>());
+        return instance;
+    }
+}
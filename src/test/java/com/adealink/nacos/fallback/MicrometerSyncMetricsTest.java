@@ -0,0 +1,124 @@
+package com.adealink.nacos.fallback;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * MicrometerSyncMetrics 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MicrometerSyncMetrics 测试")
+class MicrometerSyncMetricsTest {
+
+    @Mock
+    private NacosFallbackServiceDiscovery discovery;
+
+    private SimpleMeterRegistry registry;
+    private MicrometerSyncMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new MicrometerSyncMetrics(registry, discovery);
+    }
+
+    @Test
+    @DisplayName("一轮同步结束时应记录耗时、各阶段耗时与服务计数")
+    void shouldRecordCycle() {
+        SyncCycleStats stats = new SyncCycleStats();
+        stats.recordScanned();
+        stats.recordScanned();
+        stats.recordScanned();
+        stats.recordSynced();
+        stats.recordSkipped();
+        stats.recordFailed();
+        stats.addPhaseNanos(SyncMetrics.PHASE_FETCH, TimeUnit.MILLISECONDS.toNanos(30));
+
+        metrics.recordCycle(TimeUnit.MILLISECONDS.toNanos(50), stats, true);
+
+        assertEquals(1, registry.get("nacos.fallback.sync.cycle").tag("result", "success").timer().count());
+        assertEquals(0, registry.get("nacos.fallback.sync.cycle").tag("result", "failure").timer().count());
+        assertEquals(30, registry.get("nacos.fallback.sync.phase").tag("phase", "fetch").timer()
+                .totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(3.0, registry.get("nacos.fallback.sync.services").tag("result", "scanned").counter().count());
+        assertEquals(1.0, registry.get("nacos.fallback.sync.services").tag("result", "failed").counter().count());
+        assertEquals(1.0, registry.get("nacos.fallback.sync.last.services").tag("result", "synced").gauge().value());
+    }
+
+    @Test
+    @DisplayName("上一轮服务数应被新一轮覆盖，累计计数持续增加")
+    void lastCycleGaugeShouldBeOverwritten() {
+        SyncCycleStats first = new SyncCycleStats();
+        first.recordScanned();
+        first.recordScanned();
+        metrics.recordCycle(1, first, true);
+
+        SyncCycleStats second = new SyncCycleStats();
+        second.recordScanned();
+        metrics.recordCycle(1, second, false);
+
+        assertEquals(1.0, registry.get("nacos.fallback.sync.last.services").tag("result", "scanned").gauge().value());
+        assertEquals(3.0, registry.get("nacos.fallback.sync.services").tag("result", "scanned").counter().count());
+        assertEquals(1, registry.get("nacos.fallback.sync.cycle").tag("result", "failure").timer().count());
+    }
+
+    @Test
+    @DisplayName("应按调用目标与接口名记录 Nacos 调用耗时")
+    void shouldRecordRpcLatency() {
+        metrics.recordRpc(SyncMetrics.TARGET_REMOTE, "selectInstances", TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.recordRpc(SyncMetrics.TARGET_REMOTE, "selectInstances", TimeUnit.MILLISECONDS.toNanos(7));
+        metrics.recordRpc(SyncMetrics.TARGET_LOCAL, "registerInstance", TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertEquals(2, registry.get("nacos.fallback.rpc")
+                .tag("target", "remote").tag("operation", "selectInstances").timer().count());
+        assertEquals(1, registry.get("nacos.fallback.rpc")
+                .tag("target", "local").tag("operation", "registerInstance").timer().count());
+    }
+
+    @Test
+    @DisplayName("应累计新增与删除的实例数")
+    void shouldCountInstances() {
+        metrics.recordInstancesAdded(3);
+        metrics.recordInstancesRemoved(2);
+        metrics.recordInstancesAdded(1);
+
+        assertEquals(4.0, registry.get("nacos.fallback.sync.instances").tag("action", "added").counter().count());
+        assertEquals(2.0, registry.get("nacos.fallback.sync.instances").tag("action", "removed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Leader 状态仪表应反映当前身份")
+    void leaderGaugeShouldReflectState() {
+        when(discovery.isLeader()).thenReturn(true).thenReturn(false);
+
+        assertEquals(1.0, registry.get("nacos.fallback.leader").gauge().value());
+        assertEquals(0.0, registry.get("nacos.fallback.leader").gauge().value());
+    }
+
+    @Test
+    @DisplayName("尚未成功同步时距上次成功同步的时间应为 NaN")
+    void lastSuccessAgeShouldBeNaNBeforeFirstSuccess() {
+        when(discovery.getLastSuccessfulSyncTime()).thenReturn(0L);
+
+        assertTrue(Double.isNaN(registry.get("nacos.fallback.sync.last.success.age").gauge().value()));
+    }
+
+    @Test
+    @DisplayName("应返回距上次成功同步的秒数")
+    void shouldReportSecondsSinceLastSuccess() {
+        when(discovery.getLastSuccessfulSyncTime()).thenReturn(System.currentTimeMillis() - 5000);
+
+        double age = registry.get("nacos.fallback.sync.last.success.age").gauge().value();
+        assertTrue(age >= 5 && age < 10, "age: " + age);
+    }
+}
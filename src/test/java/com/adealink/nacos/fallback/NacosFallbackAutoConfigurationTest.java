@@ -1,5 +1,6 @@
 package com.adealink.nacos.fallback;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -61,6 +62,24 @@ class NacosFallbackAutoConfigurationTest {
             // 停止以清理内部调度器
             discovery.stop();
         }
+
+        @Test
+        @DisplayName("存在 MeterRegistry 时应注册同步指标")
+        void shouldRegisterSyncMetricsWithMeterRegistry() {
+            NacosFallbackProperties properties = new NacosFallbackProperties();
+            properties.setEnabled(true);
+            properties.setTestPublicIp("10.0.0.1");
+            NacosFallbackServiceDiscovery discovery = new NacosFallbackServiceDiscovery(properties);
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+            MicrometerSyncMetrics metrics = new NacosFallbackAutoConfiguration.MetricsConfiguration()
+                    .nacosFallbackSyncMetrics(meterRegistry, discovery);
+
+            assertThat(metrics).isNotNull();
+            assertThat(meterRegistry.find("nacos.fallback.leader").gauge()).isNotNull();
+
+            discovery.stop();
+        }
     }
 
     @Nested
@@ -0,0 +1,151 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * NacosFallbackEndpoint 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NacosFallbackEndpoint 测试")
+class NacosFallbackEndpointTest {
+
+    @Mock
+    private NacosFallbackServiceDiscovery discovery;
+
+    private NacosFallbackEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        endpoint = new NacosFallbackEndpoint(discovery);
+    }
+
+    @Test
+    @DisplayName("应返回 Leader 状态、已同步服务及上一轮同步信息")
+    @SuppressWarnings("unchecked")
+    void shouldExposeState() {
+        SyncCycleStats cycle = new SyncCycleStats();
+        cycle.recordScanned();
+        cycle.recordSynced();
+        cycle.recordAdded(2);
+        cycle.complete(TimeUnit.MILLISECONDS.toNanos(120), true);
+
+        when(discovery.isLeader()).thenReturn(true);
+        when(discovery.getInstanceId()).thenReturn("node-1");
+        when(discovery.getLastCycleStats()).thenReturn(cycle);
+        when(discovery.getSyncedServices()).thenReturn(new TreeSet<>(Collections.singleton("order-service")));
+        when(discovery.getServiceStatuses()).thenReturn(Collections.singletonMap("order-service",
+                ServiceSyncStatus.synced(1000L, 2, 0xabcL)));
+
+        Map<String, Object> state = endpoint.state();
+
+        assertEquals(true, state.get("leader"));
+        assertEquals("node-1", state.get("instanceId"));
+        assertEquals(Collections.singleton("order-service"), state.get("syncedServices"));
+        Map<String, Object> lastCycle = (Map<String, Object>) state.get("lastCycle");
+        assertEquals(120L, lastCycle.get("durationMs"));
+        assertEquals(1, lastCycle.get("syncedServices"));
+        assertEquals(2, lastCycle.get("addedInstances"));
+        Map<String, Object> services = (Map<String, Object>) state.get("services");
+        Map<String, Object> service = (Map<String, Object>) services.get("order-service");
+        assertEquals(1000L, service.get("lastSyncTime"));
+        assertEquals(2, service.get("instanceCount"));
+        assertEquals("abc", service.get("fingerprint"));
+        assertEquals(false, service.get("circuitOpen"));
+    }
+
+    @Test
+    @DisplayName("尚未同步时上一轮同步信息应为空")
+    void lastCycleShouldBeNullBeforeFirstSync() {
+        when(discovery.getServiceStatuses()).thenReturn(Collections.emptyMap());
+
+        Map<String, Object> state = endpoint.state();
+
+        assertTrue(state.containsKey("lastCycle"));
+        assertNull(state.get("lastCycle"));
+        assertFalse(state.containsKey("shardParticipants"));
+        assertFalse(state.containsKey("leaderTerm"));
+        assertFalse(state.containsKey("lazyWorkingSet"));
+    }
+
+    @Test
+    @DisplayName("分片模式下应返回参与者")
+    void shouldExposeShardParticipants() {
+        Set<String> participants = new TreeSet<>(Arrays.asList("node-1", "node-2"));
+        when(discovery.getShardParticipants()).thenReturn(participants);
+        when(discovery.getServiceStatuses()).thenReturn(Collections.emptyMap());
+
+        Map<String, Object> state = endpoint.state();
+
+        assertEquals(participants, state.get("shardParticipants"));
+    }
+
+    @Test
+    @DisplayName("懒同步模式下应返回工作集")
+    void shouldExposeLazyWorkingSet() {
+        Set<String> workingSet = new TreeSet<>(Arrays.asList("order-service", "user-service"));
+        when(discovery.getLazyWorkingSet()).thenReturn(workingSet);
+        when(discovery.getServiceStatuses()).thenReturn(Collections.emptyMap());
+
+        Map<String, Object> state = endpoint.state();
+
+        assertEquals(workingSet, state.get("lazyWorkingSet"));
+    }
+
+    @Test
+    @DisplayName("持有 Leader 任期时应返回任期")
+    void shouldExposeLeaderTerm() {
+        when(discovery.getLeaderTerm()).thenReturn(7L);
+        when(discovery.getServiceStatuses()).thenReturn(Collections.emptyMap());
+
+        Map<String, Object> state = endpoint.state();
+
+        assertEquals(7L, state.get("leaderTerm"));
+    }
+
+    @Test
+    @DisplayName("应返回失败服务的错误信息与熔断状态")
+    void shouldExposeFailureState() {
+        ServiceSyncStatus status = ServiceSyncStatus.failed(ServiceSyncStatus.synced(1000L, 1, 1L), 2000L, "timeout");
+        when(discovery.getServiceStatuses()).thenReturn(Collections.singletonMap("order-service", status));
+        when(discovery.getServiceBackoffRemainingMs("order-service")).thenReturn(5000L);
+
+        Map<String, Object> service = endpoint.service("order-service");
+
+        assertEquals(1000L, service.get("lastSyncTime"));
+        assertEquals(1, service.get("consecutiveFailures"));
+        assertEquals("timeout", service.get("lastError"));
+        assertEquals(true, service.get("circuitOpen"));
+        assertEquals(5000L, service.get("backoffRemainingMs"));
+    }
+
+    @Test
+    @DisplayName("未跟踪的服务应返回 null")
+    void unknownServiceShouldReturnNull() {
+        when(discovery.getServiceStatuses()).thenReturn(Collections.emptyMap());
+
+        assertNull(endpoint.service("unknown"));
+    }
+
+    @Test
+    @DisplayName("触发同步应委托给同步组件")
+    void syncShouldDelegate() {
+        when(discovery.triggerSync("order-service")).thenReturn(true);
+        when(discovery.triggerSync(null)).thenReturn(false);
+
+        assertEquals(true, endpoint.sync("order-service").get("triggered"));
+        Map<String, Object> result = endpoint.sync(null);
+        assertEquals(false, result.get("triggered"));
+        assertNotNull(result.get("reason"));
+    }
+}
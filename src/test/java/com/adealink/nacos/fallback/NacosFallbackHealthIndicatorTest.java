@@ -0,0 +1,127 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * NacosFallbackHealthIndicator 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NacosFallbackHealthIndicator 测试")
+class NacosFallbackHealthIndicatorTest {
+
+    @Mock
+    private NacosFallbackServiceDiscovery discovery;
+
+    private NacosFallbackProperties properties;
+    private NacosFallbackHealthIndicator indicator;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NacosFallbackProperties();
+        properties.setSyncIntervalSeconds(60);
+        properties.setLeaderCheckIntervalSeconds(10);
+        properties.setHealthStaleMultiplier(3);
+        indicator = new NacosFallbackHealthIndicator(discovery, properties);
+    }
+
+    @Test
+    @DisplayName("Leader 最近成功同步时应为 UP 并包含上一轮耗时")
+    void leaderWithFreshSyncShouldBeUp() {
+        SyncCycleStats cycle = new SyncCycleStats();
+        cycle.addPhaseNanos(SyncMetrics.PHASE_LIST, TimeUnit.MILLISECONDS.toNanos(40));
+        cycle.complete(TimeUnit.MILLISECONDS.toNanos(250), true);
+        when(discovery.isLeader()).thenReturn(true);
+        when(discovery.getLastSuccessfulSyncTime()).thenReturn(System.currentTimeMillis() - 30_000);
+        when(discovery.getLastCycleStats()).thenReturn(cycle);
+
+        Health health = indicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(250L, health.getDetails().get("lastCycleDurationMs"));
+        assertEquals(40L, health.getDetails().get("lastCycleListMs"));
+        assertEquals(true, health.getDetails().get("leader"));
+    }
+
+    @Test
+    @DisplayName("Leader 上次成功同步超过倍数间隔时应为 DEGRADED")
+    void leaderWithStaleSyncShouldBeDegraded() {
+        when(discovery.isLeader()).thenReturn(true);
+        when(discovery.getLastSuccessfulSyncTime()).thenReturn(System.currentTimeMillis() - 200_000);
+
+        Health health = indicator.health();
+
+        assertEquals(NacosFallbackHealthIndicator.DEGRADED, health.getStatus());
+        assertNotNull(health.getDetails().get("reason"));
+    }
+
+    @Test
+    @DisplayName("刚成为 Leader 尚未完成同步时应为 UP")
+    void newLeaderWithinGraceShouldBeUp() {
+        when(discovery.isLeader()).thenReturn(true);
+        when(discovery.getLeaderSince()).thenReturn(System.currentTimeMillis() - 10_000);
+
+        assertEquals(Status.UP, indicator.health().getStatus());
+    }
+
+    @Test
+    @DisplayName("推送模式下应按对账间隔判定陈旧")
+    void shouldUseReconcileIntervalInSubscribeMode() {
+        properties.setSubscribeEnabled(true);
+        properties.setReconcileIntervalSeconds(300);
+        when(discovery.isLeader()).thenReturn(true);
+        when(discovery.getLastSuccessfulSyncTime()).thenReturn(System.currentTimeMillis() - 600_000);
+
+        assertEquals(Status.UP, indicator.health().getStatus());
+    }
+
+    @Test
+    @DisplayName("Follower 最近观察到 Leader 时应为 UP")
+    void followerWithObservedLeaderShouldBeUp() {
+        when(discovery.getLastLeaderObservedTime()).thenReturn(System.currentTimeMillis() - 5_000);
+
+        Health health = indicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(false, health.getDetails().get("leader"));
+    }
+
+    @Test
+    @DisplayName("Follower 长时间未观察到 Leader 时应为 DOWN")
+    void followerWithoutLeaderShouldBeDown() {
+        when(discovery.getLastLeaderObservedTime()).thenReturn(System.currentTimeMillis() - 60_000);
+
+        assertEquals(Status.DOWN, indicator.health().getStatus());
+    }
+
+    @Test
+    @DisplayName("订阅 Leader 选举服务时 Follower 应按兜底检查间隔判定")
+    void followerWithLeaderSubscriptionShouldUseSafetyInterval() {
+        properties.setLeaderSubscribeEnabled(true);
+        properties.setLeaderSafetyCheckIntervalSeconds(60);
+        when(discovery.getLastLeaderObservedTime()).thenReturn(System.currentTimeMillis() - 60_000);
+
+        assertEquals(Status.UP, indicator.health().getStatus());
+    }
+
+    @Test
+    @DisplayName("健康检查不应访问 Nacos，只读取缓存状态")
+    void shouldNotTriggerSync() {
+        when(discovery.getLastLeaderObservedTime()).thenReturn(System.currentTimeMillis());
+
+        indicator.health();
+
+        verify(discovery, never()).triggerSync(any());
+    }
+}
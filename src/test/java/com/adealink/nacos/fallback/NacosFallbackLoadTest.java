@@ -0,0 +1,456 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 基于 InMemoryNamingService 的压力测试：2,000 个服务规模下的完整同步、稳定状态、实例变更、
+ * 调用延迟与失败以及 Leader 切换
+ * <p>
+ * 默认的 mvn test 不运行，通过 mvn -P load-test test 执行
+ */
+@Tag("load")
+@DisplayName("同步压力测试")
+class NacosFallbackLoadTest {
+
+    private static final long AWAIT_SECONDS = 10;
+
+    private static final int SERVICE_COUNT = 2000;
+    private static final int INSTANCES_PER_SERVICE = 3;
+    private static final int CHURN_MUTATIONS = 200;
+    private static final String TEST_PUBLIC_IP = "10.0.0.1";
+
+    private NacosFallbackProperties properties;
+    private InMemoryNamingService.Factory factory;
+    private InMemoryNamingService.Server localServer;
+    private InMemoryNamingService.Server testServer;
+    private final List<NacosFallbackServiceDiscovery> nodes = new ArrayList<>();
+    private final Map<NacosFallbackServiceDiscovery, DeferredTaskScheduler> schedulers = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new NacosFallbackProperties();
+        properties.setEnabled(true);
+        properties.setTestPublicIp(TEST_PUBLIC_IP);
+        properties.setTestPrivateIpPrefix("172.");
+        properties.setSyncParallelism(8);
+        properties.setBatchRegisterEnabled(true); // 内存服务端模拟 Nacos 2.x，多实例服务需要批量注册
+        properties.setSyncIntervalSeconds(86400);
+        properties.setLeaderCheckIntervalSeconds(86400);
+        properties.setLeaderElectionWaitMs(0); // 注册后立即确认，节点启动后即可断言角色
+
+        factory = new InMemoryNamingService.Factory();
+        localServer = factory.server(properties.getLocalServerAddr());
+        testServer = factory.server(properties.getTestServerAddr());
+        for (int i = 0; i < SERVICE_COUNT; i++) {
+            Instance[] instances = new Instance[INSTANCES_PER_SERVICE];
+            for (int j = 0; j < INSTANCES_PER_SERVICE; j++) {
+                instances[j] = instance("172.16." + (i / 250) + "." + (i % 250 + 1), 20000 + j);
+            }
+            testServer.register(properties.getTestGroup(), serviceName(i), instances);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (NacosFallbackServiceDiscovery node : nodes) {
+            node.stop();
+        }
+        factory.close();
+    }
+
+    private static String serviceName(int index) {
+        return String.format("service-%04d", index);
+    }
+
+    private static Instance instance(String ip, int port) {
+        Instance instance = new Instance();
+        instance.setIp(ip);
+        instance.setPort(port);
+        instance.setWeight(1.0);
+        instance.setHealthy(true);
+        instance.setEnabled(true);
+        instance.setEphemeral(true);
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("version", "1.0.0");
+        instance.setMetadata(metadata);
+        return instance;
+    }
+
+    /**
+     * 启动一个节点（独立调度器与客户端，共享内存 Nacos），定期同步与 Leader 检查由测试手动触发
+     */
+    private NacosFallbackServiceDiscovery startNode() {
+        return startNode(SyncMetrics.NOOP);
+    }
+
+    /**
+     * 启动一个节点，初始化前设置同步指标，用于等待节点的首轮同步
+     */
+    private NacosFallbackServiceDiscovery startNode(SyncMetrics syncMetrics) {
+        DeferredTaskScheduler scheduler = new DeferredTaskScheduler("nacos-fallback-load-");
+        NacosFallbackServiceDiscovery node = new NacosFallbackServiceDiscovery(properties,
+                scheduler, factory, UUID.randomUUID().toString(), true);
+        nodes.add(node);
+        schedulers.put(node, scheduler);
+        node.setSyncMetrics(syncMetrics);
+        node.initialize();
+        return node;
+    }
+
+    /**
+     * 下一轮同步结束时完成（通过同步指标回调通知，不轮询）
+     */
+    private static SyncMetrics completeOnCycle(CompletableFuture<SyncCycleStats> cycle) {
+        return new SyncMetrics() {
+            @Override
+            public void recordCycle(long durationNanos, SyncCycleStats stats, boolean success) {
+                cycle.complete(stats);
+            }
+        };
+    }
+
+    /**
+     * 等待节点调度器上已提交的任务执行完：调度器只有一个线程按提交顺序执行，
+     * 第二次提交等待的是第一轮任务执行期间再提交的任务（例如处理推送时提交的退位）
+     */
+    private void drainScheduler(NacosFallbackServiceDiscovery node) throws Exception {
+        DeferredTaskScheduler scheduler = schedulers.get(node);
+        for (int i = 0; i < 2; i++) {
+            scheduler.submit(() -> { }).get(AWAIT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 断言本地 fallback 实例与测试环境一致：有健康实例的服务，本地 ip:port 集合应等于重写后的测试环境健康实例集合
+     */
+    private void assertConverged() {
+        Set<String> testServices = new HashSet<>(testServer.serviceNames(properties.getTestGroup()));
+        for (String serviceName : testServices) {
+            Set<String> expected = new TreeSet<>();
+            for (Instance instance : testServer.instances(properties.getTestGroup(), serviceName)) {
+                if (instance.isHealthy() && instance.isEnabled() && instance.getWeight() > 0) {
+                    expected.add(TEST_PUBLIC_IP + ":" + instance.getPort());
+                }
+            }
+            if (expected.isEmpty()) {
+                continue; // 没有健康实例时保留旧的 fallback 实例
+            }
+            assertEquals(expected, localFallbackAddresses(serviceName), "service " + serviceName);
+        }
+    }
+
+    private Set<String> localFallbackAddresses(String serviceName) {
+        Set<String> addresses = new TreeSet<>();
+        for (Instance instance : localServer.instances(properties.getLocalGroup(), serviceName)) {
+            if ("true".equals(instance.getMetadata().get("fallback"))) {
+                addresses.add(instance.getIp() + ":" + instance.getPort());
+            }
+        }
+        return addresses;
+    }
+
+    private long localWrites() {
+        return localServer.getCallCount("registerInstance") + localServer.getCallCount("batchRegisterInstance")
+                + localServer.getCallCount("deregisterInstance") + localServer.getCallCount("batchDeregisterInstance");
+    }
+
+    @Test
+    @DisplayName("首次同步应注册全部服务的 fallback 实例")
+    void initialSyncShouldRegisterAllServices() {
+        NacosFallbackServiceDiscovery leader = startNode();
+
+        assertTrue(leader.isLeader());
+        assertEquals(SERVICE_COUNT, leader.getLastCycleStats().getSyncedServices());
+        assertEquals(SERVICE_COUNT * INSTANCES_PER_SERVICE, leader.getLastCycleStats().getAddedInstances());
+        // 本地还包含 Leader 选举服务
+        assertEquals(SERVICE_COUNT * INSTANCES_PER_SERVICE + 1, localServer.instanceCount());
+        assertConverged();
+    }
+
+    @Test
+    @DisplayName("稳定状态下一轮同步不应写入本地 Nacos")
+    void steadyStateCycleShouldNotWrite() {
+        NacosFallbackServiceDiscovery leader = startNode();
+        localServer.resetCallCounts();
+
+        leader.syncServices();
+
+        assertEquals(0, localWrites());
+        assertEquals(SERVICE_COUNT, leader.getLastCycleStats().getSkippedServices());
+        assertEquals(0, leader.getLastCycleStats().getFailedServices());
+    }
+
+    @Test
+    @DisplayName("测试环境持续变更时每轮同步后应收敛")
+    void shouldConvergeUnderChurn() {
+        NacosFallbackServiceDiscovery leader = startNode();
+        InMemoryNamingService.Server.Churn churn = testServer.churn(properties.getTestGroup(), 20240601L);
+
+        for (int round = 0; round < 5; round++) {
+            churn.step(CHURN_MUTATIONS);
+            localServer.resetCallCounts();
+
+            leader.syncServices();
+
+            assertConverged();
+            // 每次变更最多影响一个实例，写入次数应与变更数同量级，而不是全量重写
+            assertTrue(localWrites() <= CHURN_MUTATIONS * 2, "local writes: " + localWrites());
+        }
+    }
+
+    @Test
+    @DisplayName("调用有延迟且部分失败时失败的服务应保留旧实例，恢复后一轮同步即收敛")
+    void shouldRecoverFromLatencyAndErrors() {
+        NacosFallbackServiceDiscovery leader = startNode();
+        InMemoryNamingService.Server.Churn churn = testServer.churn(properties.getTestGroup(), 7L);
+        testServer.setLatency(Duration.ofNanos(200_000), Duration.ofMillis(1))
+                .setErrorRate("selectInstances", 0.1);
+        localServer.setLatency(Duration.ofNanos(100_000), Duration.ofNanos(500_000))
+                .setErrorRate("registerInstance", 0.1);
+
+        leader.syncServices();
+
+        assertTrue(leader.getLastCycleStats().getFailedServices() > 0);
+        assertEquals(SERVICE_COUNT * INSTANCES_PER_SERVICE, localFallbackCount(),
+                "failed services should retain their fallback instances");
+
+        churn.step(300);
+        leader.syncServices();
+
+        testServer.setErrorRate("selectInstances", 0);
+        localServer.setErrorRate("registerInstance", 0);
+        leader.syncServices();
+
+        assertEquals(0, leader.getLastCycleStats().getFailedServices());
+        assertConverged();
+    }
+
+    @Test
+    @DisplayName("多个节点只应有一个 Leader，Leader 停止后其他节点接管并重新同步")
+    void followerShouldTakeOverAfterLeaderStops() {
+        NacosFallbackServiceDiscovery first = startNode();
+        NacosFallbackServiceDiscovery second = startNode();
+
+        assertTrue(first.isLeader());
+        assertFalse(second.isLeader());
+        second.checkAndTryBecomeLeader();
+        assertFalse(second.isLeader());
+
+        first.stop();
+        nodes.remove(first);
+        assertEquals(0, localFallbackCount());
+
+        second.checkAndTryBecomeLeader();
+
+        assertTrue(second.isLeader());
+        assertEquals(SERVICE_COUNT, second.getLastCycleStats().getSyncedServices());
+        assertConverged();
+    }
+
+    @Test
+    @DisplayName("订阅 Leader 选举服务时 Leader 停止后 Follower 应立即接管，无需等待定期检查")
+    void followerShouldTakeOverOnLeaderEvent() throws Exception {
+        properties.setLeaderSubscribeEnabled(true);
+        NacosFallbackServiceDiscovery first = startNode();
+        CompletableFuture<SyncCycleStats> takeover = new CompletableFuture<>();
+        NacosFallbackServiceDiscovery second = startNode(completeOnCycle(takeover));
+        assertTrue(first.isLeader());
+        assertFalse(second.isLeader());
+
+        long start = System.nanoTime();
+        first.stop();
+        nodes.remove(first);
+
+        // 定期检查间隔为一天，只有推送能触发接管
+        assertNotNull(takeover.get(AWAIT_SECONDS, TimeUnit.SECONDS), "follower did not take over");
+        assertTrue(second.isLeader());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+        assertEquals(SERVICE_COUNT, second.getLastCycleStats().getSyncedServices());
+        assertConverged();
+    }
+
+    @Test
+    @DisplayName("Leader 交接时继任者应接管已有实例，前任不注销实例且服务不出现空缺")
+    void leaderShouldHandOffWithoutRegistryWipe() throws Exception {
+        properties.setLeaderSubscribeEnabled(true);
+        properties.setHandoffEnabled(true);
+        properties.setHandoffTimeoutMs(10_000);
+        NacosFallbackServiceDiscovery first = startNode();
+        CompletableFuture<SyncCycleStats> successorCycle = new CompletableFuture<>();
+        NacosFallbackServiceDiscovery second = startNode(completeOnCycle(successorCycle));
+        localServer.resetCallCounts();
+
+        first.stop();
+        nodes.remove(first);
+
+        // stop 返回时继任者已注册自己的副本，前任的实例随客户端关闭一并注销
+        assertTrue(second.isLeader());
+        assertEquals(0, localServer.getCallCount("deregisterInstance") + localServer.getCallCount("batchDeregisterInstance"));
+        assertEquals(SERVICE_COUNT * INSTANCES_PER_SERVICE, localFallbackCount());
+        assertConverged();
+
+        // 继任者随后的完整同步与接管的实例一致，不再写入
+        assertEquals(0, successorCycle.get(AWAIT_SECONDS, TimeUnit.SECONDS).getAddedInstances());
+        assertEquals(0, localServer.getCallCount("deregisterInstance") + localServer.getCallCount("batchDeregisterInstance"));
+    }
+
+    @Test
+    @DisplayName("选举等待期间不应阻塞初始化线程，确认后完成同步")
+    void electionWaitShouldNotBlockInitialization() throws Exception {
+        properties.setLeaderElectionWaitMs(300);
+        CompletableFuture<SyncCycleStats> firstCycle = new CompletableFuture<>();
+
+        long start = System.nanoTime();
+        NacosFallbackServiceDiscovery leader = startNode(completeOnCycle(firstCycle));
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        NacosFallbackServiceDiscovery follower = startNode();
+
+        assertTrue(elapsedMs < 300, "initialize blocked for " + elapsedMs + " ms");
+        assertFalse(leader.isLeader());
+        firstCycle.get(AWAIT_SECONDS, TimeUnit.SECONDS);
+        assertTrue(leader.isLeader());
+        // 候选实例注册后即对其他节点可见，后启动的节点不参与竞选
+        assertFalse(follower.isLeader());
+        assertEquals(0, follower.getLeaderTerm());
+        assertConverged();
+    }
+
+    @Test
+    @DisplayName("租约失效的旧 Leader 看到更高任期后应停止写入并退位，只保留新 Leader 的实例")
+    void supersededLeaderShouldStepDown() throws Exception {
+        properties.setLeaderSubscribeEnabled(true);
+        NacosFallbackServiceDiscovery first = startNode();
+        CompletableFuture<SyncCycleStats> takeover = new CompletableFuture<>();
+        NacosFallbackServiceDiscovery second = startNode(completeOnCycle(takeover));
+        long firstTerm = first.getLeaderTerm();
+
+        // 模拟网络分区：服务端摘除旧 Leader 的选举实例，旧 Leader 自身尚未察觉
+        assertTrue(localServer.remove(properties.getLocalGroup(), properties.getLeaderServiceName(), "127.0.0.1", 1));
+
+        // 新 Leader 注册时推送已提交到旧 Leader 的调度器，等待其处理推送并退位
+        takeover.get(AWAIT_SECONDS, TimeUnit.SECONDS);
+        drainScheduler(first);
+        assertFalse(first.isLeader());
+        assertTrue(second.isLeader());
+        assertTrue(second.getLeaderTerm() > firstTerm);
+        assertConverged();
+
+        // 旧 Leader 退位时已清理自己的实例，剩余实例均由新任期写入
+        String newTerm = String.valueOf(second.getLeaderTerm());
+        int fallbackCount = 0;
+        for (String serviceName : localServer.serviceNames(properties.getLocalGroup())) {
+            for (Instance instance : localServer.instances(properties.getLocalGroup(), serviceName)) {
+                if ("true".equals(instance.getMetadata().get("fallback"))) {
+                    assertEquals(newTerm, instance.getMetadata().get("leader-term"), serviceName);
+                    fallbackCount++;
+                }
+            }
+        }
+        assertEquals(SERVICE_COUNT * INSTANCES_PER_SERVICE, fallbackCount);
+    }
+
+    @Test
+    @DisplayName("分片模式下多个节点应分担全部服务，稳定后不再写入")
+    void shardedNodesShouldSplitServices() {
+        properties.setShardingEnabled(true);
+        List<NacosFallbackServiceDiscovery> shards = Arrays.asList(startNode(), startNode(), startNode());
+
+        // 先启动的节点在后续节点加入后的下一轮同步中释放不再负责的服务
+        syncAll(shards);
+
+        assertShardsCoverAllServices(shards);
+        assertConverged();
+        // 每个实例只由一个节点注册，另有 3 个参与者实例
+        assertEquals(SERVICE_COUNT * INSTANCES_PER_SERVICE + 3, localServer.instanceCount());
+
+        localServer.resetCallCounts();
+        syncAll(shards);
+        assertEquals(0, localWrites());
+    }
+
+    @Test
+    @DisplayName("分片模式下节点退出后其余节点应在下一轮同步中接管其服务")
+    void shardedNodesShouldTakeOverAfterNodeLeaves() {
+        properties.setShardingEnabled(true);
+        List<NacosFallbackServiceDiscovery> shards = new ArrayList<>(Arrays.asList(startNode(), startNode(), startNode()));
+        syncAll(shards);
+
+        NacosFallbackServiceDiscovery leaving = shards.remove(1);
+        leaving.stop();
+        nodes.remove(leaving);
+        syncAll(shards);
+
+        assertShardsCoverAllServices(shards);
+        assertConverged();
+        assertEquals(SERVICE_COUNT * INSTANCES_PER_SERVICE + 2, localServer.instanceCount());
+    }
+
+    @Test
+    @DisplayName("懒同步模式下只同步查询过的服务，Follower 的查询由 Leader 按需同步")
+    void lazySyncShouldOnlySyncRequestedServices() throws Exception {
+        properties.setLazySyncEnabled(true);
+        NacosFallbackServiceDiscovery leader = startNode();
+        NacosFallbackServiceDiscovery follower = startNode();
+        assertTrue(leader.isLeader());
+        assertEquals(0, localFallbackCount());
+        assertEquals(0, testServer.getCallCount("selectInstances"));
+
+        // Leader 自己的查询在返回前同步完成
+        assertTrue(leader.resolveOnDemand(serviceName(1), 5000).get());
+        assertEquals(INSTANCES_PER_SERVICE, localFallbackAddresses(serviceName(1)).size());
+
+        // Follower 发布工作集，Leader 收到推送后同步，Follower 收到新实例的推送后完成
+        assertTrue(follower.resolveOnDemand(serviceName(2), 5000).get());
+        assertEquals(INSTANCES_PER_SERVICE, localFallbackAddresses(serviceName(2)).size());
+
+        // 定期同步只刷新两个节点的工作集
+        testServer.resetCallCounts();
+        leader.syncServices();
+        assertEquals(new TreeSet<>(Arrays.asList(serviceName(1), serviceName(2))), leader.getSyncedServices());
+        assertTrue(testServer.getCallCount("selectInstances") <= 2);
+        assertEquals(2 * INSTANCES_PER_SERVICE, localFallbackCount());
+    }
+
+    private static void syncAll(List<NacosFallbackServiceDiscovery> shards) {
+        for (NacosFallbackServiceDiscovery shard : shards) {
+            shard.syncServices();
+        }
+    }
+
+    /**
+     * 断言各节点负责的服务互不重叠、合起来覆盖全部服务，且分配大致均匀
+     */
+    private static void assertShardsCoverAllServices(List<NacosFallbackServiceDiscovery> shards) {
+        Set<String> covered = new HashSet<>();
+        for (NacosFallbackServiceDiscovery shard : shards) {
+            assertTrue(shard.isLeader());
+            assertEquals(shards.size(), shard.getShardParticipants().size());
+            Set<String> owned = shard.getSyncedServices();
+            assertTrue(owned.size() > SERVICE_COUNT / shards.size() / 2, "owned: " + owned.size());
+            for (String serviceName : owned) {
+                assertTrue(covered.add(serviceName), "service synced by more than one node: " + serviceName);
+            }
+        }
+        assertEquals(SERVICE_COUNT, covered.size());
+    }
+
+    private int localFallbackCount() {
+        int count = 0;
+        for (String serviceName : localServer.serviceNames(properties.getLocalGroup())) {
+            count += localFallbackAddresses(serviceName).size();
+        }
+        return count;
+    }
+}
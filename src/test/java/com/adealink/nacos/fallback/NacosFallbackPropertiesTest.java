@@ -5,6 +5,9 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -85,6 +88,124 @@ class NacosFallbackPropertiesTest {
             assertEquals(60, properties.getSyncIntervalSeconds());
         }
 
+        @Test
+        @DisplayName("adaptiveSyncEnabled 默认值应为 false")
+        void adaptiveSyncEnabledDefaultsToFalse() {
+            assertFalse(properties.isAdaptiveSyncEnabled());
+        }
+
+        @Test
+        @DisplayName("minSyncIntervalSeconds 默认值应为 10")
+        void minSyncIntervalSecondsDefaultsTo10() {
+            assertEquals(10, properties.getMinSyncIntervalSeconds());
+        }
+
+        @Test
+        @DisplayName("maxSyncIntervalSeconds 默认值应为 600")
+        void maxSyncIntervalSecondsDefaultsTo600() {
+            assertEquals(600, properties.getMaxSyncIntervalSeconds());
+        }
+
+        @Test
+        @DisplayName("ipRewriteRules 默认应为空列表")
+        void ipRewriteRulesDefaultsToEmpty() {
+            assertNotNull(properties.getIpRewriteRules());
+            assertTrue(properties.getIpRewriteRules().isEmpty());
+        }
+
+        @Test
+        @DisplayName("portMappings 默认应为空列表")
+        void portMappingsDefaultsToEmpty() {
+            assertNotNull(properties.getPortMappings());
+            assertTrue(properties.getPortMappings().isEmpty());
+        }
+
+        @Test
+        @DisplayName("includeServices 与 excludeServices 默认应为空列表")
+        void serviceFiltersDefaultToEmpty() {
+            assertNotNull(properties.getIncludeServices());
+            assertTrue(properties.getIncludeServices().isEmpty());
+            assertNotNull(properties.getExcludeServices());
+            assertTrue(properties.getExcludeServices().isEmpty());
+        }
+
+        @Test
+        @DisplayName("本地快照配置默认值应正确")
+        void snapshotDefaults() {
+            assertFalse(properties.isSnapshotEnabled());
+            assertTrue(properties.getSnapshotPath().endsWith("/.nacos-fallback/snapshot.bin"));
+        }
+
+        @Test
+        @DisplayName("离线模式配置默认值应正确")
+        void offlineModeDefaults() {
+            assertFalse(properties.isOfflineModeEnabled());
+            assertEquals(3600, properties.getOfflineStaleTtlSeconds());
+        }
+
+        @Test
+        @DisplayName("healthStaleMultiplier 默认值应为 3")
+        void healthStaleMultiplierDefaultsTo3() {
+            assertEquals(3, properties.getHealthStaleMultiplier());
+        }
+
+        @Test
+        @DisplayName("syncParallelism 默认值应为 1")
+        void syncParallelismDefaultsTo1() {
+            assertEquals(1, properties.getSyncParallelism());
+        }
+
+        @Test
+        @DisplayName("syncExecutorType 默认值应为 PLATFORM")
+        void syncExecutorTypeDefaultsToPlatform() {
+            assertEquals(NacosFallbackProperties.ExecutorType.PLATFORM, properties.getSyncExecutorType());
+        }
+
+        @Test
+        @DisplayName("servicePageSize 默认值应为 100")
+        void servicePageSizeDefaultsTo100() {
+            assertEquals(100, properties.getServicePageSize());
+        }
+
+        @Test
+        @DisplayName("服务熔断配置默认值应正确")
+        void serviceBackoffDefaults() {
+            assertFalse(properties.isServiceBackoffEnabled());
+            assertEquals(3, properties.getServiceFailureThreshold());
+            assertEquals(60, properties.getServiceBackoffInitialSeconds());
+            assertEquals(1800, properties.getServiceBackoffMaxSeconds());
+        }
+
+        @Test
+        @DisplayName("subscribeEnabled 默认值应为 false")
+        void subscribeEnabledDefaultsToFalse() {
+            assertFalse(properties.isSubscribeEnabled());
+        }
+
+        @Test
+        @DisplayName("reconcileIntervalSeconds 默认值应为 300")
+        void reconcileIntervalSecondsDefaultsTo300() {
+            assertEquals(300, properties.getReconcileIntervalSeconds());
+        }
+
+        @Test
+        @DisplayName("batchRegisterEnabled 默认值应为 false")
+        void batchRegisterEnabledDefaultsToFalse() {
+            assertFalse(properties.isBatchRegisterEnabled());
+        }
+
+        @Test
+        @DisplayName("localRegistryViewEnabled 默认值应为 false")
+        void localRegistryViewEnabledDefaultsToFalse() {
+            assertFalse(properties.isLocalRegistryViewEnabled());
+        }
+
+        @Test
+        @DisplayName("localResyncIntervalSeconds 默认值应为 600")
+        void localResyncIntervalSecondsDefaultsTo600() {
+            assertEquals(600, properties.getLocalResyncIntervalSeconds());
+        }
+
         @Test
         @DisplayName("leaderServiceName 默认值应为 nacos-sync-leader")
         void leaderServiceNameDefaultsToNacosSyncLeader() {
@@ -102,6 +223,50 @@ class NacosFallbackPropertiesTest {
         void leaderElectionWaitMsDefaultsTo500() {
             assertEquals(500, properties.getLeaderElectionWaitMs());
         }
+
+        @Test
+        @DisplayName("leaderSubscribeEnabled 默认值应为 false")
+        void leaderSubscribeEnabledDefaultsToFalse() {
+            assertFalse(properties.isLeaderSubscribeEnabled());
+        }
+
+        @Test
+        @DisplayName("leaderSafetyCheckIntervalSeconds 默认值应为 60")
+        void leaderSafetyCheckIntervalSecondsDefaultsTo60() {
+            assertEquals(60, properties.getLeaderSafetyCheckIntervalSeconds());
+        }
+
+        @Test
+        @DisplayName("handoffEnabled 默认值应为 false")
+        void handoffEnabledDefaultsToFalse() {
+            assertFalse(properties.isHandoffEnabled());
+        }
+
+        @Test
+        @DisplayName("handoffTimeoutMs 默认值应为 5000")
+        void handoffTimeoutMsDefaultsTo5000() {
+            assertEquals(5000, properties.getHandoffTimeoutMs());
+        }
+
+        @Test
+        @DisplayName("shardingEnabled 默认值应为 false")
+        void shardingEnabledDefaultsToFalse() {
+            assertFalse(properties.isShardingEnabled());
+        }
+
+        @Test
+        @DisplayName("懒同步默认应关闭，等待 2000 毫秒，空闲 1800 秒后淘汰")
+        void lazySyncDefaults() {
+            assertFalse(properties.isLazySyncEnabled());
+            assertEquals(2000, properties.getLazySyncTimeoutMs());
+            assertEquals(1800, properties.getLazySyncIdleTtlSeconds());
+        }
+
+        @Test
+        @DisplayName("shardVirtualNodes 默认值应为 128")
+        void shardVirtualNodesDefaultsTo128() {
+            assertEquals(128, properties.getShardVirtualNodes());
+        }
     }
 
     @Nested
@@ -220,6 +385,138 @@ class NacosFallbackPropertiesTest {
             assertEquals(120, properties.getSyncIntervalSeconds());
         }
 
+        @Test
+        @DisplayName("应正确设置自适应同步间隔")
+        void shouldSetAdaptiveSyncInterval() {
+            properties.setAdaptiveSyncEnabled(true);
+            properties.setMinSyncIntervalSeconds(5);
+            properties.setMaxSyncIntervalSeconds(300);
+            assertTrue(properties.isAdaptiveSyncEnabled());
+            assertEquals(5, properties.getMinSyncIntervalSeconds());
+            assertEquals(300, properties.getMaxSyncIntervalSeconds());
+        }
+
+        @Test
+        @DisplayName("应正确设置 ipRewriteRules")
+        void shouldSetIpRewriteRules() {
+            NacosFallbackProperties.IpRewriteRule rule = new NacosFallbackProperties.IpRewriteRule();
+            rule.setCidr("10.0.0.0/8");
+            rule.setPublicIp("1.1.1.1");
+            properties.setIpRewriteRules(Collections.singletonList(rule));
+            assertEquals(1, properties.getIpRewriteRules().size());
+            assertEquals("10.0.0.0/8", properties.getIpRewriteRules().get(0).getCidr());
+            assertEquals("1.1.1.1", properties.getIpRewriteRules().get(0).getPublicIp());
+        }
+
+        @Test
+        @DisplayName("应正确设置 portMappings")
+        void shouldSetPortMappings() {
+            NacosFallbackProperties.PortMappingRule rule = new NacosFallbackProperties.PortMappingRule();
+            rule.setServiceName("order-service");
+            rule.setPort(8000);
+            rule.setPortEnd(8099);
+            rule.setTargetPort(30000);
+            properties.setPortMappings(Collections.singletonList(rule));
+            assertEquals(1, properties.getPortMappings().size());
+            assertEquals("order-service", properties.getPortMappings().get(0).getServiceName());
+            assertEquals(Integer.valueOf(8099), properties.getPortMappings().get(0).getPortEnd());
+            assertEquals(Integer.valueOf(30000), properties.getPortMappings().get(0).getTargetPort());
+        }
+
+        @Test
+        @DisplayName("应正确设置本地快照配置")
+        void shouldSetSnapshot() {
+            properties.setSnapshotEnabled(true);
+            properties.setSnapshotPath("/tmp/fallback.bin");
+            assertTrue(properties.isSnapshotEnabled());
+            assertEquals("/tmp/fallback.bin", properties.getSnapshotPath());
+        }
+
+        @Test
+        @DisplayName("应正确设置离线模式配置")
+        void shouldSetOfflineMode() {
+            properties.setOfflineModeEnabled(true);
+            properties.setOfflineStaleTtlSeconds(600);
+            assertTrue(properties.isOfflineModeEnabled());
+            assertEquals(600, properties.getOfflineStaleTtlSeconds());
+        }
+
+        @Test
+        @DisplayName("应正确设置 healthStaleMultiplier")
+        void shouldSetHealthStaleMultiplier() {
+            properties.setHealthStaleMultiplier(5);
+            assertEquals(5, properties.getHealthStaleMultiplier());
+        }
+
+        @Test
+        @DisplayName("应正确设置 syncParallelism")
+        void shouldSetSyncParallelism() {
+            properties.setSyncParallelism(8);
+            assertEquals(8, properties.getSyncParallelism());
+        }
+
+        @Test
+        @DisplayName("应正确设置 syncExecutorType")
+        void shouldSetSyncExecutorType() {
+            properties.setSyncExecutorType(NacosFallbackProperties.ExecutorType.VIRTUAL);
+            assertEquals(NacosFallbackProperties.ExecutorType.VIRTUAL, properties.getSyncExecutorType());
+        }
+
+        @Test
+        @DisplayName("应正确设置 servicePageSize")
+        void shouldSetServicePageSize() {
+            properties.setServicePageSize(500);
+            assertEquals(500, properties.getServicePageSize());
+        }
+
+        @Test
+        @DisplayName("应正确设置服务熔断配置")
+        void shouldSetServiceBackoff() {
+            properties.setServiceBackoffEnabled(true);
+            properties.setServiceFailureThreshold(5);
+            properties.setServiceBackoffInitialSeconds(30);
+            properties.setServiceBackoffMaxSeconds(900);
+            assertTrue(properties.isServiceBackoffEnabled());
+            assertEquals(5, properties.getServiceFailureThreshold());
+            assertEquals(30, properties.getServiceBackoffInitialSeconds());
+            assertEquals(900, properties.getServiceBackoffMaxSeconds());
+        }
+
+        @Test
+        @DisplayName("应正确设置 subscribeEnabled")
+        void shouldSetSubscribeEnabled() {
+            properties.setSubscribeEnabled(true);
+            assertTrue(properties.isSubscribeEnabled());
+        }
+
+        @Test
+        @DisplayName("应正确设置 reconcileIntervalSeconds")
+        void shouldSetReconcileIntervalSeconds() {
+            properties.setReconcileIntervalSeconds(600);
+            assertEquals(600, properties.getReconcileIntervalSeconds());
+        }
+
+        @Test
+        @DisplayName("应正确设置 batchRegisterEnabled")
+        void shouldSetBatchRegisterEnabled() {
+            properties.setBatchRegisterEnabled(true);
+            assertTrue(properties.isBatchRegisterEnabled());
+        }
+
+        @Test
+        @DisplayName("应正确设置 localRegistryViewEnabled")
+        void shouldSetLocalRegistryViewEnabled() {
+            properties.setLocalRegistryViewEnabled(true);
+            assertTrue(properties.isLocalRegistryViewEnabled());
+        }
+
+        @Test
+        @DisplayName("应正确设置 localResyncIntervalSeconds")
+        void shouldSetLocalResyncIntervalSeconds() {
+            properties.setLocalResyncIntervalSeconds(120);
+            assertEquals(120, properties.getLocalResyncIntervalSeconds());
+        }
+
         @Test
         @DisplayName("应正确设置 leaderServiceName")
         void shouldSetLeaderServiceName() {
@@ -240,5 +537,52 @@ class NacosFallbackPropertiesTest {
             properties.setLeaderElectionWaitMs(1000);
             assertEquals(1000, properties.getLeaderElectionWaitMs());
         }
+
+        @Test
+        @DisplayName("应正确设置 Leader 订阅配置")
+        void shouldSetLeaderSubscribeProperties() {
+            properties.setLeaderSubscribeEnabled(true);
+            properties.setLeaderSafetyCheckIntervalSeconds(120);
+            assertTrue(properties.isLeaderSubscribeEnabled());
+            assertEquals(120, properties.getLeaderSafetyCheckIntervalSeconds());
+        }
+
+        @Test
+        @DisplayName("应正确设置 Leader 交接配置")
+        void shouldSetHandoffProperties() {
+            properties.setHandoffEnabled(true);
+            properties.setHandoffTimeoutMs(10000);
+            assertTrue(properties.isHandoffEnabled());
+            assertEquals(10000, properties.getHandoffTimeoutMs());
+        }
+
+        @Test
+        @DisplayName("应正确设置分片同步配置")
+        void shouldSetShardingProperties() {
+            properties.setShardingEnabled(true);
+            properties.setShardVirtualNodes(256);
+            assertTrue(properties.isShardingEnabled());
+            assertEquals(256, properties.getShardVirtualNodes());
+        }
+
+        @Test
+        @DisplayName("应正确设置服务过滤规则")
+        void shouldSetServiceFilters() {
+            properties.setIncludeServices(Arrays.asList("user-*", "regex:order-\\d+"));
+            properties.setExcludeServices(Collections.singletonList("*-canary"));
+            assertEquals(Arrays.asList("user-*", "regex:order-\\d+"), properties.getIncludeServices());
+            assertEquals(Collections.singletonList("*-canary"), properties.getExcludeServices());
+        }
+
+        @Test
+        @DisplayName("应正确设置懒同步配置")
+        void shouldSetLazySyncProperties() {
+            properties.setLazySyncEnabled(true);
+            properties.setLazySyncTimeoutMs(500);
+            properties.setLazySyncIdleTtlSeconds(600);
+            assertTrue(properties.isLazySyncEnabled());
+            assertEquals(500, properties.getLazySyncTimeoutMs());
+            assertEquals(600, properties.getLazySyncIdleTtlSeconds());
+        }
     }
 }
@@ -1,6 +1,9 @@
 package com.adealink.nacos.fallback;
 
+import com.alibaba.nacos.api.exception.NacosException;
 import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.EventListener;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
 import com.alibaba.nacos.api.naming.pojo.Instance;
 import com.alibaba.nacos.api.naming.pojo.ListView;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,15 +11,23 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ScheduledFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,6 +50,9 @@ class NacosFallbackServiceDiscoveryTest {
     @Mock
     private ThreadPoolTaskScheduler taskScheduler;
 
+    @Mock
+    private ThreadPoolTaskScheduler leaderScheduler;
+
     @Mock
     private ScheduledFuture<?> scheduledFuture;
 
@@ -61,7 +75,7 @@ class NacosFallbackServiceDiscoveryTest {
         properties.setSyncIntervalSeconds(60);
         properties.setLeaderServiceName("nacos-sync-leader");
         properties.setLeaderCheckIntervalSeconds(10);
-        properties.setLeaderElectionWaitMs(10); // 短时间用于测试
+        properties.setLeaderElectionWaitMs(0); // 注册后立即确认选举结果
     }
 
     private void createServiceDiscovery() {
@@ -220,6 +234,183 @@ class NacosFallbackServiceDiscoveryTest {
         }
     }
 
+    @Nested
+    @DisplayName("任期选举测试")
+    class TermElectionTest {
+
+        private Instance createLeaderInstance(String instanceId, long term) {
+            Instance instance = NacosFallbackServiceDiscoveryTest.this.createLeaderInstance(instanceId);
+            instance.getMetadata().put("term", String.valueOf(term));
+            return instance;
+        }
+
+        private void setupLeaderWithOneService() throws Exception {
+            setupLeaderMocks();
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+        }
+
+        @Test
+        @DisplayName("竞选任期应为观察到的最大任期加 1")
+        void candidateTermShouldFollowObservedTerm() throws Exception {
+            createServiceDiscovery();
+            when(namingServiceFactory.create(any(Properties.class)))
+                    .thenReturn(localNamingService)
+                    .thenReturn(testNamingService);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance("other-leader", 4))) // 初始化时有 Leader
+                    .thenReturn(Collections.emptyList()) // checkAndTryBecomeLeader 时 Leader 消失
+                    .thenReturn(Collections.emptyList()) // 竞选时检查
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID, 5))); // 确认选举结果
+            ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(runnableCaptor.capture(), any(Duration.class));
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+            ArgumentCaptor<Instance> leaderCaptor = ArgumentCaptor.forClass(Instance.class);
+
+            serviceDiscovery.initialize();
+            runnableCaptor.getValue().run();
+
+            verify(localNamingService).registerInstance(eq("nacos-sync-leader"), anyString(), leaderCaptor.capture());
+            assertEquals("5", leaderCaptor.getValue().getMetadata().get("term"));
+            assertTrue(serviceDiscovery.isLeader());
+            assertEquals(5, serviceDiscovery.getLeaderTerm());
+        }
+
+        @Test
+        @DisplayName("任期更高的候选者应胜出，与启动时间无关")
+        void higherTermShouldWinRegardlessOfStartTime() throws Exception {
+            createServiceDiscovery();
+            when(namingServiceFactory.create(any(Properties.class))).thenReturn(localNamingService);
+            Instance self = createLeaderInstance(INSTANCE_ID, 1);
+            self.getMetadata().put("startTime", "1"); // 更早的启动时间（例如时钟偏慢）
+            Instance other = createLeaderInstance("other-instance", 2);
+            other.getMetadata().put("startTime", "100");
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Arrays.asList(self, other));
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+
+            serviceDiscovery.initialize();
+
+            assertFalse(serviceDiscovery.isLeader());
+            assertEquals(0, serviceDiscovery.getLeaderTerm());
+            verify(localNamingService).deregisterInstance(eq("nacos-sync-leader"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("旧版本节点未记录任期时视为任期 0")
+        void legacyLeaderWithoutTermShouldLose() throws Exception {
+            createServiceDiscovery();
+            when(namingServiceFactory.create(any(Properties.class)))
+                    .thenReturn(localNamingService)
+                    .thenReturn(testNamingService);
+            Instance legacy = NacosFallbackServiceDiscoveryTest.this.createLeaderInstance("legacy-instance");
+            legacy.getMetadata().put("startTime", "1");
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Arrays.asList(legacy, createLeaderInstance(INSTANCE_ID, 1)));
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+
+            serviceDiscovery.initialize();
+
+            assertTrue(serviceDiscovery.isLeader());
+        }
+
+        @Test
+        @DisplayName("选举等待应通过调度完成，不阻塞调用线程")
+        void electionWaitShouldNotBlock() throws Exception {
+            properties.setLeaderElectionWaitMs(60_000);
+            createServiceDiscovery();
+            setupLeaderMocks();
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+            ArgumentCaptor<Runnable> confirmCaptor = ArgumentCaptor.forClass(Runnable.class);
+            ArgumentCaptor<Instant> instantCaptor = ArgumentCaptor.forClass(Instant.class);
+
+            long start = System.nanoTime();
+            serviceDiscovery.initialize();
+            long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            assertTrue(elapsedMs < 60_000, "initialize blocked for " + elapsedMs + " ms");
+            assertFalse(serviceDiscovery.isLeader());
+            verify(taskScheduler).schedule(confirmCaptor.capture(), instantCaptor.capture());
+            assertTrue(Duration.between(Instant.now(), instantCaptor.getValue()).getSeconds() > 50);
+
+            // 等待确认期间的 Leader 检查不应重复竞选
+            serviceDiscovery.checkAndTryBecomeLeader();
+            verify(localNamingService, times(1)).selectInstances(eq("nacos-sync-leader"), anyString(), eq(true));
+
+            confirmCaptor.getValue().run();
+
+            assertTrue(serviceDiscovery.isLeader());
+            assertEquals(1, serviceDiscovery.getLeaderTerm());
+        }
+
+        @Test
+        @DisplayName("fallback 实例应携带写入时的 Leader 任期")
+        void fallbackInstanceShouldCarryFencingToken() throws Exception {
+            createServiceDiscovery();
+            setupLeaderWithOneService();
+            ArgumentCaptor<Instance> captor = ArgumentCaptor.forClass(Instance.class);
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService).registerInstance(eq("test-service"), anyString(), captor.capture());
+            assertEquals("1", captor.getValue().getMetadata().get("leader-term"));
+        }
+
+        @Test
+        @DisplayName("发现更高任期写入的 fallback 实例时应拒绝写入，并在下一轮同步前退位")
+        void shouldFenceWritesWhenHigherTermInstanceFound() throws Exception {
+            createServiceDiscovery();
+            setupLeaderWithOneService();
+            Instance newerFallback = createFallbackInstance("10.0.0.1", 9090);
+            newerFallback.getMetadata().put("leader-term", "3");
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(newerFallback));
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService, never()).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+            verify(taskScheduler).execute(any(Runnable.class));
+            assertTrue(serviceDiscovery.isLeader());
+
+            serviceDiscovery.syncServices();
+
+            assertFalse(serviceDiscovery.isLeader());
+            verify(localNamingService).deregisterInstance(eq("nacos-sync-leader"), anyString(), any(Instance.class));
+            verify(testNamingService, times(1)).getServicesOfServer(anyInt(), anyInt(), anyString());
+        }
+
+        @Test
+        @DisplayName("Leader 收到更高任期 Leader 的推送时应退位")
+        void leaderShouldStepDownOnHigherTermPush() throws Exception {
+            properties.setLeaderSubscribeEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+            ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+            ArgumentCaptor<Runnable> stepDownCaptor = ArgumentCaptor.forClass(Runnable.class);
+
+            serviceDiscovery.initialize();
+            verify(localNamingService).subscribe(eq("nacos-sync-leader"), anyString(), listenerCaptor.capture());
+            listenerCaptor.getValue().onEvent(new NamingEvent("nacos-sync-leader",
+                    Arrays.asList(createLeaderInstance(INSTANCE_ID, 1), createLeaderInstance("other-instance", 2))));
+
+            verify(taskScheduler).execute(stepDownCaptor.capture());
+            stepDownCaptor.getValue().run();
+
+            assertFalse(serviceDiscovery.isLeader());
+            verify(localNamingService).deregisterInstance(eq("nacos-sync-leader"), anyString(), any(Instance.class));
+        }
+    }
+
     @Nested
     @DisplayName("IP 重写测试")
     class IpRewriteTest {
@@ -294,6 +485,46 @@ class NacosFallbackServiceDiscoveryTest {
             Instance registeredInstance = instanceCaptor.getValue();
             assertEquals("172.16.0.1", registeredInstance.getIp());
         }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        @DisplayName("应按 CIDR 规则重写到各自的公网 IP，未命中时按私网前缀重写")
+        void shouldRewriteByCidrRules() throws Exception {
+            properties.setIpRewriteRules(Arrays.asList(
+                    createRewriteRule("10.0.0.0/8", "1.1.1.1"),
+                    createRewriteRule("172.16.0.0/12", "2.2.2.2")));
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Arrays.asList(
+                            createInstance("10.8.0.1", 8080),
+                            createInstance("172.20.0.1", 8080),
+                            createInstance("172.32.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            ArgumentCaptor<Instance> instanceCaptor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService, times(3)).registerInstance(eq("test-service"), anyString(), instanceCaptor.capture());
+            Map<String, String> rewritten = new HashMap<>();
+            for (Instance instance : instanceCaptor.getAllValues()) {
+                rewritten.put(instance.getMetadata().get("original-ip"), instance.getIp());
+            }
+            assertEquals("1.1.1.1", rewritten.get("10.8.0.1"));
+            assertEquals("2.2.2.2", rewritten.get("172.20.0.1"));
+            assertEquals("10.0.0.1", rewritten.get("172.32.0.1"));
+        }
+
+        @Test
+        @DisplayName("非法的 CIDR 规则应在创建时失败")
+        void shouldFailFastOnInvalidRule() {
+            properties.setIpRewriteRules(Collections.singletonList(createRewriteRule("10.0.0.0/40", "1.1.1.1")));
+            assertThrows(IllegalArgumentException.class, NacosFallbackServiceDiscoveryTest.this::createServiceDiscovery);
+        }
     }
 
     @Nested
@@ -443,6 +674,160 @@ class NacosFallbackServiceDiscoveryTest {
             verify(testNamingService).getServicesOfServer(1, 100, "DEFAULT_GROUP");
             verify(testNamingService).getServicesOfServer(2, 100, "DEFAULT_GROUP");
         }
+
+        @Test
+        @DisplayName("应使用配置的分页大小")
+        void shouldUseConfiguredPageSize() throws Exception {
+            properties.setServicePageSize(2);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(eq(1), eq(2), anyString()))
+                    .thenReturn(createListView(Arrays.asList("service-0", "service-1"), 3));
+            when(testNamingService.getServicesOfServer(eq(2), eq(2), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("service-2"), 3));
+            when(testNamingService.selectInstances(anyString(), anyString(), eq(true)))
+                    .thenReturn(Collections.emptyList());
+            when(localNamingService.getAllInstances(anyString(), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            verify(testNamingService).getServicesOfServer(1, 2, "DEFAULT_GROUP");
+            verify(testNamingService).getServicesOfServer(2, 2, "DEFAULT_GROUP");
+            verify(testNamingService, times(3)).selectInstances(anyString(), anyString(), eq(true));
+        }
+
+        @Test
+        @DisplayName("并行模式下应并发拉取剩余页并按页码顺序合并")
+        void shouldFetchRemainingPagesConcurrently() throws Exception {
+            properties.setSyncParallelism(4);
+            properties.setServicePageSize(2);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(eq(1), eq(2), anyString()))
+                    .thenReturn(createListView(Arrays.asList("service-0", "service-1"), 5));
+            when(testNamingService.getServicesOfServer(eq(2), eq(2), anyString()))
+                    .thenReturn(createListView(Arrays.asList("service-2", "service-3"), 5));
+            when(testNamingService.getServicesOfServer(eq(3), eq(2), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("service-4"), 5));
+            when(testNamingService.selectInstances(anyString(), anyString(), eq(true)))
+                    .thenReturn(Collections.emptyList());
+            when(localNamingService.getAllInstances(anyString(), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            verify(testNamingService).getServicesOfServer(2, 2, "DEFAULT_GROUP");
+            verify(testNamingService).getServicesOfServer(3, 2, "DEFAULT_GROUP");
+            for (int i = 0; i < 5; i++) {
+                verify(testNamingService).selectInstances(eq("service-" + i), anyString(), eq(true));
+            }
+        }
+
+        @Test
+        @DisplayName("并发拉取期间服务总数变化时应回退为逐页拉取")
+        void shouldFallBackToSequentialWhenCountChanges() throws Exception {
+            properties.setSyncParallelism(4);
+            properties.setServicePageSize(2);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(eq(1), eq(2), anyString()))
+                    .thenReturn(createListView(Arrays.asList("service-0", "service-1"), 3));
+            when(testNamingService.getServicesOfServer(eq(2), eq(2), anyString()))
+                    .thenReturn(createListView(Arrays.asList("service-2", "service-3"), 4))
+                    .thenReturn(createListView(Arrays.asList("service-2", "service-3"), 4));
+            when(testNamingService.selectInstances(anyString(), anyString(), eq(true)))
+                    .thenReturn(Collections.emptyList());
+            when(localNamingService.getAllInstances(anyString(), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            verify(testNamingService, times(2)).getServicesOfServer(2, 2, "DEFAULT_GROUP");
+            verify(testNamingService).selectInstances(eq("service-3"), anyString(), eq(true));
+        }
+    }
+
+    @Nested
+    @DisplayName("端口映射测试")
+    class PortMappingTest {
+
+        @BeforeEach
+        void configurePortMapping() {
+            NacosFallbackProperties.PortMappingRule rule = new NacosFallbackProperties.PortMappingRule();
+            rule.setServiceName("test-service");
+            rule.setPort(8080);
+            rule.setTargetPort(30080);
+            properties.setPortMappings(Collections.singletonList(rule));
+        }
+
+        @Test
+        @DisplayName("应与 IP 重写一同映射端口并记录原始端口")
+        void shouldMapPortAlongWithIp() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            ArgumentCaptor<Instance> instanceCaptor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService).registerInstance(eq("test-service"), anyString(), instanceCaptor.capture());
+            Instance registered = instanceCaptor.getValue();
+            assertEquals("10.0.0.1", registered.getIp());
+            assertEquals(30080, registered.getPort());
+            assertEquals("8080", registered.getMetadata().get("original-port"));
+        }
+
+        @Test
+        @DisplayName("已按映射端口注册的实例不应被重复注册或删除")
+        void shouldMatchExistingMappedInstance() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance existingFallback = createFallbackInstance("10.0.0.1", 30080);
+            existingFallback.getMetadata().put("original-port", "8080");
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(existingFallback));
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService, never()).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+            verify(localNamingService, never()).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("其他服务的端口不应被映射")
+        void shouldNotMapOtherServices() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("other-service")));
+            when(testNamingService.selectInstances(eq("other-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("other-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            ArgumentCaptor<Instance> instanceCaptor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService).registerInstance(eq("other-service"), anyString(), instanceCaptor.capture());
+            assertEquals(8080, instanceCaptor.getValue().getPort());
+            assertNull(instanceCaptor.getValue().getMetadata().get("original-port"));
+        }
     }
 
     @Nested
@@ -850,8 +1235,8 @@ class NacosFallbackServiceDiscoveryTest {
             when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
                     .thenReturn(Collections.singletonList(existingLeader)) // 初始化时有 Leader
                     .thenReturn(Collections.emptyList()) // checkAndTryBecomeLeader 时 Leader 消失
-                    .thenReturn(Collections.emptyList()) // tryBecomeLeader 第一次检查
-                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID))); // tryBecomeLeader 第二次检查
+                    .thenReturn(Collections.emptyList()) // 竞选时检查
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID))); // 确认选举结果
 
             ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
             doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(runnableCaptor.capture(), any(Duration.class));
@@ -883,8 +1268,8 @@ class NacosFallbackServiceDiscoveryTest {
             when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
                     .thenReturn(Collections.singletonList(existingLeader)) // 初始化时有 Leader
                     .thenReturn(Collections.emptyList()) // checkAndTryBecomeLeader 时 Leader 消失
-                    .thenReturn(Collections.emptyList()) // tryBecomeLeader 第一次检查
-                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID))); // tryBecomeLeader 第二次检查
+                    .thenReturn(Collections.emptyList()) // 竞选时检查
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID))); // 确认选举结果
 
             ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
             doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(runnableCaptor.capture(), any(Duration.class));
@@ -977,8 +1362,8 @@ class NacosFallbackServiceDiscoveryTest {
         }
 
         @Test
-        @DisplayName("tryBecomeLeader 返回 false 时不应启动同步")
-        void shouldNotStartSyncWhenTryBecomeLeaderReturnsFalse() throws Exception {
+        @DisplayName("竞选失败时不应启动同步")
+        void shouldNotStartSyncWhenElectionLost() throws Exception {
             createServiceDiscovery();
             when(namingServiceFactory.create(any(Properties.class))).thenReturn(localNamingService);
 
@@ -990,8 +1375,8 @@ class NacosFallbackServiceDiscoveryTest {
             when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
                     .thenReturn(Collections.singletonList(existingLeader)) // 初始化时有 Leader
                     .thenReturn(Collections.emptyList()) // checkAndTryBecomeLeader 时 Leader 消失
-                    .thenReturn(Collections.emptyList()) // tryBecomeLeader 第一次检查：无 Leader
-                    .thenReturn(Arrays.asList(anotherLeader, createLeaderInstance(INSTANCE_ID))); // 第二次检查：有其他更早的 Leader
+                    .thenReturn(Collections.emptyList()) // 竞选时检查：无 Leader
+                    .thenReturn(Arrays.asList(anotherLeader, createLeaderInstance(INSTANCE_ID))); // 确认选举结果：有其他更早的 Leader
 
             ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
             doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(runnableCaptor.capture(), any(Duration.class));
@@ -1070,49 +1455,2203 @@ class NacosFallbackServiceDiscoveryTest {
         }
     }
 
-    // ==================== Helper Methods ====================
+    @Nested
+    @DisplayName("并行同步测试")
+    class ParallelSyncTest {
 
-    private void setupLeaderMocks() throws Exception {
-        when(namingServiceFactory.create(any(Properties.class)))
-                .thenReturn(localNamingService)
-                .thenReturn(testNamingService);
-        when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
-                .thenReturn(Collections.emptyList())
-                .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID)));
-        doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
-    }
+        @Test
+        @DisplayName("并行模式下应同步所有服务")
+        void shouldSyncAllServicesInParallel() throws Exception {
+            properties.setSyncParallelism(4);
+            createServiceDiscovery();
+            setupLeaderMocks();
 
-    private void setupLeaderMocksWithoutTestService() throws Exception {
-        when(namingServiceFactory.create(any(Properties.class)))
-                .thenReturn(localNamingService)
-                .thenReturn(testNamingService);
-        when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
-                .thenReturn(Collections.emptyList())
-                .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID)));
-        doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
-    }
+            List<String> services = Arrays.asList("service-a", "service-b", "service-c", "service-d", "service-e");
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(services));
+            when(testNamingService.selectInstances(anyString(), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(anyString(), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
 
-    private Instance createInstance(String ip, int port) {
-        Instance instance = new Instance();
-        instance.setIp(ip);
-        instance.setPort(port);
-        instance.setHealthy(true);
-        instance.setEnabled(true);
-        instance.setEphemeral(true);
-        instance.setMetadata(new HashMap<>());
-        return instance;
-    }
+            serviceDiscovery.initialize();
 
-    private Instance createFallbackInstance(String ip, int port) {
-        Instance instance = createInstance(ip, port);
-        instance.getMetadata().put("fallback", "true");
-        instance.getMetadata().put("source", "test-env");
-        return instance;
-    }
+            for (String service : services) {
+                verify(localNamingService).registerInstance(eq(service), anyString(), any(Instance.class));
+            }
+        }
 
-    private Instance createLeaderInstance(String instanceId) {
-        Instance instance = new Instance();
-        instance.setIp("127.0.0.1");
+        @Test
+        @DisplayName("等待并行同步时被中断应恢复中断标记")
+        void shouldRestoreInterruptFlagWhenInterrupted() throws Exception {
+            properties.setSyncParallelism(2);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance testInstance = createInstance("172.16.0.1", 8080);
+            CountDownLatch release = new CountDownLatch(1);
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("service-a")));
+            when(testNamingService.selectInstances(eq("service-a"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(testInstance))
+                    .thenAnswer(invocation -> {
+                        release.await(); // 第二轮同步时保证主线程仍在等待
+                        return Collections.singletonList(testInstance);
+                    });
+
+            serviceDiscovery.initialize();
+
+            try {
+                Thread.currentThread().interrupt();
+                serviceDiscovery.syncServices();
+
+                assertTrue(Thread.interrupted());
+            } finally {
+                release.countDown();
+            }
+        }
+
+        @Test
+        @DisplayName("并行模式下每个服务仍应先注册新实例再删除旧实例")
+        void shouldKeepAddBeforeRemovePerServiceInParallel() throws Exception {
+            properties.setSyncParallelism(2);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance oldFallbackA = createFallbackInstance("10.0.0.1", 8080);
+            Instance oldFallbackB = createFallbackInstance("10.0.0.1", 8081);
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Arrays.asList("service-a", "service-b")));
+            when(testNamingService.selectInstances(eq("service-a"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 9090)));
+            when(testNamingService.selectInstances(eq("service-b"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 9091)));
+            when(localNamingService.getAllInstances(eq("service-a"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(oldFallbackA));
+            when(localNamingService.getAllInstances(eq("service-b"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(oldFallbackB));
+
+            serviceDiscovery.initialize();
+
+            InOrder inOrderA = inOrder(localNamingService);
+            inOrderA.verify(localNamingService).registerInstance(eq("service-a"), anyString(), any(Instance.class));
+            inOrderA.verify(localNamingService).deregisterInstance(eq("service-a"), anyString(), eq(oldFallbackA));
+
+            InOrder inOrderB = inOrder(localNamingService);
+            inOrderB.verify(localNamingService).registerInstance(eq("service-b"), anyString(), any(Instance.class));
+            inOrderB.verify(localNamingService).deregisterInstance(eq("service-b"), anyString(), eq(oldFallbackB));
+        }
+
+        @Test
+        @DisplayName("并行模式下本地有原生实例的服务应跳过同步")
+        void shouldSkipNativeServicesInParallel() throws Exception {
+            properties.setSyncParallelism(2);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Arrays.asList("native-service", "remote-service")));
+            when(localNamingService.getAllInstances(eq("native-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(createInstance("192.168.1.1", 8080)));
+            when(localNamingService.getAllInstances(eq("remote-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+            when(testNamingService.selectInstances(eq("remote-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.2", 8080)));
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService, never()).registerInstance(eq("native-service"), anyString(), any(Instance.class));
+            verify(localNamingService).registerInstance(eq("remote-service"), anyString(), any(Instance.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("推送订阅模式测试")
+    class SubscriptionTest {
+
+        @Test
+        @DisplayName("推送模式下应订阅已同步的服务并以对账间隔调度定期同步")
+        void shouldSubscribeSyncedServiceAndUseReconcileInterval() throws Exception {
+            properties.setSubscribeEnabled(true);
+            properties.setReconcileIntervalSeconds(300);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            verify(testNamingService).subscribe(eq("test-service"), eq("DEFAULT_GROUP"), any(EventListener.class));
+            verify(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), eq(Duration.ofSeconds(300)));
+        }
+
+        @Test
+        @DisplayName("非推送模式下不应订阅服务")
+        void shouldNotSubscribeWhenDisabled() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            verify(testNamingService, never()).subscribe(anyString(), anyString(), any(EventListener.class));
+        }
+
+        @Test
+        @DisplayName("收到推送时应立即将实例变化应用到本地 Nacos")
+        void shouldApplyPushedInstanceDelta() throws Exception {
+            properties.setSubscribeEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance oldFallback = createFallbackInstance("10.0.0.1", 8080);
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(oldFallback));
+
+            serviceDiscovery.initialize();
+
+            ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+            verify(testNamingService).subscribe(eq("test-service"), anyString(), listenerCaptor.capture());
+
+            // 推送：实例迁移到新端口
+            listenerCaptor.getValue().onEvent(new NamingEvent("test-service", "DEFAULT_GROUP", "",
+                    Collections.singletonList(createInstance("172.16.0.1", 9090))));
+
+            ArgumentCaptor<Instance> instanceCaptor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService, times(2)).registerInstance(eq("test-service"), anyString(), instanceCaptor.capture());
+            assertEquals(9090, instanceCaptor.getAllValues().get(1).getPort());
+            verify(localNamingService).deregisterInstance(eq("test-service"), anyString(), eq(oldFallback));
+        }
+
+        @Test
+        @DisplayName("推送空实例列表时应保留旧实例")
+        void shouldKeepOldInstancesWhenPushIsEmpty() throws Exception {
+            properties.setSubscribeEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+            verify(testNamingService).subscribe(eq("test-service"), anyString(), listenerCaptor.capture());
+
+            listenerCaptor.getValue().onEvent(new NamingEvent("test-service", "DEFAULT_GROUP", "",
+                    Collections.emptyList()));
+
+            verify(localNamingService, never()).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("批量注册测试")
+    class BatchRegisterTest {
+
+        @Test
+        @SuppressWarnings("unchecked")
+        @DisplayName("批量模式下应一次性注册服务的完整实例集合")
+        void shouldBatchRegisterAllInstancesOfService() throws Exception {
+            properties.setBatchRegisterEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Arrays.asList(createInstance("172.16.0.1", 8080), createInstance("172.16.0.2", 8081)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            ArgumentCaptor<List<Instance>> listCaptor = ArgumentCaptor.forClass(List.class);
+            verify(localNamingService).batchRegisterInstance(eq("test-service"), eq("DEFAULT_GROUP"), listCaptor.capture());
+            assertEquals(2, listCaptor.getValue().size());
+            for (Instance instance : listCaptor.getValue()) {
+                assertEquals("10.0.0.1", instance.getIp());
+                assertEquals("true", instance.getMetadata().get("fallback"));
+            }
+            verify(localNamingService, never()).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("批量注册已覆盖实例集合时不应再注销旧实例")
+        void shouldNotDeregisterAfterBatchRegister() throws Exception {
+            properties.setBatchRegisterEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance oldFallback = createFallbackInstance("10.0.0.1", 8080);
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 9090)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(oldFallback));
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService).batchRegisterInstance(eq("test-service"), anyString(), anyList());
+            verify(localNamingService, never()).batchDeregisterInstance(anyString(), anyString(), anyList());
+            verify(localNamingService, never()).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+            assertEquals(1, serviceDiscovery.getLastCycleStats().getRemovedInstances());
+        }
+
+        @Test
+        @DisplayName("批量模式下只有删除时应一次性注销需要删除的实例")
+        void shouldBatchDeregisterRemovedInstances() throws Exception {
+            properties.setBatchRegisterEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance keptFallback = createFallbackInstance("10.0.0.1", 9090);
+            Instance oldFallback = createFallbackInstance("10.0.0.1", 8080);
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 9090)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Arrays.asList(keptFallback, oldFallback));
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService, never()).batchRegisterInstance(anyString(), anyString(), anyList());
+            verify(localNamingService).batchDeregisterInstance(eq("test-service"), anyString(),
+                    eq(Collections.singletonList(oldFallback)));
+            verify(localNamingService, never()).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("批量注册失败时应回退为逐个注册")
+        void shouldFallbackToPerInstanceWhenBatchFails() throws Exception {
+            properties.setBatchRegisterEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Arrays.asList(createInstance("172.16.0.1", 8080), createInstance("172.16.0.2", 8081)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+            doThrow(new NacosException(NacosException.NO_HANDLER, "RequestHandler Not Found"))
+                    .when(localNamingService).batchRegisterInstance(anyString(), anyString(), anyList());
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService, times(2)).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("客户端缺少批量方法时应回退为逐个注册")
+        void shouldFallbackToPerInstanceWhenBatchMethodMissing() throws Exception {
+            properties.setBatchRegisterEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Arrays.asList(createInstance("172.16.0.1", 8080), createInstance("172.16.0.2", 8081)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+            doThrow(new NoSuchMethodError("batchRegisterInstance"))
+                    .when(localNamingService).batchRegisterInstance(anyString(), anyString(), anyList());
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService, times(2)).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("批量注册临时失败时应计为服务失败，下一轮继续使用批量注册")
+        void shouldRetryBatchAfterTransientFailure() throws Exception {
+            properties.setBatchRegisterEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Arrays.asList(createInstance("172.16.0.1", 8080), createInstance("172.16.0.2", 8081)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+            doThrow(new NacosException(NacosException.SERVER_ERROR, "timeout"))
+                    .doNothing()
+                    .when(localNamingService).batchRegisterInstance(anyString(), anyString(), anyList());
+
+            serviceDiscovery.initialize();
+
+            assertEquals(1, serviceDiscovery.getLastCycleStats().getFailedServices());
+            assertEquals(1, serviceDiscovery.getServiceStatuses().get("test-service").getConsecutiveFailures());
+            verify(localNamingService, never()).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+
+            serviceDiscovery.syncServices();
+
+            verify(localNamingService, times(2)).batchRegisterInstance(eq("test-service"), anyString(),
+                    argThat(list -> list.size() == 2));
+            verify(localNamingService, never()).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+            assertEquals(1, serviceDiscovery.getLastCycleStats().getSyncedServices());
+            assertEquals(0, serviceDiscovery.getServiceStatuses().get("test-service").getConsecutiveFailures());
+        }
+
+        @Test
+        @DisplayName("批量注销临时失败时不应回退为逐个注销")
+        void shouldNotFallbackToPerInstanceDeregisterOnTransientFailure() throws Exception {
+            properties.setBatchRegisterEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance keptFallback = createFallbackInstance("10.0.0.1", 9090);
+            Instance oldFallback = createFallbackInstance("10.0.0.1", 8080);
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 9090)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Arrays.asList(keptFallback, oldFallback));
+            doThrow(new NacosException(NacosException.SERVER_ERROR, "timeout"))
+                    .when(localNamingService).batchDeregisterInstance(anyString(), anyString(), anyList());
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService, never()).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+            assertEquals(1, serviceDiscovery.getLastCycleStats().getFailedServices());
+        }
+
+        @Test
+        @DisplayName("未启用批量模式时多实例服务应逐个注册")
+        void shouldRegisterMultipleInstancesOneByOneWhenDisabled() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Arrays.asList(createInstance("172.16.0.1", 8080), createInstance("172.16.0.2", 8081)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService, never()).batchRegisterInstance(anyString(), anyString(), anyList());
+            verify(localNamingService, times(2)).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("未启用批量模式时单实例服务不应调用批量接口")
+        void shouldNotUseBatchApiWhenDisabled() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService, never()).batchRegisterInstance(anyString(), anyString(), anyList());
+            verify(localNamingService).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("本地内存视图测试")
+    class LocalRegistryViewTest {
+
+        @Test
+        @DisplayName("内存视图模式下后续同步不应再回读本地 Nacos")
+        void shouldNotReadLocalNacosAgainForKnownService() throws Exception {
+            properties.setLocalRegistryViewEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+            runScheduledSync();
+
+            verify(localNamingService, times(1)).getAllInstances(eq("test-service"), anyString(), eq(false));
+            verify(localNamingService).subscribe(eq("test-service"), eq("DEFAULT_GROUP"), any(EventListener.class));
+            // 第二次同步时内存视图中已有该实例，不应重复注册
+            verify(localNamingService, times(1)).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("本地订阅推送出现原生实例时应在下次同步清理 fallback 实例")
+        void shouldCleanupFallbackWhenNativeInstancePushed() throws Exception {
+            properties.setLocalRegistryViewEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+            verify(localNamingService).subscribe(eq("test-service"), anyString(), listenerCaptor.capture());
+            listenerCaptor.getValue().onEvent(new NamingEvent("test-service", "DEFAULT_GROUP", "",
+                    Arrays.asList(createInstance("192.168.1.1", 8080), createFallbackInstance("10.0.0.1", 8080))));
+
+            runScheduledSync();
+
+            ArgumentCaptor<Instance> instanceCaptor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService).deregisterInstance(eq("test-service"), anyString(), instanceCaptor.capture());
+            assertEquals("10.0.0.1", instanceCaptor.getValue().getIp());
+            assertEquals(8080, instanceCaptor.getValue().getPort());
+        }
+
+        @Test
+        @DisplayName("未启用内存视图时每次同步都应回读本地 Nacos")
+        void shouldReadLocalNacosEveryCycleWhenDisabled() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+            runScheduledSync();
+
+            verify(localNamingService, times(2)).getAllInstances(eq("test-service"), anyString(), eq(false));
+            verify(localNamingService, never()).subscribe(anyString(), anyString(), any(EventListener.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("实例内容变化测试")
+    class InstanceContentChangeTest {
+
+        @Test
+        @DisplayName("权重变化时应原地更新实例而不删除")
+        void shouldUpdateInPlaceWhenWeightChanges() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance testInstance = createInstance("172.16.0.1", 8080);
+            testInstance.setWeight(0.5);
+            Instance existingFallback = createFallbackInstance("10.0.0.1", 8080);
+            existingFallback.setWeight(1.0);
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(testInstance));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(existingFallback));
+
+            serviceDiscovery.initialize();
+
+            ArgumentCaptor<Instance> instanceCaptor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService).registerInstance(eq("test-service"), anyString(), instanceCaptor.capture());
+            assertEquals(0.5, instanceCaptor.getValue().getWeight());
+            assertEquals(8080, instanceCaptor.getValue().getPort());
+            verify(localNamingService, never()).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("业务元数据变化时应原地更新实例")
+        void shouldUpdateInPlaceWhenMetadataChanges() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance testInstance = createInstance("172.16.0.1", 8080);
+            testInstance.getMetadata().put("gray", "true");
+            Instance existingFallback = createFallbackInstance("10.0.0.1", 8080);
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(testInstance));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(existingFallback));
+
+            serviceDiscovery.initialize();
+
+            ArgumentCaptor<Instance> instanceCaptor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService).registerInstance(eq("test-service"), anyString(), instanceCaptor.capture());
+            assertEquals("true", instanceCaptor.getValue().getMetadata().get("gray"));
+        }
+
+        @Test
+        @DisplayName("仅 synced-at 不同时不应更新实例")
+        void shouldIgnoreSyncedAtDifference() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance testInstance = createInstance("172.16.0.1", 8080);
+            Instance existingFallback = createFallbackInstance("10.0.0.1", 8080);
+            existingFallback.getMetadata().put("original-ip", "172.16.0.1");
+            existingFallback.getMetadata().put("synced-at", "1");
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(testInstance));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(existingFallback));
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService, never()).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("服务修订缓存测试")
+    class ServiceRevisionTest {
+
+        @Test
+        @DisplayName("实例无变化时应记录修订值并在下次同步跳过")
+        void shouldRecordRevisionWhenUnchanged() throws Exception {
+            properties.setLocalRegistryViewEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+            // 首轮发生写入，不记录修订值
+            assertNull(serviceDiscovery.getServiceRevision("test-service"));
+
+            runScheduledSync();
+            Long revision = serviceDiscovery.getServiceRevision("test-service");
+            assertNotNull(revision);
+
+            runScheduledSync();
+            assertEquals(revision, serviceDiscovery.getServiceRevision("test-service"));
+            verify(localNamingService, times(1)).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+            verify(testNamingService, times(3)).selectInstances(eq("test-service"), anyString(), eq(true));
+            verify(localNamingService, times(1)).getAllInstances(eq("test-service"), anyString(), eq(false));
+        }
+
+        @Test
+        @DisplayName("修订值一致时应只读取测试环境实例，不再读取本地 Nacos")
+        void shouldSkipLocalReadWhenRevisionMatches() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(createFallbackInstance("10.0.0.1", 8080)));
+
+            serviceDiscovery.initialize();
+            assertNotNull(serviceDiscovery.getServiceRevision("test-service"));
+            verify(localNamingService).subscribe(eq("test-service"), anyString(), any(EventListener.class));
+
+            runScheduledSync();
+            runScheduledSync();
+
+            verify(testNamingService, times(3)).selectInstances(eq("test-service"), anyString(), eq(true));
+            verify(localNamingService, times(1)).getAllInstances(eq("test-service"), anyString(), eq(false));
+            verify(localNamingService, never()).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+            assertEquals(1, serviceDiscovery.getLastCycleStats().getSkippedServices());
+        }
+
+        @Test
+        @DisplayName("测试环境实例变化时应重新对比并同步")
+        void shouldSyncWhenRevisionChanges() throws Exception {
+            properties.setLocalRegistryViewEnabled(true);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance changed = createInstance("172.16.0.1", 8080);
+            changed.setWeight(0.5);
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)))
+                    .thenReturn(Collections.singletonList(changed));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+            runScheduledSync();
+            assertNotNull(serviceDiscovery.getServiceRevision("test-service"));
+
+            runScheduledSync();
+
+            ArgumentCaptor<Instance> instanceCaptor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService, times(2)).registerInstance(eq("test-service"), anyString(), instanceCaptor.capture());
+            assertEquals(0.5, instanceCaptor.getValue().getWeight());
+            assertNull(serviceDiscovery.getServiceRevision("test-service"));
+        }
+
+        @Test
+        @DisplayName("本地出现原生实例时应丢弃修订值")
+        void shouldDropRevisionWhenNativeInstancesAppear() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance existingFallback = createFallbackInstance("10.0.0.1", 8080);
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            List<Instance> withNative = Arrays.asList(createInstance("192.168.1.1", 8080), existingFallback);
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(existingFallback))
+                    .thenReturn(withNative);
+
+            serviceDiscovery.initialize();
+            assertNotNull(serviceDiscovery.getServiceRevision("test-service"));
+
+            ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+            verify(localNamingService).subscribe(eq("test-service"), anyString(), listenerCaptor.capture());
+            listenerCaptor.getValue().onEvent(new NamingEvent("test-service", withNative));
+            assertNull(serviceDiscovery.getServiceRevision("test-service"));
+
+            runScheduledSync();
+            verify(localNamingService, times(2)).getAllInstances(eq("test-service"), anyString(), eq(false));
+            verify(localNamingService).deregisterInstance(eq("test-service"), anyString(), eq(existingFallback));
+            assertNull(serviceDiscovery.getServiceRevision("test-service"));
+        }
+    }
+
+    @Nested
+    @DisplayName("自适应同步间隔测试")
+    class AdaptiveSyncTest {
+
+        @BeforeEach
+        void enableAdaptiveSync() {
+            properties.setAdaptiveSyncEnabled(true);
+            properties.setSyncIntervalSeconds(60);
+            properties.setMinSyncIntervalSeconds(10);
+            properties.setMaxSyncIntervalSeconds(600);
+        }
+
+        @Test
+        @DisplayName("启用后应按单次调度代替固定间隔调度")
+        void shouldScheduleOneShotInsteadOfFixedDelay() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+
+            serviceDiscovery.initialize();
+
+            verify(taskScheduler, never()).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+            assertScheduledAfterSeconds(captureAdaptiveSchedules().get(0), 60);
+        }
+
+        @Test
+        @DisplayName("周期内无变化时间隔应翻倍")
+        void shouldBackOffWhenNoChanges() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+
+            serviceDiscovery.initialize();
+            runLatestAdaptiveSync();
+
+            List<Instant> schedules = captureAdaptiveSchedules();
+            assertEquals(2, schedules.size());
+            assertScheduledAfterSeconds(schedules.get(1), 120);
+        }
+
+        @Test
+        @DisplayName("周期内有实例变化时间隔应减半")
+        void shouldShortenWhenInstancesChange() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 9090)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+            runLatestAdaptiveSync();
+
+            List<Instant> schedules = captureAdaptiveSchedules();
+            assertEquals(2, schedules.size());
+            assertScheduledAfterSeconds(schedules.get(1), 30);
+        }
+
+        @Test
+        @DisplayName("释放 Leader 后不应继续调度")
+        void shouldStopReschedulingAfterLeadershipReleased() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+
+            serviceDiscovery.initialize();
+            serviceDiscovery.stop();
+            runLatestAdaptiveSync();
+
+            assertEquals(1, captureAdaptiveSchedules().size());
+            verify(testNamingService, times(1)).getServicesOfServer(anyInt(), anyInt(), anyString());
+        }
+
+        private List<Instant> captureAdaptiveSchedules() {
+            ArgumentCaptor<Instant> instantCaptor = ArgumentCaptor.forClass(Instant.class);
+            verify(taskScheduler, atLeastOnce()).schedule(any(Runnable.class), instantCaptor.capture());
+            return instantCaptor.getAllValues();
+        }
+
+        private void runLatestAdaptiveSync() {
+            ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+            verify(taskScheduler, atLeastOnce()).schedule(taskCaptor.capture(), any(Instant.class));
+            taskCaptor.getValue().run();
+        }
+
+        private void assertScheduledAfterSeconds(Instant scheduledAt, long expectedSeconds) {
+            long actualSeconds = Duration.between(Instant.now(), scheduledAt).getSeconds();
+            assertTrue(actualSeconds > expectedSeconds - 5 && actualSeconds <= expectedSeconds,
+                    "expected ~" + expectedSeconds + "s but was " + actualSeconds + "s");
+        }
+    }
+
+    @Nested
+    @DisplayName("服务熔断测试")
+    class ServiceBackoffTest {
+
+        @Test
+        @DisplayName("连续失败达到阈值后应跳过该服务并保留旧实例")
+        void shouldSkipServiceAfterThreshold() throws Exception {
+            properties.setServiceBackoffEnabled(true);
+            properties.setServiceFailureThreshold(2);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenThrow(new NacosException(500, "timeout"));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(createFallbackInstance("10.0.0.1", 8080)));
+
+            serviceDiscovery.initialize();
+            runScheduledSync();
+            runScheduledSync();
+            runScheduledSync();
+
+            verify(testNamingService, times(2)).selectInstances(eq("test-service"), anyString(), eq(true));
+            verify(localNamingService, never()).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("熔断只影响失败的服务")
+        void shouldOnlyAffectFailingService() throws Exception {
+            properties.setServiceBackoffEnabled(true);
+            properties.setServiceFailureThreshold(1);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Arrays.asList("bad-service", "good-service")));
+            when(testNamingService.selectInstances(eq("bad-service"), anyString(), eq(true)))
+                    .thenThrow(new NacosException(500, "timeout"));
+            when(testNamingService.selectInstances(eq("good-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(anyString(), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+            runScheduledSync();
+
+            verify(testNamingService, times(1)).selectInstances(eq("bad-service"), anyString(), eq(true));
+            verify(testNamingService, times(2)).selectInstances(eq("good-service"), anyString(), eq(true));
+        }
+
+        @Test
+        @DisplayName("未启用时每个周期都应重试失败的服务")
+        void shouldRetryEveryCycleWhenDisabled() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenThrow(new NacosException(500, "timeout"));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+            runScheduledSync();
+            runScheduledSync();
+            runScheduledSync();
+
+            verify(testNamingService, times(4)).selectInstances(eq("test-service"), anyString(), eq(true));
+        }
+    }
+
+    @Nested
+    @DisplayName("调度器分离测试")
+    class SeparateSchedulerTest {
+
+        @Test
+        @DisplayName("Leader 检查应在独立的调度器上执行")
+        void leaderCheckShouldUseLeaderScheduler() throws Exception {
+            serviceDiscovery = new NacosFallbackServiceDiscovery(
+                    properties, taskScheduler, leaderScheduler, namingServiceFactory, INSTANCE_ID, false);
+            when(namingServiceFactory.create(any(Properties.class))).thenReturn(localNamingService);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance("other-instance")));
+
+            serviceDiscovery.initialize();
+
+            verify(leaderScheduler).scheduleWithFixedDelay(any(Runnable.class), eq(Duration.ofSeconds(10)));
+            verify(taskScheduler, never()).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+        }
+
+        @Test
+        @DisplayName("同步任务应在同步调度器上执行")
+        void syncShouldUseTaskScheduler() throws Exception {
+            serviceDiscovery = new NacosFallbackServiceDiscovery(
+                    properties, taskScheduler, leaderScheduler, namingServiceFactory, INSTANCE_ID, false);
+            setupLeaderMocks();
+            runExecutedTasksInline();
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+
+            serviceDiscovery.initialize();
+
+            verify(taskScheduler).execute(any(Runnable.class));
+            verify(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), eq(Duration.ofSeconds(60)));
+            verify(leaderScheduler, never()).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+        }
+
+        @Test
+        @DisplayName("在 Leader 检查调度器上胜出选举后应将首轮同步提交到同步调度器")
+        void electionWinShouldStartSyncOnTaskScheduler() throws Exception {
+            properties.setLeaderElectionWaitMs(3000);
+            serviceDiscovery = new NacosFallbackServiceDiscovery(
+                    properties, taskScheduler, leaderScheduler, namingServiceFactory, INSTANCE_ID, false);
+            setupLeaderMocks();
+
+            serviceDiscovery.initialize();
+
+            ArgumentCaptor<Runnable> confirmCaptor = ArgumentCaptor.forClass(Runnable.class);
+            verify(leaderScheduler).schedule(confirmCaptor.capture(), any(Instant.class));
+            confirmCaptor.getValue().run();
+
+            // 确认选举的线程上不应执行同步
+            assertTrue(serviceDiscovery.isLeader());
+            verify(namingServiceFactory, times(1)).create(any(Properties.class));
+            ArgumentCaptor<Runnable> startCaptor = ArgumentCaptor.forClass(Runnable.class);
+            verify(taskScheduler).execute(startCaptor.capture());
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+            startCaptor.getValue().run();
+
+            verify(namingServiceFactory, times(2)).create(any(Properties.class));
+            verify(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), eq(Duration.ofSeconds(60)));
+        }
+
+        @Test
+        @DisplayName("提交的首轮同步执行前已释放 Leader 时应跳过")
+        void submittedSyncShouldSkipAfterLeadershipReleased() throws Exception {
+            serviceDiscovery = new NacosFallbackServiceDiscovery(
+                    properties, taskScheduler, leaderScheduler, namingServiceFactory, INSTANCE_ID, false);
+            when(namingServiceFactory.create(any(Properties.class))).thenReturn(localNamingService);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID)));
+
+            serviceDiscovery.initialize();
+            ArgumentCaptor<Runnable> startCaptor = ArgumentCaptor.forClass(Runnable.class);
+            verify(taskScheduler).execute(startCaptor.capture());
+
+            serviceDiscovery.stop();
+            startCaptor.getValue().run();
+
+            verify(namingServiceFactory, times(1)).create(any(Properties.class));
+            verify(taskScheduler, never()).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+        }
+
+        @Test
+        @DisplayName("虚拟线程模式下应能完成同步")
+        void shouldSyncWithVirtualExecutor() throws Exception {
+            properties.setSyncExecutorType(NacosFallbackProperties.ExecutorType.VIRTUAL);
+            properties.setSyncParallelism(8);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Arrays.asList("service-a", "service-b")));
+            when(testNamingService.selectInstances(anyString(), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(anyString(), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService).registerInstance(eq("service-a"), anyString(), any(Instance.class));
+            verify(localNamingService).registerInstance(eq("service-b"), anyString(), any(Instance.class));
+            serviceDiscovery.stop();
+        }
+    }
+
+    @Nested
+    @DisplayName("本地快照测试")
+    class SnapshotTest {
+
+        @TempDir
+        Path tempDir;
+
+        @Test
+        @DisplayName("同步后应将测试环境实例写入快照")
+        void shouldPersistSnapshotAfterSync() throws Exception {
+            Path snapshotPath = tempDir.resolve("snapshot.bin");
+            properties.setSnapshotEnabled(true);
+            properties.setSnapshotPath(snapshotPath.toString());
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            Map<String, List<Instance>> snapshot = new SyncSnapshotStore(snapshotPath).load();
+            assertEquals(1, snapshot.get("test-service").size());
+            assertEquals("172.16.0.1", snapshot.get("test-service").get(0).getIp());
+        }
+
+        @Test
+        @DisplayName("成为 Leader 时应先按快照注册再连接测试环境")
+        void shouldRegisterFromSnapshotBeforeConnectingTestEnv() throws Exception {
+            Path snapshotPath = tempDir.resolve("snapshot.bin");
+            new SyncSnapshotStore(snapshotPath).save(Collections.singletonMap(
+                    "test-service", Collections.singletonList(createInstance("172.16.0.1", 8080))));
+            properties.setSnapshotEnabled(true);
+            properties.setSnapshotPath(snapshotPath.toString());
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(createFallbackInstance("10.0.0.1", 8080)));
+
+            serviceDiscovery.initialize();
+
+            InOrder inOrder = inOrder(localNamingService, namingServiceFactory);
+            ArgumentCaptor<Instance> instanceCaptor = ArgumentCaptor.forClass(Instance.class);
+            inOrder.verify(localNamingService).registerInstance(eq("test-service"), anyString(), instanceCaptor.capture());
+            inOrder.verify(namingServiceFactory).create(any(Properties.class));
+            assertEquals("10.0.0.1", instanceCaptor.getValue().getIp());
+            // 测试环境已无服务，快照中的服务应被清理
+            verify(localNamingService).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("快照文件损坏时应跳过预热并正常同步")
+        void shouldSkipWarmStartWhenSnapshotCorrupted() throws Exception {
+            Path snapshotPath = tempDir.resolve("snapshot.bin");
+            Files.write(snapshotPath, new byte[]{1, 2, 3});
+            properties.setSnapshotEnabled(true);
+            properties.setSnapshotPath(snapshotPath.toString());
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+            assertEquals(1, new SyncSnapshotStore(snapshotPath).load().size());
+        }
+    }
+
+    @Nested
+    @DisplayName("离线模式测试")
+    class OfflineModeTest {
+
+        @BeforeEach
+        void enableOfflineMode() {
+            properties.setOfflineModeEnabled(true);
+        }
+
+        @Test
+        @DisplayName("服务端不可用导致空列表时应保留 fallback 实例")
+        void shouldKeepInstancesWhenServerDown() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")))
+                    .thenReturn(createEmptyListView());
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+            when(testNamingService.getServerStatus()).thenReturn("DOWN");
+
+            serviceDiscovery.initialize();
+            runScheduledSync();
+
+            assertTrue(serviceDiscovery.isOffline());
+            verify(localNamingService, never()).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("拉取服务列表异常时应进入离线状态，恢复后退出")
+        void shouldEnterAndLeaveOfflineOnListingFailure() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenThrow(new NacosException(500, "connection refused"))
+                    .thenReturn(createEmptyListView());
+            when(testNamingService.getServerStatus()).thenReturn("UP");
+
+            serviceDiscovery.initialize();
+            assertTrue(serviceDiscovery.isOffline());
+
+            runScheduledSync();
+            assertFalse(serviceDiscovery.isOffline());
+        }
+
+        @Test
+        @DisplayName("测试环境确实没有服务时应清理 fallback 实例")
+        void shouldCleanupWhenServerUpAndEmpty() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")))
+                    .thenReturn(createEmptyListView());
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(createFallbackInstance("10.0.0.1", 8080)));
+            when(testNamingService.getServerStatus()).thenReturn("UP");
+
+            serviceDiscovery.initialize();
+            runScheduledSync();
+
+            assertFalse(serviceDiscovery.isOffline());
+            verify(localNamingService).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("连接测试环境失败时不应释放 Leader，并在下个周期重试连接")
+        void shouldKeepLeadershipWhenConnectFails() throws Exception {
+            createServiceDiscovery();
+            when(namingServiceFactory.create(any(Properties.class)))
+                    .thenReturn(localNamingService)
+                    .thenThrow(new RuntimeException("Failed to connect to test Nacos"))
+                    .thenThrow(new RuntimeException("Failed to connect to test Nacos"))
+                    .thenReturn(testNamingService);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID)));
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            assertTrue(serviceDiscovery.isOffline());
+            verify(localNamingService, never()).deregisterInstance(eq("nacos-sync-leader"), anyString(), any(Instance.class));
+            verify(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), eq(Duration.ofSeconds(60)));
+
+            runScheduledSync();
+
+            assertFalse(serviceDiscovery.isOffline());
+            verify(localNamingService).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("离线超过保留时间后应清理 fallback 实例")
+        void shouldCleanupAfterStaleTtl() throws Exception {
+            properties.setOfflineStaleTtlSeconds(1);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")))
+                    .thenThrow(new NacosException(500, "connection refused"));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(createFallbackInstance("10.0.0.1", 8080)));
+
+            serviceDiscovery.initialize();
+            runScheduledSync();
+            verify(localNamingService, never()).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+
+            // 离线时间超过保留时间
+            serviceDiscovery.setOfflineClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(2)));
+            runScheduledSync();
+            verify(localNamingService).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("同步指标测试")
+    class SyncMetricsTest {
+
+        private final List<Boolean> cycleResults = new ArrayList<>();
+        private final List<String> rpcCalls = new ArrayList<>();
+        private int addedInstances;
+
+        private final SyncMetrics recordingMetrics = new SyncMetrics() {
+            @Override
+            public void recordCycle(long durationNanos, SyncCycleStats stats, boolean success) {
+                cycleResults.add(success);
+            }
+
+            @Override
+            public void recordRpc(String target, String operation, long durationNanos) {
+                rpcCalls.add(target + ":" + operation);
+            }
+
+            @Override
+            public void recordInstancesAdded(int count) {
+                addedInstances += count;
+            }
+        };
+
+        @Test
+        @DisplayName("一轮同步应统计扫描、跳过、同步的服务数及新增实例数")
+        void shouldCollectCycleStats() throws Exception {
+            createServiceDiscovery();
+            serviceDiscovery.setSyncMetrics(recordingMetrics);
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Arrays.asList("new-service", "native-service")));
+            when(testNamingService.selectInstances(eq("new-service"), anyString(), eq(true)))
+                    .thenReturn(Arrays.asList(createInstance("172.16.0.1", 8080), createInstance("172.16.0.2", 8080)));
+            when(localNamingService.getAllInstances(eq("new-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+            when(localNamingService.getAllInstances(eq("native-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(createInstance("192.168.1.1", 8080)));
+
+            serviceDiscovery.initialize();
+
+            SyncCycleStats stats = serviceDiscovery.getLastCycleStats();
+            assertNotNull(stats);
+            assertEquals(2, stats.getScannedServices());
+            assertEquals(1, stats.getSyncedServices());
+            assertEquals(1, stats.getSkippedServices());
+            assertEquals(0, stats.getFailedServices());
+            assertEquals(2, stats.getAddedInstances());
+            assertEquals(2, addedInstances);
+            assertEquals(Collections.singletonList(true), cycleResults);
+            assertTrue(serviceDiscovery.getLastSuccessfulSyncTime() > 0);
+            assertTrue(rpcCalls.contains("remote:getServicesOfServer"));
+            assertTrue(rpcCalls.contains("remote:selectInstances"));
+            assertTrue(rpcCalls.contains("local:getAllInstances"));
+            assertTrue(rpcCalls.contains("local:registerInstance"));
+        }
+
+        @Test
+        @DisplayName("同步周期之外的单服务同步不应计入上一轮统计")
+        void singleServiceSyncShouldNotChangeLastCycleStats() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 9090)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(createFallbackInstance("10.0.0.1", 8080)));
+
+            serviceDiscovery.initialize();
+            SyncCycleStats stats = serviceDiscovery.getLastCycleStats();
+
+            serviceDiscovery.syncSingleService("test-service");
+
+            verify(localNamingService).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+            assertSame(stats, serviceDiscovery.getLastCycleStats());
+            assertEquals(1, stats.getScannedServices());
+            assertEquals(1, stats.getSyncedServices());
+            assertEquals(1, stats.getAddedInstances());
+            assertEquals(0, stats.getRemovedInstances());
+        }
+
+        @Test
+        @DisplayName("清理阶段中的读取与注销只应计入 cleanup 阶段")
+        void cleanupShouldNotDoubleCountNestedPhases() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")))
+                    .thenReturn(createEmptyListView());
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(createFallbackInstance("10.0.0.1", 8080)));
+
+            serviceDiscovery.initialize();
+            runScheduledSync();
+
+            SyncCycleStats stats = serviceDiscovery.getLastCycleStats();
+            verify(localNamingService).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+            assertEquals(1, stats.getRemovedInstances());
+            assertEquals(0, stats.getPhaseNanos(SyncMetrics.PHASE_FETCH));
+            assertEquals(0, stats.getPhaseNanos(SyncMetrics.PHASE_WRITE));
+            assertTrue(stats.getPhaseNanos(SyncMetrics.PHASE_CLEANUP) > 0);
+            long phaseSum = 0;
+            for (String phase : SyncMetrics.PHASES) {
+                phaseSum += stats.getPhaseNanos(phase);
+            }
+            assertTrue(phaseSum <= stats.getDurationNanos());
+        }
+
+        @Test
+        @DisplayName("拉取实例失败的服务应计为失败")
+        void shouldCountFailedServices() throws Exception {
+            createServiceDiscovery();
+            serviceDiscovery.setSyncMetrics(recordingMetrics);
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenThrow(new NacosException(500, "timeout"));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+
+            assertEquals(1, serviceDiscovery.getLastCycleStats().getFailedServices());
+            assertEquals(0, serviceDiscovery.getLastCycleStats().getSyncedServices());
+        }
+
+        @Test
+        @DisplayName("拉取服务列表异常时本轮应记为失败且不更新成功时间")
+        void shouldRecordFailedCycle() throws Exception {
+            createServiceDiscovery();
+            serviceDiscovery.setSyncMetrics(recordingMetrics);
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenThrow(new NacosException(500, "connection refused"));
+
+            serviceDiscovery.initialize();
+
+            assertEquals(Collections.singletonList(false), cycleResults);
+            assertEquals(0, serviceDiscovery.getLastSuccessfulSyncTime());
+        }
+
+        @Test
+        @DisplayName("指标回调异常不应影响同步")
+        void metricsFailureShouldNotBreakSync() throws Exception {
+            createServiceDiscovery();
+            serviceDiscovery.setSyncMetrics(new SyncMetrics() {
+                @Override
+                public void recordCycle(long durationNanos, SyncCycleStats stats, boolean success) {
+                    throw new IllegalStateException("registry closed");
+                }
+            });
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+
+            serviceDiscovery.initialize();
+
+            assertTrue(serviceDiscovery.getLastSuccessfulSyncTime() > 0);
+            verify(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("手动触发同步测试")
+    class ManualSyncTest {
+
+        @Test
+        @DisplayName("非 Leader 时不应触发同步")
+        void shouldNotTriggerWhenNotLeader() {
+            createServiceDiscovery();
+
+            assertFalse(serviceDiscovery.triggerSync("test-service"));
+            assertFalse(serviceDiscovery.triggerSync(null));
+            verify(taskScheduler, never()).execute(any(Runnable.class));
+        }
+
+        @Test
+        @DisplayName("指定服务时应提交该服务的同步并跳过修订缓存")
+        void shouldSubmitSingleServiceSync() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            Instance testInstance = createInstance("172.16.0.1", 8080);
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(testInstance))
+                    .thenReturn(Arrays.asList(testInstance, createInstance("192.168.5.5", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(createFallbackInstance("10.0.0.1", 8080)));
+
+            serviceDiscovery.initialize();
+            verify(localNamingService).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+
+            assertTrue(serviceDiscovery.triggerSync("test-service"));
+            // 调用线程上不应执行同步
+            verify(localNamingService, times(1)).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+
+            ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+            verify(taskScheduler).execute(taskCaptor.capture());
+            taskCaptor.getValue().run();
+
+            verify(localNamingService, times(2)).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+            assertEquals(2, serviceDiscovery.getServiceStatuses().get("test-service").getInstanceCount());
+            assertTrue(serviceDiscovery.getSyncedServices().contains("test-service"));
+        }
+
+        @Test
+        @DisplayName("未指定服务时应提交一轮完整同步到同步调度线程")
+        void shouldSubmitFullSync() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+
+            serviceDiscovery.initialize();
+
+            assertTrue(serviceDiscovery.triggerSync(null));
+            ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+            verify(taskScheduler).execute(taskCaptor.capture());
+            taskCaptor.getValue().run();
+            verify(testNamingService, times(2)).getServicesOfServer(anyInt(), anyInt(), anyString());
+        }
+
+        @Test
+        @DisplayName("存在并行同步线程池时指定服务的同步应在线程池中执行")
+        void shouldSyncSingleServiceOnSyncExecutor() throws Exception {
+            properties.setSyncParallelism(2);
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+            assertTrue(serviceDiscovery.triggerSync("test-service"));
+
+            verify(localNamingService, timeout(2000)).registerInstance(eq("test-service"), anyString(), any(Instance.class));
+            verify(taskScheduler, never()).execute(any(Runnable.class));
+            serviceDiscovery.stop();
+        }
+
+        @Test
+        @DisplayName("同步失败时应记录连续失败次数并保留上次成功的信息")
+        void shouldRecordFailureStatus() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)))
+                    .thenThrow(new NacosException(500, "timeout"));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList());
+
+            serviceDiscovery.initialize();
+            long lastSyncTime = serviceDiscovery.getServiceStatuses().get("test-service").getLastSyncTime();
+
+            serviceDiscovery.triggerSync("test-service");
+            ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+            verify(taskScheduler).execute(taskCaptor.capture());
+            taskCaptor.getValue().run();
+
+            ServiceSyncStatus status = serviceDiscovery.getServiceStatuses().get("test-service");
+            assertEquals(1, status.getConsecutiveFailures());
+            assertEquals(lastSyncTime, status.getLastSyncTime());
+            assertTrue(status.getLastError().contains("timeout"));
+        }
+    }
+
+    @Nested
+    @DisplayName("健康状态缓存测试")
+    class HealthStateTest {
+
+        @Test
+        @DisplayName("发现已有 Leader 时应记录观察时间")
+        void shouldRecordLeaderObservedTime() throws Exception {
+            createServiceDiscovery();
+            when(namingServiceFactory.create(any(Properties.class))).thenReturn(localNamingService);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance("other-leader")));
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+
+            long before = System.currentTimeMillis();
+            serviceDiscovery.initialize();
+
+            assertFalse(serviceDiscovery.isLeader());
+            assertTrue(serviceDiscovery.getLastLeaderObservedTime() >= before);
+            assertEquals(0, serviceDiscovery.getLeaderSince());
+        }
+
+        @Test
+        @DisplayName("成为 Leader 时应记录任期开始时间")
+        void shouldRecordLeaderSince() throws Exception {
+            createServiceDiscovery();
+            setupLeaderMocks();
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+
+            long before = System.currentTimeMillis();
+            serviceDiscovery.initialize();
+
+            assertTrue(serviceDiscovery.isLeader());
+            assertTrue(serviceDiscovery.getLeaderSince() >= before);
+        }
+    }
+
+    @Nested
+    @DisplayName("Leader 选举服务订阅测试")
+    class LeaderSubscriptionTest {
+
+        @BeforeEach
+        void setUp() {
+            properties.setLeaderSubscribeEnabled(true);
+            properties.setLeaderSafetyCheckIntervalSeconds(60);
+            createServiceDiscovery();
+        }
+
+        @Test
+        @DisplayName("Follower 应订阅 Leader 选举服务，定期检查降级为兜底间隔")
+        void followerShouldSubscribeAndPollSlowly() throws Exception {
+            when(namingServiceFactory.create(any(Properties.class))).thenReturn(localNamingService);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance("other-leader")));
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService).subscribe(eq("nacos-sync-leader"), anyString(), any(EventListener.class));
+            verify(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), eq(Duration.ofSeconds(60)));
+        }
+
+        @Test
+        @DisplayName("订阅失败时应按 leaderCheckIntervalSeconds 定期检查")
+        void shouldPollAtCheckIntervalWhenSubscribeFails() throws Exception {
+            when(namingServiceFactory.create(any(Properties.class))).thenReturn(localNamingService);
+            doThrow(new NacosException(500, "subscribe failed"))
+                    .when(localNamingService).subscribe(eq("nacos-sync-leader"), anyString(), any(EventListener.class));
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance("other-leader")));
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+
+            serviceDiscovery.initialize();
+
+            verify(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), eq(Duration.ofSeconds(10)));
+        }
+
+        @Test
+        @DisplayName("Leader 实例消失的推送到达时应立即竞选，无需等待定期检查")
+        void shouldTryBecomeLeaderWhenLeaderDisappears() throws Exception {
+            when(namingServiceFactory.create(any(Properties.class)))
+                    .thenReturn(localNamingService)
+                    .thenReturn(testNamingService);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance("other-leader"))) // 初始化时有 Leader
+                    .thenReturn(Collections.emptyList()) // checkAndTryBecomeLeader 时 Leader 消失
+                    .thenReturn(Collections.emptyList()) // 竞选时检查
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID))); // 确认选举结果
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+            ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+
+            serviceDiscovery.initialize();
+            assertFalse(serviceDiscovery.isLeader());
+            verify(localNamingService).subscribe(eq("nacos-sync-leader"), anyString(), listenerCaptor.capture());
+
+            listenerCaptor.getValue().onEvent(new NamingEvent("nacos-sync-leader", Collections.emptyList()));
+
+            assertTrue(serviceDiscovery.isLeader());
+            verify(localNamingService).registerInstance(eq("nacos-sync-leader"), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("停止时应先取消订阅")
+        void stopShouldUnsubscribe() throws Exception {
+            when(namingServiceFactory.create(any(Properties.class))).thenReturn(localNamingService);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance("other-leader")));
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+
+            serviceDiscovery.initialize();
+            serviceDiscovery.stop();
+
+            verify(localNamingService).unsubscribe(eq("nacos-sync-leader"), anyString(), any(EventListener.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Leader 交接测试")
+    class HandoffTest {
+
+        private static final String PREDECESSOR = "previous-leader";
+
+        @BeforeEach
+        void setUp() {
+            properties.setHandoffEnabled(true);
+            properties.setHandoffTimeoutMs(200);
+            createServiceDiscovery();
+        }
+
+        private void startAsLeaderWithOneService() throws Exception {
+            when(namingServiceFactory.create(any(Properties.class)))
+                    .thenReturn(localNamingService)
+                    .thenReturn(testNamingService);
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(testNamingService.selectInstances(eq("test-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+        }
+
+        private Instance createHandingOffLeader() {
+            Instance leader = createLeaderInstance(PREDECESSOR);
+            leader.getMetadata().put("handoff", "true");
+            return leader;
+        }
+
+        @Test
+        @DisplayName("继任者接管后停止的 Leader 不应注销 fallback 实例，而是关闭本地客户端")
+        void shouldSkipCleanupWhenSuccessorAdopts() throws Exception {
+            startAsLeaderWithOneService();
+            Instance successor = createLeaderInstance("successor");
+            successor.getMetadata().put("adopted-from", INSTANCE_ID);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID))) // 确认选举结果
+                    .thenReturn(Arrays.asList(createLeaderInstance(INSTANCE_ID), successor));
+            ArgumentCaptor<Instance> leaderCaptor = ArgumentCaptor.forClass(Instance.class);
+
+            serviceDiscovery.initialize();
+            serviceDiscovery.stop();
+
+            verify(localNamingService, times(2)).registerInstance(eq("nacos-sync-leader"), anyString(), leaderCaptor.capture());
+            assertEquals("true", leaderCaptor.getValue().getMetadata().get("handoff"));
+            verify(localNamingService, never()).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+            verify(localNamingService).shutDown();
+        }
+
+        @Test
+        @DisplayName("超时无继任者接管时应照常清理 fallback 实例")
+        void shouldCleanupWhenNoSuccessorAdopts() throws Exception {
+            startAsLeaderWithOneService();
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID)));
+            Instance ownFallback = createFallbackInstance("10.0.0.1", 8080);
+            ownFallback.getMetadata().put("synced-by", INSTANCE_ID);
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(ownFallback));
+
+            serviceDiscovery.initialize();
+            serviceDiscovery.stop();
+
+            verify(localNamingService).deregisterInstance(eq("test-service"), anyString(), eq(ownFallback));
+            verify(localNamingService, never()).shutDown();
+        }
+
+        @Test
+        @DisplayName("继任者应按元数据还原前任的实例并以本节点身份注册，随后通知前任")
+        void successorShouldAdoptPredecessorInstances() throws Exception {
+            when(namingServiceFactory.create(any(Properties.class)))
+                    .thenReturn(localNamingService)
+                    .thenReturn(testNamingService);
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createHandingOffLeader()))
+                    .thenReturn(Arrays.asList(createHandingOffLeader(), createLeaderInstance(INSTANCE_ID)));
+            Instance inherited = createFallbackInstance("10.0.0.1", 30080);
+            inherited.getMetadata().put("original-ip", "172.16.0.1");
+            inherited.getMetadata().put("original-port", "8080");
+            inherited.getMetadata().put("synced-by", PREDECESSOR);
+            inherited.getMetadata().put("version", "1.0.0");
+            when(localNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("test-service")));
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(inherited));
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+            ArgumentCaptor<Instance> captor = ArgumentCaptor.forClass(Instance.class);
+            List<Map<String, String>> leaderMetadata = captureLeaderMetadata();
+
+            serviceDiscovery.initialize();
+
+            assertTrue(serviceDiscovery.isLeader());
+            verify(localNamingService).registerInstance(eq("test-service"), anyString(), captor.capture());
+            Instance adopted = captor.getValue();
+            assertEquals("10.0.0.1", adopted.getIp());
+            assertEquals(8080, adopted.getPort()); // 未配置端口映射时按原始端口重新计算
+            assertEquals("172.16.0.1", adopted.getMetadata().get("original-ip"));
+            assertEquals("1.0.0", adopted.getMetadata().get("version"));
+            assertEquals(INSTANCE_ID, adopted.getMetadata().get("synced-by"));
+            // 候选注册、开始接管、完成接管
+            assertEquals(3, leaderMetadata.size());
+            assertEquals(PREDECESSOR, leaderMetadata.get(1).get("adopting-from"));
+            assertEquals(PREDECESSOR, leaderMetadata.get(2).get("adopted-from"));
+            assertFalse(leaderMetadata.get(2).containsKey("adopting-from"));
+        }
+
+        @Test
+        @DisplayName("已按快照预热时继任者只应检查快照内的服务")
+        void successorShouldOnlyCheckSnapshotServices(@TempDir Path tempDir) throws Exception {
+            Path snapshotPath = tempDir.resolve("snapshot.bin");
+            new SyncSnapshotStore(snapshotPath).save(Collections.singletonMap(
+                    "test-service", Collections.singletonList(createInstance("172.16.0.1", 8080))));
+            properties.setSnapshotEnabled(true);
+            properties.setSnapshotPath(snapshotPath.toString());
+            createServiceDiscovery();
+            when(namingServiceFactory.create(any(Properties.class)))
+                    .thenReturn(localNamingService)
+                    .thenReturn(testNamingService);
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createHandingOffLeader()))
+                    .thenReturn(Arrays.asList(createHandingOffLeader(), createLeaderInstance(INSTANCE_ID)));
+            Instance inherited = createFallbackInstance("10.0.0.1", 8080);
+            inherited.getMetadata().put("original-ip", "172.16.0.1");
+            inherited.getMetadata().put("original-port", "8080");
+            inherited.getMetadata().put("synced-by", PREDECESSOR);
+            when(localNamingService.getAllInstances(eq("test-service"), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(inherited));
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+            List<Map<String, String>> leaderMetadata = captureLeaderMetadata();
+
+            serviceDiscovery.initialize();
+
+            assertTrue(serviceDiscovery.isLeader());
+            verify(localNamingService, never()).getServicesOfServer(anyInt(), anyInt(), anyString());
+            assertEquals(PREDECESSOR, leaderMetadata.get(leaderMetadata.size() - 1).get("adopted-from"));
+        }
+
+        @Test
+        @DisplayName("继任者开始接管后前任应延长等待")
+        void shouldExtendWaitWhileSuccessorAdopts() throws Exception {
+            startAsLeaderWithOneService();
+            Instance adopting = createLeaderInstance("successor");
+            adopting.getMetadata().put("adopting-from", INSTANCE_ID);
+            Instance adopted = createLeaderInstance("successor");
+            adopted.getMetadata().put("adopted-from", INSTANCE_ID);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID))) // 确认选举结果
+                    // 交接等待 200 ms，每 50 ms 检查一次：第 4 次检查已超出原等待时间
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID)))
+                    .thenReturn(Arrays.asList(createLeaderInstance(INSTANCE_ID), adopting))
+                    .thenReturn(Arrays.asList(createLeaderInstance(INSTANCE_ID), adopted));
+
+            serviceDiscovery.initialize();
+            serviceDiscovery.stop();
+
+            verify(localNamingService, never()).deregisterInstance(eq("test-service"), anyString(), any(Instance.class));
+            verify(localNamingService).shutDown();
+        }
+
+        /**
+         * 记录每次注册 Leader 实例时的元数据（同一实例对象会被修改后重新注册）
+         */
+        private List<Map<String, String>> captureLeaderMetadata() throws NacosException {
+            List<Map<String, String>> leaderMetadata = new ArrayList<>();
+            doAnswer(invocation -> {
+                Instance instance = invocation.getArgument(2);
+                leaderMetadata.add(new HashMap<>(instance.getMetadata()));
+                return null;
+            }).when(localNamingService).registerInstance(eq("nacos-sync-leader"), anyString(), any(Instance.class));
+            return leaderMetadata;
+        }
+
+        @Test
+        @DisplayName("正在交接的 Leader 不应被视为健康的 Leader")
+        void handingOffLeaderShouldNotCountAsLeader() throws Exception {
+            when(namingServiceFactory.create(any(Properties.class)))
+                    .thenReturn(localNamingService)
+                    .thenReturn(testNamingService);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance(PREDECESSOR)))
+                    .thenReturn(Collections.singletonList(createHandingOffLeader()))
+                    .thenReturn(Collections.singletonList(createHandingOffLeader()))
+                    .thenReturn(Arrays.asList(createHandingOffLeader(), createLeaderInstance(INSTANCE_ID)));
+            ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(runnableCaptor.capture(), any(Duration.class));
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createEmptyListView());
+
+            serviceDiscovery.initialize();
+            assertFalse(serviceDiscovery.isLeader());
+            runnableCaptor.getAllValues().get(0).run();
+
+            assertTrue(serviceDiscovery.isLeader());
+        }
+    }
+
+    @Nested
+    @DisplayName("分片同步测试")
+    class ShardingTest {
+
+        private static final String OTHER_PARTICIPANT = "other-participant";
+
+        private String ownedService;
+        private String foreignService;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            properties.setShardingEnabled(true);
+            ConsistentHashRing ring = ConsistentHashRing.of(
+                    Arrays.asList(INSTANCE_ID, OTHER_PARTICIPANT), properties.getShardVirtualNodes());
+            for (int i = 0; ownedService == null || foreignService == null; i++) {
+                String serviceName = "service-" + i;
+                if (INSTANCE_ID.equals(ring.ownerOf(serviceName))) {
+                    ownedService = ownedService != null ? ownedService : serviceName;
+                } else {
+                    foreignService = foreignService != null ? foreignService : serviceName;
+                }
+            }
+
+            createServiceDiscovery();
+            when(namingServiceFactory.create(any(Properties.class)))
+                    .thenReturn(localNamingService)
+                    .thenReturn(testNamingService);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Arrays.asList(createLeaderInstance(OTHER_PARTICIPANT), createLeaderInstance(INSTANCE_ID)));
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Arrays.asList(ownedService, foreignService)));
+            when(testNamingService.selectInstances(eq(ownedService), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+        }
+
+        @Test
+        @DisplayName("已有其他参与者时仍应注册并只同步分配给本节点的服务")
+        void shouldJoinAndSyncOnlyOwnedServices() throws Exception {
+            serviceDiscovery.initialize();
+
+            assertTrue(serviceDiscovery.isLeader());
+            // 注册为参与者，完成一轮同步后公布哈希环纪元
+            ArgumentCaptor<Instance> participantCaptor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService, times(2)).registerInstance(eq("nacos-sync-leader"), anyString(), participantCaptor.capture());
+            assertEquals(ConsistentHashRing.of(Arrays.asList(INSTANCE_ID, OTHER_PARTICIPANT), properties.getShardVirtualNodes()).getEpoch(),
+                    participantCaptor.getValue().getMetadata().get("shard-epoch"));
+            ArgumentCaptor<Instance> captor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService).registerInstance(eq(ownedService), anyString(), captor.capture());
+            assertEquals(INSTANCE_ID, captor.getValue().getMetadata().get("synced-by"));
+            verify(testNamingService, never()).selectInstances(eq(foreignService), anyString(), anyBoolean());
+            assertEquals(Collections.singleton(ownedService), serviceDiscovery.getSyncedServices());
+            assertEquals(new TreeSet<>(Arrays.asList(INSTANCE_ID, OTHER_PARTICIPANT)),
+                    serviceDiscovery.getShardParticipants());
+        }
+
+        @Test
+        @DisplayName("其他参与者同步的 fallback 实例既不是本节点的实例也不是原生实例")
+        void shouldIgnoreFallbackInstancesSyncedByOthers() throws Exception {
+            Instance foreignFallback = createFallbackInstance("10.0.0.1", 8080);
+            foreignFallback.getMetadata().put("synced-by", OTHER_PARTICIPANT);
+            when(localNamingService.getAllInstances(eq(ownedService), anyString(), eq(false)))
+                    .thenReturn(Collections.singletonList(foreignFallback));
+
+            serviceDiscovery.initialize();
+
+            verify(localNamingService).registerInstance(eq(ownedService), anyString(), any(Instance.class));
+            verify(localNamingService, never()).deregisterInstance(eq(ownedService), anyString(), any(Instance.class));
+        }
+
+        @Test
+        @DisplayName("参与者减少时应接管其服务，不再负责的服务应作为过期服务清理")
+        void shouldRebalanceWhenParticipantsChange() throws Exception {
+            serviceDiscovery.initialize();
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID)));
+            when(testNamingService.selectInstances(eq(foreignService), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.2", 8080)));
+
+            serviceDiscovery.syncServices();
+
+            verify(localNamingService).registerInstance(eq(foreignService), anyString(), any(Instance.class));
+            assertEquals(new TreeSet<>(Arrays.asList(ownedService, foreignService)), serviceDiscovery.getSyncedServices());
+            assertEquals(Collections.singleton(INSTANCE_ID), serviceDiscovery.getShardParticipants());
+        }
+
+        @Test
+        @DisplayName("参与者增加时释放的服务应保留到新负责节点公布已按当前纪元完成同步")
+        void shouldKeepReleasedServiceUntilNewOwnerSynced() throws Exception {
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID)));
+            when(testNamingService.selectInstances(eq(foreignService), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.2", 8080)));
+            Instance ownFallback = createFallbackInstance("10.0.0.1", 8080);
+            ownFallback.getMetadata().put("synced-by", INSTANCE_ID);
+            Instance newOwnerFallback = createFallbackInstance("10.0.0.1", 8080);
+            newOwnerFallback.getMetadata().put("synced-by", OTHER_PARTICIPANT);
+            when(localNamingService.getAllInstances(eq(foreignService), anyString(), eq(false)))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Arrays.asList(ownFallback, newOwnerFallback));
+
+            serviceDiscovery.initialize();
+            verify(localNamingService).registerInstance(eq(foreignService), anyString(), any(Instance.class));
+
+            // 其他参与者加入，foreignService 分配给它，但它尚未完成一轮同步
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Arrays.asList(createLeaderInstance(OTHER_PARTICIPANT), createLeaderInstance(INSTANCE_ID)));
+            serviceDiscovery.syncServices();
+
+            verify(localNamingService, never()).deregisterInstance(eq(foreignService), anyString(), any(Instance.class));
+            assertEquals(new TreeSet<>(Arrays.asList(ownedService, foreignService)), serviceDiscovery.getSyncedServices());
+            // 保留期间不逐个服务回读新负责节点的实例
+            verify(localNamingService, times(1)).getAllInstances(eq(foreignService), anyString(), eq(false));
+
+            // 新负责节点公布当前纪元后注销本节点的实例
+            Instance synced = createLeaderInstance(OTHER_PARTICIPANT);
+            synced.getMetadata().put("shard-epoch", ConsistentHashRing.of(
+                    Arrays.asList(INSTANCE_ID, OTHER_PARTICIPANT), properties.getShardVirtualNodes()).getEpoch());
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Arrays.asList(synced, createLeaderInstance(INSTANCE_ID)));
+            serviceDiscovery.syncServices();
+
+            verify(localNamingService).deregisterInstance(eq(foreignService), anyString(), eq(ownFallback));
+            assertEquals(Collections.singleton(ownedService), serviceDiscovery.getSyncedServices());
+        }
+
+        @Test
+        @DisplayName("手动同步分配给其他参与者的服务时应拒绝")
+        void triggerSyncShouldRejectServicesOwnedByOthers() throws Exception {
+            serviceDiscovery.initialize();
+
+            assertFalse(serviceDiscovery.triggerSync(foreignService));
+            assertTrue(serviceDiscovery.triggerSync(ownedService));
+        }
+    }
+
+    @Nested
+    @DisplayName("服务过滤测试")
+    class ServiceFilterTest {
+
+        @BeforeEach
+        void setUp() throws Exception {
+            properties.setIncludeServices(Collections.singletonList("user-*"));
+            properties.setExcludeServices(Collections.singletonList("*-canary"));
+            createServiceDiscovery();
+            setupLeaderMocks();
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Arrays.asList("user-service", "user-canary", "order-service")));
+            when(testNamingService.selectInstances(eq("user-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+        }
+
+        @Test
+        @DisplayName("被过滤的服务不应拉取实例也不应注册")
+        void shouldSkipFilteredServicesBeforeAnyRpc() throws Exception {
+            serviceDiscovery.initialize();
+
+            verify(localNamingService).registerInstance(eq("user-service"), anyString(), any(Instance.class));
+            verify(testNamingService, never()).selectInstances(eq("user-canary"), anyString(), anyBoolean());
+            verify(testNamingService, never()).selectInstances(eq("order-service"), anyString(), anyBoolean());
+            verify(localNamingService, never()).getAllInstances(eq("order-service"), anyString(), anyBoolean());
+            assertEquals(Collections.singleton("user-service"), serviceDiscovery.getSyncedServices());
+        }
+
+        @Test
+        @DisplayName("手动同步被过滤的服务时应拒绝")
+        void triggerSyncShouldRejectFilteredServices() throws Exception {
+            serviceDiscovery.initialize();
+
+            assertFalse(serviceDiscovery.triggerSync("user-canary"));
+            assertFalse(serviceDiscovery.triggerSync("order-service"));
+            verify(testNamingService, never()).selectInstances(eq("user-canary"), anyString(), anyBoolean());
+        }
+    }
+
+    @Nested
+    @DisplayName("懒同步测试")
+    class LazySyncTest {
+
+        private static final String DEMAND_SERVICE = "nacos-sync-leader" + LazySyncCoordinator.DEMAND_SERVICE_SUFFIX;
+
+        @Mock
+        private ScheduledExecutorService onDemandExecutor;
+
+        @BeforeEach
+        void setUp() {
+            properties.setLazySyncEnabled(true);
+            properties.setLazySyncIdleTtlSeconds(30); // 淘汰任务间隔取 min(TTL, 60 秒)
+            createLazyServiceDiscovery();
+        }
+
+        @Test
+        @DisplayName("Leader 应只同步本节点及其他节点工作集内的服务")
+        void leaderShouldSyncOnlyDemandedServices() throws Exception {
+            setupLeaderMocks();
+            when(localNamingService.selectInstances(eq(DEMAND_SERVICE), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createDemandInstance("other-node", "order-service")));
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Arrays.asList("user-service", "order-service", "pay-service")));
+            when(testNamingService.selectInstances(eq("user-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.1", 8080)));
+            when(testNamingService.selectInstances(eq("order-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.2", 8080)));
+
+            serviceDiscovery.recordLookup("user-service"); // 初始化之前的查询
+            serviceDiscovery.initialize();
+
+            verify(localNamingService).subscribe(eq(DEMAND_SERVICE), anyString(), any(EventListener.class));
+            verify(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), eq(Duration.ofSeconds(30)));
+            verify(localNamingService).registerInstance(eq(DEMAND_SERVICE), anyString(), any(Instance.class));
+            verify(localNamingService).registerInstance(eq("user-service"), anyString(), any(Instance.class));
+            verify(localNamingService).registerInstance(eq("order-service"), anyString(), any(Instance.class));
+            verify(testNamingService, never()).selectInstances(eq("pay-service"), anyString(), anyBoolean());
+            assertEquals(new TreeSet<>(Arrays.asList("user-service", "order-service")), serviceDiscovery.getSyncedServices());
+            assertEquals(Collections.singleton("user-service"), serviceDiscovery.getLazyWorkingSet());
+        }
+
+        @Test
+        @DisplayName("Leader 首次查询未命中时应立即同步该服务，再次查询不重复触发")
+        void leaderShouldSyncOnFirstMiss() throws Exception {
+            setupLeaderMocks();
+            runOnDemandTasksInline();
+            when(localNamingService.selectInstances(eq(DEMAND_SERVICE), anyString(), eq(true)))
+                    .thenReturn(Collections.emptyList());
+            when(testNamingService.getServicesOfServer(anyInt(), anyInt(), anyString()))
+                    .thenReturn(createListView(Collections.singletonList("pay-service")));
+            when(testNamingService.selectInstances(eq("pay-service"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createInstance("172.16.0.3", 8080)));
+
+            serviceDiscovery.initialize();
+            verify(testNamingService, never()).selectInstances(eq("pay-service"), anyString(), anyBoolean());
+
+            CompletableFuture<Boolean> visible = serviceDiscovery.resolveOnDemand("pay-service", 1000);
+            assertSame(visible, serviceDiscovery.resolveOnDemand("pay-service", 1000));
+
+            verify(onDemandExecutor, times(1)).execute(any(Runnable.class));
+            verify(localNamingService).registerInstance(eq("pay-service"), anyString(), any(Instance.class));
+            verify(localNamingService).registerInstance(eq(DEMAND_SERVICE), anyString(), any(Instance.class));
+            assertEquals(Collections.singleton("pay-service"), serviceDiscovery.getSyncedServices());
+
+            // 本地 Nacos 推送新注册的实例后完成
+            ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+            verify(localNamingService).subscribe(eq("pay-service"), anyString(), listenerCaptor.capture());
+            listenerCaptor.getValue().onEvent(new NamingEvent("pay-service",
+                    Collections.singletonList(createInstance("10.0.0.1", 8080))));
+            assertTrue(visible.get());
+        }
+
+        @Test
+        @DisplayName("Follower 首次查询未命中时应发布工作集，由 Leader 同步")
+        void followerShouldPublishWorkingSet() throws Exception {
+            when(namingServiceFactory.create(any(Properties.class))).thenReturn(localNamingService);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance("other-leader")));
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+            runOnDemandTasksInline();
+
+            serviceDiscovery.initialize();
+            serviceDiscovery.recordLookup("user-service");
+            assertFalse(serviceDiscovery.resolveOnDemand("order-service", 1000).isDone()); // 等待 Leader 同步
+
+            ArgumentCaptor<Instance> captor = ArgumentCaptor.forClass(Instance.class);
+            verify(localNamingService, times(2)).registerInstance(eq(DEMAND_SERVICE), anyString(), captor.capture());
+            assertEquals("order-service,user-service", captor.getValue().getMetadata().get("services"));
+            assertEquals(INSTANCE_ID, captor.getValue().getMetadata().get("instanceId"));
+            verify(namingServiceFactory, times(1)).create(any(Properties.class)); // 不连接测试环境
+        }
+
+        @Test
+        @DisplayName("被过滤的服务不应加入工作集")
+        void filteredServicesShouldNotJoinWorkingSet() throws Exception {
+            properties.setExcludeServices(Collections.singletonList("*-canary"));
+            createLazyServiceDiscovery();
+
+            assertFalse(serviceDiscovery.resolveOnDemand("user-canary", 1000).get());
+            serviceDiscovery.recordLookup("order-canary");
+
+            assertTrue(serviceDiscovery.getLazyWorkingSet().isEmpty());
+            verifyNoInteractions(onDemandExecutor);
+        }
+
+        @Test
+        @DisplayName("未启用懒同步时不应记录查询")
+        void shouldIgnoreLookupsWhenDisabled() throws Exception {
+            properties.setLazySyncEnabled(false);
+            createServiceDiscovery();
+
+            serviceDiscovery.recordLookup("user-service");
+
+            assertFalse(serviceDiscovery.resolveOnDemand("user-service", 1000).get());
+            assertTrue(serviceDiscovery.getLazyWorkingSet().isEmpty());
+        }
+
+        @Test
+        @DisplayName("停止时应撤回本节点发布的工作集")
+        void stopShouldWithdrawWorkingSet() throws Exception {
+            when(namingServiceFactory.create(any(Properties.class))).thenReturn(localNamingService);
+            when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                    .thenReturn(Collections.singletonList(createLeaderInstance("other-leader")));
+            doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+
+            serviceDiscovery.recordLookup("user-service");
+            serviceDiscovery.initialize();
+            serviceDiscovery.stop();
+
+            verify(localNamingService).unsubscribe(eq(DEMAND_SERVICE), anyString(), any(EventListener.class));
+            verify(localNamingService).deregisterInstance(eq(DEMAND_SERVICE), anyString(), any(Instance.class));
+            verify(onDemandExecutor).shutdownNow();
+        }
+
+        private void createLazyServiceDiscovery() {
+            serviceDiscovery = new NacosFallbackServiceDiscovery(
+                    properties, taskScheduler, taskScheduler, namingServiceFactory, INSTANCE_ID, false, onDemandExecutor);
+        }
+
+        private void runOnDemandTasksInline() {
+            doAnswer(invocation -> {
+                ((Runnable) invocation.getArgument(0)).run();
+                return null;
+            }).when(onDemandExecutor).execute(any(Runnable.class));
+            doReturn(scheduledFuture).when(onDemandExecutor).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        }
+
+        private Instance createDemandInstance(String instanceId, String services) {
+            Instance instance = createLeaderInstance(instanceId);
+            instance.getMetadata().put("services", services);
+            return instance;
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * 执行一次已调度的定期同步任务
+     */
+    private void runScheduledSync() {
+        ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).scheduleWithFixedDelay(taskCaptor.capture(), any(Duration.class));
+        taskCaptor.getValue().run();
+    }
+
+    private void runExecutedTasksInline() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(taskScheduler).execute(any(Runnable.class));
+    }
+
+    private void setupLeaderMocks() throws Exception {
+        when(namingServiceFactory.create(any(Properties.class)))
+                .thenReturn(localNamingService)
+                .thenReturn(testNamingService);
+        when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID)));
+        doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+    }
+
+    private void setupLeaderMocksWithoutTestService() throws Exception {
+        when(namingServiceFactory.create(any(Properties.class)))
+                .thenReturn(localNamingService)
+                .thenReturn(testNamingService);
+        when(localNamingService.selectInstances(eq("nacos-sync-leader"), anyString(), eq(true)))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(Collections.singletonList(createLeaderInstance(INSTANCE_ID)));
+        doReturn(scheduledFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+    }
+
+    private Instance createInstance(String ip, int port) {
+        Instance instance = new Instance();
+        instance.setIp(ip);
+        instance.setPort(port);
+        instance.setHealthy(true);
+        instance.setEnabled(true);
+        instance.setEphemeral(true);
+        instance.setMetadata(new HashMap<>());
+        return instance;
+    }
+
+    private Instance createFallbackInstance(String ip, int port) {
+        Instance instance = createInstance(ip, port);
+        instance.getMetadata().put("fallback", "true");
+        instance.getMetadata().put("source", "test-env");
+        return instance;
+    }
+
+    private Instance createLeaderInstance(String instanceId) {
+        Instance instance = new Instance();
+        instance.setIp("127.0.0.1");
         instance.setPort(1);
         instance.setInstanceId(instanceId);
         instance.setHealthy(true);
@@ -1125,6 +3664,13 @@ class NacosFallbackServiceDiscoveryTest {
         return instance;
     }
 
+    private NacosFallbackProperties.IpRewriteRule createRewriteRule(String cidr, String publicIp) {
+        NacosFallbackProperties.IpRewriteRule rule = new NacosFallbackProperties.IpRewriteRule();
+        rule.setCidr(cidr);
+        rule.setPublicIp(publicIp);
+        return rule;
+    }
+
     private ListView<String> createListView(List<String> services) {
         return createListView(services, services.size());
     }
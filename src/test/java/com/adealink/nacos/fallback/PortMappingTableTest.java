@@ -0,0 +1,89 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PortMappingTable 单元测试
+ */
+@DisplayName("PortMappingTable 测试")
+class PortMappingTableTest {
+
+    @Test
+    @DisplayName("没有规则时应返回原端口")
+    void shouldKeepPortWithoutRules() {
+        PortMappingTable table = PortMappingTable.compile(null);
+        assertTrue(table.isEmpty());
+        assertEquals(8080, table.map("svc", "172.16.0.1", 8080));
+    }
+
+    @Test
+    @DisplayName("应按单端口规则映射")
+    void shouldMapSinglePort() {
+        PortMappingTable table = PortMappingTable.compile(Collections.singletonList(
+                rule(null, null, 8080, null, 30080)));
+        assertEquals(30080, table.map("svc", "172.16.0.1", 8080));
+        assertEquals(9090, table.map("svc", "172.16.0.1", 9090));
+    }
+
+    @Test
+    @DisplayName("应按偏移量映射端口区间")
+    void shouldMapPortRangeByOffset() {
+        PortMappingTable table = PortMappingTable.compile(Collections.singletonList(
+                rule(null, null, 8000, 8099, 30000)));
+        assertEquals(30000, table.map("svc", "172.16.0.1", 8000));
+        assertEquals(30099, table.map("svc", "172.16.0.1", 8099));
+        assertEquals(8100, table.map("svc", "172.16.0.1", 8100));
+    }
+
+    @Test
+    @DisplayName("越具体的规则应优先")
+    void moreSpecificScopeShouldWin() {
+        PortMappingTable table = PortMappingTable.compile(Arrays.asList(
+                rule(null, null, 8080, null, 1000),
+                rule(null, "172.16.0.1", 8080, null, 2000),
+                rule("svc", null, 8080, null, 3000),
+                rule("svc", "172.16.0.1", 8080, null, 4000)));
+        assertEquals(4000, table.map("svc", "172.16.0.1", 8080));
+        assertEquals(3000, table.map("svc", "172.16.0.2", 8080));
+        assertEquals(2000, table.map("other", "172.16.0.1", 8080));
+        assertEquals(1000, table.map("other", "172.16.0.2", 8080));
+    }
+
+    @Test
+    @DisplayName("同一作用域内应以配置顺序靠前的规则为准")
+    void firstRuleShouldWinWithinScope() {
+        PortMappingTable table = PortMappingTable.compile(Arrays.asList(
+                rule("svc", null, 8080, null, 30080),
+                rule("svc", null, 8000, 8100, 40000)));
+        assertEquals(30080, table.map("svc", "172.16.0.1", 8080));
+        assertEquals(40081, table.map("svc", "172.16.0.1", 8081));
+    }
+
+    @Test
+    @DisplayName("非法规则应在编译时抛出异常")
+    void invalidRuleShouldFailCompile() {
+        assertThrows(IllegalArgumentException.class, () -> PortMappingTable.compile(Collections.singletonList(
+                rule(null, null, 8080, 8000, 30000))));
+        assertThrows(IllegalArgumentException.class, () -> PortMappingTable.compile(Collections.singletonList(
+                rule(null, null, 8000, 8100, 65500))));
+        assertThrows(IllegalArgumentException.class, () -> PortMappingTable.compile(Collections.singletonList(
+                rule(null, null, null, null, 30000))));
+    }
+
+    private static NacosFallbackProperties.PortMappingRule rule(String serviceName, String ip, Integer port,
+                                                                Integer portEnd, Integer targetPort) {
+        NacosFallbackProperties.PortMappingRule rule = new NacosFallbackProperties.PortMappingRule();
+        rule.setServiceName(serviceName);
+        rule.setIp(ip);
+        rule.setPort(port);
+        rule.setPortEnd(portEnd);
+        rule.setTargetPort(targetPort);
+        return rule;
+    }
+}
@@ -0,0 +1,88 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ServiceFailureTracker 单元测试
+ */
+@DisplayName("ServiceFailureTracker 测试")
+class ServiceFailureTrackerTest {
+
+    private final ServiceFailureTracker tracker = new ServiceFailureTracker(3, 1000, 8000);
+
+    @Test
+    @DisplayName("未达到阈值时应继续放行")
+    void shouldAllowBelowThreshold() {
+        tracker.recordFailure("svc", 0);
+        tracker.recordFailure("svc", 0);
+        assertTrue(tracker.allowAttempt("svc", 0));
+        assertEquals(0, tracker.openCount());
+    }
+
+    @Test
+    @DisplayName("达到阈值后应熔断直至退避结束")
+    void shouldOpenAtThreshold() {
+        for (int i = 0; i < 3; i++) {
+            tracker.recordFailure("svc", 0);
+        }
+        assertFalse(tracker.allowAttempt("svc", 999));
+        assertEquals(1, tracker.remainingBackoffMs("svc", 0) / 1000);
+        assertTrue(tracker.allowAttempt("svc", 1000));
+        assertEquals(1, tracker.openCount());
+    }
+
+    @Test
+    @DisplayName("半开尝试失败后退避时间应翻倍且不超过上限")
+    void shouldDoubleBackoffUpToMax() {
+        for (int i = 0; i < 3; i++) {
+            tracker.recordFailure("svc", 0);
+        }
+        tracker.recordFailure("svc", 0);
+        assertEquals(2000, tracker.remainingBackoffMs("svc", 0));
+        tracker.recordFailure("svc", 0);
+        assertEquals(4000, tracker.remainingBackoffMs("svc", 0));
+        tracker.recordFailure("svc", 0);
+        tracker.recordFailure("svc", 0);
+        assertEquals(8000, tracker.remainingBackoffMs("svc", 0));
+        for (int i = 0; i < 40; i++) {
+            tracker.recordFailure("svc", 0);
+        }
+        assertEquals(8000, tracker.remainingBackoffMs("svc", 0));
+    }
+
+    @Test
+    @DisplayName("成功后应关闭熔断并清除失败计数")
+    void shouldCloseOnSuccess() {
+        for (int i = 0; i < 3; i++) {
+            tracker.recordFailure("svc", 0);
+        }
+        assertTrue(tracker.recordSuccess("svc"));
+        assertTrue(tracker.allowAttempt("svc", 0));
+        assertEquals(0, tracker.openCount());
+        assertEquals(1, tracker.recordFailure("svc", 0));
+    }
+
+    @Test
+    @DisplayName("未熔断的服务成功时应返回 false")
+    void successWithoutOpenCircuitShouldReturnFalse() {
+        assertFalse(tracker.recordSuccess("svc"));
+        tracker.recordFailure("svc", 0);
+        assertFalse(tracker.recordSuccess("svc"));
+    }
+
+    @Test
+    @DisplayName("各服务的失败状态应相互独立")
+    void servicesShouldBeIndependent() {
+        for (int i = 0; i < 3; i++) {
+            tracker.recordFailure("svc-a", 0);
+        }
+        assertFalse(tracker.allowAttempt("svc-a", 0));
+        assertTrue(tracker.allowAttempt("svc-b", 0));
+
+        tracker.forget("svc-a");
+        assertTrue(tracker.allowAttempt("svc-a", 0));
+    }
+}
@@ -0,0 +1,138 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ServiceNameFilter 单元测试
+ */
+@DisplayName("ServiceNameFilter 测试")
+class ServiceNameFilterTest {
+
+    @Test
+    @DisplayName("没有规则时应包含所有服务")
+    void shouldAcceptAllWithoutRules() {
+        ServiceNameFilter filter = ServiceNameFilter.compile(null, Collections.emptyList());
+        assertTrue(filter.isEmpty());
+        assertTrue(filter.accepts("any-service"));
+
+        List<String> services = Arrays.asList("a", "b");
+        assertSame(services, filter.filter(services));
+    }
+
+    @Test
+    @DisplayName("空白规则应被忽略")
+    void blankPatternsShouldBeIgnored() {
+        ServiceNameFilter filter = ServiceNameFilter.compile(Arrays.asList("", "  "), Collections.singletonList(" "));
+        assertTrue(filter.isEmpty());
+        assertTrue(filter.accepts("any-service"));
+    }
+
+    @Test
+    @DisplayName("应按服务名精确匹配")
+    void shouldMatchExactNames() {
+        ServiceNameFilter filter = ServiceNameFilter.compile(Arrays.asList("user-service", " order-service "), null);
+        assertTrue(filter.accepts("user-service"));
+        assertTrue(filter.accepts("order-service"));
+        assertFalse(filter.accepts("user-service-v2"));
+    }
+
+    @Test
+    @DisplayName("应按前缀 glob 匹配")
+    void shouldMatchPrefixGlobs() {
+        ServiceNameFilter filter = ServiceNameFilter.compile(Arrays.asList("user-*", "user-admin-*", "pay*"), null);
+        assertTrue(filter.accepts("user-"));
+        assertTrue(filter.accepts("user-service"));
+        assertTrue(filter.accepts("user-admin-api"));
+        assertTrue(filter.accepts("payment"));
+        assertFalse(filter.accepts("user"));
+        assertFalse(filter.accepts("order-service"));
+    }
+
+    @Test
+    @DisplayName("* 应匹配所有服务")
+    void starShouldMatchEverything() {
+        ServiceNameFilter filter = ServiceNameFilter.compile(Collections.singletonList("*"), null);
+        assertTrue(filter.accepts(""));
+        assertTrue(filter.accepts("any-service"));
+    }
+
+    @Test
+    @DisplayName("应按一般 glob 匹配且不把其他字符当作正则")
+    void shouldMatchGeneralGlobs() {
+        ServiceNameFilter filter = ServiceNameFilter.compile(Arrays.asList("*-service", "api.v?"), null);
+        assertTrue(filter.accepts("user-service"));
+        assertTrue(filter.accepts("api.v1"));
+        assertFalse(filter.accepts("apixv1"));
+        assertFalse(filter.accepts("api.v10"));
+        assertFalse(filter.accepts("user-service-v2"));
+    }
+
+    @Test
+    @DisplayName("应按正则匹配整个服务名")
+    void shouldMatchRegexAgainstWholeName() {
+        ServiceNameFilter filter = ServiceNameFilter.compile(Arrays.asList("regex:svc-\\d+", "regex:a|b"), null);
+        assertTrue(filter.accepts("svc-12"));
+        assertTrue(filter.accepts("a"));
+        assertTrue(filter.accepts("b"));
+        assertFalse(filter.accepts("svc-12x"));
+        assertFalse(filter.accepts("ab"));
+    }
+
+    @Test
+    @DisplayName("含反向引用或命名分组的正则应与其他规则一起生效，不受合并影响")
+    void backreferencesShouldNotBeRenumbered() {
+        ServiceNameFilter filter = ServiceNameFilter.compile(Arrays.asList(
+                "regex:(x)y", "regex:(a)\\1", "regex:(?<p>b)\\k<p>", "regex:(?<p>c)-\\k<p>", "*-service"), null);
+        assertTrue(filter.accepts("xy"));
+        assertTrue(filter.accepts("aa"));
+        assertTrue(filter.accepts("bb"));
+        assertTrue(filter.accepts("c-c"));
+        assertTrue(filter.accepts("user-service"));
+        assertFalse(filter.accepts("ax"));
+        assertFalse(filter.accepts("bc"));
+    }
+
+    @Test
+    @DisplayName("exclude 应优先于 include")
+    void excludeShouldWinOverInclude() {
+        ServiceNameFilter filter = ServiceNameFilter.compile(
+                Collections.singletonList("user-*"),
+                Arrays.asList("*-canary", "user-internal"));
+        assertTrue(filter.accepts("user-service"));
+        assertFalse(filter.accepts("user-service-canary"));
+        assertFalse(filter.accepts("user-internal"));
+        assertFalse(filter.accepts("order-service"));
+    }
+
+    @Test
+    @DisplayName("只有 exclude 时应包含其余所有服务")
+    void excludeOnlyShouldAcceptTheRest() {
+        ServiceNameFilter filter = ServiceNameFilter.compile(null, Collections.singletonList("regex:.*-canary"));
+        assertFalse(filter.isEmpty());
+        assertTrue(filter.accepts("user-service"));
+        assertFalse(filter.accepts("user-canary"));
+    }
+
+    @Test
+    @DisplayName("过滤列表时应保持原有顺序")
+    void filterShouldKeepOrder() {
+        ServiceNameFilter filter = ServiceNameFilter.compile(null, Collections.singletonList("b*"));
+        assertEquals(Arrays.asList("c", "a"), filter.filter(Arrays.asList("c", "b1", "a", "b2")));
+    }
+
+    @Test
+    @DisplayName("非法正则应在编译时抛出异常")
+    void invalidRegexShouldFailCompile() {
+        assertThrows(IllegalArgumentException.class, () -> ServiceNameFilter.compile(
+                Collections.singletonList("regex:svc-("), null));
+        assertThrows(IllegalArgumentException.class, () -> ServiceNameFilter.compile(
+                null, Collections.singletonList("regex:[a-")));
+    }
+}
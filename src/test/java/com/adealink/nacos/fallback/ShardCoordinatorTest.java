@@ -0,0 +1,260 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ShardCoordinator 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ShardCoordinator 测试")
+class ShardCoordinatorTest {
+
+    private static final String INSTANCE_ID = "node-a";
+    private static final String LEADER_SERVICE = "nacos-sync-leader";
+    private static final String GROUP = "DEFAULT_GROUP";
+
+    @Mock
+    private NacosFallbackServiceDiscovery discovery;
+
+    @Mock
+    private LeaderElection election;
+
+    @Mock
+    private NamingService localNamingService;
+
+    private NacosFallbackProperties properties;
+    private ShardCoordinator shards;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NacosFallbackProperties();
+        properties.setLeaderServiceName(LEADER_SERVICE);
+        properties.setLocalGroup(GROUP);
+        properties.setShardingEnabled(true);
+        shards = new ShardCoordinator(discovery, election, properties, INSTANCE_ID);
+        shards.start(localNamingService);
+    }
+
+    private Instance participant(String instanceId) {
+        Instance instance = new Instance();
+        instance.setIp("127.0.0.1");
+        instance.setPort(1);
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("instanceId", instanceId);
+        instance.setMetadata(metadata);
+        return instance;
+    }
+
+    private Instance participant(String instanceId, String shardEpoch) {
+        Instance instance = participant(instanceId);
+        instance.getMetadata().put("shard-epoch", shardEpoch);
+        return instance;
+    }
+
+    private List<String> services(int count) {
+        List<String> services = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            services.add("service-" + i);
+        }
+        return services;
+    }
+
+    @Nested
+    @DisplayName("分配测试")
+    class AssignmentTest {
+
+        @Test
+        @DisplayName("只有本节点时应分配全部服务")
+        void singleParticipantShouldOwnAllServices() throws Exception {
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true)).thenReturn(Collections.emptyList());
+
+            List<String> owned = shards.filterOwned(services(20));
+
+            assertEquals(20, owned.size());
+            assertEquals(Collections.singleton(INSTANCE_ID), shards.participants());
+            assertTrue(shards.owns("service-0"));
+            verify(discovery).recordRpc(eq(SyncMetrics.TARGET_LOCAL), eq("selectInstances"), anyLong());
+        }
+
+        @Test
+        @DisplayName("多个参与者时应只分配本节点负责的服务")
+        void shouldFilterServicesOwnedByOthers() throws Exception {
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenReturn(Arrays.asList(participant(INSTANCE_ID), participant("node-b")));
+
+            List<String> all = services(50);
+            List<String> owned = shards.filterOwned(all);
+
+            assertTrue(owned.size() > 0 && owned.size() < all.size());
+            for (String serviceName : all) {
+                assertEquals(owned.contains(serviceName), shards.owns(serviceName));
+            }
+        }
+
+        @Test
+        @DisplayName("读取参与者失败时应沿用上一次的环，此前没有环时抛出异常")
+        void refreshShouldKeepPreviousRingOnFailure() throws Exception {
+            NacosException failure = new NacosException(NacosException.SERVER_ERROR, "timeout");
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenThrow(failure)
+                    .thenReturn(Arrays.asList(participant(INSTANCE_ID), participant("node-b")))
+                    .thenThrow(failure);
+
+            assertThrows(NacosException.class, shards::refresh);
+            ConsistentHashRing ring = shards.refresh();
+
+            assertSame(ring, shards.refresh());
+            assertEquals(new HashSet<>(Arrays.asList(INSTANCE_ID, "node-b")), shards.participants());
+        }
+
+        @Test
+        @DisplayName("推送的参与者与当前环不一致时才需要再平衡")
+        void shouldDetectRebalance() throws Exception {
+            assertFalse(shards.isRebalanceNeeded(Collections.singletonList(participant("node-b"))));
+
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenReturn(Collections.singletonList(participant("node-b")));
+            shards.refresh();
+
+            assertFalse(shards.isRebalanceNeeded(Arrays.asList(participant("node-b"), participant(INSTANCE_ID))));
+            assertTrue(shards.isRebalanceNeeded(Collections.emptyList()));
+            assertTrue(shards.isRebalanceNeeded(Arrays.asList(participant("node-b"), participant("node-c"))));
+        }
+
+        @Test
+        @DisplayName("重置后应丢弃环")
+        void resetShouldDropRing() throws Exception {
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true)).thenReturn(Collections.emptyList());
+            shards.refresh();
+
+            shards.reset();
+
+            assertTrue(shards.participants().isEmpty());
+            assertFalse(shards.owns("service-0"));
+        }
+    }
+
+    @Nested
+    @DisplayName("释放服务测试")
+    class ReleasedServiceTest {
+
+        private List<String> all;
+        private List<String> owned;
+        private String released;
+
+        @BeforeEach
+        void rebalance() throws Exception {
+            properties.setSyncIntervalSeconds(3600);
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenReturn(Arrays.asList(participant(INSTANCE_ID), participant("node-b")));
+            all = services(50);
+            owned = shards.filterOwned(all);
+            released = all.stream().filter(s -> !owned.contains(s)).findFirst().orElseThrow(IllegalStateException::new);
+        }
+
+        @Test
+        @DisplayName("新负责节点公布当前纪元前应继续保留释放的服务，且不逐个服务回读")
+        void shouldRetainUntilNewOwnerSynced() throws Exception {
+            String epoch = shards.refresh().getEpoch();
+            String newOwner = "node-b";
+            Set<String> previous = Collections.singleton(released);
+
+            assertEquals(previous, shards.retainReleased(previous, all, owned));
+
+            // 公布的是上一个纪元时仍然保留
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenReturn(Arrays.asList(participant(INSTANCE_ID), participant(newOwner, "stale")));
+            shards.refresh();
+            assertEquals(previous, shards.retainReleased(previous, all, owned));
+
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenReturn(Arrays.asList(participant(INSTANCE_ID), participant(newOwner, epoch)));
+            shards.refresh();
+            assertTrue(shards.retainReleased(previous, all, owned).isEmpty());
+
+            verify(localNamingService, never()).getAllInstances(anyString(), anyString(), anyBoolean());
+        }
+
+        @Test
+        @DisplayName("不再需要同步或重新分配回本节点的服务不应保留")
+        void shouldNotRetainServicesNoLongerReleased() {
+            Set<String> previous = new HashSet<>(Arrays.asList(released, owned.get(0)));
+
+            assertTrue(shards.retainReleased(previous, owned, owned).isEmpty());
+        }
+
+        @Test
+        @DisplayName("超过一个同步间隔仍未公布时不再等待")
+        void shouldStopRetainingAfterGracePeriod() throws Exception {
+            properties.setSyncIntervalSeconds(0);
+
+            Set<String> previous = Collections.singleton(released);
+            assertTrue(shards.retainReleased(previous, all, owned).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("公布纪元测试")
+    class AnnounceTest {
+
+        @Test
+        @DisplayName("完成同步后应公布本轮哈希环的纪元，同一纪元只公布一次")
+        void shouldAnnounceEachEpochOnce() throws Exception {
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true))
+                    .thenReturn(Collections.emptyList())
+                    .thenReturn(Collections.singletonList(participant("node-b")));
+            when(election.announceShardEpoch(anyString())).thenReturn(true);
+
+            shards.filterOwned(services(10));
+            shards.announceSynced();
+            shards.announceSynced();
+
+            verify(election, times(1)).announceShardEpoch(anyString());
+
+            // 参与者变化后的下一轮同步结束时公布新纪元
+            shards.filterOwned(services(10));
+            shards.announceSynced();
+
+            ArgumentCaptor<String> epochCaptor = ArgumentCaptor.forClass(String.class);
+            verify(election, times(2)).announceShardEpoch(epochCaptor.capture());
+            int virtualNodes = properties.getShardVirtualNodes();
+            assertEquals(Arrays.asList(
+                    ConsistentHashRing.of(Collections.singleton(INSTANCE_ID), virtualNodes).getEpoch(),
+                    ConsistentHashRing.of(Arrays.asList(INSTANCE_ID, "node-b"), virtualNodes).getEpoch()
+            ), epochCaptor.getAllValues());
+        }
+
+        @Test
+        @DisplayName("公布失败时应在下一轮同步后重试，尚未分配服务时不公布")
+        void shouldRetryFailedAnnouncement() throws Exception {
+            shards.announceSynced();
+            verifyNoInteractions(election);
+
+            when(localNamingService.selectInstances(LEADER_SERVICE, GROUP, true)).thenReturn(Collections.emptyList());
+            when(election.announceShardEpoch(anyString())).thenReturn(false).thenReturn(true);
+
+            shards.filterOwned(services(10));
+            shards.announceSynced();
+            shards.announceSynced();
+            shards.announceSynced();
+
+            verify(election, times(2)).announceShardEpoch(anyString());
+        }
+    }
+}
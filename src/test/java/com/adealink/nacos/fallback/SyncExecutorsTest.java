@@ -0,0 +1,88 @@
+package com.adealink.nacos.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SyncExecutors 单元测试
+ */
+@DisplayName("SyncExecutors 测试")
+class SyncExecutorsTest {
+
+    @Test
+    @DisplayName("平台线程且并发度为 1 时不应创建线程池")
+    void platformWithParallelismOneShouldReturnNull() {
+        assertNull(SyncExecutors.create(NacosFallbackProperties.ExecutorType.PLATFORM, 1));
+    }
+
+    @Test
+    @DisplayName("平台线程且并发度大于 1 时应创建固定大小线程池")
+    void platformWithParallelismShouldCreatePool() throws Exception {
+        ExecutorService executor = SyncExecutors.create(NacosFallbackProperties.ExecutorType.PLATFORM, 4);
+        try {
+            assertNotNull(executor);
+            assertTrue(executor.submit(() -> Thread.currentThread().getName()).get()
+                    .startsWith(SyncExecutors.THREAD_NAME_PREFIX));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("按需同步线程池在并发度为 1 时也应创建独立的守护线程")
+    void onDemandShouldAlwaysCreatePool() throws Exception {
+        ExecutorService executor = SyncExecutors.createOnDemand(1);
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get();
+            assertTrue(thread.getName().startsWith(SyncExecutors.ON_DEMAND_THREAD_NAME_PREFIX));
+            assertTrue(thread.isDaemon());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("虚拟线程模式应始终创建执行器（不支持时回退为平台线程）")
+    void virtualShouldAlwaysCreateExecutor() throws Exception {
+        ExecutorService executor = SyncExecutors.create(NacosFallbackProperties.ExecutorType.VIRTUAL, 4);
+        try {
+            assertNotNull(executor);
+            assertEquals("ok", executor.submit(() -> "ok").get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("有界执行器应限制同时在途任务数")
+    void boundedExecutorShouldLimitInFlightTasks() throws Exception {
+        ExecutorService executor = new SyncExecutors.BoundedExecutorService(Executors.newCachedThreadPool(), 2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                tasks.add(() -> {
+                    int current = inFlight.incrementAndGet();
+                    maxInFlight.accumulateAndGet(current, Math::max);
+                    Thread.sleep(20);
+                    inFlight.decrementAndGet();
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            assertTrue(maxInFlight.get() <= 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.adealink.nacos.fallback;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SyncSnapshotStore 单元测试
+ */
+@DisplayName("SyncSnapshotStore 测试")
+class SyncSnapshotStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("写入后应能完整读回")
+    void shouldRoundTrip() throws Exception {
+        SyncSnapshotStore store = new SyncSnapshotStore(tempDir.resolve("snapshot.bin"));
+        Instance instance = createInstance("172.16.0.1", 8080);
+        instance.setWeight(0.5);
+        instance.setClusterName("GRAY");
+        instance.getMetadata().put("long", String.join("", Collections.nCopies(70000, "x")));
+
+        Map<String, List<Instance>> view = new HashMap<>();
+        view.put("service-a", Arrays.asList(instance, createInstance("172.16.0.2", 9090)));
+        view.put("service-b", Collections.singletonList(createInstance("172.16.0.3", 8080)));
+        store.save(view);
+
+        Map<String, List<Instance>> loaded = store.load();
+        assertEquals(2, loaded.size());
+        assertEquals(2, loaded.get("service-a").size());
+        Instance loadedInstance = loaded.get("service-a").get(0);
+        assertEquals("172.16.0.1", loadedInstance.getIp());
+        assertEquals(8080, loadedInstance.getPort());
+        assertEquals(0.5, loadedInstance.getWeight());
+        assertEquals("GRAY", loadedInstance.getClusterName());
+        assertEquals("1.0.0", loadedInstance.getMetadata().get("version"));
+        assertEquals(70000, loadedInstance.getMetadata().get("long").length());
+        assertEquals("service-a", loadedInstance.getServiceName());
+    }
+
+    @Test
+    @DisplayName("文件不存在时应返回空视图")
+    void shouldReturnEmptyWhenFileMissing() throws Exception {
+        assertTrue(new SyncSnapshotStore(tempDir.resolve("missing.bin")).load().isEmpty());
+    }
+
+    @Test
+    @DisplayName("覆盖写入时不应残留临时文件")
+    void shouldReplaceAtomically() throws Exception {
+        Path path = tempDir.resolve("snapshot.bin");
+        SyncSnapshotStore store = new SyncSnapshotStore(path);
+        store.save(Collections.singletonMap("service-a", Collections.singletonList(createInstance("172.16.0.1", 8080))));
+        store.save(Collections.singletonMap("service-b", Collections.singletonList(createInstance("172.16.0.2", 8080))));
+
+        assertEquals(Collections.singleton("service-b"), store.load().keySet());
+        try (java.util.stream.Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("应自动创建父目录")
+    void shouldCreateParentDirectories() throws Exception {
+        SyncSnapshotStore store = new SyncSnapshotStore(tempDir.resolve("a/b/snapshot.bin"));
+        store.save(Collections.singletonMap("service-a", Collections.singletonList(createInstance("172.16.0.1", 8080))));
+        assertEquals(1, store.load().size());
+    }
+
+    @Test
+    @DisplayName("非快照文件应抛出异常")
+    void shouldRejectForeignFile() throws Exception {
+        Path path = tempDir.resolve("snapshot.bin");
+        Files.write(path, "not a snapshot file".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> new SyncSnapshotStore(path).load());
+    }
+
+    @Test
+    @DisplayName("截断的文件应抛出异常")
+    void shouldRejectTruncatedFile() throws Exception {
+        Path path = tempDir.resolve("snapshot.bin");
+        SyncSnapshotStore store = new SyncSnapshotStore(path);
+        store.save(Collections.singletonMap("service-a", Collections.singletonList(createInstance("172.16.0.1", 8080))));
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+        assertThrows(IOException.class, store::load);
+    }
+
+    private Instance createInstance(String ip, int port) {
+        Instance instance = new Instance();
+        instance.setIp(ip);
+        instance.setPort(port);
+        instance.setHealthy(true);
+        instance.setEnabled(true);
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("version", "1.0.0");
+        instance.setMetadata(metadata);
+        return instance;
+    }
+}